@@ -14,8 +14,12 @@
 
 package com.saasovation.collaboration.application.calendar;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.Date;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Set;
 
 import com.saasovation.collaboration.domain.model.calendar.Alarm;
@@ -32,15 +36,26 @@ import com.saasovation.collaboration.domain.model.tenant.Tenant;
 
 public class CalendarEntryApplicationService {
 
+    private static final Comparator<TimeSpan> BY_BEGINS =
+            new Comparator<TimeSpan>() {
+                @Override
+                public int compare(TimeSpan aTimeSpan1, TimeSpan aTimeSpan2) {
+                    return aTimeSpan1.begins().compareTo(aTimeSpan2.begins());
+                }
+            };
+
+    private CalendarEntryQueryService calendarEntryQueryService;
     private CalendarEntryRepository calendarEntryRepository;
     private CollaboratorService collaboratorService;
 
     public CalendarEntryApplicationService(
             CalendarEntryRepository aCalendarEntryRepository,
-            CollaboratorService aCollaboratorService) {
+            CollaboratorService aCollaboratorService,
+            CalendarEntryQueryService aCalendarEntryQueryService) {
 
         super();
 
+        this.calendarEntryQueryService = aCalendarEntryQueryService;
         this.calendarEntryRepository = aCalendarEntryRepository;
         this.collaboratorService = aCollaboratorService;
     }
@@ -63,6 +78,48 @@ public class CalendarEntryApplicationService {
         this.calendarEntryRepository().save(calendarEntry);
     }
 
+    public Date firstCommonFreeTime(
+            String aTenantId,
+            Set<String> aParticipantIds,
+            Date aSearchBegins,
+            Date aSearchEnds,
+            long aDurationInMillis) {
+
+        if (aDurationInMillis <= 0) {
+            throw new IllegalArgumentException("The duration must be greater than zero.");
+        }
+
+        List<TimeSpan> busyTimeSpans = new ArrayList<TimeSpan>();
+
+        for (String participantId : aParticipantIds) {
+            busyTimeSpans.addAll(
+                    this.calendarEntryQueryService()
+                        .participantFreeBusyOf(aTenantId, participantId)
+                        .busyTimeSpansWithin(aSearchBegins, aSearchEnds));
+        }
+
+        Collections.sort(busyTimeSpans, BY_BEGINS);
+
+        // sweep the busy times in order: the first gap between the
+        // latest end so far and the next begins that is long enough
+
+        long freeBegins = aSearchBegins.getTime();
+
+        for (TimeSpan busyTimeSpan : busyTimeSpans) {
+            if (busyTimeSpan.begins().getTime() - freeBegins >= aDurationInMillis) {
+                return new Date(freeBegins);
+            }
+
+            freeBegins = Math.max(freeBegins, busyTimeSpan.ends().getTime());
+        }
+
+        if (aSearchEnds.getTime() - freeBegins >= aDurationInMillis) {
+            return new Date(freeBegins);
+        }
+
+        return null;
+    }
+
     public void inviteCalendarEntryParticipant(
             String aTenantId,
             String aCalendarEntryId,
@@ -83,6 +140,17 @@ public class CalendarEntryApplicationService {
         this.calendarEntryRepository().save(calendarEntry);
     }
 
+    public boolean isParticipantBusy(
+            String aTenantId,
+            String aParticipantId,
+            Date aTimeSpanBegins,
+            Date aTimeSpanEnds) {
+
+        return this.calendarEntryQueryService()
+                    .participantFreeBusyOf(aTenantId, aParticipantId)
+                    .isBusyWithin(aTimeSpanBegins, aTimeSpanEnds);
+    }
+
     public void relocateCalendarEntry(
             String aTenantId,
             String aCalendarEntryId,
@@ -151,6 +219,10 @@ public class CalendarEntryApplicationService {
         this.calendarEntryRepository().save(calendarEntry);
     }
 
+    private CalendarEntryQueryService calendarEntryQueryService() {
+        return this.calendarEntryQueryService;
+    }
+
     private CalendarEntryRepository calendarEntryRepository() {
         return this.calendarEntryRepository;
     }
@@ -0,0 +1,130 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.Date;
+import java.util.Iterator;
+
+import com.saasovation.collaboration.domain.model.calendar.OccurrenceExpansion;
+import com.saasovation.collaboration.domain.model.calendar.RepeatType;
+import com.saasovation.collaboration.domain.model.calendar.Repetition;
+import com.saasovation.collaboration.domain.model.calendar.TimeSpan;
+
+/**
+ * I am the time span and repetition of one calendar entry, as held
+ * by a CalendarEntryIntervalTree. A repeating entry is indexed over
+ * the envelope of all its occurrences, and its occurrences are only
+ * expanded, lazily, within the window being queried.
+ */
+public class CalendarEntryInterval {
+
+    private String calendarEntryId;
+    private Date repetitionEnds;
+    private String repetitionType;
+    private Date timeSpanBegins;
+    private Date timeSpanEnds;
+
+    public CalendarEntryInterval(
+            String aCalendarEntryId,
+            Date aTimeSpanBegins,
+            Date aTimeSpanEnds,
+            RepeatType aRepeatType,
+            Date aRepetitionEnds) {
+
+        this();
+
+        this.calendarEntryId = aCalendarEntryId;
+        this.repetitionEnds = aRepetitionEnds;
+        this.repetitionType = aRepeatType.name();
+        this.timeSpanBegins = aTimeSpanBegins;
+        this.timeSpanEnds = aTimeSpanEnds;
+    }
+
+    public String calendarEntryId() {
+        return this.calendarEntryId;
+    }
+
+    public long envelopeBegins() {
+        return this.timeSpanBegins.getTime();
+    }
+
+    public long envelopeEnds() {
+        long envelopeEnds = this.timeSpanEnds.getTime();
+
+        if (!this.repeatType().isDoesNotRepeat()) {
+            long lastOccurrenceEnds = this.repetitionEnds.getTime() + this.duration();
+
+            if (lastOccurrenceEnds > envelopeEnds) {
+                envelopeEnds = lastOccurrenceEnds;
+            }
+        }
+
+        return envelopeEnds;
+    }
+
+    public Iterator<TimeSpan> occurrencesWithin(long aBegins, long anEnds) {
+        OccurrenceExpansion expansion =
+                new OccurrenceExpansion(
+                        new TimeSpan(this.timeSpanBegins, this.timeSpanEnds),
+                        new Repetition(this.repeatType(), this.repetitionEnds));
+
+        return expansion.occurrencesWithin(new TimeSpan(new Date(aBegins), new Date(anEnds)));
+    }
+
+    public boolean occursWithin(long aBegins, long anEnds) {
+
+        // the window is half-open, as are free/busy queries, so an
+        // entry ending as the window begins does not occur within it
+
+        if (this.envelopeBegins() >= anEnds || this.envelopeEnds() <= aBegins) {
+            return false;
+        }
+
+        if (this.repeatType().isDoesNotRepeat()) {
+            return true;
+        }
+
+        Iterator<TimeSpan> occurrences = this.occurrencesWithin(aBegins, anEnds);
+
+        while (occurrences.hasNext()) {
+            TimeSpan occurrence = occurrences.next();
+
+            if (occurrence.begins().getTime() < anEnds && occurrence.ends().getTime() > aBegins) {
+                return true;
+            }
+        }
+
+        return false;
+    }
+
+    public RepeatType repeatType() {
+        return RepeatType.valueOf(this.repetitionType);
+    }
+
+    @Override
+    public String toString() {
+        return "CalendarEntryInterval [calendarEntryId=" + calendarEntryId
+                + ", timeSpanBegins=" + timeSpanBegins + ", timeSpanEnds=" + timeSpanEnds
+                + ", repetitionType=" + repetitionType + ", repetitionEnds=" + repetitionEnds + "]";
+    }
+
+    protected CalendarEntryInterval() {
+        super();
+    }
+
+    private long duration() {
+        return this.timeSpanEnds.getTime() - this.timeSpanBegins.getTime();
+    }
+}
@@ -0,0 +1,127 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * I hold a CalendarEntryIntervalTree for each calendar that has been
+ * queried. A tree is loaded from the view the first time its calendar
+ * is queried, and is then kept current by the projection of calendar
+ * entry events. At most a maximum number of trees are held, those
+ * least recently queried being dropped and loaded again when needed.
+ */
+public class CalendarEntryIntervalIndex {
+
+    private AtomicLong changes;
+    private int maximumTrees;
+    private Map<String, CalendarEntryIntervalTree> trees;
+
+    public CalendarEntryIntervalIndex(int aMaximumTrees) {
+        super();
+
+        if (aMaximumTrees <= 0) {
+            throw new IllegalArgumentException("The maximum trees must be greater than zero.");
+        }
+
+        this.changes = new AtomicLong();
+        this.maximumTrees = aMaximumTrees;
+
+        this.trees =
+                new LinkedHashMap<String, CalendarEntryIntervalTree>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CalendarEntryIntervalTree> anEldest) {
+                        return this.size() > maximumTrees();
+                    }
+                };
+    }
+
+    public long changes() {
+        return this.changes.get();
+    }
+
+    public synchronized void clear() {
+        this.changes.incrementAndGet();
+
+        this.trees.clear();
+    }
+
+    public synchronized void index(
+            String aTenantId,
+            String aCalendarId,
+            CalendarEntryInterval aCalendarEntryInterval) {
+
+        this.changes.incrementAndGet();
+
+        // only calendars already loaded are kept current; others
+        // are loaded with this entry when first queried
+
+        CalendarEntryIntervalTree tree = this.treeOf(aTenantId, aCalendarId);
+
+        if (tree != null) {
+            tree.index(aCalendarEntryInterval);
+        }
+    }
+
+    public synchronized CalendarEntryIntervalTree treeOf(String aTenantId, String aCalendarId) {
+        return this.trees.get(this.keyOf(aTenantId, aCalendarId));
+    }
+
+    public CalendarEntryIntervalTree treeOf(
+            String aTenantId,
+            String aCalendarId,
+            Collection<CalendarEntryInterval> aLoadedIntervals,
+            long aChangesBeforeLoad) {
+
+        CalendarEntryIntervalTree tree = new CalendarEntryIntervalTree();
+
+        for (CalendarEntryInterval interval : aLoadedIntervals) {
+            tree.index(interval);
+        }
+
+        // an entry indexed while the intervals were being loaded
+        // may be missing from them, so the tree is then used for
+        // the one query only and loaded again next time
+
+        synchronized (this) {
+            if (aChangesBeforeLoad == this.changes()) {
+                String treeKey = this.keyOf(aTenantId, aCalendarId);
+
+                CalendarEntryIntervalTree existingTree = this.trees.get(treeKey);
+
+                if (existingTree != null) {
+                    tree = existingTree;
+                } else {
+                    this.trees.put(treeKey, tree);
+                }
+            }
+        }
+
+        return tree;
+    }
+
+    private String keyOf(String aTenantId, String aCalendarId) {
+        return aTenantId + ":" + aCalendarId;
+    }
+
+    private int maximumTrees() {
+        return this.maximumTrees;
+    }
+}
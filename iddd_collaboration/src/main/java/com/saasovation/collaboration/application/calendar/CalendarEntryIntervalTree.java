@@ -0,0 +1,237 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * I am an interval tree of the CalendarEntryIntervals of one calendar.
+ * I am a height balanced binary tree ordered by envelope begins, and
+ * each node knows the latest envelope end beneath it, so that finding
+ * the k entries overlapping a window takes O(log n + k).
+ */
+public class CalendarEntryIntervalTree {
+
+    private Map<String, CalendarEntryInterval> intervals;
+    private Node root;
+
+    public CalendarEntryIntervalTree() {
+        super();
+
+        this.intervals = new HashMap<String, CalendarEntryInterval>();
+    }
+
+    public synchronized List<String> calendarEntryIdsOccurringWithin(Date aBegins, Date anEnds) {
+        List<String> calendarEntryIds = new ArrayList<String>();
+
+        this.collectOccurringWithin(
+                this.root,
+                aBegins.getTime(),
+                anEnds.getTime(),
+                calendarEntryIds);
+
+        return calendarEntryIds;
+    }
+
+    public synchronized void index(CalendarEntryInterval aCalendarEntryInterval) {
+        CalendarEntryInterval replaced =
+                this.intervals.put(
+                        aCalendarEntryInterval.calendarEntryId(),
+                        aCalendarEntryInterval);
+
+        if (replaced != null) {
+            this.root = this.remove(this.root, replaced);
+        }
+
+        this.root = this.insert(this.root, aCalendarEntryInterval);
+    }
+
+    public synchronized int size() {
+        return this.intervals.size();
+    }
+
+    private Node balance(Node aNode) {
+        aNode.update();
+
+        int balance = Node.heightOf(aNode.left) - Node.heightOf(aNode.right);
+
+        if (balance > 1) {
+            if (Node.heightOf(aNode.left.left) < Node.heightOf(aNode.left.right)) {
+                aNode.left = this.rotateLeft(aNode.left);
+            }
+
+            return this.rotateRight(aNode);
+
+        } else if (balance < -1) {
+            if (Node.heightOf(aNode.right.right) < Node.heightOf(aNode.right.left)) {
+                aNode.right = this.rotateRight(aNode.right);
+            }
+
+            return this.rotateLeft(aNode);
+        }
+
+        return aNode;
+    }
+
+    private void collectOccurringWithin(
+            Node aNode,
+            long aBegins,
+            long anEnds,
+            List<String> aCalendarEntryIds) {
+
+        if (aNode == null || aNode.maximumEnds <= aBegins) {
+            return;
+        }
+
+        this.collectOccurringWithin(aNode.left, aBegins, anEnds, aCalendarEntryIds);
+
+        if (aNode.begins >= anEnds) {
+            return; // and so does everything to the right
+        }
+
+        if (aNode.ends > aBegins && aNode.interval.occursWithin(aBegins, anEnds)) {
+            aCalendarEntryIds.add(aNode.interval.calendarEntryId());
+        }
+
+        this.collectOccurringWithin(aNode.right, aBegins, anEnds, aCalendarEntryIds);
+    }
+
+    private Node insert(Node aNode, CalendarEntryInterval anInterval) {
+        if (aNode == null) {
+            return new Node(anInterval);
+        }
+
+        if (Node.compare(anInterval, aNode.interval) < 0) {
+            aNode.left = this.insert(aNode.left, anInterval);
+        } else {
+            aNode.right = this.insert(aNode.right, anInterval);
+        }
+
+        return this.balance(aNode);
+    }
+
+    private Node remove(Node aNode, CalendarEntryInterval anInterval) {
+        if (aNode == null) {
+            return null;
+        }
+
+        int comparison = Node.compare(anInterval, aNode.interval);
+
+        if (comparison < 0) {
+            aNode.left = this.remove(aNode.left, anInterval);
+        } else if (comparison > 0) {
+            aNode.right = this.remove(aNode.right, anInterval);
+        } else {
+            if (aNode.left == null) {
+                return aNode.right;
+            } else if (aNode.right == null) {
+                return aNode.left;
+            }
+
+            Node successor = aNode.right;
+
+            while (successor.left != null) {
+                successor = successor.left;
+            }
+
+            aNode.right = this.remove(aNode.right, successor.interval);
+
+            aNode.assign(successor.interval);
+        }
+
+        return this.balance(aNode);
+    }
+
+    private Node rotateLeft(Node aNode) {
+        Node pivot = aNode.right;
+
+        aNode.right = pivot.left;
+        pivot.left = aNode;
+
+        aNode.update();
+        pivot.update();
+
+        return pivot;
+    }
+
+    private Node rotateRight(Node aNode) {
+        Node pivot = aNode.left;
+
+        aNode.left = pivot.right;
+        pivot.right = aNode;
+
+        aNode.update();
+        pivot.update();
+
+        return pivot;
+    }
+
+    private static class Node {
+
+        long begins;
+        long ends;
+        int height;
+        CalendarEntryInterval interval;
+        Node left;
+        long maximumEnds;
+        Node right;
+
+        static int compare(CalendarEntryInterval anInterval, CalendarEntryInterval anotherInterval) {
+            long begins = anInterval.envelopeBegins();
+            long otherBegins = anotherInterval.envelopeBegins();
+
+            if (begins != otherBegins) {
+                return begins < otherBegins ? -1 : 1;
+            }
+
+            return anInterval.calendarEntryId().compareTo(anotherInterval.calendarEntryId());
+        }
+
+        static int heightOf(Node aNode) {
+            return aNode == null ? 0 : aNode.height;
+        }
+
+        Node(CalendarEntryInterval anInterval) {
+            super();
+
+            this.assign(anInterval);
+            this.update();
+        }
+
+        void assign(CalendarEntryInterval anInterval) {
+            this.begins = anInterval.envelopeBegins();
+            this.ends = anInterval.envelopeEnds();
+            this.interval = anInterval;
+        }
+
+        void update() {
+            this.height = 1 + Math.max(heightOf(this.left), heightOf(this.right));
+
+            this.maximumEnds = this.ends;
+
+            if (this.left != null && this.left.maximumEnds > this.maximumEnds) {
+                this.maximumEnds = this.left.maximumEnds;
+            }
+
+            if (this.right != null && this.right.maximumEnds > this.maximumEnds) {
+                this.maximumEnds = this.right.maximumEnds;
+            }
+        }
+    }
+}
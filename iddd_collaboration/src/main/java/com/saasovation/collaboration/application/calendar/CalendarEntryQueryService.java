@@ -14,23 +14,74 @@
 
 package com.saasovation.collaboration.application.calendar;
 
+import java.sql.Timestamp;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.List;
 
 import javax.sql.DataSource;
 
 import com.saasovation.collaboration.application.calendar.data.CalendarEntryData;
 import com.saasovation.common.port.adapter.persistence.AbstractQueryService;
 import com.saasovation.common.port.adapter.persistence.JoinOn;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
+import com.saasovation.common.port.adapter.persistence.QueryResultHandler;
 
 public class CalendarEntryQueryService extends AbstractQueryService {
 
-    public CalendarEntryQueryService(DataSource aDataSource) {
-        super(aDataSource);
+    private static final String CALENDAR_ENTRIES_PAGE_QUERY =
+            "select "
+            +  "entry.calendar_entry_id, entry.alarm_alarm_units, entry.alarm_alarm_units_type, "
+            +  "entry.calendar_id, entry.description, entry.location, "
+            +  "entry.owner_email_address, entry.owner_identity, entry.owner_name, "
+            +  "entry.repetition_ends, entry.repetition_type, entry.tenant_id, "
+            +  "entry.time_span_begins, entry.time_span_ends, "
+            +  "invitee.calendar_entry_id as o_invitees_calendar_entry_id, "
+            +  "invitee.participant_email_address as o_invitees_participant_email_address, "
+            +  "invitee.participant_identity as o_invitees_participant_identity, "
+            +  "invitee.participant_name as o_invitees_participant_name, "
+            +  "invitee.tenant_id as o_invitees_tenant_id "
+            + "from ("
+            +  "select * from tbl_vw_calendar_entry "
+            +  "where tenant_id = ? and calendar_id = ? and "
+            +   "(time_span_begins > ? or (time_span_begins = ? and calendar_entry_id > ?)) "
+            +  "order by time_span_begins, calendar_entry_id "
+            +  "limit ?"
+            + ") as entry left outer join tbl_vw_calendar_entry_invitee as invitee "
+            + " on entry.calendar_entry_id = invitee.calendar_entry_id "
+            + "order by entry.time_span_begins, entry.calendar_entry_id";
+
+    private static final int MAXIMUM_IDS_PER_QUERY = 500;
+
+    private static final int STREAMED_PAGE_SIZE = 200;
+
+    private CalendarEntryIntervalIndex calendarEntryIntervalIndex;
+    private ParticipantFreeBusyIndex participantFreeBusyIndex;
+
+    public static String calendarEntryCacheTag(String aTenantId, String aCalendarEntryId) {
+        return QueryCache.tagOf("calendarEntry", aTenantId, aCalendarEntryId);
+    }
+
+    public static String entriesOfCalendarCacheTag(String aTenantId, String aCalendarId) {
+        return QueryCache.tagOf("entriesOfCalendar", aTenantId, aCalendarId);
+    }
+
+    public CalendarEntryQueryService(
+            DataSource aDataSource,
+            QueryCache aQueryCache,
+            CalendarEntryIntervalIndex aCalendarEntryIntervalIndex,
+            ParticipantFreeBusyIndex aParticipantFreeBusyIndex) {
+
+        super(aDataSource, aQueryCache);
+
+        this.calendarEntryIntervalIndex = aCalendarEntryIntervalIndex;
+        this.participantFreeBusyIndex = aParticipantFreeBusyIndex;
     }
 
     public CalendarEntryData calendarEntryDataOfId(String aTenantId, String aCalendarEntryId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                calendarEntryCacheTag(aTenantId, aCalendarEntryId),
                 CalendarEntryData.class,
                 "select "
                 +  "entry.calendar_entry_id, entry.alarm_alarm_units, entry.alarm_alarm_units_type, "
@@ -55,7 +106,8 @@ public class CalendarEntryQueryService extends AbstractQueryService {
             String aTenantId,
             String aCalendarId) {
 
-        return this.queryObjects(
+        return this.cachedQueryObjects(
+                entriesOfCalendarCacheTag(aTenantId, aCalendarId),
                 CalendarEntryData.class,
                 "select "
                 +  "entry.calendar_entry_id, entry.alarm_alarm_units, entry.alarm_alarm_units_type, "
@@ -76,12 +128,159 @@ public class CalendarEntryQueryService extends AbstractQueryService {
                 aCalendarId);
     }
 
+    public Collection<CalendarEntryData> calendarEntryDataOfCalendarId(
+            String aTenantId,
+            String aCalendarId,
+            int aMaximumEntries) {
+
+        return this.calendarEntryDataOfCalendarId(
+                aTenantId,
+                aCalendarId,
+                new Date(0),
+                "",
+                aMaximumEntries);
+    }
+
+    public Collection<CalendarEntryData> calendarEntryDataOfCalendarId(
+            String aTenantId,
+            String aCalendarId,
+            Date aTimeSpanBeginsAfter,
+            String aCalendarEntryIdAfter,
+            int aMaximumEntries) {
+
+        // the entries page continues after the last entry of the
+        // previous page, by its (time_span_begins, calendar_entry_id)
+        // position; the limit applies to entries, not invitee rows
+
+        if (aMaximumEntries <= 0) {
+            throw new IllegalArgumentException("The maximum entries must be greater than zero.");
+        }
+
+        Timestamp timeSpanBeginsAfter = new Timestamp(aTimeSpanBeginsAfter.getTime());
+
+        return this.cachedQueryObjects(
+                entriesOfCalendarCacheTag(aTenantId, aCalendarId),
+                CalendarEntryData.class,
+                CALENDAR_ENTRIES_PAGE_QUERY,
+                new JoinOn("calendar_entry_id", "o_invitees_calendar_entry_id"),
+                aTenantId,
+                aCalendarId,
+                timeSpanBeginsAfter,
+                timeSpanBeginsAfter,
+                aCalendarEntryIdAfter,
+                aMaximumEntries);
+    }
+
+    public void calendarEntryDataOfCalendarId(
+            String aTenantId,
+            String aCalendarId,
+            QueryResultHandler<CalendarEntryData> aCalendarEntryDataHandler) {
+
+        // only one page of entries is held at a time, however
+        // large the calendar
+
+        Date timeSpanBeginsAfter = new Date(0);
+        String calendarEntryIdAfter = "";
+
+        Collection<CalendarEntryData> entries = null;
+
+        do {
+            entries = this.queryObjects(
+                    CalendarEntryData.class,
+                    CALENDAR_ENTRIES_PAGE_QUERY,
+                    new JoinOn("calendar_entry_id", "o_invitees_calendar_entry_id"),
+                    aTenantId,
+                    aCalendarId,
+                    new Timestamp(timeSpanBeginsAfter.getTime()),
+                    new Timestamp(timeSpanBeginsAfter.getTime()),
+                    calendarEntryIdAfter,
+                    STREAMED_PAGE_SIZE);
+
+            for (CalendarEntryData entry : entries) {
+                aCalendarEntryDataHandler.handleResult(entry);
+
+                timeSpanBeginsAfter = entry.getTimeSpanBegins();
+                calendarEntryIdAfter = entry.getCalendarEntryId();
+            }
+
+        } while (entries.size() == STREAMED_PAGE_SIZE);
+    }
+
+    public ParticipantFreeBusy participantFreeBusyOf(String aTenantId, String aParticipantId) {
+        ParticipantFreeBusy freeBusy =
+                this.participantFreeBusyIndex().freeBusyOf(aTenantId, aParticipantId);
+
+        if (freeBusy == null) {
+            long changesBeforeLoad = this.participantFreeBusyIndex().changes();
+
+            Collection<CalendarEntryInterval> intervals =
+                    this.queryObjects(
+                            CalendarEntryInterval.class,
+                            "select "
+                            +  "entry.calendar_entry_id, entry.repetition_ends, entry.repetition_type, "
+                            +  "entry.time_span_begins, entry.time_span_ends "
+                            + "from tbl_vw_calendar_entry as entry inner join tbl_vw_calendar_entry_invitee as invitee "
+                            + " on entry.calendar_entry_id = invitee.calendar_entry_id "
+                            + "where invitee.tenant_id = ? and invitee.participant_identity = ?",
+                            new JoinOn(),
+                            aTenantId,
+                            aParticipantId);
+
+            freeBusy = this.participantFreeBusyIndex()
+                        .freeBusyOf(aTenantId, aParticipantId, intervals, changesBeforeLoad);
+        }
+
+        return freeBusy;
+    }
+
     public Collection<CalendarEntryData> timeSpanningCalendarEntries(
             String aTenantId,
             String aCalendarId,
             Date aTimeSpanBegins,
             Date aTimeSpanEnds) {
 
+        // the calendar's interval tree finds every entry that has
+        // an occurrence overlapping the time span, including those
+        // that begin before and end after it
+
+        List<String> calendarEntryIds =
+                this.calendarEntryIntervalTreeOf(aTenantId, aCalendarId)
+                    .calendarEntryIdsOccurringWithin(aTimeSpanBegins, aTimeSpanEnds);
+
+        List<CalendarEntryData> calendarEntries = new ArrayList<CalendarEntryData>();
+
+        for (int idx = 0; idx < calendarEntryIds.size(); idx += MAXIMUM_IDS_PER_QUERY) {
+            calendarEntries.addAll(
+                    this.calendarEntryDataOfIds(
+                            aTenantId,
+                            calendarEntryIds.subList(
+                                    idx,
+                                    Math.min(idx + MAXIMUM_IDS_PER_QUERY, calendarEntryIds.size()))));
+        }
+
+        return calendarEntries;
+    }
+
+    private Collection<CalendarEntryData> calendarEntryDataOfIds(
+            String aTenantId,
+            List<String> aCalendarEntryIds) {
+
+        if (aCalendarEntryIds.isEmpty()) {
+            return new ArrayList<CalendarEntryData>(0);
+        }
+
+        StringBuilder parameters = new StringBuilder();
+
+        Object[] arguments = new Object[aCalendarEntryIds.size() + 1];
+
+        arguments[0] = aTenantId;
+
+        for (int idx = 0; idx < aCalendarEntryIds.size(); ++idx) {
+            parameters.append(idx == 0 ? "?" : ",?");
+
+            arguments[idx + 1] = aCalendarEntryIds.get(idx);
+        }
+
         return this.queryObjects(
                 CalendarEntryData.class,
                 "select "
@@ -97,15 +296,43 @@ public class CalendarEntryQueryService extends AbstractQueryService {
                 +  "invitee.tenant_id as o_invitees_tenant_id "
                 + "from tbl_vw_calendar_entry as entry left outer join tbl_vw_calendar_entry_invitee as invitee "
                 + " on entry.calendar_entry_id = invitee.calendar_entry_id "
-                + "where entry.tenant_id = ? and entry.calendar_id = ? and "
-                +  "((entry.time_span_begins between ? and ?) or "
-                +  " (entry.repetition_ends between ? and ?))",
+                + "where entry.tenant_id = ? and entry.calendar_entry_id in (" + parameters + ") "
+                + "order by entry.time_span_begins, entry.calendar_entry_id",
                 new JoinOn("calendar_entry_id", "o_invitees_calendar_entry_id"),
-                aTenantId,
-                aCalendarId,
-                aTimeSpanBegins,
-                aTimeSpanEnds,
-                aTimeSpanBegins,
-                aTimeSpanEnds);
+                arguments);
+    }
+
+    private CalendarEntryIntervalIndex calendarEntryIntervalIndex() {
+        return this.calendarEntryIntervalIndex;
+    }
+
+    private CalendarEntryIntervalTree calendarEntryIntervalTreeOf(String aTenantId, String aCalendarId) {
+        CalendarEntryIntervalTree tree =
+                this.calendarEntryIntervalIndex().treeOf(aTenantId, aCalendarId);
+
+        if (tree == null) {
+            long changesBeforeLoad = this.calendarEntryIntervalIndex().changes();
+
+            Collection<CalendarEntryInterval> intervals =
+                    this.queryObjects(
+                            CalendarEntryInterval.class,
+                            "select "
+                            +  "calendar_entry_id, repetition_ends, repetition_type, "
+                            +  "time_span_begins, time_span_ends "
+                            + "from tbl_vw_calendar_entry "
+                            + "where tenant_id = ? and calendar_id = ?",
+                            new JoinOn(),
+                            aTenantId,
+                            aCalendarId);
+
+            tree = this.calendarEntryIntervalIndex()
+                        .treeOf(aTenantId, aCalendarId, intervals, changesBeforeLoad);
+        }
+
+        return tree;
+    }
+
+    private ParticipantFreeBusyIndex participantFreeBusyIndex() {
+        return this.participantFreeBusyIndex;
     }
 }
@@ -21,16 +21,26 @@ import javax.sql.DataSource;
 import com.saasovation.collaboration.application.calendar.data.CalendarData;
 import com.saasovation.common.port.adapter.persistence.AbstractQueryService;
 import com.saasovation.common.port.adapter.persistence.JoinOn;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class CalendarQueryService extends AbstractQueryService {
 
-    public CalendarQueryService(DataSource aDataSource) {
-        super(aDataSource);
+    public static String calendarCacheTag(String aTenantId, String aCalendarId) {
+        return QueryCache.tagOf("calendar", aTenantId, aCalendarId);
+    }
+
+    public static String tenantCalendarsCacheTag(String aTenantId) {
+        return QueryCache.tagOf("tenantCalendars", aTenantId);
+    }
+
+    public CalendarQueryService(DataSource aDataSource, QueryCache aQueryCache) {
+        super(aDataSource, aQueryCache);
     }
 
     public Collection<CalendarData> allCalendarsDataOfTenant(String aTenantId) {
 
-        return this.queryObjects(
+        return this.cachedQueryObjects(
+                tenantCalendarsCacheTag(aTenantId),
                 CalendarData.class,
                 "select "
                 +  "cal.calendar_id, cal.description, cal.name, cal.owner_email_address, "
@@ -48,7 +58,8 @@ public class CalendarQueryService extends AbstractQueryService {
     }
 
     public CalendarData calendarDataOfId(String aTenantId, String aCalendarId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                calendarCacheTag(aTenantId, aCalendarId),
                 CalendarData.class,
                 "select "
                 +  "cal.calendar_id, cal.description, cal.name, cal.owner_email_address, "
@@ -0,0 +1,224 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+
+import com.saasovation.collaboration.domain.model.calendar.TimeSpan;
+
+/**
+ * I am the busy times of one participant, being the time spans of
+ * the calendar entries they are invited to. I am immutable. Entries
+ * that do not repeat are held as compact arrays sorted by begins,
+ * with the latest end up to each position, so that a busy check is
+ * a binary search. Repeating entries are few, and are expanded only
+ * within the window asked about.
+ *
+ * Busy times are half open: an entry ending at 10:00 does not make
+ * its participant busy from 10:00.
+ */
+public final class ParticipantFreeBusy {
+
+    private static final Comparator<CalendarEntryInterval> BY_BEGINS =
+            new Comparator<CalendarEntryInterval>() {
+                @Override
+                public int compare(CalendarEntryInterval anInterval1, CalendarEntryInterval anInterval2) {
+                    int comparison = Long.compare(anInterval1.envelopeBegins(), anInterval2.envelopeBegins());
+
+                    if (comparison == 0) {
+                        comparison = anInterval1.calendarEntryId().compareTo(anInterval2.calendarEntryId());
+                    }
+
+                    return comparison;
+                }
+            };
+
+    private long[] begins;
+    private CalendarEntryInterval[] calendarEntryIntervals;
+    private long[] ends;
+    private long[] maximumEnds;
+    private CalendarEntryInterval[] repeatingIntervals;
+
+    public ParticipantFreeBusy(Collection<CalendarEntryInterval> aCalendarEntryIntervals) {
+        super();
+
+        CalendarEntryInterval[] intervals =
+                aCalendarEntryIntervals.toArray(new CalendarEntryInterval[aCalendarEntryIntervals.size()]);
+
+        Arrays.sort(intervals, BY_BEGINS);
+
+        this.calendarEntryIntervals = intervals;
+
+        int repeatingCount = 0;
+
+        for (CalendarEntryInterval interval : intervals) {
+            if (!interval.repeatType().isDoesNotRepeat()) {
+                ++repeatingCount;
+            }
+        }
+
+        int count = intervals.length - repeatingCount;
+
+        this.begins = new long[count];
+        this.ends = new long[count];
+        this.maximumEnds = new long[count];
+        this.repeatingIntervals = new CalendarEntryInterval[repeatingCount];
+
+        int index = 0;
+        int repeatingIndex = 0;
+
+        for (CalendarEntryInterval interval : intervals) {
+            if (interval.repeatType().isDoesNotRepeat()) {
+                this.begins[index] = interval.envelopeBegins();
+                this.ends[index] = interval.envelopeEnds();
+                this.maximumEnds[index] =
+                        index == 0 ?
+                                this.ends[index] :
+                                Math.max(this.maximumEnds[index - 1], this.ends[index]);
+                ++index;
+            } else {
+                this.repeatingIntervals[repeatingIndex++] = interval;
+            }
+        }
+    }
+
+    public List<TimeSpan> busyTimeSpansWithin(Date aBegins, Date anEnds) {
+        long windowBegins = aBegins.getTime();
+        long windowEnds = anEnds.getTime();
+
+        List<TimeSpan> busyTimeSpans = new ArrayList<TimeSpan>();
+
+        // the latest ends are non-decreasing, so once one has
+        // ended by the window no earlier entry reaches into it
+
+        for (int idx = this.lastBeginningBefore(windowEnds);
+                idx >= 0 && this.maximumEnds[idx] > windowBegins;
+                --idx) {
+
+            if (this.ends[idx] > windowBegins) {
+                busyTimeSpans.add(
+                        new TimeSpan(
+                                new Date(this.begins[idx]),
+                                new Date(this.ends[idx])));
+            }
+        }
+
+        for (CalendarEntryInterval interval : this.repeatingIntervals) {
+            Iterator<TimeSpan> occurrences = interval.occurrencesWithin(windowBegins, windowEnds);
+
+            while (occurrences.hasNext()) {
+                TimeSpan occurrence = occurrences.next();
+
+                if (this.overlaps(occurrence, windowBegins, windowEnds)) {
+                    busyTimeSpans.add(occurrence);
+                }
+            }
+        }
+
+        return busyTimeSpans;
+    }
+
+    public CalendarEntryInterval calendarEntryIntervalOf(String aCalendarEntryId) {
+        for (CalendarEntryInterval interval : this.calendarEntryIntervals) {
+            if (interval.calendarEntryId().equals(aCalendarEntryId)) {
+                return interval;
+            }
+        }
+
+        return null;
+    }
+
+    public List<CalendarEntryInterval> calendarEntryIntervals() {
+        return Arrays.asList(this.calendarEntryIntervals);
+    }
+
+    public boolean isBusyWithin(Date aBegins, Date anEnds) {
+        long windowBegins = aBegins.getTime();
+        long windowEnds = anEnds.getTime();
+
+        int last = this.lastBeginningBefore(windowEnds);
+
+        if (last >= 0 && this.maximumEnds[last] > windowBegins) {
+            return true;
+        }
+
+        for (CalendarEntryInterval interval : this.repeatingIntervals) {
+            Iterator<TimeSpan> occurrences = interval.occurrencesWithin(windowBegins, windowEnds);
+
+            while (occurrences.hasNext()) {
+                if (this.overlaps(occurrences.next(), windowBegins, windowEnds)) {
+                    return true;
+                }
+            }
+        }
+
+        return false;
+    }
+
+    public ParticipantFreeBusy withCalendarEntryInterval(CalendarEntryInterval aCalendarEntryInterval) {
+        List<CalendarEntryInterval> intervals =
+                this.intervalsOtherThan(aCalendarEntryInterval.calendarEntryId());
+
+        intervals.add(aCalendarEntryInterval);
+
+        return new ParticipantFreeBusy(intervals);
+    }
+
+    public ParticipantFreeBusy withoutCalendarEntry(String aCalendarEntryId) {
+        return new ParticipantFreeBusy(this.intervalsOtherThan(aCalendarEntryId));
+    }
+
+    private List<CalendarEntryInterval> intervalsOtherThan(String aCalendarEntryId) {
+        List<CalendarEntryInterval> intervals =
+                new ArrayList<CalendarEntryInterval>(this.calendarEntryIntervals.length + 1);
+
+        for (CalendarEntryInterval interval : this.calendarEntryIntervals) {
+            if (!interval.calendarEntryId().equals(aCalendarEntryId)) {
+                intervals.add(interval);
+            }
+        }
+
+        return intervals;
+    }
+
+    private int lastBeginningBefore(long aTime) {
+        int low = 0;
+        int high = this.begins.length - 1;
+        int last = -1;
+
+        while (low <= high) {
+            int middle = (low + high) >>> 1;
+
+            if (this.begins[middle] < aTime) {
+                last = middle;
+                low = middle + 1;
+            } else {
+                high = middle - 1;
+            }
+        }
+
+        return last;
+    }
+
+    private boolean overlaps(TimeSpan aTimeSpan, long aBegins, long anEnds) {
+        return aTimeSpan.begins().getTime() < anEnds && aTimeSpan.ends().getTime() > aBegins;
+    }
+}
@@ -0,0 +1,264 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * I hold a ParticipantFreeBusy for each participant that has been
+ * queried. One is loaded from the view the first time its participant
+ * is queried, and is then kept current by the projection of calendar
+ * entry events. Each is replaced, never changed, so readers query
+ * one without holding my lock. At most a maximum number are held,
+ * those least recently queried being dropped and loaded again when
+ * needed.
+ */
+public class ParticipantFreeBusyIndex {
+
+    private AtomicLong changes;
+    private Map<String, ParticipantFreeBusy> freeBusies;
+    private int maximumFreeBusies;
+    private Map<String, Set<String>> participantsOfCalendarEntries;
+
+    public ParticipantFreeBusyIndex(int aMaximumFreeBusies) {
+        super();
+
+        if (aMaximumFreeBusies <= 0) {
+            throw new IllegalArgumentException("The maximum free/busies must be greater than zero.");
+        }
+
+        this.changes = new AtomicLong();
+        this.freeBusies = new LinkedHashMap<String, ParticipantFreeBusy>(16, 0.75f, true);
+        this.maximumFreeBusies = aMaximumFreeBusies;
+        this.participantsOfCalendarEntries = new HashMap<String, Set<String>>();
+    }
+
+    public long changes() {
+        return this.changes.get();
+    }
+
+    public synchronized void clear() {
+        this.changes.incrementAndGet();
+
+        this.freeBusies.clear();
+        this.participantsOfCalendarEntries.clear();
+    }
+
+    public synchronized ParticipantFreeBusy freeBusyOf(String aTenantId, String aParticipantId) {
+        return this.freeBusies.get(this.keyOf(aTenantId, aParticipantId));
+    }
+
+    public ParticipantFreeBusy freeBusyOf(
+            String aTenantId,
+            String aParticipantId,
+            Collection<CalendarEntryInterval> aLoadedIntervals,
+            long aChangesBeforeLoad) {
+
+        ParticipantFreeBusy freeBusy = new ParticipantFreeBusy(aLoadedIntervals);
+
+        // an entry projected while the intervals were being loaded
+        // may be missing from them, so the free/busy is then used
+        // for the one query only and loaded again next time
+
+        synchronized (this) {
+            if (aChangesBeforeLoad == this.changes()) {
+                String participantKey = this.keyOf(aTenantId, aParticipantId);
+
+                ParticipantFreeBusy existingFreeBusy = this.freeBusies.get(participantKey);
+
+                if (existingFreeBusy != null) {
+                    freeBusy = existingFreeBusy;
+                } else {
+                    this.freeBusies.put(participantKey, freeBusy);
+
+                    for (CalendarEntryInterval interval : freeBusy.calendarEntryIntervals()) {
+                        this.registerParticipant(aTenantId, interval.calendarEntryId(), participantKey);
+                    }
+
+                    this.unloadLeastRecentlyQueried();
+                }
+            }
+        }
+
+        return freeBusy;
+    }
+
+    public synchronized void invite(
+            String aTenantId,
+            String aCalendarEntryId,
+            String aParticipantId) {
+
+        this.changes.incrementAndGet();
+
+        String participantKey = this.keyOf(aTenantId, aParticipantId);
+
+        if (!this.freeBusies.containsKey(participantKey)) {
+            return;
+        }
+
+        CalendarEntryInterval interval = this.calendarEntryIntervalOf(aTenantId, aCalendarEntryId);
+
+        if (interval == null) {
+            // the invitation carries no time span, and none is known
+            // for the entry, so the participant is loaded again
+
+            this.unload(aTenantId, participantKey);
+        } else {
+            this.freeBusies.put(
+                    participantKey,
+                    this.freeBusies.get(participantKey).withCalendarEntryInterval(interval));
+
+            this.registerParticipant(aTenantId, aCalendarEntryId, participantKey);
+        }
+    }
+
+    public synchronized void reschedule(
+            String aTenantId,
+            CalendarEntryInterval aCalendarEntryInterval) {
+
+        this.changes.incrementAndGet();
+
+        for (String participantKey : this.participantKeysOf(aTenantId, aCalendarEntryInterval.calendarEntryId())) {
+            this.freeBusies.put(
+                    participantKey,
+                    this.freeBusies.get(participantKey).withCalendarEntryInterval(aCalendarEntryInterval));
+        }
+    }
+
+    public synchronized void schedule(
+            String aTenantId,
+            CalendarEntryInterval aCalendarEntryInterval,
+            Collection<String> anInviteeIds) {
+
+        this.changes.incrementAndGet();
+
+        for (String participantId : anInviteeIds) {
+            String participantKey = this.keyOf(aTenantId, participantId);
+
+            ParticipantFreeBusy freeBusy = this.freeBusies.get(participantKey);
+
+            if (freeBusy != null) {
+                this.freeBusies.put(participantKey, freeBusy.withCalendarEntryInterval(aCalendarEntryInterval));
+
+                this.registerParticipant(aTenantId, aCalendarEntryInterval.calendarEntryId(), participantKey);
+            }
+        }
+    }
+
+    public synchronized void uninvite(
+            String aTenantId,
+            String aCalendarEntryId,
+            String aParticipantId) {
+
+        this.changes.incrementAndGet();
+
+        String participantKey = this.keyOf(aTenantId, aParticipantId);
+
+        ParticipantFreeBusy freeBusy = this.freeBusies.get(participantKey);
+
+        if (freeBusy != null) {
+            this.freeBusies.put(participantKey, freeBusy.withoutCalendarEntry(aCalendarEntryId));
+
+            this.unregisterParticipant(aTenantId, aCalendarEntryId, participantKey);
+        }
+    }
+
+    private CalendarEntryInterval calendarEntryIntervalOf(String aTenantId, String aCalendarEntryId) {
+        for (String participantKey : this.participantKeysOf(aTenantId, aCalendarEntryId)) {
+            CalendarEntryInterval interval =
+                    this.freeBusies.get(participantKey).calendarEntryIntervalOf(aCalendarEntryId);
+
+            if (interval != null) {
+                return interval;
+            }
+        }
+
+        return null;
+    }
+
+    private String keyOf(String aTenantId, String anId) {
+        return aTenantId + ":" + anId;
+    }
+
+    private int maximumFreeBusies() {
+        return this.maximumFreeBusies;
+    }
+
+    private Set<String> participantKeysOf(String aTenantId, String aCalendarEntryId) {
+        Set<String> participantKeys =
+                this.participantsOfCalendarEntries.get(this.keyOf(aTenantId, aCalendarEntryId));
+
+        if (participantKeys == null) {
+            participantKeys = Collections.emptySet();
+        }
+
+        return participantKeys;
+    }
+
+    private void registerParticipant(String aTenantId, String aCalendarEntryId, String aParticipantKey) {
+        String calendarEntryKey = this.keyOf(aTenantId, aCalendarEntryId);
+
+        Set<String> participantKeys = this.participantsOfCalendarEntries.get(calendarEntryKey);
+
+        if (participantKeys == null) {
+            participantKeys = new HashSet<String>();
+
+            this.participantsOfCalendarEntries.put(calendarEntryKey, participantKeys);
+        }
+
+        participantKeys.add(aParticipantKey);
+    }
+
+    private String tenantIdOf(String aParticipantKey) {
+        return aParticipantKey.substring(0, aParticipantKey.indexOf(':'));
+    }
+
+    private void unload(String aTenantId, String aParticipantKey) {
+        ParticipantFreeBusy freeBusy = this.freeBusies.remove(aParticipantKey);
+
+        for (CalendarEntryInterval interval : freeBusy.calendarEntryIntervals()) {
+            this.unregisterParticipant(aTenantId, interval.calendarEntryId(), aParticipantKey);
+        }
+    }
+
+    private void unloadLeastRecentlyQueried() {
+        while (this.freeBusies.size() > this.maximumFreeBusies()) {
+            String participantKey = this.freeBusies.keySet().iterator().next();
+
+            this.unload(this.tenantIdOf(participantKey), participantKey);
+        }
+    }
+
+    private void unregisterParticipant(String aTenantId, String aCalendarEntryId, String aParticipantKey) {
+        String calendarEntryKey = this.keyOf(aTenantId, aCalendarEntryId);
+
+        Set<String> participantKeys = this.participantsOfCalendarEntries.get(calendarEntryKey);
+
+        if (participantKeys != null) {
+            participantKeys.remove(aParticipantKey);
+
+            if (participantKeys.isEmpty()) {
+                this.participantsOfCalendarEntries.remove(calendarEntryKey);
+            }
+        }
+    }
+}
@@ -14,7 +14,9 @@
 
 package com.saasovation.collaboration.application.forum;
 
+import java.sql.Timestamp;
 import java.util.Collection;
+import java.util.Date;
 
 import javax.sql.DataSource;
 
@@ -22,15 +24,44 @@ import com.saasovation.collaboration.application.forum.data.DiscussionData;
 import com.saasovation.collaboration.application.forum.data.DiscussionPostsData;
 import com.saasovation.common.port.adapter.persistence.AbstractQueryService;
 import com.saasovation.common.port.adapter.persistence.JoinOn;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class DiscussionQueryService extends AbstractQueryService {
 
-    public DiscussionQueryService(DataSource aDataSource) {
-        super(aDataSource);
+    private static final String DISCUSSION_POSTS_COLUMNS =
+            "select "
+            +  "disc.author_email_address, disc.author_identity, disc.author_name, "
+            +  "disc.closed, disc.discussion_id, disc.exclusive_owner, "
+            +  "disc.forum_id, disc.subject, disc.tenant_id, "
+            +  "post.author_email_address as o_posts_author_email_address, "
+            +  "post.author_identity as o_posts_author_identity, "
+            +  "post.author_name as o_posts_author_name, "
+            +  "post.body_text as o_posts_body_text, post.changed_on as o_posts_changed_on, "
+            +  "post.created_on as o_posts_created_on, "
+            +  "post.discussion_id as o_posts_discussion_id, "
+            +  "post.forum_id as o_posts_forum_id, post.post_id as o_posts_post_id, "
+            +  "post.reply_to_post_id as o_posts_reply_to_post_id, post.subject as o_posts_subject, "
+            +  "post.tenant_id as o_posts_tenant_id ";
+
+    public static String discussionCacheTag(String aTenantId, String aDiscussionId) {
+        return QueryCache.tagOf("discussion", aTenantId, aDiscussionId);
+    }
+
+    public static String discussionsOfForumCacheTag(String aTenantId, String aForumId) {
+        return QueryCache.tagOf("discussionsOfForum", aTenantId, aForumId);
+    }
+
+    public static String tenantDiscussionsCacheTag(String aTenantId) {
+        return QueryCache.tagOf("tenantDiscussions", aTenantId);
+    }
+
+    public DiscussionQueryService(DataSource aDataSource, QueryCache aQueryCache) {
+        super(aDataSource, aQueryCache);
     }
 
     public Collection<DiscussionData> allDiscussionsDataOfForum(String aTenantId, String aForumId) {
-        return this.queryObjects(
+        return this.cachedQueryObjects(
+                discussionsOfForumCacheTag(aTenantId, aForumId),
                 DiscussionData.class,
                 "select * from tbl_vw_discussion where tenant_id = ? and forum_id = ?",
                 new JoinOn(),
@@ -39,7 +70,8 @@ public class DiscussionQueryService extends AbstractQueryService {
     }
 
     public DiscussionData discussionDataOfId(String aTenantId, String aDiscussionId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                discussionCacheTag(aTenantId, aDiscussionId),
                 DiscussionData.class,
                 "select * from tbl_vw_discussion where tenant_id = ? and discussion_id = ?",
                 new JoinOn(),
@@ -48,28 +80,18 @@ public class DiscussionQueryService extends AbstractQueryService {
     }
 
     public String discussionIdOfExclusiveOwner(String aTenantId, String anExclusiveOwner) {
-        return this.queryString(
+        return this.cachedQueryString(
+                tenantDiscussionsCacheTag(aTenantId),
                 "select discussion_id from tbl_vw_discussion where tenant_id = ? and exclusive_owner = ?",
                 aTenantId,
                 anExclusiveOwner);
     }
 
     public DiscussionPostsData discussionPostsDataOfId(String aTenantId, String aDiscussionId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                PostQueryService.postsOfDiscussionCacheTag(aTenantId, aDiscussionId),
                 DiscussionPostsData.class,
-                "select "
-                +  "disc.author_email_address, disc.author_identity, disc.author_name, "
-                +  "disc.closed, disc.discussion_id, disc.exclusive_owner, "
-                +  "disc.forum_id, disc.subject, disc.tenant_id, "
-                +  "post.author_email_address as o_posts_author_email_address, "
-                +  "post.author_identity as o_posts_author_identity, "
-                +  "post.author_name as o_posts_author_name, "
-                +  "post.body_text as o_posts_body_text, post.changed_on as o_posts_changed_on, "
-                +  "post.created_on as o_posts_created_on, "
-                +  "post.discussion_id as o_posts_discussion_id, "
-                +  "post.forum_id as o_posts_forum_id, post.post_id as o_posts_post_id, "
-                +  "post.reply_to_post_id as o_posts_reply_to_post_id, post.subject as o_posts_subject, "
-                +  "post.tenant_id as o_posts_tenant_id "
+                DISCUSSION_POSTS_COLUMNS
                 + "from tbl_vw_discussion as disc left outer join tbl_vw_post as post "
                 + " on disc.discussion_id = post.discussion_id "
                 + "where (disc.tenant_id = ? and disc.discussion_id = ?)",
@@ -77,4 +99,52 @@ public class DiscussionQueryService extends AbstractQueryService {
                 aTenantId,
                 aDiscussionId);
     }
+
+    public DiscussionPostsData discussionPostsDataOfId(
+            String aTenantId,
+            String aDiscussionId,
+            int aMaximumPosts) {
+
+        return this.discussionPostsDataOfId(
+                aTenantId,
+                aDiscussionId,
+                new Date(0),
+                "",
+                aMaximumPosts);
+    }
+
+    public DiscussionPostsData discussionPostsDataOfId(
+            String aTenantId,
+            String aDiscussionId,
+            Date aPostsCreatedOnAfter,
+            String aPostIdAfter,
+            int aMaximumPosts) {
+
+        // the posts page continues after the last post of the
+        // previous page, by its (created_on, post_id) position
+
+        if (aMaximumPosts <= 0) {
+            throw new IllegalArgumentException("The maximum posts must be greater than zero.");
+        }
+
+        Timestamp createdOnAfter = new Timestamp(aPostsCreatedOnAfter.getTime());
+
+        return this.cachedQueryObject(
+                PostQueryService.postsOfDiscussionCacheTag(aTenantId, aDiscussionId),
+                DiscussionPostsData.class,
+                DISCUSSION_POSTS_COLUMNS
+                + "from tbl_vw_discussion as disc left outer join tbl_vw_post as post "
+                + " on disc.discussion_id = post.discussion_id and "
+                +  "(post.created_on > ? or (post.created_on = ? and post.post_id > ?)) "
+                + "where (disc.tenant_id = ? and disc.discussion_id = ?) "
+                + "order by post.created_on, post.post_id "
+                + "limit ?",
+                new JoinOn("discussion_id", "o_posts_discussion_id"),
+                createdOnAfter,
+                createdOnAfter,
+                aPostIdAfter,
+                aTenantId,
+                aDiscussionId,
+                aMaximumPosts);
+    }
 }
@@ -22,15 +22,25 @@ import com.saasovation.collaboration.application.forum.data.ForumData;
 import com.saasovation.collaboration.application.forum.data.ForumDiscussionsData;
 import com.saasovation.common.port.adapter.persistence.AbstractQueryService;
 import com.saasovation.common.port.adapter.persistence.JoinOn;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class ForumQueryService extends AbstractQueryService {
 
-    public ForumQueryService(DataSource aDataSource) {
-        super(aDataSource);
+    public static String forumCacheTag(String aTenantId, String aForumId) {
+        return QueryCache.tagOf("forum", aTenantId, aForumId);
+    }
+
+    public static String tenantForumsCacheTag(String aTenantId) {
+        return QueryCache.tagOf("tenantForums", aTenantId);
+    }
+
+    public ForumQueryService(DataSource aDataSource, QueryCache aQueryCache) {
+        super(aDataSource, aQueryCache);
     }
 
     public Collection<ForumData> allForumsDataOfTenant(String aTenantId) {
-        return this.queryObjects(
+        return this.cachedQueryObjects(
+                tenantForumsCacheTag(aTenantId),
                 ForumData.class,
                 "select * from tbl_vw_forum where tenant_id = ?",
                 new JoinOn(),
@@ -38,7 +48,8 @@ public class ForumQueryService extends AbstractQueryService {
     }
 
     public ForumData forumDataOfId(String aTenantId, String aForumId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                forumCacheTag(aTenantId, aForumId),
                 ForumData.class,
                 "select * from tbl_vw_forum where tenant_id = ? and forum_id = ?",
                 new JoinOn(),
@@ -47,7 +58,8 @@ public class ForumQueryService extends AbstractQueryService {
     }
 
     public ForumDiscussionsData forumDiscussionsDataOfId(String aTenantId, String aForumId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                DiscussionQueryService.discussionsOfForumCacheTag(aTenantId, aForumId),
                 ForumDiscussionsData.class,
                 "select "
                 +  "forum.closed, forum.creator_email_address, forum.creator_identity, "
@@ -72,7 +84,8 @@ public class ForumQueryService extends AbstractQueryService {
     }
 
     public String forumIdOfExclusiveOwner(String aTenantId, String anExclusiveOwner) {
-        return this.queryString(
+        return this.cachedQueryString(
+                tenantForumsCacheTag(aTenantId),
                 "select forum_id from tbl_vw_forum where tenant_id = ? and exclusive_owner = ?",
                 aTenantId,
                 anExclusiveOwner);
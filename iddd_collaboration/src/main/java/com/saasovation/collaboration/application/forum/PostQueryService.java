@@ -14,22 +14,44 @@
 
 package com.saasovation.collaboration.application.forum;
 
+import java.sql.Timestamp;
 import java.util.Collection;
+import java.util.Date;
 
 import javax.sql.DataSource;
 
 import com.saasovation.collaboration.application.forum.data.PostData;
 import com.saasovation.common.port.adapter.persistence.AbstractQueryService;
 import com.saasovation.common.port.adapter.persistence.JoinOn;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
+import com.saasovation.common.port.adapter.persistence.QueryResultHandler;
 
 public class PostQueryService extends AbstractQueryService {
 
-    public PostQueryService(DataSource aDataSource) {
-        super(aDataSource);
+    private static final String POSTS_OF_DISCUSSION_PAGE_QUERY =
+            "select * from tbl_vw_post "
+            + "where (created_on > ? or (created_on = ? and post_id > ?)) "
+            +  "and tenant_id = ? and discussion_id = ? "
+            + "order by created_on, post_id "
+            + "limit ?";
+
+    private static final int STREAMED_PAGE_SIZE = 200;
+
+    public static String postCacheTag(String aTenantId, String aPostId) {
+        return QueryCache.tagOf("post", aTenantId, aPostId);
+    }
+
+    public static String postsOfDiscussionCacheTag(String aTenantId, String aDiscussionId) {
+        return QueryCache.tagOf("postsOfDiscussion", aTenantId, aDiscussionId);
+    }
+
+    public PostQueryService(DataSource aDataSource, QueryCache aQueryCache) {
+        super(aDataSource, aQueryCache);
     }
 
     public Collection<PostData> allPostsDataOfDiscussion(String aTenantId, String aDiscussionId) {
-        return this.queryObjects(
+        return this.cachedQueryObjects(
+                postsOfDiscussionCacheTag(aTenantId, aDiscussionId),
                 PostData.class,
                 "select * from tbl_vw_post where tenant_id = ? and discussion_id = ?",
                 new JoinOn(),
@@ -37,8 +59,44 @@ public class PostQueryService extends AbstractQueryService {
                 aDiscussionId);
     }
 
+    public void allPostsDataOfDiscussion(
+            String aTenantId,
+            String aDiscussionId,
+            QueryResultHandler<PostData> aPostDataHandler) {
+
+        // only one page of posts is held at a time, however
+        // large the discussion
+
+        Date createdOnAfter = new Date(0);
+        String postIdAfter = "";
+
+        Collection<PostData> posts = null;
+
+        do {
+            posts = this.queryObjects(
+                    PostData.class,
+                    POSTS_OF_DISCUSSION_PAGE_QUERY,
+                    new JoinOn(),
+                    new Timestamp(createdOnAfter.getTime()),
+                    new Timestamp(createdOnAfter.getTime()),
+                    postIdAfter,
+                    aTenantId,
+                    aDiscussionId,
+                    STREAMED_PAGE_SIZE);
+
+            for (PostData post : posts) {
+                aPostDataHandler.handleResult(post);
+
+                createdOnAfter = post.getCreatedOn();
+                postIdAfter = post.getPostId();
+            }
+
+        } while (posts.size() == STREAMED_PAGE_SIZE);
+    }
+
     public PostData postDataOfId(String aTenantId, String aPostId) {
-        return this.queryObject(
+        return this.cachedQueryObject(
+                postCacheTag(aTenantId, aPostId),
                 PostData.class,
                 "select * from tbl_vw_post where tenant_id = ? and post_id = ?",
                 new JoinOn(),
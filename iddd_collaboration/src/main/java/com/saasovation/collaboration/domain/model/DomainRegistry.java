@@ -18,6 +18,7 @@ import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
+import com.saasovation.collaboration.domain.model.calendar.CalendarEntryOccurrenceService;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryRepository;
 import com.saasovation.collaboration.domain.model.calendar.CalendarIdentityService;
 import com.saasovation.collaboration.domain.model.calendar.CalendarRepository;
@@ -35,6 +36,10 @@ public class DomainRegistry implements ApplicationContextAware {
         return (CalendarIdentityService) applicationContext.getBean("calendarIdentityService");
     }
 
+    public static CalendarEntryOccurrenceService calendarEntryOccurrenceService() {
+        return (CalendarEntryOccurrenceService) applicationContext.getBean("calendarEntryOccurrenceService");
+    }
+
     public static CalendarEntryRepository calendarEntryRepository() {
         return (CalendarEntryRepository) applicationContext.getBean("calendarEntryRepository");
     }
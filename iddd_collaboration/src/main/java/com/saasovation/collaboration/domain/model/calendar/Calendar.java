@@ -24,6 +24,7 @@ import com.saasovation.collaboration.domain.model.collaborator.Participant;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.EventSourcedRootEntity;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 
 public class Calendar extends EventSourcedRootEntity {
 
@@ -62,6 +63,18 @@ public class Calendar extends EventSourcedRootEntity {
         super(anEventStream, aStreamVersion);
     }
 
+    public Calendar(Calendar aSnapshotState, List<DomainEvent> anEventStream, int aStreamVersion) {
+        super(aSnapshotState, anEventStream, aStreamVersion);
+    }
+
+    public Calendar(EventStreamCursor anEventStream) {
+        super(anEventStream);
+    }
+
+    public Calendar(Calendar aSnapshotState, EventStreamCursor anEventStream) {
+        super(aSnapshotState, anEventStream);
+    }
+
     public Set<CalendarSharer> allSharedWith() {
         return Collections.unmodifiableSet(this.sharedWith());
     }
@@ -24,6 +24,7 @@ import com.saasovation.collaboration.domain.model.collaborator.Participant;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.EventSourcedRootEntity;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 
 public class CalendarEntry extends EventSourcedRootEntity {
 
@@ -42,6 +43,18 @@ public class CalendarEntry extends EventSourcedRootEntity {
         super(anEventStream, aStreamVersion);
     }
 
+    public CalendarEntry(CalendarEntry aSnapshotState, List<DomainEvent> anEventStream, int aStreamVersion) {
+        super(aSnapshotState, anEventStream, aStreamVersion);
+    }
+
+    public CalendarEntry(EventStreamCursor anEventStream) {
+        super(anEventStream);
+    }
+
+    public CalendarEntry(CalendarEntry aSnapshotState, EventStreamCursor anEventStream) {
+        super(aSnapshotState, anEventStream);
+    }
+
     public Alarm alarm() {
         return this.alarm;
     }
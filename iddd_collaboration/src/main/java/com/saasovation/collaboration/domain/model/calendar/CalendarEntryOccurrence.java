@@ -0,0 +1,88 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.domain.model.calendar;
+
+public final class CalendarEntryOccurrence implements Comparable<CalendarEntryOccurrence> {
+
+    private CalendarEntryId calendarEntryId;
+    private TimeSpan timeSpan;
+
+    public CalendarEntryOccurrence(CalendarEntryId aCalendarEntryId, TimeSpan aTimeSpan) {
+        super();
+
+        this.setCalendarEntryId(aCalendarEntryId);
+        this.setTimeSpan(aTimeSpan);
+    }
+
+    public CalendarEntryId calendarEntryId() {
+        return this.calendarEntryId;
+    }
+
+    public TimeSpan timeSpan() {
+        return this.timeSpan;
+    }
+
+    @Override
+    public int compareTo(CalendarEntryOccurrence anOccurrence) {
+        int comparison = this.timeSpan().begins().compareTo(anOccurrence.timeSpan().begins());
+
+        if (comparison == 0) {
+            comparison = this.timeSpan().ends().compareTo(anOccurrence.timeSpan().ends());
+        }
+
+        if (comparison == 0) {
+            comparison = this.calendarEntryId().id().compareTo(anOccurrence.calendarEntryId().id());
+        }
+
+        return comparison;
+    }
+
+    @Override
+    public boolean equals(Object anObject) {
+        boolean equalObjects = false;
+
+        if (anObject != null && this.getClass() == anObject.getClass()) {
+            CalendarEntryOccurrence typedObject = (CalendarEntryOccurrence) anObject;
+            equalObjects =
+                this.calendarEntryId().equals(typedObject.calendarEntryId()) &&
+                this.timeSpan().equals(typedObject.timeSpan());
+        }
+
+        return equalObjects;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCodeValue =
+                + (4217 * 97)
+                + this.calendarEntryId().hashCode()
+                + this.timeSpan().hashCode();
+
+        return hashCodeValue;
+    }
+
+    @Override
+    public String toString() {
+        return "CalendarEntryOccurrence [calendarEntryId=" + calendarEntryId + ", timeSpan=" + timeSpan + "]";
+    }
+
+    private void setCalendarEntryId(CalendarEntryId aCalendarEntryId) {
+        this.calendarEntryId = aCalendarEntryId;
+    }
+
+    private void setTimeSpan(TimeSpan aTimeSpan) {
+        this.timeSpan = aTimeSpan;
+    }
+}
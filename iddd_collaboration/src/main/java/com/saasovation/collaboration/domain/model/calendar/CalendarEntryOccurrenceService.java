@@ -0,0 +1,249 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.domain.model.calendar;
+
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.PriorityQueue;
+
+/**
+ * I expand CalendarEntry repetitions into concrete occurrences.
+ * Each entry's expansion is memoized against the entry's version,
+ * so rescheduling naturally retires it, while occurrences are only
+ * ever expanded lazily, within the range being iterated. The
+ * occurrences of all entries of a Calendar are merged in time order.
+ */
+public class CalendarEntryOccurrenceService {
+
+    private Map<String, OccurrenceExpansion> memoizedExpansions;
+    private int maximumMemoized;
+
+    public CalendarEntryOccurrenceService(int aMaximumMemoized) {
+        super();
+
+        if (aMaximumMemoized <= 0) {
+            throw new IllegalArgumentException("The maximum memoized must be greater than zero.");
+        }
+
+        this.maximumMemoized = aMaximumMemoized;
+
+        this.memoizedExpansions =
+                new LinkedHashMap<String, OccurrenceExpansion>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, OccurrenceExpansion> anEldest) {
+                        return this.size() > maximumMemoized();
+                    }
+                };
+    }
+
+    public Iterator<CalendarEntryOccurrence> occurrencesOf(
+            Calendar aCalendar,
+            Collection<CalendarEntry> aCalendarEntries,
+            TimeSpan aRange) {
+
+        if (aCalendar == null) {
+            throw new IllegalArgumentException("The calendar must be provided.");
+        }
+
+        PriorityQueue<OccurrenceCursor> cursors =
+                new PriorityQueue<OccurrenceCursor>(Math.max(1, aCalendarEntries.size()));
+
+        for (CalendarEntry calendarEntry : aCalendarEntries) {
+            if (!calendarEntry.tenant().equals(aCalendar.tenant()) ||
+                !calendarEntry.calendarId().equals(aCalendar.calendarId())) {
+
+                throw new IllegalArgumentException(
+                        "The calendar entry: "
+                        + calendarEntry.calendarEntryId().id()
+                        + " is not an entry of calendar: "
+                        + aCalendar.calendarId().id());
+            }
+
+            Iterator<CalendarEntryOccurrence> occurrences = this.occurrencesOf(calendarEntry, aRange);
+
+            if (occurrences.hasNext()) {
+                cursors.add(new OccurrenceCursor(occurrences));
+            }
+        }
+
+        return new MergedOccurrenceIterator(cursors);
+    }
+
+    public Iterator<CalendarEntryOccurrence> occurrencesOf(CalendarEntry aCalendarEntry, TimeSpan aRange) {
+        if (aCalendarEntry == null) {
+            throw new IllegalArgumentException("The calendar entry must be provided.");
+        }
+
+        if (aRange == null) {
+            throw new IllegalArgumentException("The range must be provided.");
+        }
+
+        return new CalendarEntryOccurrenceIterator(
+                aCalendarEntry.calendarEntryId(),
+                this.expansionOf(aCalendarEntry).occurrencesWithin(aRange));
+    }
+
+    private OccurrenceExpansion expansionOf(CalendarEntry aCalendarEntry) {
+        String key = this.keyOf(aCalendarEntry);
+
+        OccurrenceExpansion expansion = this.memoizedExpansionOf(key);
+
+        // guards against unsaved copies of the same version
+        // that were rescheduled differently
+
+        if (expansion == null ||
+            !expansion.timeSpan().equals(aCalendarEntry.timeSpan()) ||
+            !expansion.repetition().equals(aCalendarEntry.repetition())) {
+
+            expansion =
+                    new OccurrenceExpansion(
+                            aCalendarEntry.timeSpan(),
+                            aCalendarEntry.repetition());
+
+            this.memoize(key, expansion);
+        }
+
+        return expansion;
+    }
+
+    private String keyOf(CalendarEntry aCalendarEntry) {
+        return aCalendarEntry.tenant().id()
+                + ":" + aCalendarEntry.calendarEntryId().id()
+                + ":" + aCalendarEntry.mutatedVersion();
+    }
+
+    private int maximumMemoized() {
+        return this.maximumMemoized;
+    }
+
+    private void memoize(String aKey, OccurrenceExpansion anExpansion) {
+        synchronized (this.memoizedExpansions) {
+            this.memoizedExpansions.put(aKey, anExpansion);
+        }
+    }
+
+    private OccurrenceExpansion memoizedExpansionOf(String aKey) {
+        synchronized (this.memoizedExpansions) {
+            return this.memoizedExpansions.get(aKey);
+        }
+    }
+
+    private static class CalendarEntryOccurrenceIterator implements Iterator<CalendarEntryOccurrence> {
+
+        private CalendarEntryId calendarEntryId;
+        private Iterator<TimeSpan> timeSpans;
+
+        CalendarEntryOccurrenceIterator(CalendarEntryId aCalendarEntryId, Iterator<TimeSpan> aTimeSpans) {
+            super();
+
+            this.calendarEntryId = aCalendarEntryId;
+            this.timeSpans = aTimeSpans;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return this.timeSpans.hasNext();
+        }
+
+        @Override
+        public CalendarEntryOccurrence next() {
+            return new CalendarEntryOccurrence(this.calendarEntryId, this.timeSpans.next());
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove occurrences.");
+        }
+    }
+
+    private static class MergedOccurrenceIterator implements Iterator<CalendarEntryOccurrence> {
+
+        private PriorityQueue<OccurrenceCursor> cursors;
+
+        MergedOccurrenceIterator(PriorityQueue<OccurrenceCursor> aCursors) {
+            super();
+
+            this.cursors = aCursors;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return !this.cursors.isEmpty();
+        }
+
+        @Override
+        public CalendarEntryOccurrence next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("There are no more occurrences.");
+            }
+
+            // k-way merge: each entry's occurrences are expanded
+            // in time order, so only the head of each is compared
+            // and no entry is expanded further than iterated
+
+            OccurrenceCursor cursor = this.cursors.poll();
+
+            CalendarEntryOccurrence next = cursor.head();
+
+            if (cursor.advance()) {
+                this.cursors.add(cursor);
+            }
+
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove occurrences.");
+        }
+    }
+
+    private static class OccurrenceCursor implements Comparable<OccurrenceCursor> {
+
+        private CalendarEntryOccurrence head;
+        private Iterator<CalendarEntryOccurrence> occurrences;
+
+        OccurrenceCursor(Iterator<CalendarEntryOccurrence> anOccurrences) {
+            super();
+
+            this.occurrences = anOccurrences;
+            this.head = anOccurrences.next();
+        }
+
+        boolean advance() {
+            if (this.occurrences.hasNext()) {
+                this.head = this.occurrences.next();
+
+                return true;
+            }
+
+            return false;
+        }
+
+        @Override
+        public int compareTo(OccurrenceCursor aCursor) {
+            return this.head().compareTo(aCursor.head());
+        }
+
+        CalendarEntryOccurrence head() {
+            return this.head;
+        }
+    }
+}
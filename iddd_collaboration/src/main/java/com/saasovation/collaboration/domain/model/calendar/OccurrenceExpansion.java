@@ -0,0 +1,239 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.domain.model.calendar;
+
+import java.util.Calendar;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+
+import com.saasovation.common.AssertionConcern;
+
+/**
+ * I expand a TimeSpan and its Repetition into the time spans of
+ * its occurrences. I never enumerate from the first occurrence:
+ * I step straight to the occurrences near the range being asked
+ * for, so that even an indefinitely repeating entry expands in
+ * time proportional to the range.
+ */
+public final class OccurrenceExpansion extends AssertionConcern {
+
+    private static final long MILLIS_PER_DAY = 86400000L;
+
+    private Repetition repetition;
+    private TimeSpan timeSpan;
+
+    public OccurrenceExpansion(TimeSpan aTimeSpan, Repetition aRepetition) {
+        super();
+
+        this.setRepetition(aRepetition);
+        this.setTimeSpan(aTimeSpan);
+    }
+
+    public Iterator<TimeSpan> occurrencesWithin(TimeSpan aRange) {
+        this.assertArgumentNotNull(aRange, "The range must be provided.");
+
+        return new OccurrenceIterator(aRange);
+    }
+
+    public boolean occursWithin(TimeSpan aRange) {
+        return this.occurrencesWithin(aRange).hasNext();
+    }
+
+    public Repetition repetition() {
+        return this.repetition;
+    }
+
+    public TimeSpan timeSpan() {
+        return this.timeSpan;
+    }
+
+    @Override
+    public boolean equals(Object anObject) {
+        boolean equalObjects = false;
+
+        if (anObject != null && this.getClass() == anObject.getClass()) {
+            OccurrenceExpansion typedObject = (OccurrenceExpansion) anObject;
+            equalObjects =
+                this.repetition().equals(typedObject.repetition()) &&
+                this.timeSpan().equals(typedObject.timeSpan());
+        }
+
+        return equalObjects;
+    }
+
+    @Override
+    public int hashCode() {
+        int hashCodeValue =
+                + (3961 * 101)
+                + this.repetition().hashCode()
+                + this.timeSpan().hashCode();
+
+        return hashCodeValue;
+    }
+
+    @Override
+    public String toString() {
+        return "OccurrenceExpansion [timeSpan=" + timeSpan + ", repetition=" + repetition + "]";
+    }
+
+    private long duration() {
+        return this.timeSpan().ends().getTime() - this.timeSpan().begins().getTime();
+    }
+
+    private int firstOccurrenceIndexNear(long aTime) {
+        long elapsed = aTime - this.timeSpan().begins().getTime();
+
+        if (elapsed <= 0) {
+            return 0;
+        }
+
+        RepeatType repeatType = this.repetition().repeats();
+
+        long index = 0;
+
+        if (repeatType.isDaily()) {
+            index = elapsed / MILLIS_PER_DAY;
+        } else if (repeatType.isWeekly()) {
+            index = elapsed / (7L * MILLIS_PER_DAY);
+        } else if (repeatType.isMonthly() || repeatType.isYearly()) {
+            Calendar begins = Calendar.getInstance();
+            begins.setTime(this.timeSpan().begins());
+
+            Calendar time = Calendar.getInstance();
+            time.setTimeInMillis(aTime);
+
+            index = (time.get(Calendar.YEAR) - begins.get(Calendar.YEAR)) * 12
+                    + time.get(Calendar.MONTH) - begins.get(Calendar.MONTH);
+
+            if (repeatType.isYearly()) {
+                index = index / 12;
+            }
+        }
+
+        // one step back absorbs daylight saving shifts
+        // and months shorter than the starting day
+
+        --index;
+
+        return index < 0 ? 0 : (int) index;
+    }
+
+    private void setRepetition(Repetition aRepetition) {
+        this.assertArgumentNotNull(aRepetition, "The repetition must be provided.");
+
+        this.repetition = aRepetition;
+    }
+
+    private void setTimeSpan(TimeSpan aTimeSpan) {
+        this.assertArgumentNotNull(aTimeSpan, "The time span must be provided.");
+
+        this.timeSpan = aTimeSpan;
+    }
+
+    private void stepTo(Calendar anOccurrence, int anIndex) {
+        // always step from the first occurrence so that months
+        // shorter than the starting day do not drift later ones
+
+        anOccurrence.setTime(this.timeSpan().begins());
+
+        RepeatType repeatType = this.repetition().repeats();
+
+        if (repeatType.isDaily()) {
+            anOccurrence.add(Calendar.DAY_OF_MONTH, anIndex);
+        } else if (repeatType.isWeekly()) {
+            anOccurrence.add(Calendar.DAY_OF_MONTH, anIndex * 7);
+        } else if (repeatType.isMonthly()) {
+            anOccurrence.add(Calendar.MONTH, anIndex);
+        } else if (repeatType.isYearly()) {
+            anOccurrence.add(Calendar.YEAR, anIndex);
+        }
+    }
+
+    private class OccurrenceIterator implements Iterator<TimeSpan> {
+
+        private boolean exhausted;
+        private int index;
+        private TimeSpan next;
+        private Calendar occurrence;
+        private long rangeBegins;
+        private long rangeEnds;
+
+        OccurrenceIterator(TimeSpan aRange) {
+            super();
+
+            this.occurrence = Calendar.getInstance();
+            this.rangeBegins = aRange.begins().getTime();
+            this.rangeEnds = aRange.ends().getTime();
+            this.index = firstOccurrenceIndexNear(this.rangeBegins - duration());
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (this.next == null && !this.exhausted) {
+                this.next = this.nextOccurrence();
+                this.exhausted = this.next == null;
+            }
+
+            return this.next != null;
+        }
+
+        @Override
+        public TimeSpan next() {
+            if (!this.hasNext()) {
+                throw new NoSuchElementException("There are no more occurrences.");
+            }
+
+            TimeSpan next = this.next;
+
+            this.next = null;
+
+            return next;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Cannot remove occurrences.");
+        }
+
+        private TimeSpan nextOccurrence() {
+            long duration = duration();
+            long repetitionEnds = repetition().ends().getTime();
+            boolean repeats = !repetition().repeats().isDoesNotRepeat();
+
+            while (repeats || this.index == 0) {
+                stepTo(this.occurrence, this.index++);
+
+                long occurrenceBegins = this.occurrence.getTimeInMillis();
+
+                if (occurrenceBegins > this.rangeEnds) {
+                    return null;
+                }
+
+                if (repeats && occurrenceBegins > repetitionEnds) {
+                    return null;
+                }
+
+                if (occurrenceBegins + duration >= this.rangeBegins) {
+                    return new TimeSpan(
+                            new Date(occurrenceBegins),
+                            new Date(occurrenceBegins + duration));
+                }
+            }
+
+            return null;
+        }
+    }
+}
@@ -20,6 +20,7 @@ import com.saasovation.collaboration.domain.model.collaborator.Author;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.EventSourcedRootEntity;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 
 public class Discussion extends EventSourcedRootEntity {
 
@@ -35,6 +36,18 @@ public class Discussion extends EventSourcedRootEntity {
         super(anEventStream, aStreamVersion);
     }
 
+    public Discussion(Discussion aSnapshotState, List<DomainEvent> anEventStream, int aStreamVersion) {
+        super(aSnapshotState, anEventStream, aStreamVersion);
+    }
+
+    public Discussion(EventStreamCursor anEventStream) {
+        super(anEventStream);
+    }
+
+    public Discussion(Discussion aSnapshotState, EventStreamCursor anEventStream) {
+        super(aSnapshotState, anEventStream);
+    }
+
     public Author author() {
         return this.author;
     }
@@ -22,6 +22,7 @@ import com.saasovation.collaboration.domain.model.collaborator.Moderator;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.EventSourcedRootEntity;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 
 public class Forum extends EventSourcedRootEntity {
 
@@ -60,6 +61,18 @@ public class Forum extends EventSourcedRootEntity {
         super(anEventStream, aStreamVersion);
     }
 
+    public Forum(Forum aSnapshotState, List<DomainEvent> anEventStream, int aStreamVersion) {
+        super(aSnapshotState, anEventStream, aStreamVersion);
+    }
+
+    public Forum(EventStreamCursor anEventStream) {
+        super(anEventStream);
+    }
+
+    public Forum(Forum aSnapshotState, EventStreamCursor anEventStream) {
+        super(aSnapshotState, anEventStream);
+    }
+
     public void assignModerator(Moderator aModerator) {
         this.assertStateFalse(this.isClosed(), "Forum is closed.");
         this.assertArgumentNotNull(aModerator, "The moderator must be provided.");
@@ -21,6 +21,7 @@ import com.saasovation.collaboration.domain.model.collaborator.Author;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.EventSourcedRootEntity;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 
 public class Post extends EventSourcedRootEntity {
 
@@ -39,6 +40,18 @@ public class Post extends EventSourcedRootEntity {
         super(anEventStream, aStreamVersion);
     }
 
+    public Post(Post aSnapshotState, List<DomainEvent> anEventStream, int aStreamVersion) {
+        super(aSnapshotState, anEventStream, aStreamVersion);
+    }
+
+    public Post(EventStreamCursor anEventStream) {
+        super(anEventStream);
+    }
+
+    public Post(Post aSnapshotState, EventStreamCursor anEventStream) {
+        super(aSnapshotState, anEventStream);
+    }
+
     public Author author() {
         return this.author;
     }
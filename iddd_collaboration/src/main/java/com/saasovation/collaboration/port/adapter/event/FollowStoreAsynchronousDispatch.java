@@ -0,0 +1,605 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.port.adapter.event;
+
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
+import com.saasovation.common.AssertionConcern;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventDispatcher;
+import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+
+/**
+ * I dispatch the events followed by a FollowStoreEventDispatcher on
+ * my own threads, so that appending to the event store only signals
+ * me. Each registered EventDispatcher is followed independently by its
+ * own follower thread, so a slow or failing dispatcher holds back no
+ * other. A follower reads its undispatched events in chunks and
+ * partitions each chunk by stream name over its partition threads. All
+ * events of one stream land in the same partition, preserving the order
+ * of each aggregate's events while different aggregates are dispatched
+ * in parallel. Partition queues are bounded, so when a dispatcher falls
+ * behind its follower stops reading until the partitions drain. The
+ * shared checkpoint advances only as far as the slowest dispatcher.
+ * Each partition commits its events on its own connection, so when a
+ * chunk fails I remember which of its events were committed and do not
+ * dispatch them again when the chunk is retried.
+ *
+ * @author Vaughn Vernon
+ */
+public class FollowStoreAsynchronousDispatch extends AssertionConcern {
+
+    private static final int DISPATCH_CHUNK_SIZE = 500;
+    private static final long FOLLOW_INTERVAL_MILLIS = 1000L;
+
+    private DataSource dataSource;
+    private FollowStoreEventDispatcher dispatcher;
+    private Map<EventDispatcher, DispatcherFollower> dispatcherFollowers;
+    private int partitionCapacity;
+    private int partitionCount;
+    private boolean running;
+
+    public FollowStoreAsynchronousDispatch(
+            FollowStoreEventDispatcher aDispatcher,
+            DataSource aDataSource,
+            int aPartitionCount,
+            int aPartitionCapacity) {
+
+        super();
+
+        this.setDataSource(aDataSource);
+        this.setDispatcher(aDispatcher);
+        this.setDispatcherFollowers(new ConcurrentHashMap<EventDispatcher, DispatcherFollower>());
+        this.setPartitionCapacity(aPartitionCapacity);
+        this.setPartitionCount(aPartitionCount);
+    }
+
+    public Throwable failureOf(EventDispatcher anEventDispatcher) {
+        return this.dispatcherFollowerOf(anEventDispatcher).failure();
+    }
+
+    public long lagOf(EventDispatcher anEventDispatcher) {
+        long lastEventId =
+                EventStoreProvider
+                    .instance()
+                    .eventStore()
+                    .lastEventId();
+
+        return Math.max(0, lastEventId - this.dispatcherFollowerOf(anEventDispatcher).lastDispatchedEventId());
+    }
+
+    public int partitionCapacity() {
+        return this.partitionCapacity;
+    }
+
+    public int partitionCount() {
+        return this.partitionCount;
+    }
+
+    public int queuedEventCount() {
+        int queuedEventCount = 0;
+
+        for (DispatcherFollower dispatcherFollower : this.dispatcherFollowers().values()) {
+            queuedEventCount += dispatcherFollower.queuedEventCount();
+        }
+
+        return queuedEventCount;
+    }
+
+    public void signal() {
+        for (DispatcherFollower dispatcherFollower : this.dispatcherFollowers().values()) {
+            dispatcherFollower.signal();
+        }
+    }
+
+    public synchronized void start(List<EventDispatcher> aRegisteredDispatchers, long aLastDispatchedEventId) {
+        if (!this.running) {
+            this.running = true;
+
+            for (EventDispatcher eventDispatcher : aRegisteredDispatchers) {
+                this.follow(eventDispatcher, aLastDispatchedEventId);
+            }
+        }
+    }
+
+    public void stop() {
+        synchronized (this) {
+            this.running = false;
+        }
+
+        for (DispatcherFollower dispatcherFollower : this.dispatcherFollowers().values()) {
+            dispatcherFollower.stop();
+        }
+    }
+
+    synchronized void follow(EventDispatcher anEventDispatcher, long aLastDispatchedEventId) {
+
+        // a dispatcher registered while I am running starts
+        // from the shared checkpoint, as it would on restart
+
+        if (this.running && !this.dispatcherFollowers().containsKey(anEventDispatcher)) {
+            DispatcherFollower dispatcherFollower =
+                    new DispatcherFollower(anEventDispatcher, aLastDispatchedEventId);
+
+            this.dispatcherFollowers().put(anEventDispatcher, dispatcherFollower);
+
+            dispatcherFollower.start();
+        }
+    }
+
+    private void checkpoint() {
+        long lastDispatchedEventId = Long.MAX_VALUE;
+
+        for (DispatcherFollower dispatcherFollower : this.dispatcherFollowers().values()) {
+            lastDispatchedEventId = Math.min(lastDispatchedEventId, dispatcherFollower.lastDispatchedEventId());
+        }
+
+        if (lastDispatchedEventId != Long.MAX_VALUE) {
+            this.dispatcher().checkpoint(lastDispatchedEventId);
+        }
+    }
+
+    private DataSource dataSource() {
+        return this.dataSource;
+    }
+
+    private void setDataSource(DataSource aDataSource) {
+        this.assertArgumentNotNull(aDataSource, "The data source must be provided.");
+
+        this.dataSource = aDataSource;
+    }
+
+    private FollowStoreEventDispatcher dispatcher() {
+        return this.dispatcher;
+    }
+
+    private void setDispatcher(FollowStoreEventDispatcher aDispatcher) {
+        this.assertArgumentNotNull(aDispatcher, "The dispatcher must be provided.");
+
+        this.dispatcher = aDispatcher;
+    }
+
+    private DispatcherFollower dispatcherFollowerOf(EventDispatcher anEventDispatcher) {
+        DispatcherFollower dispatcherFollower = this.dispatcherFollowers().get(anEventDispatcher);
+
+        if (dispatcherFollower == null) {
+            throw new IllegalArgumentException(
+                    "There is no such dispatcher: "
+                    + anEventDispatcher.getClass().getName());
+        }
+
+        return dispatcherFollower;
+    }
+
+    private Map<EventDispatcher, DispatcherFollower> dispatcherFollowers() {
+        return this.dispatcherFollowers;
+    }
+
+    private void setDispatcherFollowers(Map<EventDispatcher, DispatcherFollower> aDispatcherFollowers) {
+        this.dispatcherFollowers = aDispatcherFollowers;
+    }
+
+    private void join(Thread aThread) {
+        if (aThread != null) {
+            try {
+                aThread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void setPartitionCapacity(int aPartitionCapacity) {
+        this.assertArgumentTrue(aPartitionCapacity > 0, "The partition capacity must be greater than zero.");
+
+        this.partitionCapacity = aPartitionCapacity;
+    }
+
+    private void setPartitionCount(int aPartitionCount) {
+        this.assertArgumentTrue(aPartitionCount > 0, "The partition count must be greater than zero.");
+
+        this.partitionCount = aPartitionCount;
+    }
+
+    private class DispatcherFollower implements Runnable {
+
+        private Set<Long> committedEventIds;
+        private boolean dispatching;
+        private EventDispatcher eventDispatcher;
+        private volatile Throwable failure;
+        private volatile long lastDispatchedEventId;
+        private List<BlockingQueue<PartitionedEvent>> partitions;
+        private List<Thread> partitionThreads;
+        private boolean running;
+        private boolean signaled;
+        private Thread thread;
+
+        DispatcherFollower(EventDispatcher anEventDispatcher, long aLastDispatchedEventId) {
+            super();
+
+            this.committedEventIds = Collections.newSetFromMap(new ConcurrentHashMap<Long, Boolean>());
+            this.eventDispatcher = anEventDispatcher;
+            this.lastDispatchedEventId = aLastDispatchedEventId;
+            this.partitions = new ArrayList<BlockingQueue<PartitionedEvent>>(partitionCount());
+            this.partitionThreads = new ArrayList<Thread>(partitionCount());
+
+            for (int idx = 0; idx < partitionCount(); ++idx) {
+                this.partitions.add(new ArrayBlockingQueue<PartitionedEvent>(partitionCapacity()));
+            }
+        }
+
+        @Override
+        public void run() {
+            while (this.awaitSignal()) {
+                try {
+                    this.dispatchUndispatchedEvents();
+                } catch (Throwable t) {
+                    // the failed chunk is dispatched
+                    // again when next followed
+                    this.failure = t;
+                }
+            }
+        }
+
+        Throwable failure() {
+            return this.failure;
+        }
+
+        long lastDispatchedEventId() {
+            return this.lastDispatchedEventId;
+        }
+
+        int queuedEventCount() {
+            int queuedEventCount = 0;
+
+            for (BlockingQueue<PartitionedEvent> partition : this.partitions) {
+                queuedEventCount += partition.size();
+            }
+
+            return queuedEventCount;
+        }
+
+        synchronized void signal() {
+            this.signaled = true;
+
+            this.notifyAll();
+        }
+
+        synchronized void start() {
+            this.dispatching = true;
+            this.running = true;
+            this.signaled = true;
+
+            String threadName =
+                    "FollowStoreAsynchronousDispatch-"
+                    + this.eventDispatcher.getClass().getSimpleName();
+
+            for (int idx = 0; idx < this.partitions.size(); ++idx) {
+                Thread partitionThread =
+                        new Thread(
+                                new PartitionDispatch(this, this.partitions.get(idx)),
+                                threadName + "-" + idx);
+
+                partitionThread.setDaemon(true);
+
+                partitionThread.start();
+
+                this.partitionThreads.add(partitionThread);
+            }
+
+            this.thread = new Thread(this, threadName);
+
+            this.thread.setDaemon(true);
+
+            this.thread.start();
+        }
+
+        void stop() {
+            Thread thread = null;
+
+            synchronized (this) {
+                this.running = false;
+
+                this.notifyAll();
+
+                thread = this.thread;
+
+                this.thread = null;
+            }
+
+            // the follower finishes its chunk before
+            // the partition threads drain and stop
+
+            join(thread);
+
+            synchronized (this) {
+                this.dispatching = false;
+            }
+
+            for (Thread partitionThread : this.partitionThreads) {
+                join(partitionThread);
+            }
+
+            this.partitionThreads.clear();
+        }
+
+        boolean isCommitted(long anEventId) {
+            return this.committedEventIds.contains(anEventId);
+        }
+
+        synchronized boolean isDispatching() {
+            return this.dispatching;
+        }
+
+        void committed(List<PartitionedEvent> anEvents) {
+            for (PartitionedEvent event : anEvents) {
+                this.committedEventIds.add(event.dispatchableDomainEvent().eventId());
+            }
+        }
+
+        EventDispatcher eventDispatcher() {
+            return this.eventDispatcher;
+        }
+
+        private synchronized boolean awaitSignal() {
+            while (this.running && !this.signaled) {
+                try {
+                    this.wait(FOLLOW_INTERVAL_MILLIS);
+                } catch (InterruptedException e) {
+                    // running is rechecked
+                }
+
+                // also follow periodically, covering
+                // chunks that failed to dispatch
+
+                this.signaled = true;
+            }
+
+            this.signaled = false;
+
+            return this.running;
+        }
+
+        private void dispatchAll(List<DispatchableDomainEvent> aDispatchableDomainEvents)
+        throws InterruptedException {
+
+            DispatchChunk chunk = new DispatchChunk(aDispatchableDomainEvents.size());
+
+            for (DispatchableDomainEvent event : aDispatchableDomainEvents) {
+                this.partitionOf(event).put(new PartitionedEvent(event, chunk));
+            }
+
+            chunk.await();
+
+            chunk.confirmDispatched();
+        }
+
+        private void dispatchUndispatchedEvents() throws InterruptedException {
+            boolean caughtUp = false;
+
+            while (!caughtUp) {
+                List<DispatchableDomainEvent> undispatchedEvents =
+                        EventStoreProvider
+                            .instance()
+                            .eventStore()
+                            .eventsSince(
+                                    this.lastDispatchedEventId,
+                                    DISPATCH_CHUNK_SIZE);
+
+                if (!undispatchedEvents.isEmpty()) {
+                    this.dispatchAll(undispatchedEvents);
+
+                    this.lastDispatchedEventId =
+                            undispatchedEvents.get(undispatchedEvents.size() - 1).eventId();
+
+                    // the whole chunk was committed, so its
+                    // events need no longer be remembered
+
+                    this.committedEventIds.clear();
+
+                    this.failure = null;
+
+                    checkpoint();
+                }
+
+                caughtUp = undispatchedEvents.size() < DISPATCH_CHUNK_SIZE;
+            }
+        }
+
+        private BlockingQueue<PartitionedEvent> partitionOf(DispatchableDomainEvent aDispatchableDomainEvent) {
+            String streamName = aDispatchableDomainEvent.streamName();
+
+            int partition = 0;
+
+            if (streamName != null) {
+                partition = (streamName.hashCode() & Integer.MAX_VALUE) % this.partitions.size();
+            }
+
+            return this.partitions.get(partition);
+        }
+    }
+
+    private class PartitionDispatch implements Runnable {
+
+        private DispatcherFollower dispatcherFollower;
+        private BlockingQueue<PartitionedEvent> partition;
+
+        PartitionDispatch(DispatcherFollower aDispatcherFollower, BlockingQueue<PartitionedEvent> aPartition) {
+            super();
+
+            this.dispatcherFollower = aDispatcherFollower;
+            this.partition = aPartition;
+        }
+
+        @Override
+        public void run() {
+            List<PartitionedEvent> events = new ArrayList<PartitionedEvent>();
+
+            while (this.dispatcherFollower.isDispatching() || !this.partition.isEmpty()) {
+                try {
+                    PartitionedEvent event = this.partition.poll(100L, TimeUnit.MILLISECONDS);
+
+                    if (event != null) {
+                        events.add(event);
+
+                        this.partition.drainTo(events, partitionCapacity() - 1);
+
+                        this.dispatch(events);
+
+                        events.clear();
+                    }
+
+                } catch (InterruptedException e) {
+                    // stop() waits for the partition to drain
+                }
+            }
+        }
+
+        private void dispatch(List<PartitionedEvent> anEvents) {
+
+            // the dispatcher uses my connection, which is committed
+            // once for all drained events, unless their chunk
+            // failed and will be dispatched again
+
+            Connection connection = ConnectionProvider.connection(dataSource());
+
+            try {
+                boolean failed = false;
+
+                for (PartitionedEvent event : anEvents) {
+                    failed = failed || event.chunk().hasFailed();
+
+                    DispatchableDomainEvent dispatchableDomainEvent = event.dispatchableDomainEvent();
+
+                    if (!failed && !this.dispatcherFollower.isCommitted(dispatchableDomainEvent.eventId())) {
+                        try {
+                            this.dispatcherFollower.eventDispatcher().dispatch(dispatchableDomainEvent);
+                        } catch (Throwable t) {
+                            event.chunk().fail(t);
+
+                            failed = true;
+                        }
+                    }
+                }
+
+                if (failed) {
+                    connection.rollback();
+                } else {
+                    connection.commit();
+
+                    this.dispatcherFollower.committed(anEvents);
+                }
+
+            } catch (Throwable t) {
+                for (PartitionedEvent event : anEvents) {
+                    event.chunk().fail(t);
+                }
+
+                try {
+                    connection.rollback();
+                } catch (Throwable t2) {
+                    // ignore
+                }
+            } finally {
+                try {
+                    ConnectionProvider.closeConnection();
+                } catch (Throwable t) {
+                    // ignore
+                }
+
+                for (PartitionedEvent event : anEvents) {
+                    event.chunk().eventCompleted();
+                }
+            }
+        }
+    }
+
+    private static class PartitionedEvent {
+
+        private DispatchChunk chunk;
+        private DispatchableDomainEvent dispatchableDomainEvent;
+
+        PartitionedEvent(DispatchableDomainEvent aDispatchableDomainEvent, DispatchChunk aChunk) {
+            super();
+
+            this.chunk = aChunk;
+            this.dispatchableDomainEvent = aDispatchableDomainEvent;
+        }
+
+        DispatchChunk chunk() {
+            return this.chunk;
+        }
+
+        DispatchableDomainEvent dispatchableDomainEvent() {
+            return this.dispatchableDomainEvent;
+        }
+    }
+
+    private static class DispatchChunk {
+
+        private CountDownLatch completed;
+        private volatile Throwable failure;
+
+        DispatchChunk(int anEventCount) {
+            super();
+
+            this.completed = new CountDownLatch(anEventCount);
+        }
+
+        void await() throws InterruptedException {
+            this.completed.await();
+        }
+
+        void confirmDispatched() {
+            if (this.failure instanceof RuntimeException) {
+                throw (RuntimeException) this.failure;
+            } else if (this.failure instanceof Error) {
+                throw (Error) this.failure;
+            } else if (this.failure != null) {
+                throw new IllegalStateException(
+                        "Cannot dispatch events because: "
+                            + this.failure.getMessage(),
+                        this.failure);
+            }
+        }
+
+        void eventCompleted() {
+            this.completed.countDown();
+        }
+
+        synchronized void fail(Throwable aFailure) {
+            if (this.failure == null) {
+                this.failure = aFailure;
+            }
+        }
+
+        boolean hasFailed() {
+            return this.failure != null;
+        }
+    }
+}
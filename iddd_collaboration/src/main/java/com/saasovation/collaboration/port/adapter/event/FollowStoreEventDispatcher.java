@@ -18,8 +18,8 @@ import java.sql.Connection;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.Statement;
-import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 import javax.sql.DataSource;
 
@@ -30,17 +30,46 @@ import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.event.sourcing.EventNotifiable;
 import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
 
+/**
+ * I follow the event store, publishing each appended event to the
+ * thread's DomainEventPublisher subscribers and dispatching it to my
+ * registered EventDispatchers. I dispatch either on the appending
+ * thread, one registered dispatcher after another, or, when started
+ * with partitions, asynchronously by a FollowStoreAsynchronousDispatch,
+ * which follows each registered dispatcher independently. Either way
+ * my registered dispatchers receive each event at least once: a chunk
+ * that fails is dispatched again, and so is any chunk not checkpointed
+ * before a restart. The asynchronous dispatch does not repeat events
+ * already committed by a partition, but my registered dispatchers must
+ * still tolerate repeats.
+ *
+ * @author Vaughn Vernon
+ */
 public class FollowStoreEventDispatcher implements EventDispatcher, EventNotifiable {
 
+    private static final int DISPATCH_CHUNK_SIZE = 500;
+
+    private volatile FollowStoreAsynchronousDispatch asynchronousDispatch;
     private DataSource collaborationDataSource;
-    private long lastDispatchedEventId;
+    private volatile long lastDispatchedEventId;
+    private long lastPublishedEventId;
+    private Object publishLock;
     private List<EventDispatcher> registeredDispatchers;
 
     public FollowStoreEventDispatcher(DataSource aDataSource) {
+        this(aDataSource, 0, 0);
+    }
+
+    public FollowStoreEventDispatcher(
+            DataSource aDataSource,
+            int aPartitionCount,
+            int aPartitionCapacity) {
+
         super();
 
         this.setCollaborationDataSource(aDataSource);
-        this.setRegisteredDispatchers(new ArrayList<EventDispatcher>());
+        this.setPublishLock(new Object());
+        this.setRegisteredDispatchers(new CopyOnWriteArrayList<EventDispatcher>());
 
         EventStoreProvider
             .instance()
@@ -48,6 +77,12 @@ public class FollowStoreEventDispatcher implements EventDispatcher, EventNotifia
 
         this.setLastDispatchedEventId(this.queryLastDispatchedEventId());
 
+        // without partitions I dispatch on the appending thread
+
+        if (aPartitionCount > 0) {
+            this.startAsynchronousDispatch(aPartitionCount, aPartitionCapacity);
+        }
+
         this.notifyDispatchableEvents();
     }
 
@@ -60,61 +95,163 @@ public class FollowStoreEventDispatcher implements EventDispatcher, EventNotifia
         }
     }
 
+    public Throwable failureOf(EventDispatcher anEventDispatcher) {
+
+        // when synchronous, a failure is thrown to the appender
+
+        FollowStoreAsynchronousDispatch asynchronousDispatch =
+                this.asynchronousDispatch();
+
+        return asynchronousDispatch == null ? null : asynchronousDispatch.failureOf(anEventDispatcher);
+    }
+
+    public long lag() {
+
+        // the events appended but not yet dispatched
+        // to all of my registered dispatchers
+
+        long lastEventId =
+                EventStoreProvider
+                    .instance()
+                    .eventStore()
+                    .lastEventId();
+
+        return Math.max(0, lastEventId - this.lastDispatchedEventId());
+    }
+
+    public long lagOf(EventDispatcher anEventDispatcher) {
+
+        // when synchronous, all of my registered
+        // dispatchers are dispatched together
+
+        FollowStoreAsynchronousDispatch asynchronousDispatch =
+                this.asynchronousDispatch();
+
+        return asynchronousDispatch == null ? this.lag() : asynchronousDispatch.lagOf(anEventDispatcher);
+    }
+
     @Override
     public void notifyDispatchableEvents() {
 
-        // this could be multi-threaded from here,
-        // but is not for simplicity
-
         // child EventDispatchers should use only
         // ConnectionProvider.connection() and
         // not commit. i will commit and close the
         // connection here
 
-        Connection connection =
-                ConnectionProvider
-                    .connection(this.collaborationDataSource());
+        FollowStoreAsynchronousDispatch asynchronousDispatch =
+                this.asynchronousDispatch();
 
-        try {
-            List<DispatchableDomainEvent> undispatchedEvents =
-                    EventStoreProvider
-                        .instance()
-                        .eventStore()
-                        .eventsSince(this.lastDispatchedEventId());
+        if (asynchronousDispatch != null) {
+            // DomainEventPublisher subscribers are registered
+            // per thread, so the appending thread publishes and
+            // only signals the asynchronous threads to dispatch
+            this.publishUnpublishedEvents();
 
-            if (!undispatchedEvents.isEmpty()) {
+            asynchronousDispatch.signal();
+        } else {
+            this.dispatchUndispatchedEvents();
+        }
+    }
 
-                for (DispatchableDomainEvent event : undispatchedEvents) {
-                    this.dispatch(event);
-                }
+    public int queuedEventCount() {
+        FollowStoreAsynchronousDispatch asynchronousDispatch =
+                this.asynchronousDispatch();
 
-                DispatchableDomainEvent withLastEventId =
-                        undispatchedEvents.get(undispatchedEvents.size() - 1);
+        return asynchronousDispatch == null ? 0 : asynchronousDispatch.queuedEventCount();
+    }
 
-                long lastDispatchedEventId = withLastEventId.eventId();
+    @Override
+    public synchronized void registerEventDispatcher(EventDispatcher anEventDispatcher) {
+        this.registeredDispatchers().add(anEventDispatcher);
+
+        FollowStoreAsynchronousDispatch asynchronousDispatch =
+                this.asynchronousDispatch();
+
+        if (asynchronousDispatch != null) {
+            asynchronousDispatch.follow(anEventDispatcher, this.lastDispatchedEventId());
+        }
+    }
+
+    public synchronized void startAsynchronousDispatch(
+            int aPartitionCount,
+            int aPartitionCapacity) {
 
-                this.setLastDispatchedEventId(lastDispatchedEventId);
+        if (this.asynchronousDispatch() == null) {
+            FollowStoreAsynchronousDispatch asynchronousDispatch =
+                    new FollowStoreAsynchronousDispatch(
+                            this,
+                            this.collaborationDataSource(),
+                            aPartitionCount,
+                            aPartitionCapacity);
 
-                this.saveLastDispatchedEventId(connection, lastDispatchedEventId);
+            synchronized (this.publishLock()) {
+                this.setLastPublishedEventId(this.lastDispatchedEventId());
             }
 
+            asynchronousDispatch.start(this.registeredDispatchers(), this.lastDispatchedEventId());
+
+            this.setAsynchronousDispatch(asynchronousDispatch);
+        }
+    }
+
+    public void stopAsynchronousDispatch() {
+        FollowStoreAsynchronousDispatch asynchronousDispatch = null;
+
+        synchronized (this) {
+            asynchronousDispatch = this.asynchronousDispatch();
+
+            this.setAsynchronousDispatch(null);
+        }
+
+        if (asynchronousDispatch != null) {
+            asynchronousDispatch.stop();
+        }
+    }
+
+    @Override
+    public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
+        return true;
+    }
+
+    synchronized void checkpoint(long aLastDispatchedEventId) {
+
+        // the slowest of my asynchronously followed
+        // dispatchers has dispatched up to this event
+
+        if (aLastDispatchedEventId <= this.lastDispatchedEventId()) {
+            return;
+        }
+
+        Connection connection =
+                ConnectionProvider
+                    .connection(this.collaborationDataSource());
+
+        try {
+            this.saveLastDispatchedEventId(connection, aLastDispatchedEventId);
+
             connection.commit();
 
+            this.setLastDispatchedEventId(aLastDispatchedEventId);
+
         } catch (Throwable t) {
-            throw new IllegalStateException("Cannot dispatch events because: " + t.getMessage(), t);
+            try {
+                connection.rollback();
+            } catch (Throwable t2) {
+                // ignore
+            }
+
+            throw new IllegalStateException("Cannot checkpoint dispatched events because: " + t.getMessage(), t);
         } finally {
             ConnectionProvider.closeConnection();
         }
     }
 
-    @Override
-    public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
-        this.registeredDispatchers().add(anEventDispatcher);
+    private FollowStoreAsynchronousDispatch asynchronousDispatch() {
+        return this.asynchronousDispatch;
     }
 
-    @Override
-    public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
-        return true;
+    private void setAsynchronousDispatch(FollowStoreAsynchronousDispatch anAsynchronousDispatch) {
+        this.asynchronousDispatch = anAsynchronousDispatch;
     }
 
     private void close(Statement aStatement, ResultSet aResultSet) {
@@ -170,6 +307,66 @@ public class FollowStoreEventDispatcher implements EventDispatcher, EventNotifia
         return connection;
     }
 
+    private synchronized void dispatchUndispatchedEvents() {
+
+        // catch up in bounded chunks so that a large backlog
+        // neither fills the heap nor holds one long transaction;
+        // the last dispatched event id is committed per chunk
+
+        Connection connection =
+                ConnectionProvider
+                    .connection(this.collaborationDataSource());
+
+        try {
+            boolean caughtUp = false;
+
+            while (!caughtUp) {
+                List<DispatchableDomainEvent> undispatchedEvents =
+                        EventStoreProvider
+                            .instance()
+                            .eventStore()
+                            .eventsSince(
+                                    this.lastDispatchedEventId(),
+                                    DISPATCH_CHUNK_SIZE);
+
+                if (!undispatchedEvents.isEmpty()) {
+                    for (DispatchableDomainEvent event : undispatchedEvents) {
+                        this.dispatch(event);
+                    }
+
+                    DispatchableDomainEvent withLastEventId =
+                            undispatchedEvents.get(undispatchedEvents.size() - 1);
+
+                    long lastDispatchedEventId = withLastEventId.eventId();
+
+                    this.saveLastDispatchedEventId(connection, lastDispatchedEventId);
+
+                    connection.commit();
+
+                    this.setLastDispatchedEventId(lastDispatchedEventId);
+                }
+
+                caughtUp = undispatchedEvents.size() < DISPATCH_CHUNK_SIZE;
+            }
+
+            connection.commit();
+
+        } catch (Throwable t) {
+            // the chunk is dispatched again when next followed,
+            // so none of its writes on my connection may remain
+
+            try {
+                connection.rollback();
+            } catch (Throwable t2) {
+                // ignore
+            }
+
+            throw new IllegalStateException("Cannot dispatch events because: " + t.getMessage(), t);
+        } finally {
+            ConnectionProvider.closeConnection();
+        }
+    }
+
     private long lastDispatchedEventId() {
         return this.lastDispatchedEventId;
     }
@@ -178,6 +375,14 @@ public class FollowStoreEventDispatcher implements EventDispatcher, EventNotifia
         this.lastDispatchedEventId = aLastDispatchedEventId;
     }
 
+    private long lastPublishedEventId() {
+        return this.lastPublishedEventId;
+    }
+
+    private void setLastPublishedEventId(long aLastPublishedEventId) {
+        this.lastPublishedEventId = aLastPublishedEventId;
+    }
+
     private long queryLastDispatchedEventId() {
 
         long lastHandledEventId = 0;
@@ -250,6 +455,43 @@ public class FollowStoreEventDispatcher implements EventDispatcher, EventNotifia
         }
     }
 
+    private void publishUnpublishedEvents() {
+        synchronized (this.publishLock()) {
+            try {
+                boolean caughtUp = false;
+
+                while (!caughtUp) {
+                    List<DispatchableDomainEvent> unpublishedEvents =
+                            EventStoreProvider
+                                .instance()
+                                .eventStore()
+                                .eventsSince(
+                                        this.lastPublishedEventId(),
+                                        DISPATCH_CHUNK_SIZE);
+
+                    for (DispatchableDomainEvent event : unpublishedEvents) {
+                        DomainEventPublisher.instance().publish(event.domainEvent());
+
+                        this.setLastPublishedEventId(event.eventId());
+                    }
+
+                    caughtUp = unpublishedEvents.size() < DISPATCH_CHUNK_SIZE;
+                }
+
+            } catch (Throwable t) {
+                throw new IllegalStateException("Cannot publish events because: " + t.getMessage(), t);
+            }
+        }
+    }
+
+    private Object publishLock() {
+        return this.publishLock;
+    }
+
+    private void setPublishLock(Object aPublishLock) {
+        this.publishLock = aPublishLock;
+    }
+
     private List<EventDispatcher> registeredDispatchers() {
         return this.registeredDispatchers;
     }
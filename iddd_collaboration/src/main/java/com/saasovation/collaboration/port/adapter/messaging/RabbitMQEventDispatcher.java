@@ -19,19 +19,16 @@ import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.notification.Notification;
 import com.saasovation.common.notification.NotificationSerializer;
 import com.saasovation.common.port.adapter.messaging.Exchanges;
-import com.saasovation.common.port.adapter.messaging.rabbitmq.ConnectionSettings;
+import com.saasovation.common.port.adapter.messaging.rabbitmq.ChannelPool;
 import com.saasovation.common.port.adapter.messaging.rabbitmq.Exchange;
 import com.saasovation.common.port.adapter.messaging.rabbitmq.MessageParameters;
 import com.saasovation.common.port.adapter.messaging.rabbitmq.MessageProducer;
 
 public class RabbitMQEventDispatcher implements EventDispatcher {
 
-    private MessageProducer messageProducer;
-
     public RabbitMQEventDispatcher(EventDispatcher aParentEventDispatcher) {
         super();
 
-        this.initializeMessageProducer();
         aParentEventDispatcher.registerEventDispatcher(this);
     }
 
@@ -51,7 +48,13 @@ public class RabbitMQEventDispatcher implements EventDispatcher {
         String serializedNotification =
                 NotificationSerializer.instance().serialize(notification);
 
-        this.messageProducer.send(serializedNotification, messageParameters);
+        MessageProducer messageProducer = this.messageProducer();
+
+        try {
+            messageProducer.send(serializedNotification, messageParameters);
+        } finally {
+            messageProducer.close();
+        }
     }
 
     @Override
@@ -64,13 +67,18 @@ public class RabbitMQEventDispatcher implements EventDispatcher {
         return true;
     }
 
-    private void initializeMessageProducer() {
+    private MessageProducer messageProducer() {
+
+        // a channel is not safe for concurrent publishing, so each
+        // dispatch borrows one from the pool, reconnecting if the
+        // connection to the broker has been lost
+
         Exchange exchange =
                 Exchange.fanOutInstance(
-                        ConnectionSettings.instance(),
+                        ChannelPool.instance(),
                         Exchanges.COLLABORATION_EXCHANGE_NAME,
                         true);
 
-        this.messageProducer = MessageProducer.instance(exchange);
+        return MessageProducer.instance(exchange);
     }
 }
@@ -14,16 +14,32 @@
 
 package com.saasovation.collaboration.port.adapter.persistence;
 
+
+import com.saasovation.common.domain.model.EventSourcedRootEntity;
 import com.saasovation.common.event.sourcing.EventStore;
+import com.saasovation.common.event.sourcing.EventStoreException;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
+import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
+import com.saasovation.common.event.sourcing.SnapshotSerializer;
+import com.saasovation.common.event.sourcing.SnapshotStore;
 import com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb.LevelDBEventStore;
+import com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb.LevelDBSnapshotStore;
 import com.saasovation.common.port.adapter.persistence.eventsourcing.mysql.MySQLJDBCEventStore;
+import com.saasovation.common.port.adapter.persistence.eventsourcing.mysql.MySQLJDBCSnapshotStore;
 
 public class EventStoreProvider {
 
     private static final boolean FOR_LEVELDB = true;
     private static final boolean FOR_MYSQL = false;
 
+    // unless configured, a snapshot is taken each
+    // time a stream crosses a multiple of this
+    private static final int SNAPSHOT_INTERVAL = 100;
+
     private EventStore eventStore;
+    private int snapshotInterval;
+    private SnapshotStore snapshotStore;
 
     public static EventStoreProvider instance() {
         return new EventStoreProvider();
@@ -33,25 +49,120 @@ public class EventStoreProvider {
         return this.eventStore;
     }
 
+    public SnapshotStore snapshotStore() {
+        return this.snapshotStore;
+    }
+
     protected EventStoreProvider() {
+        this(SNAPSHOT_INTERVAL);
+    }
+
+    protected EventStoreProvider(int aSnapshotInterval) {
         super();
 
+        if (aSnapshotInterval <= 0) {
+            throw new IllegalArgumentException("The snapshot interval must be greater than zero.");
+        }
+
+        this.snapshotInterval = aSnapshotInterval;
+
         this.initializeLevelDB();
 
         this.initializeMySQL();
     }
 
+    protected EventStreamCursor eventStreamCursorFor(
+            EventStreamId aStreamIdentity,
+            Snapshot aSnapshot) {
+
+        EventStreamCursor eventStream = null;
+
+        if (aSnapshot == null) {
+            eventStream = this.eventStore().eventStreamCursorFrom(aStreamIdentity);
+
+            if (!eventStream.hasNext()) {
+                eventStream.close();
+
+                throw new EventStoreException(
+                        "There is no such event stream: "
+                        + aStreamIdentity.streamName()
+                        + " : "
+                        + aStreamIdentity.streamVersion());
+            }
+
+        } else {
+            eventStream =
+                    this.eventStore().eventStreamCursorFrom(
+                            aSnapshot.streamId().withStreamVersion(aSnapshot.streamVersion() + 1));
+        }
+
+        return eventStream;
+    }
+
+    protected <T extends EventSourcedRootEntity> T snapshotStateOf(
+            Snapshot aSnapshot,
+            Class<T> aRootEntityType) {
+
+        return SnapshotSerializer.instance().deserialize(aSnapshot, aRootEntityType);
+    }
+
+    protected void snapshotWhenDue(
+            EventStreamId aStreamIdentity,
+            EventSourcedRootEntity aRootEntity) {
+
+        int unmutatedVersion = aRootEntity.unmutatedVersion();
+
+        int streamVersion = unmutatedVersion + aRootEntity.mutatingEvents().size();
+
+        int snapshotInterval = this.snapshotInterval();
+
+        if (streamVersion / snapshotInterval > unmutatedVersion / snapshotInterval) {
+            try {
+                Snapshot snapshot =
+                        SnapshotSerializer
+                            .instance()
+                            .serialize(
+                                    aStreamIdentity.withStreamVersion(streamVersion),
+                                    aRootEntity);
+
+                this.snapshotStore().save(snapshot);
+
+            } catch (Exception e) {
+                // the events are already appended and the stream
+                // remains authoritative; no snapshot is attempted
+                // again until the stream crosses the next interval
+                System.out.println(
+                        "Cannot snapshot: "
+                            + aStreamIdentity.streamName()
+                            + " at version: "
+                            + streamVersion
+                            + " because: "
+                            + e.getMessage());
+            }
+        }
+    }
+
     private void initializeLevelDB() {
         if (FOR_LEVELDB) {
             this.eventStore =
                     LevelDBEventStore
                             .instance(this.getClass().getResource("/").getPath() + "/data/leveldb/iddd_collaboration_es");
+
+            this.snapshotStore =
+                    LevelDBSnapshotStore
+                            .instance(this.getClass().getResource("/").getPath() + "/data/leveldb/iddd_collaboration_ss");
         }
     }
 
     private void initializeMySQL() {
         if (FOR_MYSQL) {
             this.eventStore = MySQLJDBCEventStore.instance();
+
+            this.snapshotStore = MySQLJDBCSnapshotStore.instance();
         }
     }
+
+    private int snapshotInterval() {
+        return this.snapshotInterval;
+    }
 }
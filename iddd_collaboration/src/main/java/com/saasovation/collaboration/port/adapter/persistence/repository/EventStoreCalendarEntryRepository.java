@@ -21,8 +21,9 @@ import com.saasovation.collaboration.domain.model.calendar.CalendarEntryId;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryRepository;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
-import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
 
 public class EventStoreCalendarEntryRepository
         extends EventStoreProvider
@@ -32,15 +33,30 @@ public class EventStoreCalendarEntryRepository
         super();
     }
 
+    public EventStoreCalendarEntryRepository(int aSnapshotInterval) {
+        super(aSnapshotInterval);
+    }
+
     @Override
     public CalendarEntry calendarEntryOfId(Tenant aTenant, CalendarEntryId aCalendarEntryId) {
-        // snapshots not currently supported; always use version 1
-
         EventStreamId eventId = new EventStreamId(aTenant.id(), aCalendarEntryId.id());
 
-        EventStream eventStream = this.eventStore().eventStreamSince(eventId);
+        Snapshot snapshot = this.snapshotStore().snapshotOf(eventId);
+
+        CalendarEntry calendarEntry = null;
 
-        CalendarEntry calendarEntry = new CalendarEntry(eventStream.events(), eventStream.version());
+        EventStreamCursor eventStream = this.eventStreamCursorFor(eventId, snapshot);
+
+        try {
+            if (snapshot == null) {
+                calendarEntry = new CalendarEntry(eventStream);
+            } else {
+                calendarEntry = new CalendarEntry(this.snapshotStateOf(snapshot, CalendarEntry.class), eventStream);
+            }
+
+        } finally {
+            eventStream.close();
+        }
 
         return calendarEntry;
     }
@@ -59,5 +75,7 @@ public class EventStoreCalendarEntryRepository
                         aCalendarEntry.mutatedVersion());
 
         this.eventStore().appendWith(eventId, aCalendarEntry.mutatingEvents());
+
+        this.snapshotWhenDue(eventId, aCalendarEntry);
     }
 }
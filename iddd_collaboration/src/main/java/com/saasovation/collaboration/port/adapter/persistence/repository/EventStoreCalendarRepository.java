@@ -21,8 +21,9 @@ import com.saasovation.collaboration.domain.model.calendar.CalendarId;
 import com.saasovation.collaboration.domain.model.calendar.CalendarRepository;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
-import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
 
 public class EventStoreCalendarRepository
         extends EventStoreProvider
@@ -32,15 +33,30 @@ public class EventStoreCalendarRepository
         super();
     }
 
+    public EventStoreCalendarRepository(int aSnapshotInterval) {
+        super(aSnapshotInterval);
+    }
+
     @Override
     public Calendar calendarOfId(Tenant aTenant, CalendarId aCalendarId) {
-        // snapshots not currently supported; always use version 1
-
         EventStreamId eventId = new EventStreamId(aTenant.id(), aCalendarId.id());
 
-        EventStream eventStream = this.eventStore().eventStreamSince(eventId);
+        Snapshot snapshot = this.snapshotStore().snapshotOf(eventId);
+
+        Calendar calendar = null;
 
-        Calendar calendar = new Calendar(eventStream.events(), eventStream.version());
+        EventStreamCursor eventStream = this.eventStreamCursorFor(eventId, snapshot);
+
+        try {
+            if (snapshot == null) {
+                calendar = new Calendar(eventStream);
+            } else {
+                calendar = new Calendar(this.snapshotStateOf(snapshot, Calendar.class), eventStream);
+            }
+
+        } finally {
+            eventStream.close();
+        }
 
         return calendar;
     }
@@ -59,5 +75,7 @@ public class EventStoreCalendarRepository
                         aCalendar.mutatedVersion());
 
         this.eventStore().appendWith(eventId, aCalendar.mutatingEvents());
+
+        this.snapshotWhenDue(eventId, aCalendar);
     }
 }
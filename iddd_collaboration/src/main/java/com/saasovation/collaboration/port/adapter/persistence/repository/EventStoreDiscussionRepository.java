@@ -21,8 +21,9 @@ import com.saasovation.collaboration.domain.model.forum.DiscussionId;
 import com.saasovation.collaboration.domain.model.forum.DiscussionRepository;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
-import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
 
 public class EventStoreDiscussionRepository
         extends EventStoreProvider
@@ -32,17 +33,32 @@ public class EventStoreDiscussionRepository
         super();
     }
 
+    public EventStoreDiscussionRepository(int aSnapshotInterval) {
+        super(aSnapshotInterval);
+    }
+
     @Override
     public Discussion discussionOfId(Tenant aTenant, DiscussionId aDiscussionId) {
-        // snapshots not currently supported; always use version 1
-
         EventStreamId eventId = new EventStreamId(aTenant.id(), aDiscussionId.id());
 
-        EventStream eventStream = this.eventStore().eventStreamSince(eventId);
+        Snapshot snapshot = this.snapshotStore().snapshotOf(eventId);
+
+        Discussion discussion = null;
 
-        Discussion Discussion = new Discussion(eventStream.events(), eventStream.version());
+        EventStreamCursor eventStream = this.eventStreamCursorFor(eventId, snapshot);
 
-        return Discussion;
+        try {
+            if (snapshot == null) {
+                discussion = new Discussion(eventStream);
+            } else {
+                discussion = new Discussion(this.snapshotStateOf(snapshot, Discussion.class), eventStream);
+            }
+
+        } finally {
+            eventStream.close();
+        }
+
+        return discussion;
     }
 
     @Override
@@ -59,5 +75,7 @@ public class EventStoreDiscussionRepository
                         aDiscussion.mutatedVersion());
 
         this.eventStore().appendWith(eventId, aDiscussion.mutatingEvents());
+
+        this.snapshotWhenDue(eventId, aDiscussion);
     }
 }
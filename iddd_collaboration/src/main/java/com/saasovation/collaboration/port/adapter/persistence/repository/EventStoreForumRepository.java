@@ -21,8 +21,9 @@ import com.saasovation.collaboration.domain.model.forum.ForumId;
 import com.saasovation.collaboration.domain.model.forum.ForumRepository;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
-import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
 
 public class EventStoreForumRepository
         extends EventStoreProvider
@@ -32,15 +33,30 @@ public class EventStoreForumRepository
         super();
     }
 
+    public EventStoreForumRepository(int aSnapshotInterval) {
+        super(aSnapshotInterval);
+    }
+
     @Override
     public Forum forumOfId(Tenant aTenant, ForumId aForumId) {
-        // snapshots not currently supported; always use version 1
-
         EventStreamId eventId = new EventStreamId(aTenant.id(), aForumId.id());
 
-        EventStream eventStream = this.eventStore().eventStreamSince(eventId);
+        Snapshot snapshot = this.snapshotStore().snapshotOf(eventId);
+
+        Forum forum = null;
 
-        Forum forum = new Forum(eventStream.events(), eventStream.version());
+        EventStreamCursor eventStream = this.eventStreamCursorFor(eventId, snapshot);
+
+        try {
+            if (snapshot == null) {
+                forum = new Forum(eventStream);
+            } else {
+                forum = new Forum(this.snapshotStateOf(snapshot, Forum.class), eventStream);
+            }
+
+        } finally {
+            eventStream.close();
+        }
 
         return forum;
     }
@@ -59,5 +75,7 @@ public class EventStoreForumRepository
                         aForum.mutatedVersion());
 
         this.eventStore().appendWith(eventId, aForum.mutatingEvents());
+
+        this.snapshotWhenDue(eventId, aForum);
     }
 }
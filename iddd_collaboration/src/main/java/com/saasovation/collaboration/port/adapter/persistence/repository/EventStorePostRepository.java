@@ -21,8 +21,9 @@ import com.saasovation.collaboration.domain.model.forum.PostId;
 import com.saasovation.collaboration.domain.model.forum.PostRepository;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
-import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
 
 public class EventStorePostRepository
         extends EventStoreProvider
@@ -32,17 +33,32 @@ public class EventStorePostRepository
         super();
     }
 
+    public EventStorePostRepository(int aSnapshotInterval) {
+        super(aSnapshotInterval);
+    }
+
     @Override
     public Post postOfId(Tenant aTenantId, PostId aPostId) {
-        // snapshots not currently supported; always use version 1
-
         EventStreamId eventId = new EventStreamId(aTenantId.id(), aPostId.id());
 
-        EventStream eventStream = this.eventStore().eventStreamSince(eventId);
+        Snapshot snapshot = this.snapshotStore().snapshotOf(eventId);
+
+        Post post = null;
 
-        Post Post = new Post(eventStream.events(), eventStream.version());
+        EventStreamCursor eventStream = this.eventStreamCursorFor(eventId, snapshot);
 
-        return Post;
+        try {
+            if (snapshot == null) {
+                post = new Post(eventStream);
+            } else {
+                post = new Post(this.snapshotStateOf(snapshot, Post.class), eventStream);
+            }
+
+        } finally {
+            eventStream.close();
+        }
+
+        return post;
     }
 
     @Override
@@ -59,5 +75,7 @@ public class EventStorePostRepository
                         aPost.mutatedVersion());
 
         this.eventStore().appendWith(eventId, aPost.mutatingEvents());
+
+        this.snapshotWhenDue(eventId, aPost);
     }
 }
@@ -14,9 +14,15 @@
 
 package com.saasovation.collaboration.port.adapter.persistence.view;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
-
+import java.sql.Timestamp;
+import java.util.ArrayList;
+import java.util.List;
+
+import com.saasovation.collaboration.application.calendar.CalendarEntryInterval;
+import com.saasovation.collaboration.application.calendar.CalendarEntryIntervalIndex;
+import com.saasovation.collaboration.application.calendar.CalendarEntryQueryService;
+import com.saasovation.collaboration.application.calendar.ParticipantFreeBusyIndex;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryDescriptionChanged;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryId;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryParticipantInvited;
@@ -24,17 +30,25 @@ import com.saasovation.collaboration.domain.model.calendar.CalendarEntryParticip
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryRelocated;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryRescheduled;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntryScheduled;
+import com.saasovation.collaboration.domain.model.calendar.CalendarId;
+import com.saasovation.collaboration.domain.model.calendar.Repetition;
+import com.saasovation.collaboration.domain.model.calendar.TimeSpan;
 import com.saasovation.collaboration.domain.model.collaborator.Participant;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.port.adapter.persistence.AbstractProjection;
-import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class MySQLCalendarEntryProjection
         extends AbstractProjection
         implements EventDispatcher {
 
+    private static final String[] projectedTableNames = {
+        "tbl_vw_calendar_entry",
+        "tbl_vw_calendar_entry_invitee"
+    };
+
     private static final Class<?> understoodEventTypes[] = {
         CalendarEntryDescriptionChanged.class,
         CalendarEntryParticipantInvited.class,
@@ -44,8 +58,19 @@ public class MySQLCalendarEntryProjection
         CalendarEntryScheduled.class
     };
 
-    public MySQLCalendarEntryProjection(EventDispatcher aParentEventDispatcher) {
-        super();
+    private CalendarEntryIntervalIndex calendarEntryIntervalIndex;
+    private ParticipantFreeBusyIndex participantFreeBusyIndex;
+
+    public MySQLCalendarEntryProjection(
+            EventDispatcher aParentEventDispatcher,
+            QueryCache aQueryCache,
+            CalendarEntryIntervalIndex aCalendarEntryIntervalIndex,
+            ParticipantFreeBusyIndex aParticipantFreeBusyIndex) {
+
+        super(aQueryCache);
+
+        this.calendarEntryIntervalIndex = aCalendarEntryIntervalIndex;
+        this.participantFreeBusyIndex = aParticipantFreeBusyIndex;
 
         aParentEventDispatcher.registerEventDispatcher(this);
     }
@@ -55,6 +80,21 @@ public class MySQLCalendarEntryProjection
         this.projectWhen(aDispatchableDomainEvent);
     }
 
+    @Override
+    public String[] projectedTableNames() {
+        return projectedTableNames;
+    }
+
+    @Override
+    public void projectedTablesSwapped() {
+        super.projectedTablesSwapped();
+
+        // both indexes are loaded again from the rebuilt tables
+
+        this.calendarEntryIntervalIndex().clear();
+        this.participantFreeBusyIndex().clear();
+    }
+
     @Override
     public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
         throw new UnsupportedOperationException("Cannot register additional dispatchers.");
@@ -68,10 +108,8 @@ public class MySQLCalendarEntryProjection
     }
 
     protected void when(CalendarEntryDescriptionChanged anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_calendar_entry set description=? "
                         + " where calendar_entry_id = ?");
 
@@ -79,17 +117,32 @@ public class MySQLCalendarEntryProjection
         statement.setString(2, anEvent.calendarEntryId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarEntryId());
     }
 
     protected void when(CalendarEntryParticipantInvited anEvent) throws Exception {
         this.insertInvitee(anEvent.tenant(), anEvent.calendarEntryId(), anEvent.participant());
+
+        if (this.isIndexing()) {
+            final String tenantId = anEvent.tenant().id();
+            final String calendarEntryId = anEvent.calendarEntryId().id();
+            final String participantId = anEvent.participant().identity();
+
+            this.whenCommitted(new Runnable() {
+                @Override
+                public void run() {
+                    participantFreeBusyIndex().invite(tenantId, calendarEntryId, participantId);
+                }
+            });
+        }
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarEntryId());
     }
 
     protected void when(CalendarEntryParticipantUninvited anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "delete from tbl_vw_calendar_entry_invitee "
                         + "where tenant_id = ? and calendar_entry_id = ? and participant_identity = ?");
 
@@ -98,13 +151,26 @@ public class MySQLCalendarEntryProjection
         statement.setString(3, anEvent.participant().identity());
 
         this.execute(statement);
+
+        if (this.isIndexing()) {
+            final String tenantId = anEvent.tenant().id();
+            final String calendarEntryId = anEvent.calendarEntryId().id();
+            final String participantId = anEvent.participant().identity();
+
+            this.whenCommitted(new Runnable() {
+                @Override
+                public void run() {
+                    participantFreeBusyIndex().uninvite(tenantId, calendarEntryId, participantId);
+                }
+            });
+        }
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarEntryId());
     }
 
     protected void when(CalendarEntryRelocated anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_calendar_entry set location=? "
                         + " where calendar_entry_id = ?");
 
@@ -112,13 +178,13 @@ public class MySQLCalendarEntryProjection
         statement.setString(2, anEvent.calendarEntryId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarEntryId());
     }
 
     protected void when(CalendarEntryRescheduled anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_calendar_entry "
                         + "set alarm_alarm_units = ?, alarm_alarm_units_type = ?, "
                         + "repetition_ends = ?, repetition_type = ?, "
@@ -127,37 +193,49 @@ public class MySQLCalendarEntryProjection
 
         statement.setInt(1, anEvent.alarm().alarmUnits());
         statement.setString(2, anEvent.alarm().alarmUnitsType().name());
-        statement.setDate(3, new java.sql.Date(anEvent.repetition().ends().getTime()));
+        statement.setTimestamp(3, new Timestamp(anEvent.repetition().ends().getTime()));
         statement.setString(4, anEvent.repetition().repeats().name());
-        statement.setDate(5, new java.sql.Date(anEvent.timeSpan().begins().getTime()));
-        statement.setDate(6, new java.sql.Date(anEvent.timeSpan().ends().getTime()));
+        statement.setTimestamp(5, new Timestamp(anEvent.timeSpan().begins().getTime()));
+        statement.setTimestamp(6, new Timestamp(anEvent.timeSpan().ends().getTime()));
         statement.setString(7, anEvent.tenant().id());
         statement.setString(8, anEvent.calendarEntryId().id());
 
         this.execute(statement);
+
+        if (this.isIndexing()) {
+            final String tenantId = anEvent.tenant().id();
+            final String calendarId = anEvent.calendarId().id();
+
+            final CalendarEntryInterval interval =
+                    this.calendarEntryIntervalOf(
+                            anEvent.calendarEntryId(),
+                            anEvent.timeSpan(),
+                            anEvent.repetition());
+
+            this.whenCommitted(new Runnable() {
+                @Override
+                public void run() {
+                    calendarEntryIntervalIndex().index(tenantId, calendarId, interval);
+                    participantFreeBusyIndex().reschedule(tenantId, interval);
+                }
+            });
+        }
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarEntryId());
     }
 
     protected void when(CalendarEntryScheduled anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select calendar_entry_id from tbl_vw_calendar_entry "
-                    + "where tenant_id = ? and calendar_entry_id = ?",
-                anEvent.tenant().id(),
-                anEvent.calendarEntryId().id())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_calendar_entry( "
                         + "calendar_entry_id, alarm_alarm_units, alarm_alarm_units_type, "
                         + "calendar_id, description, location, "
                         + "owner_email_address, owner_identity, owner_name, "
                         + "repetition_ends, repetition_type, "
                         + "tenant_id, time_span_begins, time_span_ends"
-                        + ") values(?,?,?,?,?,?,?,?,?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?,?,?,?,?,?,?,?,?) "
+                        + "on duplicate key update calendar_entry_id = calendar_entry_id");
 
         statement.setString(1, anEvent.calendarEntryId().id());
         statement.setInt(2, anEvent.alarm().alarmUnits());
@@ -168,17 +246,71 @@ public class MySQLCalendarEntryProjection
         statement.setString(7, anEvent.owner().emailAddress());
         statement.setString(8, anEvent.owner().identity());
         statement.setString(9, anEvent.owner().name());
-        statement.setDate(10, new java.sql.Date(anEvent.repetition().ends().getTime()));
+        statement.setTimestamp(10, new Timestamp(anEvent.repetition().ends().getTime()));
         statement.setString(11, anEvent.repetition().repeats().name());
         statement.setString(12, anEvent.tenant().id());
-        statement.setDate(13, new java.sql.Date(anEvent.timeSpan().begins().getTime()));
-        statement.setDate(14, new java.sql.Date(anEvent.timeSpan().ends().getTime()));
+        statement.setTimestamp(13, new Timestamp(anEvent.timeSpan().begins().getTime()));
+        statement.setTimestamp(14, new Timestamp(anEvent.timeSpan().ends().getTime()));
 
         this.execute(statement);
 
         for (Participant participant : anEvent.invitees()) {
             this.insertInvitee(anEvent.tenant(), anEvent.calendarEntryId(), participant);
         }
+
+        if (this.isIndexing()) {
+            final String tenantId = anEvent.tenant().id();
+            final String calendarId = anEvent.calendarId().id();
+
+            final CalendarEntryInterval interval =
+                    this.calendarEntryIntervalOf(
+                            anEvent.calendarEntryId(),
+                            anEvent.timeSpan(),
+                            anEvent.repetition());
+
+            final List<String> inviteeIds = new ArrayList<String>(anEvent.invitees().size());
+
+            for (Participant participant : anEvent.invitees()) {
+                inviteeIds.add(participant.identity());
+            }
+
+            this.whenCommitted(new Runnable() {
+                @Override
+                public void run() {
+                    calendarEntryIntervalIndex().index(tenantId, calendarId, interval);
+                    participantFreeBusyIndex().schedule(tenantId, interval, inviteeIds);
+                }
+            });
+        }
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarEntryId());
+    }
+
+    private CalendarEntryInterval calendarEntryIntervalOf(
+            CalendarEntryId aCalendarEntryId,
+            TimeSpan aTimeSpan,
+            Repetition aRepetition) {
+
+        return new CalendarEntryInterval(
+                aCalendarEntryId.id(),
+                aTimeSpan.begins(),
+                aTimeSpan.ends(),
+                aRepetition.repeats(),
+                aRepetition.ends());
+    }
+
+    private CalendarEntryIntervalIndex calendarEntryIntervalIndex() {
+        return this.calendarEntryIntervalIndex;
+    }
+
+    private void evictCachedQueriesOf(
+            Tenant aTenant,
+            CalendarId aCalendarId,
+            CalendarEntryId aCalendarEntryId) {
+
+        this.evictCachedQueries(
+                CalendarEntryQueryService.calendarEntryCacheTag(aTenant.id(), aCalendarEntryId.id()),
+                CalendarEntryQueryService.entriesOfCalendarCacheTag(aTenant.id(), aCalendarId.id()));
     }
 
     private void insertInvitee(
@@ -187,25 +319,15 @@ public class MySQLCalendarEntryProjection
             Participant aParticipant)
     throws Exception {
 
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select id from tbl_vw_calendar_entry_invitee "
-                    + "where tenant_id = ? and calendar_entry_id = ? and participant_identity = ?",
-                aTenant.id(),
-                aCalendarEntryId.id(),
-                aParticipant.identity())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_calendar_entry_invitee( "
                         + "id, calendar_entry_id, "
                         + "participant_email_address, participant_identity, participant_name, "
                         + "tenant_id"
-                        + ") values(?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?) "
+                        + "on duplicate key update id = id");
 
         statement.setLong(1, 0);
         statement.setString(2, aCalendarEntryId.id());
@@ -216,4 +338,16 @@ public class MySQLCalendarEntryProjection
 
         this.execute(statement);
     }
+
+    private boolean isIndexing() {
+
+        // both indexes reflect the live tables, so they are
+        // not updated while a rebuild projects into its own
+
+        return !this.isProjectingIntoSuffixedTables();
+    }
+
+    private ParticipantFreeBusyIndex participantFreeBusyIndex() {
+        return this.participantFreeBusyIndex;
+    }
 }
@@ -14,9 +14,9 @@
 
 package com.saasovation.collaboration.port.adapter.persistence.view;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 
+import com.saasovation.collaboration.application.calendar.CalendarQueryService;
 import com.saasovation.collaboration.domain.model.calendar.CalendarCreated;
 import com.saasovation.collaboration.domain.model.calendar.CalendarDescriptionChanged;
 import com.saasovation.collaboration.domain.model.calendar.CalendarId;
@@ -28,12 +28,17 @@ import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.port.adapter.persistence.AbstractProjection;
-import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class MySQLCalendarProjection
         extends AbstractProjection
         implements EventDispatcher {
 
+    private static final String[] projectedTableNames = {
+        "tbl_vw_calendar",
+        "tbl_vw_calendar_sharer"
+    };
+
     private static final Class<?> understoodEventTypes[] = {
         CalendarCreated.class,
         CalendarDescriptionChanged.class,
@@ -42,8 +47,8 @@ public class MySQLCalendarProjection
         CalendarUnshared.class
     };
 
-    public MySQLCalendarProjection(EventDispatcher aParentEventDispatcher) {
-        super();
+    public MySQLCalendarProjection(EventDispatcher aParentEventDispatcher, QueryCache aQueryCache) {
+        super(aQueryCache);
 
         aParentEventDispatcher.registerEventDispatcher(this);
     }
@@ -53,6 +58,11 @@ public class MySQLCalendarProjection
         this.projectWhen(aDispatchableDomainEvent);
     }
 
+    @Override
+    public String[] projectedTableNames() {
+        return projectedTableNames;
+    }
+
     @Override
     public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
         throw new UnsupportedOperationException("Cannot register additional dispatchers.");
@@ -66,24 +76,15 @@ public class MySQLCalendarProjection
     }
 
     protected void when(CalendarCreated anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select calendar_id from tbl_vw_calendar "
-                    + "where tenant_id = ? and calendar_id = ?",
-                anEvent.tenant().id(),
-                anEvent.calendarId().id())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_calendar("
                         + "calendar_id, description, name, "
                         + "owner_email_address, owner_identity, owner_name, "
                         + "tenant_id"
-                        + ") values(?,?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?,?) "
+                        + "on duplicate key update calendar_id = calendar_id");
 
         statement.setString(1, anEvent.calendarId().id());
         statement.setString(2, anEvent.description());
@@ -98,13 +99,13 @@ public class MySQLCalendarProjection
         for (CalendarSharer sharer : anEvent.sharedWith()) {
             this.insertCalendarSharer(anEvent.tenant(), anEvent.calendarId(), sharer);
         }
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId());
     }
 
     protected void when(CalendarDescriptionChanged anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_calendar set description=? "
                         + "where calendar_id = ?");
 
@@ -112,13 +113,13 @@ public class MySQLCalendarProjection
         statement.setString(2, anEvent.calendarId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId());
     }
 
     protected void when(CalendarRenamed anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_calendar set name=? "
                         + "where calendar_id = ?");
 
@@ -126,17 +127,19 @@ public class MySQLCalendarProjection
         statement.setString(2, anEvent.calendarId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId());
     }
 
     protected void when(CalendarShared anEvent) throws Exception {
         this.insertCalendarSharer(anEvent.tenant(), anEvent.calendarId(), anEvent.calendarSharer());
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId());
     }
 
     protected void when(CalendarUnshared anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "delete from tbl_vw_calendar_sharer "
                         + "where tenant_id=? and calendar_id=? and participant_identity=?");
 
@@ -145,6 +148,17 @@ public class MySQLCalendarProjection
         statement.setString(3, anEvent.calendarSharer().participant().identity());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.calendarId());
+    }
+
+    private void evictCachedQueriesOf(
+            Tenant aTenant,
+            CalendarId aCalendarId) {
+
+        this.evictCachedQueries(
+                CalendarQueryService.calendarCacheTag(aTenant.id(), aCalendarId.id()),
+                CalendarQueryService.tenantCalendarsCacheTag(aTenant.id()));
     }
 
     private void insertCalendarSharer(
@@ -153,25 +167,15 @@ public class MySQLCalendarProjection
             CalendarSharer aCalendarSharer)
     throws Exception {
 
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select id from tbl_vw_calendar_sharer "
-                    + "where tenant_id = ? and calendar_id = ? and participant_identity = ?",
-                aTenant.id(),
-                aCalendarId.id(),
-                aCalendarSharer.participant().identity())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_calendar_sharer("
                         + "id, calendar_id, "
                         + "participant_email_address, participant_identity, participant_name, "
                         + "tenant_id"
-                        + ") values(?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?) "
+                        + "on duplicate key update id = id");
 
         statement.setLong(1, 0);
         statement.setString(2, aCalendarId.id());
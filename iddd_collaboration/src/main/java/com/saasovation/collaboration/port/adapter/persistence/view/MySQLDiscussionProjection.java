@@ -14,29 +14,37 @@
 
 package com.saasovation.collaboration.port.adapter.persistence.view;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 
+import com.saasovation.collaboration.application.forum.DiscussionQueryService;
+import com.saasovation.collaboration.application.forum.PostQueryService;
 import com.saasovation.collaboration.domain.model.forum.DiscussionClosed;
+import com.saasovation.collaboration.domain.model.forum.DiscussionId;
 import com.saasovation.collaboration.domain.model.forum.DiscussionReopened;
 import com.saasovation.collaboration.domain.model.forum.DiscussionStarted;
+import com.saasovation.collaboration.domain.model.forum.ForumId;
+import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.port.adapter.persistence.AbstractProjection;
-import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class MySQLDiscussionProjection
         extends AbstractProjection
         implements EventDispatcher {
 
+    private static final String[] projectedTableNames = {
+        "tbl_vw_discussion"
+    };
+
     private static final Class<?> understoodEventTypes[] = {
         DiscussionClosed.class,
         DiscussionReopened.class,
         DiscussionStarted.class
     };
 
-    public MySQLDiscussionProjection(EventDispatcher aParentEventDispatcher) {
-        super();
+    public MySQLDiscussionProjection(EventDispatcher aParentEventDispatcher, QueryCache aQueryCache) {
+        super(aQueryCache);
 
         aParentEventDispatcher.registerEventDispatcher(this);
     }
@@ -46,6 +54,11 @@ public class MySQLDiscussionProjection
         this.projectWhen(aDispatchableDomainEvent);
     }
 
+    @Override
+    public String[] projectedTableNames() {
+        return projectedTableNames;
+    }
+
     @Override
     public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
         throw new UnsupportedOperationException("Cannot register additional dispatchers.");
@@ -59,10 +72,8 @@ public class MySQLDiscussionProjection
     }
 
     protected void when(DiscussionClosed anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_discussion "
                         + "set closed=1 "
                         + "where tenant_id = ? and discussion_id = ?");
@@ -71,13 +82,13 @@ public class MySQLDiscussionProjection
         statement.setString(2, anEvent.discussionId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId(), anEvent.discussionId());
     }
 
     protected void when(DiscussionReopened anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_discussion "
                         + "set closed=0 "
                         + "where tenant_id = ? and discussion_id = ?");
@@ -86,27 +97,20 @@ public class MySQLDiscussionProjection
         statement.setString(2, anEvent.discussionId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId(), anEvent.discussionId());
     }
 
     protected void when(DiscussionStarted anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select discussion_id from tbl_vw_discussion "
-                    + "where tenant_id = ? and discussion_id = ?",
-                anEvent.tenant().id(),
-                anEvent.discussionId().id())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_discussion( "
                         + "discussion_id, author_email_address, author_identity, author_name, "
                         + "closed, exclusive_owner, forum_id, "
                         + "subject, tenant_id"
-                        + ") values(?,?,?,?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?,?,?,?) "
+                        + "on duplicate key update discussion_id = discussion_id");
 
         statement.setString(1, anEvent.discussionId().id());
         statement.setString(2, anEvent.author().emailAddress());
@@ -119,5 +123,19 @@ public class MySQLDiscussionProjection
         statement.setString(9, anEvent.tenant().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId(), anEvent.discussionId());
+    }
+
+    private void evictCachedQueriesOf(
+            Tenant aTenant,
+            ForumId aForumId,
+            DiscussionId aDiscussionId) {
+
+        this.evictCachedQueries(
+                DiscussionQueryService.discussionCacheTag(aTenant.id(), aDiscussionId.id()),
+                DiscussionQueryService.discussionsOfForumCacheTag(aTenant.id(), aForumId.id()),
+                DiscussionQueryService.tenantDiscussionsCacheTag(aTenant.id()),
+                PostQueryService.postsOfDiscussionCacheTag(aTenant.id(), aDiscussionId.id()));
     }
 }
@@ -14,24 +14,31 @@
 
 package com.saasovation.collaboration.port.adapter.persistence.view;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 
+import com.saasovation.collaboration.application.forum.DiscussionQueryService;
+import com.saasovation.collaboration.application.forum.ForumQueryService;
 import com.saasovation.collaboration.domain.model.forum.ForumClosed;
 import com.saasovation.collaboration.domain.model.forum.ForumDescriptionChanged;
+import com.saasovation.collaboration.domain.model.forum.ForumId;
 import com.saasovation.collaboration.domain.model.forum.ForumModeratorChanged;
 import com.saasovation.collaboration.domain.model.forum.ForumReopened;
 import com.saasovation.collaboration.domain.model.forum.ForumStarted;
 import com.saasovation.collaboration.domain.model.forum.ForumSubjectChanged;
+import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.port.adapter.persistence.AbstractProjection;
-import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class MySQLForumProjection
         extends AbstractProjection
         implements EventDispatcher {
 
+    private static final String[] projectedTableNames = {
+        "tbl_vw_forum"
+    };
+
     private static final Class<?> understoodEventTypes[] = {
         ForumClosed.class,
         ForumDescriptionChanged.class,
@@ -41,8 +48,8 @@ public class MySQLForumProjection
         ForumSubjectChanged.class
     };
 
-    public MySQLForumProjection(EventDispatcher aParentEventDispatcher) {
-        super();
+    public MySQLForumProjection(EventDispatcher aParentEventDispatcher, QueryCache aQueryCache) {
+        super(aQueryCache);
 
         aParentEventDispatcher.registerEventDispatcher(this);
     }
@@ -52,6 +59,11 @@ public class MySQLForumProjection
         this.projectWhen(aDispatchableDomainEvent);
     }
 
+    @Override
+    public String[] projectedTableNames() {
+        return projectedTableNames;
+    }
+
     @Override
     public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
         throw new UnsupportedOperationException("Cannot register additional dispatchers.");
@@ -65,10 +77,8 @@ public class MySQLForumProjection
     }
 
     protected void when(ForumClosed anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_forum "
                         + "set closed=1 "
                         + "where tenant_id = ? and forum_id = ?");
@@ -77,13 +87,13 @@ public class MySQLForumProjection
         statement.setString(2, anEvent.forumId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId());
     }
 
     protected void when(ForumDescriptionChanged anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_forum "
                         + "set description=? "
                         + "where tenant_id = ? and forum_id = ?");
@@ -93,13 +103,13 @@ public class MySQLForumProjection
         statement.setString(3, anEvent.forumId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId());
     }
 
     protected void when(ForumModeratorChanged anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_forum "
                         + "set moderator_email_address=?, moderator_identity=?, moderator_name=?  "
                         + "where tenant_id = ? and forum_id = ?");
@@ -111,13 +121,13 @@ public class MySQLForumProjection
         statement.setString(5, anEvent.forumId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId());
     }
 
     protected void when(ForumReopened anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_forum "
                         + "set closed=0 "
                         + "where tenant_id = ? and forum_id = ?");
@@ -126,29 +136,22 @@ public class MySQLForumProjection
         statement.setString(2, anEvent.forumId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId());
     }
 
     protected void when(ForumStarted anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select forum_id from tbl_vw_forum "
-                    + "where tenant_id = ? and forum_id = ?",
-                anEvent.tenant().id(),
-                anEvent.forumId().id())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_forum( "
                         + "forum_id, closed, "
                         + "creator_email_address, creator_identity, creator_name, "
                         + "description, exclusive_owner, "
                         + "moderator_email_address, moderator_identity, moderator_name, "
                         + "subject, tenant_id"
-                        + ") values(?,?,?,?,?,?,?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?,?,?,?,?,?,?) "
+                        + "on duplicate key update forum_id = forum_id");
 
         statement.setString(1, anEvent.forumId().id());
         statement.setInt(2, 0);
@@ -164,13 +167,13 @@ public class MySQLForumProjection
         statement.setString(12, anEvent.tenant().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId());
     }
 
     protected void when(ForumSubjectChanged anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_forum "
                         + "set subject=? "
                         + "where tenant_id = ? and forum_id = ?");
@@ -180,5 +183,17 @@ public class MySQLForumProjection
         statement.setString(3, anEvent.forumId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.forumId());
+    }
+
+    private void evictCachedQueriesOf(
+            Tenant aTenant,
+            ForumId aForumId) {
+
+        this.evictCachedQueries(
+                ForumQueryService.forumCacheTag(aTenant.id(), aForumId.id()),
+                ForumQueryService.tenantForumsCacheTag(aTenant.id()),
+                DiscussionQueryService.discussionsOfForumCacheTag(aTenant.id(), aForumId.id()));
     }
 }
@@ -14,25 +14,32 @@
 
 package com.saasovation.collaboration.port.adapter.persistence.view;
 
-import java.sql.Connection;
 import java.sql.PreparedStatement;
 
+import com.saasovation.collaboration.application.forum.PostQueryService;
+import com.saasovation.collaboration.domain.model.forum.DiscussionId;
 import com.saasovation.collaboration.domain.model.forum.PostContentAltered;
+import com.saasovation.collaboration.domain.model.forum.PostId;
 import com.saasovation.collaboration.domain.model.forum.PostedToDiscussion;
+import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
 import com.saasovation.common.port.adapter.persistence.AbstractProjection;
-import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class MySQLPostProjection extends AbstractProjection implements EventDispatcher {
 
+    private static final String[] projectedTableNames = {
+        "tbl_vw_post"
+    };
+
     private static final Class<?> understoodEventTypes[] = {
         PostContentAltered.class,
         PostedToDiscussion.class
     };
 
-    public MySQLPostProjection(EventDispatcher aParentEventDispatcher) {
-        super();
+    public MySQLPostProjection(EventDispatcher aParentEventDispatcher, QueryCache aQueryCache) {
+        super(aQueryCache);
 
         aParentEventDispatcher.registerEventDispatcher(this);
     }
@@ -42,6 +49,11 @@ public class MySQLPostProjection extends AbstractProjection implements EventDisp
         this.projectWhen(aDispatchableDomainEvent);
     }
 
+    @Override
+    public String[] projectedTableNames() {
+        return projectedTableNames;
+    }
+
     @Override
     public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
         throw new UnsupportedOperationException("Cannot register additional dispatchers.");
@@ -55,13 +67,11 @@ public class MySQLPostProjection extends AbstractProjection implements EventDisp
     }
 
     protected void when(PostContentAltered anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "update tbl_vw_post "
                         + "set body_text=?, subject=?, changed_on=? "
-                        + "where tenant_id = ? and forum_id = ?");
+                        + "where tenant_id = ? and post_id = ?");
 
         statement.setString(1, anEvent.bodyText());
         statement.setString(2, anEvent.subject());
@@ -70,29 +80,22 @@ public class MySQLPostProjection extends AbstractProjection implements EventDisp
         statement.setString(5, anEvent.postId().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.discussionId(), anEvent.postId());
     }
 
     protected void when(PostedToDiscussion anEvent) throws Exception {
-        Connection connection = ConnectionProvider.connection();
-
         // idempotent operation
-        if (this.exists(
-                "select post_id from tbl_vw_post "
-                    + "where tenant_id = ? and post_id = ?",
-                anEvent.tenant().id(),
-                anEvent.postId().id())) {
-            return;
-        }
-
         PreparedStatement statement =
-                connection.prepareStatement(
+                this.prepareStatement(
                         "insert into tbl_vw_post( "
                         + "post_id, "
                         + "author_email_address, author_identity, author_name, "
                         + "body_text, changed_on, created_on, "
                         + "discussion_id, forum_id, reply_to_post_id, "
                         + "subject, tenant_id"
-                        + ") values(?,?,?,?,?,?,?,?,?,?,?,?)");
+                        + ") values(?,?,?,?,?,?,?,?,?,?,?,?) "
+                        + "on duplicate key update post_id = post_id");
 
         statement.setString(1, anEvent.postId().id());
         statement.setString(2, anEvent.author().emailAddress());
@@ -108,5 +111,17 @@ public class MySQLPostProjection extends AbstractProjection implements EventDisp
         statement.setString(12, anEvent.tenant().id());
 
         this.execute(statement);
+
+        this.evictCachedQueriesOf(anEvent.tenant(), anEvent.discussionId(), anEvent.postId());
+    }
+
+    private void evictCachedQueriesOf(
+            Tenant aTenant,
+            DiscussionId aDiscussionId,
+            PostId aPostId) {
+
+        this.evictCachedQueries(
+                PostQueryService.postCacheTag(aTenant.id(), aPostId.id()),
+                PostQueryService.postsOfDiscussionCacheTag(aTenant.id(), aDiscussionId.id()));
     }
 }
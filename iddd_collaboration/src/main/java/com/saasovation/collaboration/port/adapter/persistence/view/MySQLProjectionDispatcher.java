@@ -16,32 +16,128 @@ package com.saasovation.collaboration.port.adapter.persistence.view;
 
 import java.util.ArrayList;
 import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import javax.sql.DataSource;
 
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
+import com.saasovation.common.port.adapter.persistence.AbstractProjection;
 
 public class MySQLProjectionDispatcher implements EventDispatcher {
 
-    private List<EventDispatcher> registeredProjections;
+    private DataSource dataSource;
+    private boolean following;
+    private List<MySQLProjectionFollower> projectionFollowers;
+
+    public MySQLProjectionDispatcher(
+            EventDispatcher aParentEventDispatcher,
+            DataSource aDataSource) {
 
-    public MySQLProjectionDispatcher(EventDispatcher aParentEventDispatcher) {
         super();
 
+        this.setDataSource(aDataSource);
+        this.setProjectionFollowers(new CopyOnWriteArrayList<MySQLProjectionFollower>());
+
         aParentEventDispatcher.registerEventDispatcher(this);
+    }
 
-        this.setRegisteredProjections(new ArrayList<EventDispatcher>());
+    public long checkpointOf(String aProjectionName) {
+        return this.projectionFollowerOf(aProjectionName).lastProjectedEventId();
     }
 
     @Override
     public void dispatch(DispatchableDomainEvent aDispatchableDomainEvent) {
-        for (EventDispatcher projection : this.registeredProjections()) {
-            projection.dispatch(aDispatchableDomainEvent);
+
+        // each projection follows the event store from its own
+        // checkpoint, so one failing projection must neither
+        // stop the others nor the parent dispatcher
+
+        for (MySQLProjectionFollower projectionFollower : this.projectionFollowers()) {
+            try {
+                projectionFollower.follow(aDispatchableDomainEvent);
+            } catch (Throwable t) {
+                // retried when next followed
+                System.out.println(
+                        "Projection stalled: "
+                            + projectionFollower.checkpointName()
+                            + " because: "
+                            + t.getMessage());
+            }
         }
     }
 
+    public long lagOf(String aProjectionName) {
+        return this.projectionFollowerOf(aProjectionName).lag();
+    }
+
+    public MySQLProjectionRebuild rebuild(String aProjectionName) {
+        MySQLProjectionRebuild rebuild =
+                new MySQLProjectionRebuild(
+                        this.projectionFollowerOf(aProjectionName),
+                        this.dataSource());
+
+        rebuild.start();
+
+        return rebuild;
+    }
+
     @Override
     public void registerEventDispatcher(EventDispatcher aProjection) {
-        this.registeredProjections().add(aProjection);
+        if (!(aProjection instanceof AbstractProjection)) {
+            throw new IllegalArgumentException(
+                    "Must register an AbstractProjection: "
+                    + aProjection.getClass().getName());
+        }
+
+        AbstractProjection projection = (AbstractProjection) aProjection;
+
+        MySQLProjectionFollower projectionFollower =
+                new MySQLProjectionFollower(
+                        projection,
+                        this.dataSource(),
+                        projection.projectionName(),
+                        null);
+
+        // projections register once I have been started
+
+        synchronized (this) {
+            this.projectionFollowers().add(projectionFollower);
+
+            if (this.isFollowing()) {
+                projectionFollower.start();
+            }
+        }
+    }
+
+    public List<String> stalledProjectionNames() {
+        List<String> stalledProjectionNames = new ArrayList<String>();
+
+        for (MySQLProjectionFollower projectionFollower : this.projectionFollowers()) {
+            if (projectionFollower.isStalled()) {
+                stalledProjectionNames.add(projectionFollower.checkpointName());
+            }
+        }
+
+        return stalledProjectionNames;
+    }
+
+    public synchronized void startFollowing() {
+        this.setFollowing(true);
+
+        for (MySQLProjectionFollower projectionFollower : this.projectionFollowers()) {
+            projectionFollower.start();
+        }
+    }
+
+    public void stopFollowing() {
+        synchronized (this) {
+            this.setFollowing(false);
+        }
+
+        for (MySQLProjectionFollower projectionFollower : this.projectionFollowers()) {
+            projectionFollower.stop();
+        }
     }
 
     @Override
@@ -49,11 +145,37 @@ public class MySQLProjectionDispatcher implements EventDispatcher {
         return true;
     }
 
-    private List<EventDispatcher> registeredProjections() {
-        return this.registeredProjections;
+    private DataSource dataSource() {
+        return this.dataSource;
+    }
+
+    private void setDataSource(DataSource aDataSource) {
+        this.dataSource = aDataSource;
+    }
+
+    private boolean isFollowing() {
+        return this.following;
+    }
+
+    private void setFollowing(boolean aFollowing) {
+        this.following = aFollowing;
+    }
+
+    private MySQLProjectionFollower projectionFollowerOf(String aProjectionName) {
+        for (MySQLProjectionFollower projectionFollower : this.projectionFollowers()) {
+            if (projectionFollower.checkpointName().equals(aProjectionName)) {
+                return projectionFollower;
+            }
+        }
+
+        throw new IllegalArgumentException("There is no such projection: " + aProjectionName);
+    }
+
+    private List<MySQLProjectionFollower> projectionFollowers() {
+        return this.projectionFollowers;
     }
 
-    private void setRegisteredProjections(List<EventDispatcher> aDispatchers) {
-        this.registeredProjections = aDispatchers;
+    private void setProjectionFollowers(List<MySQLProjectionFollower> aProjectionFollowers) {
+        this.projectionFollowers = aProjectionFollowers;
     }
 }
@@ -0,0 +1,531 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.port.adapter.persistence.view;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+
+import javax.sql.DataSource;
+
+import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
+import com.saasovation.common.AssertionConcern;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.port.adapter.persistence.AbstractProjection;
+import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+
+/**
+ * I follow the event store on behalf of a single projection, keeping
+ * its own durable checkpoint in tbl_vw_projection_checkpoint. Each
+ * chunk of events is projected and checkpointed in one transaction of
+ * my own, so a slow or failing projection neither holds back nor is
+ * held back by any other. I follow either when asked to, on the
+ * caller's thread, or continuously on my own thread once started.
+ * While my last chunk failed to project I am stalled, and my lag
+ * grows as events are appended to the event store.
+ *
+ * @author Vaughn Vernon
+ */
+public class MySQLProjectionFollower extends AssertionConcern implements Runnable {
+
+    private static final int FOLLOW_CHUNK_SIZE = 500;
+    private static final long FOLLOW_INTERVAL_MILLIS = 1000L;
+
+    private String checkpointName;
+    private DataSource dataSource;
+    private ReentrantLock followLock;
+    private volatile Throwable lastFailure;
+    private volatile long lastProjectedEventId;
+    private AbstractProjection projection;
+    private boolean rebuilding;
+    private boolean running;
+    private boolean signaled;
+    private String tableSuffix;
+    private Thread thread;
+
+    public MySQLProjectionFollower(
+            AbstractProjection aProjection,
+            DataSource aDataSource,
+            String aCheckpointName,
+            String aTableSuffix) {
+
+        super();
+
+        this.setCheckpointName(aCheckpointName);
+        this.setDataSource(aDataSource);
+        this.setFollowLock(new ReentrantLock());
+        this.setProjection(aProjection);
+        this.setTableSuffix(aTableSuffix);
+
+        this.setLastProjectedEventId(this.queryLastProjectedEventId());
+    }
+
+    public String checkpointName() {
+        return this.checkpointName;
+    }
+
+    public void follow() {
+
+        // set aside the caller's connection, since I commit
+        // and close my own, and project into my tables
+
+        Connection suspendedConnection = null;
+        boolean suspended = false;
+
+        this.followLock().lock();
+
+        try {
+            suspendedConnection = ConnectionProvider.suspendConnection();
+
+            suspended = true;
+
+            this.projection().projectIntoTablesSuffixedWith(this.tableSuffix());
+
+            boolean caughtUp = false;
+
+            while (!caughtUp) {
+                List<DispatchableDomainEvent> unprojectedEvents =
+                        EventStoreProvider
+                            .instance()
+                            .eventStore()
+                            .eventsSince(
+                                    this.lastProjectedEventId(),
+                                    FOLLOW_CHUNK_SIZE);
+
+                if (!unprojectedEvents.isEmpty()) {
+                    this.project(unprojectedEvents);
+                }
+
+                caughtUp = unprojectedEvents.size() < FOLLOW_CHUNK_SIZE;
+            }
+
+            this.setLastFailure(null);
+
+        } catch (Throwable t) {
+            this.setLastFailure(t);
+
+            throw t;
+
+        } finally {
+            try {
+                this.projection().projectIntoTablesSuffixedWith(null);
+
+                if (suspended) {
+                    ConnectionProvider.resumeConnection(suspendedConnection);
+                }
+            } finally {
+                this.followLock().unlock();
+            }
+        }
+    }
+
+    public void follow(DispatchableDomainEvent aDispatchableDomainEvent) {
+        if (this.isRunning()) {
+            this.signal();
+        } else if (aDispatchableDomainEvent.eventId() > this.lastProjectedEventId()) {
+            this.follow();
+        }
+    }
+
+    public boolean isStalled() {
+        return this.lastFailure() != null;
+    }
+
+    public long lag() {
+        long lastEventId =
+                EventStoreProvider
+                    .instance()
+                    .eventStore()
+                    .lastEventId();
+
+        return Math.max(0, lastEventId - this.lastProjectedEventId());
+    }
+
+    public Throwable lastFailure() {
+        return this.lastFailure;
+    }
+
+    public long lastProjectedEventId() {
+        return this.lastProjectedEventId;
+    }
+
+    public AbstractProjection projection() {
+        return this.projection;
+    }
+
+    @Override
+    public void run() {
+        while (this.awaitSignal()) {
+            try {
+                this.follow();
+            } catch (Throwable t) {
+                // the failed chunk was rolled back, recorded as
+                // my last failure, and is projected again when
+                // next followed
+                System.out.println(
+                        "Projection stalled: "
+                            + this.checkpointName()
+                            + " because: "
+                            + t.getMessage());
+            }
+        }
+    }
+
+    public synchronized void signal() {
+        this.signaled = true;
+
+        this.notifyAll();
+    }
+
+    public synchronized void start() {
+        if (!this.running) {
+            this.running = true;
+            this.signaled = true;
+
+            this.thread = new Thread(this, "MySQLProjectionFollower-" + this.checkpointName());
+
+            this.thread.setDaemon(true);
+
+            this.thread.start();
+        }
+    }
+
+    public void stop() {
+        Thread thread = null;
+
+        synchronized (this) {
+            this.running = false;
+
+            this.notifyAll();
+
+            thread = this.thread;
+
+            this.thread = null;
+        }
+
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    synchronized void beginRebuild() {
+
+        // concurrent rebuilds would project into
+        // the same shadow tables
+
+        if (this.rebuilding) {
+            throw new IllegalStateException(
+                    "Cannot rebuild projection: "
+                        + this.checkpointName()
+                        + " because: a rebuild is already in progress.");
+        }
+
+        this.rebuilding = true;
+    }
+
+    synchronized void endRebuild() {
+        this.rebuilding = false;
+    }
+
+    void pauseFollowing() {
+        this.followLock().lock();
+    }
+
+    void removeCheckpoint() {
+        Connection connection = ConnectionProvider.connection(this.dataSource());
+
+        PreparedStatement statement = null;
+
+        try {
+            statement =
+                    connection.prepareStatement(
+                            "delete from tbl_vw_projection_checkpoint where projection_name = ?");
+
+            statement.setString(1, this.checkpointName());
+
+            statement.executeUpdate();
+
+            connection.commit();
+
+            this.setLastProjectedEventId(0);
+
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "Cannot remove projection checkpoint: "
+                        + this.checkpointName()
+                        + " because: "
+                        + e.getMessage(),
+                    e);
+        } finally {
+            this.close(statement, null);
+        }
+    }
+
+    void resetTo(long aLastProjectedEventId) {
+        Connection connection = ConnectionProvider.connection(this.dataSource());
+
+        try {
+            this.saveLastProjectedEventId(connection, aLastProjectedEventId);
+
+            connection.commit();
+
+            this.setLastProjectedEventId(aLastProjectedEventId);
+
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "Cannot reset projection checkpoint: "
+                        + this.checkpointName()
+                        + " because: "
+                        + e.getMessage(),
+                    e);
+        } finally {
+            ConnectionProvider.closeConnection();
+        }
+    }
+
+    void resumeFollowing() {
+        this.followLock().unlock();
+    }
+
+    private synchronized boolean awaitSignal() {
+        while (this.running && !this.signaled) {
+            try {
+                this.wait(FOLLOW_INTERVAL_MILLIS);
+            } catch (InterruptedException e) {
+                // running is rechecked
+            }
+
+            // also follow periodically, covering
+            // chunks that failed to project
+
+            this.signaled = true;
+        }
+
+        this.signaled = false;
+
+        return this.running;
+    }
+
+    private void setCheckpointName(String aCheckpointName) {
+        this.assertArgumentNotEmpty(aCheckpointName, "The checkpoint name must be provided.");
+
+        this.checkpointName = aCheckpointName;
+    }
+
+    private void close(PreparedStatement aStatement, ResultSet aResultSet) {
+        if (aResultSet != null) {
+            try {
+                aResultSet.close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+
+        if (aStatement != null) {
+            try {
+                aStatement.close();
+            } catch (Exception e) {
+                // ignore
+            }
+        }
+
+        ConnectionProvider.closeConnection();
+    }
+
+    private DataSource dataSource() {
+        return this.dataSource;
+    }
+
+    private void setDataSource(DataSource aDataSource) {
+        this.assertArgumentNotNull(aDataSource, "The data source must be provided.");
+
+        this.dataSource = aDataSource;
+    }
+
+    private ReentrantLock followLock() {
+        return this.followLock;
+    }
+
+    private void setFollowLock(ReentrantLock aFollowLock) {
+        this.followLock = aFollowLock;
+    }
+
+    private void setLastFailure(Throwable aLastFailure) {
+        this.lastFailure = aLastFailure;
+    }
+
+    private void setLastProjectedEventId(long aLastProjectedEventId) {
+        this.lastProjectedEventId = aLastProjectedEventId;
+    }
+
+    private void project(List<DispatchableDomainEvent> anUnprojectedEvents) {
+        Connection connection = ConnectionProvider.connection(this.dataSource());
+
+        // the projection's statements are reused and its
+        // rows batched for the whole chunk
+
+        this.projection().beginBatch();
+
+        try {
+            for (DispatchableDomainEvent event : anUnprojectedEvents) {
+                this.projection().dispatch(event);
+            }
+
+            this.projection().endBatch();
+
+            long lastProjectedEventId =
+                    anUnprojectedEvents.get(anUnprojectedEvents.size() - 1).eventId();
+
+            this.saveLastProjectedEventId(connection, lastProjectedEventId);
+
+            connection.commit();
+
+            this.setLastProjectedEventId(lastProjectedEventId);
+
+            // what was deferred until the chunk's rows became
+            // visible, such as index updates, is applied now
+
+            this.projection().batchCommitted();
+
+        } catch (Throwable t) {
+            try {
+                connection.rollback();
+            } catch (Throwable t2) {
+                // ignore
+            }
+
+            throw new IllegalStateException(
+                    "Cannot project events for: "
+                        + this.checkpointName()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        } finally {
+            // also evicts again the queries cached
+            // while the chunk was being committed
+
+            this.projection().abandonBatch();
+
+            ConnectionProvider.closeConnection();
+        }
+    }
+
+    private void setProjection(AbstractProjection aProjection) {
+        this.assertArgumentNotNull(aProjection, "The projection must be provided.");
+
+        this.projection = aProjection;
+    }
+
+    private long queryLastProjectedEventId() {
+
+        // a projection without a checkpoint of its own starts
+        // where the shared dispatcher checkpoint left off
+
+        long lastProjectedEventId = 0;
+
+        Connection connection = ConnectionProvider.connection(this.dataSource());
+        ResultSet result = null;
+        PreparedStatement statement = null;
+
+        try {
+            statement =
+                    connection.prepareStatement(
+                            "select event_id from tbl_vw_projection_checkpoint "
+                            + "where projection_name = ?");
+
+            statement.setString(1, this.checkpointName());
+
+            result = statement.executeQuery();
+
+            if (result.next()) {
+                lastProjectedEventId = result.getLong(1);
+            } else if (this.tableSuffix() == null) {
+                result.close();
+                statement.close();
+
+                statement =
+                        connection.prepareStatement(
+                                "select max(event_id) from tbl_dispatcher_last_event");
+
+                result = statement.executeQuery();
+
+                if (result.next()) {
+                    lastProjectedEventId = result.getLong(1);
+                }
+            }
+
+            connection.commit();
+
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "Cannot query projection checkpoint: "
+                        + this.checkpointName()
+                        + " because: "
+                        + e.getMessage(),
+                    e);
+        } finally {
+            this.close(statement, result);
+        }
+
+        return lastProjectedEventId;
+    }
+
+    private synchronized boolean isRunning() {
+        return this.running;
+    }
+
+    private void saveLastProjectedEventId(
+            Connection aConnection,
+            long aLastProjectedEventId)
+    throws Exception {
+
+        PreparedStatement statement = null;
+
+        try {
+            statement = aConnection.prepareStatement(
+                    "insert into tbl_vw_projection_checkpoint(projection_name, event_id) "
+                    + "values(?, ?) "
+                    + "on duplicate key update event_id = values(event_id)");
+
+            statement.setString(1, this.checkpointName());
+            statement.setLong(2, aLastProjectedEventId);
+
+            statement.executeUpdate();
+
+        } finally {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (Exception e) {
+                    // ignore
+                }
+            }
+        }
+    }
+
+    private String tableSuffix() {
+        return this.tableSuffix;
+    }
+
+    private void setTableSuffix(String aTableSuffix) {
+        this.tableSuffix = aTableSuffix;
+    }
+}
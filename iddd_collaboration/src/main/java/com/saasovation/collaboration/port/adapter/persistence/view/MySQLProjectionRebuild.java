@@ -0,0 +1,261 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.port.adapter.persistence.view;
+
+import java.sql.Connection;
+import java.sql.Statement;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import javax.sql.DataSource;
+
+import com.saasovation.common.AssertionConcern;
+import com.saasovation.common.port.adapter.persistence.AbstractProjection;
+import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+
+/**
+ * I rebuild a single projection from the first event in the background
+ * while the live projection continues to follow the event store. I
+ * project into shadow copies of the projection's tables, using my own
+ * checkpoint. Once caught up I briefly pause the live follower, project
+ * the final events, and swap the shadow tables in with one atomic
+ * RENAME TABLE before handing my checkpoint to the live follower.
+ * Only one rebuild of a projection may run at a time.
+ *
+ * @author Vaughn Vernon
+ */
+public class MySQLProjectionRebuild extends AssertionConcern implements Runnable {
+
+    private static final String RETIRED_TABLE_SUFFIX = "_retired";
+    private static final String SHADOW_TABLE_SUFFIX = "_shadow";
+
+    private CountDownLatch completed;
+    private DataSource dataSource;
+    private volatile Throwable failure;
+    private MySQLProjectionFollower liveFollower;
+
+    public MySQLProjectionRebuild(
+            MySQLProjectionFollower aLiveFollower,
+            DataSource aDataSource) {
+
+        super();
+
+        this.setCompleted(new CountDownLatch(1));
+        this.setDataSource(aDataSource);
+        this.setLiveFollower(aLiveFollower);
+    }
+
+    public boolean awaitCompletion(long aTimeoutMillis) throws InterruptedException {
+        return this.completed().await(aTimeoutMillis, TimeUnit.MILLISECONDS);
+    }
+
+    public Throwable failure() {
+        return this.failure;
+    }
+
+    public boolean isCompleted() {
+        return this.completed().getCount() == 0;
+    }
+
+    public String projectionName() {
+        return this.liveFollower().projection().projectionName();
+    }
+
+    @Override
+    public void run() {
+        try {
+            this.executeStatements(this.retiredTablesRemoval());
+
+            this.executeStatements(this.shadowTablesCreation());
+
+            MySQLProjectionFollower shadowFollower =
+                    new MySQLProjectionFollower(
+                            this.liveFollower().projection(),
+                            this.dataSource(),
+                            this.projectionName() + SHADOW_TABLE_SUFFIX,
+                            SHADOW_TABLE_SUFFIX);
+
+            shadowFollower.removeCheckpoint();
+
+            // catch up without holding back the live projection
+
+            shadowFollower.follow();
+
+            this.liveFollower().pauseFollowing();
+
+            try {
+                shadowFollower.follow();
+
+                this.executeStatements(this.shadowTablesSwap());
+
+                this.liveFollower().resetTo(shadowFollower.lastProjectedEventId());
+
+                this.liveFollower().projection().projectedTablesSwapped();
+
+            } finally {
+                this.liveFollower().resumeFollowing();
+            }
+
+            shadowFollower.removeCheckpoint();
+
+            this.executeStatements(this.retiredTablesRemoval());
+
+        } catch (Throwable t) {
+            this.failure = t;
+        } finally {
+            this.liveFollower().endRebuild();
+
+            this.completed().countDown();
+        }
+    }
+
+    public void start() {
+        this.liveFollower().beginRebuild();
+
+        Thread thread = new Thread(this, "MySQLProjectionRebuild-" + this.projectionName());
+
+        thread.setDaemon(true);
+
+        try {
+            thread.start();
+        } catch (Throwable t) {
+            this.liveFollower().endRebuild();
+
+            throw new IllegalStateException(
+                    "Cannot start rebuild of projection: "
+                        + this.projectionName()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        }
+    }
+
+    private CountDownLatch completed() {
+        return this.completed;
+    }
+
+    private void setCompleted(CountDownLatch aCompleted) {
+        this.completed = aCompleted;
+    }
+
+    private DataSource dataSource() {
+        return this.dataSource;
+    }
+
+    private void setDataSource(DataSource aDataSource) {
+        this.assertArgumentNotNull(aDataSource, "The data source must be provided.");
+
+        this.dataSource = aDataSource;
+    }
+
+    private void executeStatements(String[] aStatements) throws Exception {
+        Connection connection = ConnectionProvider.connection(this.dataSource());
+
+        Statement statement = null;
+
+        try {
+            statement = connection.createStatement();
+
+            for (String sql : aStatements) {
+                statement.execute(sql);
+            }
+
+            connection.commit();
+
+        } finally {
+            if (statement != null) {
+                try {
+                    statement.close();
+                } catch (Exception e) {
+                    // ignore
+                }
+            }
+
+            ConnectionProvider.closeConnection();
+        }
+    }
+
+    private MySQLProjectionFollower liveFollower() {
+        return this.liveFollower;
+    }
+
+    private void setLiveFollower(MySQLProjectionFollower aLiveFollower) {
+        this.assertArgumentNotNull(aLiveFollower, "The live follower must be provided.");
+
+        this.liveFollower = aLiveFollower;
+    }
+
+    private String[] projectedTableNames() {
+        return this.liveFollower().projection().projectedTableNames();
+    }
+
+    private String[] retiredTablesRemoval() {
+        String[] tableNames = this.projectedTableNames();
+
+        String[] statements = new String[tableNames.length];
+
+        for (int idx = 0; idx < tableNames.length; ++idx) {
+            statements[idx] =
+                    "drop table if exists "
+                    + tableNames[idx] + RETIRED_TABLE_SUFFIX;
+        }
+
+        return statements;
+    }
+
+    private String[] shadowTablesCreation() {
+        String[] tableNames = this.projectedTableNames();
+
+        String[] statements = new String[tableNames.length * 2];
+
+        for (int idx = 0; idx < tableNames.length; ++idx) {
+            String shadowTableName = tableNames[idx] + SHADOW_TABLE_SUFFIX;
+
+            statements[idx * 2] = "drop table if exists " + shadowTableName;
+
+            statements[idx * 2 + 1] =
+                    "create table " + shadowTableName
+                    + " like " + tableNames[idx];
+        }
+
+        return statements;
+    }
+
+    private String[] shadowTablesSwap() {
+
+        // all renames of one statement happen atomically,
+        // so readers see either all live or all rebuilt tables
+
+        StringBuilder rename = new StringBuilder("rename table ");
+
+        String[] tableNames = this.projectedTableNames();
+
+        for (int idx = 0; idx < tableNames.length; ++idx) {
+            if (idx > 0) {
+                rename.append(", ");
+            }
+
+            rename.append(tableNames[idx])
+                  .append(" to ")
+                  .append(tableNames[idx]).append(RETIRED_TABLE_SUFFIX)
+                  .append(", ")
+                  .append(tableNames[idx]).append(SHADOW_TABLE_SUFFIX)
+                  .append(" to ")
+                  .append(tableNames[idx]);
+        }
+
+        return new String[] { rename.toString() };
+    }
+}
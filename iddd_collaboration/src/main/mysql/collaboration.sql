@@ -19,6 +19,14 @@ CREATE TABLE `tbl_es_event_store` (
     PRIMARY KEY (`event_id`)
 ) ENGINE=InnoDB;
 
+CREATE TABLE `tbl_es_snapshot_store` (
+    `stream_name` varchar(250) NOT NULL,
+    `stream_version` int(11) NOT NULL,
+    `snapshot_type` varchar(250) NOT NULL,
+    `snapshot_body` mediumtext NOT NULL,
+    PRIMARY KEY (`stream_name`)
+) ENGINE=InnoDB;
+
 CREATE TABLE `tbl_vw_calendar` (
     `calendar_id` varchar(36) NOT NULL,
     `description` varchar(500),
@@ -47,7 +55,7 @@ CREATE TABLE `tbl_vw_calendar_entry` (
     `tenant_id` varchar(36) NOT NULL,
     `time_span_begins` datetime NOT NULL,
     `time_span_ends` datetime NOT NULL,
-    KEY `k_calendar_id` (`calendar_id`),
+    KEY `k_calendar_id` (`calendar_id`,`time_span_begins`,`calendar_entry_id`),
     KEY `k_owner_identity` (`owner_identity`),
     KEY `k_repetition_ends` (`repetition_ends`),
     KEY `k_tenant_id` (`tenant_id`),
@@ -66,6 +74,7 @@ CREATE TABLE `tbl_vw_calendar_entry_invitee` (
     KEY `k_calendar_entry_id` (`calendar_entry_id`),
     KEY `k_participant_identity` (`participant_identity`),
     KEY `k_tenant_id` (`tenant_id`),
+    UNIQUE KEY `k_invitee` (`tenant_id`,`calendar_entry_id`,`participant_identity`),
     PRIMARY KEY (`id`)
 ) ENGINE=InnoDB;
 
@@ -79,6 +88,7 @@ CREATE TABLE `tbl_vw_calendar_sharer` (
     KEY `k_calendar_id` (`calendar_id`),
     KEY `k_participant_identity` (`participant_identity`),
     KEY `k_tenant_id` (`tenant_id`),
+    UNIQUE KEY `k_sharer` (`tenant_id`,`calendar_id`,`participant_identity`),
     PRIMARY KEY (`id`)
 ) ENGINE=InnoDB;
 
@@ -132,9 +142,15 @@ CREATE TABLE `tbl_vw_post` (
     `subject` varchar(100) NOT NULL,
     `tenant_id` varchar(36) NOT NULL,
     KEY `k_author_identity` (`author_identity`),
-    KEY `k_discussion_id` (`discussion_id`),
+    KEY `k_discussion_id` (`discussion_id`,`created_on`,`post_id`),
     KEY `k_forum_id` (`forum_id`),
     KEY `k_reply_to_post_id` (`reply_to_post_id`),
     KEY `k_tenant_id` (`tenant_id`),
     PRIMARY KEY (`post_id`)
 ) ENGINE=InnoDB;
+
+CREATE TABLE `tbl_vw_projection_checkpoint` (
+    `projection_name` varchar(100) NOT NULL,
+    `event_id` bigint(20) NOT NULL,
+    PRIMARY KEY (`projection_name`)
+) ENGINE=InnoDB;
\ No newline at end of file
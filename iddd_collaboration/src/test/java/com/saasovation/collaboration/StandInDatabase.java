@@ -0,0 +1,243 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.sql.DataSource;
+
+/**
+ * I stand in for a MySQL database, answering the connections that a
+ * DataSource opens with in-memory ones. I keep the statements executed
+ * on each connection until it commits, when they become my committed
+ * statements, or rolls back, when they are discarded. Queries are
+ * answered by my subclasses, typically from my committed statements.
+ */
+public class StandInDatabase {
+
+    private List<ExecutedStatement> committedStatements;
+    private AtomicInteger rollbacks;
+
+    public StandInDatabase() {
+        super();
+
+        this.committedStatements = new ArrayList<ExecutedStatement>();
+        this.rollbacks = new AtomicInteger();
+    }
+
+    public List<ExecutedStatement> committedStatements(String aSqlPrefix) {
+        List<ExecutedStatement> committedStatements = new ArrayList<ExecutedStatement>();
+
+        synchronized (this.committedStatements) {
+            for (ExecutedStatement statement : this.committedStatements) {
+                if (statement.sql().startsWith(aSqlPrefix)) {
+                    committedStatements.add(statement);
+                }
+            }
+        }
+
+        return committedStatements;
+    }
+
+    public DataSource dataSource() {
+        return (DataSource) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { DataSource.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        Object result = null;
+
+                        if (aMethod.getName().equals("getConnection")) {
+                            result = newConnection();
+                        }
+
+                        return result;
+                    }
+                });
+    }
+
+    public int rollbacks() {
+        return this.rollbacks.get();
+    }
+
+    /**
+     * Answers the single row of values that aSql selects, or null
+     * when it selects no row. By default no query selects a row.
+     * @param aSql the String SQL of the query
+     * @param aParameters the List<Object> parameters of the query
+     * @return Object[]
+     */
+    protected Object[] answer(String aSql, List<Object> aParameters) {
+        return null;
+    }
+
+    private Connection newConnection() {
+        final List<ExecutedStatement> pendingStatements = new ArrayList<ExecutedStatement>();
+
+        return (Connection) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        Object result = null;
+
+                        String name = aMethod.getName();
+
+                        if (name.equals("prepareStatement")) {
+                            result = newStatement(
+                                    PreparedStatement.class,
+                                    (String) anArguments[0],
+                                    pendingStatements);
+                        } else if (name.equals("createStatement")) {
+                            result = newStatement(Statement.class, null, pendingStatements);
+                        } else if (name.equals("commit")) {
+                            synchronized (committedStatements) {
+                                committedStatements.addAll(pendingStatements);
+                            }
+                            pendingStatements.clear();
+                        } else if (name.equals("rollback")) {
+                            rollbacks.incrementAndGet();
+                            pendingStatements.clear();
+                        } else if (aMethod.getReturnType() == boolean.class) {
+                            result = Boolean.FALSE;
+                        }
+
+                        return result;
+                    }
+                });
+    }
+
+    private ResultSet newResultSet(final Object[] aRow) {
+        return (ResultSet) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                new InvocationHandler() {
+                    private boolean read;
+
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        Object result = null;
+
+                        String name = aMethod.getName();
+
+                        if (name.equals("next")) {
+                            result = aRow != null && !this.read;
+                            this.read = true;
+                        } else if (name.equals("getLong")) {
+                            result = ((Number) aRow[(Integer) anArguments[0] - 1]).longValue();
+                        } else if (name.equals("getInt")) {
+                            result = ((Number) aRow[(Integer) anArguments[0] - 1]).intValue();
+                        } else if (name.equals("getString")) {
+                            result = (String) aRow[(Integer) anArguments[0] - 1];
+                        } else if (aMethod.getReturnType() == boolean.class) {
+                            result = Boolean.FALSE;
+                        }
+
+                        return result;
+                    }
+                });
+    }
+
+    private Object newStatement(
+            Class<?> aStatementType,
+            final String aSql,
+            final List<ExecutedStatement> aPendingStatements) {
+
+        final List<Object> parameters = new ArrayList<Object>();
+        final List<ExecutedStatement> batchedStatements = new ArrayList<ExecutedStatement>();
+
+        return Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { aStatementType },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        Object result = null;
+
+                        String name = aMethod.getName();
+
+                        if (name.startsWith("set") && anArguments != null && anArguments.length == 2) {
+                            int index = (Integer) anArguments[0];
+
+                            while (parameters.size() < index) {
+                                parameters.add(null);
+                            }
+
+                            parameters.set(index - 1, anArguments[1]);
+                        } else if (name.equals("executeQuery")) {
+                            result = newResultSet(answer(aSql, parameters));
+                        } else if (name.equals("executeUpdate")) {
+                            aPendingStatements.add(new ExecutedStatement(aSql, parameters));
+                            result = 1;
+                        } else if (name.equals("execute")) {
+                            String sql = anArguments == null ? aSql : (String) anArguments[0];
+
+                            aPendingStatements.add(new ExecutedStatement(sql, parameters));
+                            result = Boolean.FALSE;
+                        } else if (name.equals("addBatch")) {
+                            batchedStatements.add(new ExecutedStatement(aSql, parameters));
+                        } else if (name.equals("executeBatch")) {
+                            aPendingStatements.addAll(batchedStatements);
+                            result = new int[batchedStatements.size()];
+                            batchedStatements.clear();
+                        } else if (aMethod.getReturnType() == boolean.class) {
+                            result = Boolean.FALSE;
+                        } else if (aMethod.getReturnType() == int.class) {
+                            result = 0;
+                        }
+
+                        return result;
+                    }
+                });
+    }
+
+    public static class ExecutedStatement {
+
+        private List<Object> parameters;
+        private String sql;
+
+        ExecutedStatement(String aSql, List<Object> aParameters) {
+            super();
+
+            this.parameters = new ArrayList<Object>(aParameters);
+            this.sql = aSql;
+        }
+
+        public Object parameter(int anIndex) {
+            return this.parameters.get(anIndex - 1);
+        }
+
+        public String sql() {
+            return this.sql;
+        }
+
+        @Override
+        public String toString() {
+            return this.sql + " " + Arrays.toString(this.parameters.toArray());
+        }
+    }
+}
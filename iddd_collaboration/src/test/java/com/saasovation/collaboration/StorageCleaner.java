@@ -21,22 +21,26 @@ import javax.sql.DataSource;
 
 import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
 import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public class StorageCleaner extends EventStoreProvider {
 
     private static final String[] tablesToClean = {
         "tbl_dispatcher_last_event",
         "tbl_es_event_store",
+        "tbl_es_snapshot_store",
         "tbl_vw_calendar",
         "tbl_vw_calendar_sharer",
         "tbl_vw_calendar_entry",
         "tbl_vw_calendar_entry_invitee",
         "tbl_vw_forum",
         "tbl_vw_discussion",
-        "tbl_vw_post"
+        "tbl_vw_post",
+        "tbl_vw_projection_checkpoint"
     };
 
     private DataSource dataSource;
+    private QueryCache queryCache;
 
     public StorageCleaner(DataSource aDataSource) {
         super();
@@ -44,8 +48,15 @@ public class StorageCleaner extends EventStoreProvider {
         this.dataSource = aDataSource;
     }
 
+    public StorageCleaner(DataSource aDataSource, QueryCache aQueryCache) {
+        this(aDataSource);
+
+        this.queryCache = aQueryCache;
+    }
+
     public void clean() {
         this.eventStore().purge();
+        this.snapshotStore().purge();
 
         Connection connection = ConnectionProvider.connection(this.dataSource);
         PreparedStatement statement = null;
@@ -61,6 +72,10 @@ public class StorageCleaner extends EventStoreProvider {
 
             connection.commit();
 
+            if (this.queryCache != null) {
+                this.queryCache.evictAll();
+            }
+
         } catch (Exception e) {
             throw new IllegalStateException("Cannot delete tbl_dispatcher_last_event because: " + e.getMessage(), e);
         } finally {
@@ -29,8 +29,10 @@ import org.springframework.context.support.ClassPathXmlApplicationContext;
 import com.saasovation.collaboration.StorageCleaner;
 import com.saasovation.collaboration.application.calendar.CalendarApplicationService;
 import com.saasovation.collaboration.application.calendar.CalendarEntryApplicationService;
+import com.saasovation.collaboration.application.calendar.CalendarEntryIntervalIndex;
 import com.saasovation.collaboration.application.calendar.CalendarEntryQueryService;
 import com.saasovation.collaboration.application.calendar.CalendarQueryService;
+import com.saasovation.collaboration.application.calendar.ParticipantFreeBusyIndex;
 import com.saasovation.collaboration.application.forum.DiscussionApplicationService;
 import com.saasovation.collaboration.application.forum.DiscussionQueryService;
 import com.saasovation.collaboration.application.forum.ForumApplicationService;
@@ -58,6 +60,7 @@ import com.saasovation.collaboration.domain.model.forum.Post;
 import com.saasovation.collaboration.domain.model.tenant.Tenant;
 import com.saasovation.common.domain.model.DomainEventPublisher;
 import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
 
 public abstract class ApplicationTest extends TestCase {
 
@@ -517,7 +520,10 @@ public abstract class ApplicationTest extends TestCase {
         postApplicationService = (PostApplicationService) applicationContext.getBean("postApplicationService");
         postQueryService = (PostQueryService) applicationContext.getBean("postQueryService");
 
-        storageCleaner = new StorageCleaner(this.dataSource);
+        storageCleaner =
+                new StorageCleaner(
+                        this.dataSource,
+                        (QueryCache) applicationContext.getBean("collaborationQueryCache"));
 
         super.setUp();
     }
@@ -526,6 +532,9 @@ public abstract class ApplicationTest extends TestCase {
 
         storageCleaner.clean();
 
+        ((CalendarEntryIntervalIndex) applicationContext.getBean("calendarEntryIntervalIndex")).clear();
+        ((ParticipantFreeBusyIndex) applicationContext.getBean("participantFreeBusyIndex")).clear();
+
         ConnectionProvider.closeConnection();
 
         System.out.println("<<<<<<<<<<<<<<<<<<<< (done)");
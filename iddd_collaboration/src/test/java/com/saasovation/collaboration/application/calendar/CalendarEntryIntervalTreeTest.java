@@ -0,0 +1,175 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.ArrayList;
+import java.util.Calendar;
+import java.util.Date;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.saasovation.collaboration.domain.model.calendar.RepeatType;
+
+public class CalendarEntryIntervalTreeTest extends TestCase {
+
+    public CalendarEntryIntervalTreeTest() {
+        super();
+    }
+
+    public void testAdjacentEntriesDoNotOverlap() throws Exception {
+        CalendarEntryIntervalTree tree = new CalendarEntryIntervalTree();
+
+        tree.index(this.intervalOf("ending", this.dateOf(1, 8), this.dateOf(3, 0)));
+        tree.index(this.intervalOf("beginning", this.dateOf(10, 0), this.dateOf(10, 9)));
+
+        // every seventh day from the 1st: 1, 8, 15, 22, 29
+        tree.index(new CalendarEntryInterval(
+                "weekly",
+                this.dateOf(1, 10),
+                this.dateOf(1, 11),
+                RepeatType.Weekly,
+                this.dateOf(29, 23)));
+
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(3, 0), this.dateOf(8, 10)).isEmpty());
+
+        List<String> ids =
+                tree.calendarEntryIdsOccurringWithin(this.dateOf(1, 11), this.dateOf(8, 10));
+
+        assertEquals(1, ids.size());
+        assertEquals("ending", ids.get(0));
+
+        assertEquals(1, tree.calendarEntryIdsOccurringWithin(this.dateOf(10, 0), this.dateOf(10, 1)).size());
+    }
+
+    public void testOverlappingEntries() throws Exception {
+        CalendarEntryIntervalTree tree = new CalendarEntryIntervalTree();
+
+        tree.index(this.intervalOf("before", this.dateOf(1, 8), this.dateOf(1, 9)));
+        tree.index(this.intervalOf("spanning", this.dateOf(1, 0), this.dateOf(20, 0)));
+        tree.index(this.intervalOf("inside", this.dateOf(5, 10), this.dateOf(5, 11)));
+        tree.index(this.intervalOf("straddling", this.dateOf(9, 22), this.dateOf(10, 2)));
+        tree.index(this.intervalOf("after", this.dateOf(12, 8), this.dateOf(12, 9)));
+
+        for (int idx = 0; idx < 100; ++idx) {
+            tree.index(this.intervalOf("filler" + idx, this.dateOf(15, 8), this.dateOf(15, 9)));
+        }
+
+        List<String> ids =
+                tree.calendarEntryIdsOccurringWithin(this.dateOf(3, 0), this.dateOf(10, 0));
+
+        assertEquals(3, ids.size());
+        assertTrue(ids.contains("spanning"));
+        assertTrue(ids.contains("inside"));
+        assertTrue(ids.contains("straddling"));
+        assertEquals(105, tree.size());
+    }
+
+    public void testRepeatingEntries() throws Exception {
+        CalendarEntryIntervalTree tree = new CalendarEntryIntervalTree();
+
+        // every seventh day from the 1st: 1, 8, 15, 22, 29
+        tree.index(new CalendarEntryInterval(
+                "weekly",
+                this.dateOf(1, 10),
+                this.dateOf(1, 11),
+                RepeatType.Weekly,
+                this.dateOf(29, 23)));
+
+        tree.index(new CalendarEntryInterval(
+                "monthly",
+                this.dateOf(3, 10),
+                this.dateOf(3, 11),
+                RepeatType.Monthy,
+                this.dateOf(3, 10, 2020)));
+
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(15, 0), this.dateOf(15, 23)).contains("weekly"));
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(16, 0), this.dateOf(21, 23)).isEmpty());
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(30, 0), this.dateOf(30, 23)).isEmpty());
+
+        List<String> ids =
+                tree.calendarEntryIdsOccurringWithin(this.dateOf(3, 0, 2015), this.dateOf(3, 23, 2015));
+
+        assertEquals(1, ids.size());
+        assertEquals("monthly", ids.get(0));
+
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(4, 0, 2015), this.dateOf(28, 23, 2015)).isEmpty());
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(3, 0, 2021), this.dateOf(3, 23, 2021)).isEmpty());
+    }
+
+    public void testRescheduledEntryIsReplaced() throws Exception {
+        CalendarEntryIntervalTree tree = new CalendarEntryIntervalTree();
+
+        tree.index(this.intervalOf("entry", this.dateOf(5, 10), this.dateOf(5, 11)));
+        tree.index(this.intervalOf("entry", this.dateOf(25, 10), this.dateOf(25, 11)));
+
+        assertEquals(1, tree.size());
+        assertTrue(tree.calendarEntryIdsOccurringWithin(this.dateOf(5, 0), this.dateOf(5, 23)).isEmpty());
+        assertEquals(1, tree.calendarEntryIdsOccurringWithin(this.dateOf(25, 0), this.dateOf(25, 23)).size());
+    }
+
+    public void testIndexIgnoresStaleLoad() throws Exception {
+        CalendarEntryIntervalIndex index = new CalendarEntryIntervalIndex(100);
+
+        long changesBeforeLoad = index.changes();
+
+        index.index("T", "C", this.intervalOf("entry", this.dateOf(5, 10), this.dateOf(5, 11)));
+
+        CalendarEntryIntervalTree tree =
+                index.treeOf("T", "C", new ArrayList<CalendarEntryInterval>(), changesBeforeLoad);
+
+        assertNotNull(tree);
+        assertNull(index.treeOf("T", "C"));
+
+        tree = index.treeOf("T", "C", new ArrayList<CalendarEntryInterval>(), index.changes());
+
+        assertSame(tree, index.treeOf("T", "C"));
+    }
+
+    public void testIndexHoldsMaximumTrees() throws Exception {
+        CalendarEntryIntervalIndex index = new CalendarEntryIntervalIndex(2);
+
+        CalendarEntryIntervalTree tree1 =
+                index.treeOf("T", "C1", new ArrayList<CalendarEntryInterval>(), index.changes());
+
+        index.treeOf("T", "C2", new ArrayList<CalendarEntryInterval>(), index.changes());
+
+        assertSame(tree1, index.treeOf("T", "C1"));
+
+        // the least recently queried is dropped
+
+        index.treeOf("T", "C3", new ArrayList<CalendarEntryInterval>(), index.changes());
+
+        assertSame(tree1, index.treeOf("T", "C1"));
+        assertNull(index.treeOf("T", "C2"));
+        assertNotNull(index.treeOf("T", "C3"));
+    }
+
+    private Date dateOf(int aDay, int anHour) {
+        return this.dateOf(aDay, anHour, 2014);
+    }
+
+    private Date dateOf(int aDay, int anHour, int aYear) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(aYear, Calendar.JANUARY, aDay, anHour, 0);
+
+        return calendar.getTime();
+    }
+
+    private CalendarEntryInterval intervalOf(String anId, Date aBegins, Date anEnds) {
+        return new CalendarEntryInterval(anId, aBegins, anEnds, RepeatType.DoesNotRepeat, anEnds);
+    }
+}
@@ -14,13 +14,18 @@
 
 package com.saasovation.collaboration.application.calendar;
 
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
 
 import com.saasovation.collaboration.application.ApplicationTest;
 import com.saasovation.collaboration.application.calendar.data.CalendarEntryData;
 import com.saasovation.collaboration.domain.model.DomainRegistry;
 import com.saasovation.collaboration.domain.model.calendar.CalendarEntry;
+import com.saasovation.common.port.adapter.persistence.QueryResultHandler;
 
 public class CalendarEntryQueryServiceTest extends ApplicationTest {
 
@@ -92,6 +97,72 @@ public class CalendarEntryQueryServiceTest extends ApplicationTest {
         }
     }
 
+    public void testCalendarEntryDataOfCalendarIdPaged() throws Exception {
+
+        CalendarEntry[] calendarEntries = this.calendarEntryAggregates();
+
+        for (CalendarEntry calendarEntry : calendarEntries) {
+            DomainRegistry.calendarEntryRepository().save(calendarEntry);
+        }
+
+        Set<String> pagedCalendarEntryIds = new HashSet<String>();
+
+        Collection<CalendarEntryData> page =
+                calendarEntryQueryService
+                    .calendarEntryDataOfCalendarId(
+                            calendarEntries[0].tenant().id(),
+                            calendarEntries[0].calendarId().id(),
+                            1);
+
+        while (!page.isEmpty()) {
+            assertEquals(1, page.size());
+
+            CalendarEntryData calendarEntryData = page.iterator().next();
+
+            assertTrue(pagedCalendarEntryIds.add(calendarEntryData.getCalendarEntryId()));
+            assertFalse(calendarEntryData.getInvitees().isEmpty());
+
+            page = calendarEntryQueryService
+                        .calendarEntryDataOfCalendarId(
+                                calendarEntries[0].tenant().id(),
+                                calendarEntries[0].calendarId().id(),
+                                calendarEntryData.getTimeSpanBegins(),
+                                calendarEntryData.getCalendarEntryId(),
+                                1);
+        }
+
+        assertEquals(calendarEntries.length, pagedCalendarEntryIds.size());
+    }
+
+    public void testCalendarEntryDataOfCalendarIdStreamed() throws Exception {
+
+        CalendarEntry[] calendarEntries = this.calendarEntryAggregates();
+
+        for (CalendarEntry calendarEntry : calendarEntries) {
+            DomainRegistry.calendarEntryRepository().save(calendarEntry);
+        }
+
+        final List<CalendarEntryData> streamedCalendarEntries = new ArrayList<CalendarEntryData>();
+
+        calendarEntryQueryService
+            .calendarEntryDataOfCalendarId(
+                    calendarEntries[0].tenant().id(),
+                    calendarEntries[0].calendarId().id(),
+                    new QueryResultHandler<CalendarEntryData>() {
+                        @Override
+                        public void handleResult(CalendarEntryData aResult) {
+                            streamedCalendarEntries.add(aResult);
+                        }
+                    });
+
+        assertEquals(calendarEntries.length, streamedCalendarEntries.size());
+
+        for (CalendarEntryData calendarEntryData : streamedCalendarEntries) {
+            assertEquals(calendarEntries[0].calendarId().id(), calendarEntryData.getCalendarId());
+            assertFalse(calendarEntryData.getInvitees().isEmpty());
+        }
+    }
+
     public void testTimeSpanningCalendarEntries() throws Exception {
 
         CalendarEntry[] calendarEntries = this.calendarEntryAggregates();
@@ -0,0 +1,209 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.application.calendar;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Calendar;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashSet;
+import java.util.Set;
+
+import junit.framework.TestCase;
+
+import com.saasovation.collaboration.domain.model.calendar.RepeatType;
+import com.saasovation.common.port.adapter.persistence.QueryCache;
+
+public class ParticipantFreeBusyTest extends TestCase {
+
+    private static final String TENANT_ID = "01234567";
+
+    public ParticipantFreeBusyTest() {
+        super();
+    }
+
+    public void testBusyWithin() throws Exception {
+        ParticipantFreeBusy freeBusy =
+                new ParticipantFreeBusy(Arrays.asList(
+                        this.intervalOf("long", this.dateOf(1, 8), this.dateOf(1, 18)),
+                        this.intervalOf("short", this.dateOf(1, 9), this.dateOf(1, 10)),
+                        this.intervalOf("later", this.dateOf(3, 9), this.dateOf(3, 10))));
+
+        assertTrue(freeBusy.isBusyWithin(this.dateOf(1, 16), this.dateOf(1, 17)));
+        assertFalse(freeBusy.isBusyWithin(this.dateOf(1, 18), this.dateOf(1, 19)));
+        assertFalse(freeBusy.isBusyWithin(this.dateOf(2, 0), this.dateOf(3, 9)));
+        assertTrue(freeBusy.isBusyWithin(this.dateOf(2, 0), this.dateOf(3, 12)));
+        assertFalse(freeBusy.isBusyWithin(this.dateOf(3, 10), this.dateOf(3, 23)));
+
+        assertEquals(2, freeBusy.busyTimeSpansWithin(this.dateOf(1, 9), this.dateOf(1, 11)).size());
+    }
+
+    public void testBusyWithinRepeating() throws Exception {
+        ParticipantFreeBusy freeBusy =
+                new ParticipantFreeBusy(Arrays.asList(
+                        new CalendarEntryInterval(
+                                "standup",
+                                this.dateOf(1, 9),
+                                this.dateOf(1, 10),
+                                RepeatType.Daily,
+                                this.dateOf(31, 0))));
+
+        assertTrue(freeBusy.isBusyWithin(this.dateOf(20, 9), this.dateOf(20, 11)));
+        assertFalse(freeBusy.isBusyWithin(this.dateOf(20, 10), this.dateOf(21, 9)));
+        assertEquals(3, freeBusy.busyTimeSpansWithin(this.dateOf(10, 0), this.dateOf(12, 23)).size());
+    }
+
+    public void testIndexMaintainedFromEvents() throws Exception {
+        ParticipantFreeBusyIndex index = new ParticipantFreeBusyIndex(100);
+
+        index.freeBusyOf(
+                TENANT_ID,
+                "zoe",
+                Arrays.asList(this.intervalOf("entry1", this.dateOf(1, 9), this.dateOf(1, 10))),
+                index.changes());
+
+        index.schedule(
+                TENANT_ID,
+                this.intervalOf("entry2", this.dateOf(2, 9), this.dateOf(2, 10)),
+                Arrays.asList("zoe", "jdoe"));
+
+        assertNull(index.freeBusyOf(TENANT_ID, "jdoe"));
+        assertTrue(index.freeBusyOf(TENANT_ID, "zoe").isBusyWithin(this.dateOf(2, 9), this.dateOf(2, 10)));
+
+        index.reschedule(TENANT_ID, this.intervalOf("entry2", this.dateOf(4, 9), this.dateOf(4, 10)));
+
+        assertFalse(index.freeBusyOf(TENANT_ID, "zoe").isBusyWithin(this.dateOf(2, 9), this.dateOf(2, 10)));
+        assertTrue(index.freeBusyOf(TENANT_ID, "zoe").isBusyWithin(this.dateOf(4, 9), this.dateOf(4, 10)));
+
+        index.uninvite(TENANT_ID, "entry1", "zoe");
+
+        assertFalse(index.freeBusyOf(TENANT_ID, "zoe").isBusyWithin(this.dateOf(1, 9), this.dateOf(1, 10)));
+
+        index.freeBusyOf(TENANT_ID, "jdoe", new ArrayList<CalendarEntryInterval>(), index.changes());
+
+        index.invite(TENANT_ID, "entry2", "jdoe");
+
+        assertTrue(index.freeBusyOf(TENANT_ID, "jdoe").isBusyWithin(this.dateOf(4, 9), this.dateOf(4, 10)));
+
+        // no time span is known for entry3, so jdoe is loaded again
+
+        index.invite(TENANT_ID, "entry3", "jdoe");
+
+        assertNull(index.freeBusyOf(TENANT_ID, "jdoe"));
+    }
+
+    public void testIndexHoldsMaximumFreeBusies() throws Exception {
+        ParticipantFreeBusyIndex index = new ParticipantFreeBusyIndex(1);
+
+        index.freeBusyOf(
+                TENANT_ID,
+                "zoe",
+                Arrays.asList(this.intervalOf("entry1", this.dateOf(1, 9), this.dateOf(1, 10))),
+                index.changes());
+
+        // loading another drops the least recently queried
+
+        index.freeBusyOf(
+                TENANT_ID,
+                "jdoe",
+                Arrays.asList(this.intervalOf("entry1", this.dateOf(1, 9), this.dateOf(1, 10))),
+                index.changes());
+
+        assertNull(index.freeBusyOf(TENANT_ID, "zoe"));
+
+        index.reschedule(TENANT_ID, this.intervalOf("entry1", this.dateOf(3, 9), this.dateOf(3, 10)));
+
+        assertNull(index.freeBusyOf(TENANT_ID, "zoe"));
+        assertTrue(index.freeBusyOf(TENANT_ID, "jdoe").isBusyWithin(this.dateOf(3, 9), this.dateOf(3, 10)));
+    }
+
+    public void testStaleLoadNotInstalled() throws Exception {
+        ParticipantFreeBusyIndex index = new ParticipantFreeBusyIndex(100);
+
+        long changesBeforeLoad = index.changes();
+
+        index.uninvite(TENANT_ID, "entry1", "zoe");
+
+        assertNotNull(
+                index.freeBusyOf(
+                        TENANT_ID,
+                        "zoe",
+                        Collections.<CalendarEntryInterval>emptyList(),
+                        changesBeforeLoad));
+
+        assertNull(index.freeBusyOf(TENANT_ID, "zoe"));
+    }
+
+    public void testFirstCommonFreeTime() throws Exception {
+        ParticipantFreeBusyIndex index = new ParticipantFreeBusyIndex(100);
+
+        index.freeBusyOf(
+                TENANT_ID,
+                "zoe",
+                Arrays.asList(
+                        this.intervalOf("entry1", this.dateOf(1, 8), this.dateOf(1, 10)),
+                        this.intervalOf("entry2", this.dateOf(1, 13), this.dateOf(1, 14))),
+                index.changes());
+
+        index.freeBusyOf(
+                TENANT_ID,
+                "jdoe",
+                Arrays.asList(
+                        this.intervalOf("entry3", this.dateOf(1, 9), this.dateOf(1, 12))),
+                index.changes());
+
+        CalendarEntryApplicationService calendarEntryApplicationService =
+                new CalendarEntryApplicationService(
+                        null,
+                        null,
+                        new CalendarEntryQueryService(
+                                null,
+                                new QueryCache(10),
+                                new CalendarEntryIntervalIndex(100),
+                                index));
+
+        Set<String> participantIds = new HashSet<String>(Arrays.asList("zoe", "jdoe"));
+
+        assertEquals(
+                this.dateOf(1, 12),
+                calendarEntryApplicationService.firstCommonFreeTime(
+                        TENANT_ID, participantIds, this.dateOf(1, 8), this.dateOf(1, 18), 3600000L));
+
+        assertEquals(
+                this.dateOf(1, 14),
+                calendarEntryApplicationService.firstCommonFreeTime(
+                        TENANT_ID, participantIds, this.dateOf(1, 8), this.dateOf(1, 18), 7200000L));
+
+        assertNull(
+                calendarEntryApplicationService.firstCommonFreeTime(
+                        TENANT_ID, participantIds, this.dateOf(1, 8), this.dateOf(1, 14), 7200000L));
+
+        assertTrue(calendarEntryApplicationService.isParticipantBusy(TENANT_ID, "jdoe", this.dateOf(1, 11), this.dateOf(1, 13)));
+        assertFalse(calendarEntryApplicationService.isParticipantBusy(TENANT_ID, "jdoe", this.dateOf(1, 12), this.dateOf(1, 13)));
+    }
+
+    private Date dateOf(int aDay, int anHour) {
+        Calendar calendar = Calendar.getInstance();
+        calendar.clear();
+        calendar.set(2014, Calendar.JANUARY, aDay, anHour, 0);
+
+        return calendar.getTime();
+    }
+
+    private CalendarEntryInterval intervalOf(String anId, Date aBegins, Date anEnds) {
+        return new CalendarEntryInterval(anId, aBegins, anEnds, RepeatType.DoesNotRepeat, anEnds);
+    }
+}
@@ -15,6 +15,8 @@
 package com.saasovation.collaboration.application.forum;
 
 import java.util.Collection;
+import java.util.HashSet;
+import java.util.Set;
 
 import com.saasovation.collaboration.application.ApplicationTest;
 import com.saasovation.collaboration.application.forum.data.DiscussionData;
@@ -136,4 +138,48 @@ public class DiscussionQueryServiceTest extends ApplicationTest {
                        post.getAuthorIdentity().equals("joe"));
         }
     }
+
+    public void testDiscussionPostsDataOfIdPaged() throws Exception {
+
+        Forum forum = this.forumAggregate();
+        DomainRegistry.forumRepository().save(forum);
+
+        Discussion discussion = this.discussionAggregate(forum);
+        DomainRegistry.discussionRepository().save(discussion);
+
+        Post[] posts = this.postAggregates(discussion);
+
+        for (Post post : posts) {
+            DomainRegistry.postRepository().save(post);
+        }
+
+        Set<String> pagedPostIds = new HashSet<String>();
+
+        DiscussionPostsData discussionPostsData =
+                discussionQueryService.discussionPostsDataOfId(
+                        discussion.tenant().id(), discussion.discussionId().id(), 2);
+
+        while (!discussionPostsData.getPosts().isEmpty()) {
+            assertEquals(discussion.discussionId().id(), discussionPostsData.getDiscussionId());
+            assertTrue(discussionPostsData.getPosts().size() <= 2);
+
+            PostData lastPost = null;
+
+            for (PostData post : discussionPostsData.getPosts()) {
+                assertTrue(pagedPostIds.add(post.getPostId()));
+
+                lastPost = post;
+            }
+
+            discussionPostsData =
+                    discussionQueryService.discussionPostsDataOfId(
+                            discussion.tenant().id(),
+                            discussion.discussionId().id(),
+                            lastPost.getCreatedOn(),
+                            lastPost.getPostId(),
+                            2);
+        }
+
+        assertEquals(posts.length, pagedPostIds.size());
+    }
 }
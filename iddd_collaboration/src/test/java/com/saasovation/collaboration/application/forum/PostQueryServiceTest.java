@@ -14,7 +14,9 @@
 
 package com.saasovation.collaboration.application.forum;
 
+import java.util.ArrayList;
 import java.util.Collection;
+import java.util.List;
 
 import com.saasovation.collaboration.application.ApplicationTest;
 import com.saasovation.collaboration.application.forum.data.PostData;
@@ -22,6 +24,7 @@ import com.saasovation.collaboration.domain.model.DomainRegistry;
 import com.saasovation.collaboration.domain.model.forum.Discussion;
 import com.saasovation.collaboration.domain.model.forum.Forum;
 import com.saasovation.collaboration.domain.model.forum.Post;
+import com.saasovation.common.port.adapter.persistence.QueryResultHandler;
 
 public class PostQueryServiceTest extends ApplicationTest {
 
@@ -53,6 +56,39 @@ public class PostQueryServiceTest extends ApplicationTest {
         assertEquals(posts.length, postsData.size());
     }
 
+    public void testAllPostsDataOfDiscussionStreamed() throws Exception {
+
+        Forum forum = this.forumAggregate();
+        DomainRegistry.forumRepository().save(forum);
+
+        Discussion discussion = this.discussionAggregate(forum);
+        DomainRegistry.discussionRepository().save(discussion);
+
+        Post[] posts = this.postAggregates(discussion);
+
+        for (Post post : posts) {
+            DomainRegistry.postRepository().save(post);
+        }
+
+        final List<PostData> streamedPosts = new ArrayList<PostData>();
+
+        postQueryService.allPostsDataOfDiscussion(
+                discussion.tenant().id(),
+                discussion.discussionId().id(),
+                new QueryResultHandler<PostData>() {
+                    @Override
+                    public void handleResult(PostData aResult) {
+                        streamedPosts.add(aResult);
+                    }
+                });
+
+        assertEquals(posts.length, streamedPosts.size());
+
+        for (PostData post : streamedPosts) {
+            assertEquals(discussion.discussionId().id(), post.getDiscussionId());
+        }
+    }
+
     public void testPostDataOfId() throws Exception {
 
         Forum forum = this.forumAggregate();
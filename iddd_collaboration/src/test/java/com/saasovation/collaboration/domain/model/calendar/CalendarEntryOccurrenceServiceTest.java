@@ -0,0 +1,261 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.domain.model.calendar;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.Iterator;
+import java.util.List;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import com.saasovation.collaboration.domain.model.collaborator.Owner;
+import com.saasovation.collaboration.domain.model.tenant.Tenant;
+
+public class CalendarEntryOccurrenceServiceTest extends TestCase {
+
+    private Calendar calendar;
+    private Tenant tenant;
+
+    public CalendarEntryOccurrenceServiceTest() {
+        super();
+    }
+
+    public void testDoesNotRepeat() throws Exception {
+        OccurrenceExpansion expansion =
+                new OccurrenceExpansion(
+                        new TimeSpan(this.dateOf(5, 10), this.dateOf(5, 11)),
+                        Repetition.doesNotRepeatInstance(this.dateOf(5, 11)));
+
+        Iterator<TimeSpan> occurrences = expansion.occurrencesWithin(this.rangeOf(1, 31));
+
+        assertEquals(new TimeSpan(this.dateOf(5, 10), this.dateOf(5, 11)), occurrences.next());
+        assertFalse(occurrences.hasNext());
+
+        assertFalse(expansion.occursWithin(this.rangeOf(6, 31)));
+    }
+
+    public void testIndefinitelyRepeatsWithinRange() throws Exception {
+        OccurrenceExpansion expansion =
+                new OccurrenceExpansion(
+                        new TimeSpan(this.dateOf(1, 10), this.dateOf(1, 11)),
+                        Repetition.indefinitelyRepeatsInstance(RepeatType.Daily));
+
+        // a range centuries later expands only its own days
+
+        java.util.Calendar begins = java.util.Calendar.getInstance();
+        begins.clear();
+        begins.set(2900, java.util.Calendar.MARCH, 1);
+
+        java.util.Calendar ends = (java.util.Calendar) begins.clone();
+        ends.add(java.util.Calendar.DAY_OF_MONTH, 7);
+
+        Iterator<TimeSpan> occurrences =
+                expansion.occurrencesWithin(new TimeSpan(begins.getTime(), ends.getTime()));
+
+        int count = 0;
+
+        while (occurrences.hasNext()) {
+            TimeSpan occurrence = occurrences.next();
+
+            assertFalse(occurrence.ends().before(begins.getTime()));
+            assertFalse(occurrence.begins().after(ends.getTime()));
+
+            ++count;
+        }
+
+        assertEquals(7, count);
+    }
+
+    public void testMonthlyKeepsStartingDay() throws Exception {
+        OccurrenceExpansion expansion =
+                new OccurrenceExpansion(
+                        new TimeSpan(this.dateOf(31, 10), this.dateOf(31, 11)),
+                        new Repetition(RepeatType.Monthy, this.dateOf(2014, 6, 1, 0)));
+
+        List<TimeSpan> occurrences = new ArrayList<TimeSpan>();
+
+        Iterator<TimeSpan> iterator =
+                expansion.occurrencesWithin(
+                        new TimeSpan(this.dateOf(1, 0), this.dateOf(2015, 12, 31, 0)));
+
+        while (iterator.hasNext()) {
+            occurrences.add(iterator.next());
+        }
+
+        // Jan 31, Feb 28, Mar 31, Apr 30, May 31
+
+        assertEquals(5, occurrences.size());
+        assertEquals(this.dateOf(2014, 2, 28, 10), occurrences.get(1).begins());
+        assertEquals(this.dateOf(2014, 3, 31, 10), occurrences.get(2).begins());
+    }
+
+    public void testMergedOccurrencesOfCalendar() throws Exception {
+        CalendarEntryOccurrenceService service = new CalendarEntryOccurrenceService(100);
+
+        List<CalendarEntry> calendarEntries = new ArrayList<CalendarEntry>();
+
+        calendarEntries.add(this.calendarEntryOf(this.dateOf(1, 9), RepeatType.Weekly));
+        calendarEntries.add(this.calendarEntryOf(this.dateOf(2, 8), RepeatType.Daily));
+        calendarEntries.add(this.calendarEntryOf(this.dateOf(10, 12), RepeatType.DoesNotRepeat));
+
+        List<CalendarEntryOccurrence> occurrences =
+                this.listOf(service.occurrencesOf(this.calendar, calendarEntries, this.rangeOf(1, 14)));
+
+        // weekly: 1, 8; daily: 2 through 14; once: 10
+
+        assertEquals(2 + 13 + 1, occurrences.size());
+
+        for (int idx = 1; idx < occurrences.size(); ++idx) {
+            assertTrue(occurrences.get(idx - 1).compareTo(occurrences.get(idx)) < 0);
+        }
+
+        assertEquals(calendarEntries.get(0).calendarEntryId(), occurrences.get(0).calendarEntryId());
+    }
+
+    public void testMergedOccurrencesExpandedLazily() throws Exception {
+        CalendarEntryOccurrenceService service = new CalendarEntryOccurrenceService(100);
+
+        List<CalendarEntry> calendarEntries = new ArrayList<CalendarEntry>();
+
+        calendarEntries.add(this.calendarEntryOf(this.dateOf(1, 9), RepeatType.Daily));
+        calendarEntries.add(this.calendarEntryOf(this.dateOf(1, 10), RepeatType.Daily));
+
+        // the entries repeat for centuries, yet only the
+        // occurrences iterated are ever expanded
+
+        Iterator<CalendarEntryOccurrence> occurrences =
+                service.occurrencesOf(
+                        this.calendar,
+                        calendarEntries,
+                        new TimeSpan(this.dateOf(1, 0), this.dateOf(2900, 1, 1, 0)));
+
+        assertEquals(this.dateOf(1, 9), occurrences.next().timeSpan().begins());
+        assertEquals(this.dateOf(1, 10), occurrences.next().timeSpan().begins());
+        assertEquals(this.dateOf(2, 9), occurrences.next().timeSpan().begins());
+        assertEquals(calendarEntries.get(1).calendarEntryId(), occurrences.next().calendarEntryId());
+    }
+
+    public void testRescheduledEntryExpandedAgain() throws Exception {
+        CalendarEntryOccurrenceService service = new CalendarEntryOccurrenceService(100);
+
+        CalendarEntry calendarEntry = this.calendarEntryOf(this.dateOf(1, 9), RepeatType.Daily);
+
+        List<CalendarEntryOccurrence> occurrences =
+                this.listOf(service.occurrencesOf(calendarEntry, this.rangeOf(1, 7)));
+
+        assertEquals(this.dateOf(1, 9), occurrences.get(0).timeSpan().begins());
+        assertEquals(occurrences, this.listOf(service.occurrencesOf(calendarEntry, this.rangeOf(1, 7))));
+
+        calendarEntry.reschedule(
+                null,
+                null,
+                new TimeSpan(this.dateOf(3, 9), this.dateOf(3, 10)),
+                new Repetition(RepeatType.Daily, this.dateOf(28, 0)),
+                calendarEntry.alarm());
+
+        List<CalendarEntryOccurrence> rescheduled =
+                this.listOf(service.occurrencesOf(calendarEntry, this.rangeOf(1, 7)));
+
+        assertEquals(this.dateOf(3, 9), rescheduled.get(0).timeSpan().begins());
+    }
+
+    public void testEntryOfOtherCalendar() throws Exception {
+        CalendarEntryOccurrenceService service = new CalendarEntryOccurrenceService(100);
+
+        List<CalendarEntry> calendarEntries = new ArrayList<CalendarEntry>();
+
+        calendarEntries.add(this.calendarEntryOf(this.dateOf(1, 9), RepeatType.Daily));
+
+        Calendar otherCalendar =
+                new Calendar(
+                        this.tenant,
+                        new CalendarId(UUID.randomUUID().toString().toUpperCase()),
+                        "Other Calendar",
+                        "Another calendar.",
+                        this.calendar.owner(),
+                        null);
+
+        try {
+            service.occurrencesOf(otherCalendar, calendarEntries, this.rangeOf(1, 7));
+
+            fail("Should have thrown exception.");
+
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.tenant = new Tenant(UUID.randomUUID().toString().toUpperCase());
+
+        this.calendar =
+                new Calendar(
+                        this.tenant,
+                        new CalendarId(UUID.randomUUID().toString().toUpperCase()),
+                        "John Doe's Calendar",
+                        "John Doe's everyday work calendar.",
+                        new Owner("jdoe", "John Doe", "jdoe@saasovation.com"),
+                        null);
+    }
+
+    private List<CalendarEntryOccurrence> listOf(Iterator<CalendarEntryOccurrence> anOccurrences) {
+        List<CalendarEntryOccurrence> occurrences = new ArrayList<CalendarEntryOccurrence>();
+
+        while (anOccurrences.hasNext()) {
+            occurrences.add(anOccurrences.next());
+        }
+
+        return occurrences;
+    }
+
+    private CalendarEntry calendarEntryOf(Date aBegins, RepeatType aRepeatType) {
+        Date ends = new Date(aBegins.getTime() + 3600000L);
+
+        return new CalendarEntry(
+                this.tenant,
+                this.calendar.calendarId(),
+                new CalendarEntryId(UUID.randomUUID().toString().toUpperCase()),
+                "A calendar entry.",
+                "Somewhere",
+                this.calendar.owner(),
+                new TimeSpan(aBegins, ends),
+                aRepeatType.isDoesNotRepeat() ?
+                        Repetition.doesNotRepeatInstance(ends) :
+                        Repetition.indefinitelyRepeatsInstance(aRepeatType),
+                new Alarm(AlarmUnitsType.Minutes, 15),
+                null);
+    }
+
+    private Date dateOf(int aDay, int anHour) {
+        return this.dateOf(2014, 1, aDay, anHour);
+    }
+
+    private Date dateOf(int aYear, int aMonth, int aDay, int anHour) {
+        java.util.Calendar date = java.util.Calendar.getInstance();
+        date.clear();
+        date.set(aYear, aMonth - 1, aDay, anHour, 0);
+
+        return date.getTime();
+    }
+
+    private TimeSpan rangeOf(int aFirstDay, int aLastDay) {
+        return new TimeSpan(this.dateOf(aFirstDay, 0), this.dateOf(aLastDay, 23));
+    }
+}
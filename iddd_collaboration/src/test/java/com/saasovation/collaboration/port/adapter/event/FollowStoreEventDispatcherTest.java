@@ -0,0 +1,476 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.port.adapter.event;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import com.saasovation.collaboration.StandInDatabase;
+import com.saasovation.collaboration.StandInDatabase.ExecutedStatement;
+import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
+import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.domain.model.DomainEventPublisher;
+import com.saasovation.common.domain.model.DomainEventSubscriber;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventDispatcher;
+import com.saasovation.common.event.sourcing.EventStore;
+import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+
+public class FollowStoreEventDispatcherTest extends TestCase {
+
+    private static final String INSERT_DISPATCHED_SQL =
+            "insert into tbl_test_dispatched(event_id, stream_name) values(?, ?)";
+
+    private StandInDatabase database;
+    private FollowStoreEventDispatcher dispatcher;
+    private EventStore eventStore;
+    private RecordingEventDispatcher recordingDispatcher;
+
+    public FollowStoreEventDispatcherTest() {
+        super();
+    }
+
+    public void testAsynchronousDispatchKeepsStreamOrder() throws Exception {
+        this.followStore(4, 100);
+
+        for (int version = 1; version <= 20; ++version) {
+            for (int stream = 1; stream <= 5; ++stream) {
+                this.append("stream-" + stream, version);
+            }
+        }
+
+        this.awaitDispatched();
+
+        Map<String, List<Long>> eventIdsByStream = this.committedEventIdsByStream();
+
+        assertEquals(5, eventIdsByStream.size());
+
+        for (List<Long> eventIds : eventIdsByStream.values()) {
+            assertEquals(20, eventIds.size());
+
+            List<Long> orderedEventIds = new ArrayList<Long>(eventIds);
+
+            Collections.sort(orderedEventIds);
+
+            assertEquals(orderedEventIds, eventIds);
+        }
+    }
+
+    public void testAsynchronousDispatchPublishesOnAppendingThread() throws Exception {
+        this.followStore(2, 100);
+
+        final List<DomainEvent> publishedEvents = new ArrayList<DomainEvent>();
+
+        DomainEventPublisher.instance().subscribe(new DomainEventSubscriber<TestableStreamEvent>() {
+            @Override
+            public void handleEvent(TestableStreamEvent aDomainEvent) {
+                publishedEvents.add(aDomainEvent);
+            }
+
+            @Override
+            public Class<TestableStreamEvent> subscribedToEventType() {
+                return TestableStreamEvent.class;
+            }
+        });
+
+        try {
+            this.append("stream-1", 1);
+            this.append("stream-1", 2);
+
+            // published before the appends returned
+
+            assertEquals(2, publishedEvents.size());
+
+        } finally {
+            DomainEventPublisher.instance().reset();
+        }
+
+        this.awaitDispatched();
+
+        assertEquals(2, this.database.committedStatements(INSERT_DISPATCHED_SQL).size());
+    }
+
+    public void testBackPressureAndLag() throws Exception {
+        this.followStore(1, 2);
+
+        this.recordingDispatcher.block();
+
+        this.eventStore.appendWith(new EventStreamId("stream-1", 1), this.events(1, 10));
+
+        // the partition thread holds two events while dispatching,
+        // and the follower waits for room behind two more
+
+        this.awaitQueuedEventCount(2);
+
+        assertEquals(10, this.dispatcher.lag());
+        assertEquals(10, this.dispatcher.lagOf(this.recordingDispatcher));
+
+        Thread.sleep(100L);
+
+        assertEquals(2, this.dispatcher.queuedEventCount());
+
+        this.recordingDispatcher.unblock();
+
+        this.awaitDispatched();
+
+        assertEquals(0, this.dispatcher.queuedEventCount());
+        assertEquals(0, this.dispatcher.lagOf(this.recordingDispatcher));
+        assertEquals(10, this.database.committedStatements(INSERT_DISPATCHED_SQL).size());
+    }
+
+    public void testDispatchersFollowedIndependently() throws Exception {
+        this.followStore(2, 100);
+
+        RecordingEventDispatcher slowDispatcher = new RecordingEventDispatcher();
+
+        this.dispatcher.registerEventDispatcher(slowDispatcher);
+
+        slowDispatcher.block();
+
+        for (int version = 1; version <= 5; ++version) {
+            this.append("stream-1", version);
+        }
+
+        // the blocked dispatcher holds back neither the other
+        // dispatcher nor anything but the shared checkpoint
+
+        long deadline = System.currentTimeMillis() + 10000L;
+
+        while (this.dispatcher.lagOf(this.recordingDispatcher) > 0) {
+            assertTrue("Events were not dispatched in time.", System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10L);
+        }
+
+        assertEquals(5, this.dispatcher.lagOf(slowDispatcher));
+        assertEquals(5, this.dispatcher.lag());
+
+        slowDispatcher.unblock();
+
+        this.awaitDispatched();
+
+        assertEquals(0, this.dispatcher.lagOf(slowDispatcher));
+
+        for (long eventId = 1; eventId <= 5; ++eventId) {
+            assertEquals(1, this.recordingDispatcher.dispatchCount(eventId));
+            assertEquals(1, slowDispatcher.dispatchCount(eventId));
+        }
+    }
+
+    public void testFailedChunkDispatchedAgain() throws Exception {
+        this.followStore(2, 100);
+
+        // hold the first event so that the others are read as one
+        // chunk, with each stream dispatched by its own partition
+
+        this.recordingDispatcher.block();
+
+        this.append("stream-1", 1);
+
+        this.eventStore.appendWith(new EventStreamId("stream-1", 2), this.events(2, 5));
+        this.eventStore.appendWith(new EventStreamId("stream-2", 1), this.events(1, 5));
+
+        this.recordingDispatcher.failOnce(7);
+
+        this.recordingDispatcher.unblock();
+
+        this.awaitDispatched();
+
+        Set<Long> committedEventIds = new HashSet<Long>();
+
+        for (ExecutedStatement statement : this.database.committedStatements(INSERT_DISPATCHED_SQL)) {
+            assertTrue(committedEventIds.add((Long) statement.parameter(1)));
+        }
+
+        assertEquals(10, committedEventIds.size());
+        assertTrue(this.database.rollbacks() > 0);
+        assertNull(this.dispatcher.failureOf(this.recordingDispatcher));
+
+        // the partition that committed its part of the failed
+        // chunk is not dispatched those events again
+
+        for (long eventId = 1; eventId <= 5; ++eventId) {
+            assertEquals(1, this.recordingDispatcher.dispatchCount(eventId));
+        }
+
+        assertEquals(2, this.recordingDispatcher.dispatchCount(7));
+    }
+
+    public void testSynchronousFailedChunkRolledBack() throws Exception {
+        this.followStore(0, 0);
+
+        this.append("stream-1", 1);
+
+        this.recordingDispatcher.failOnce(3);
+
+        try {
+            this.eventStore.appendWith(
+                    new EventStreamId("stream-1", 2),
+                    this.events(2, 3));
+
+            fail("Should have failed to dispatch.");
+
+        } catch (IllegalStateException e) {
+            // expected
+        }
+
+        // the event dispatched before the failure is rolled back
+
+        assertEquals(1, this.database.committedStatements(INSERT_DISPATCHED_SQL).size());
+        assertEquals(2, this.dispatcher.lag());
+
+        this.append("stream-1", 4);
+
+        assertEquals(0, this.dispatcher.lag());
+        assertEquals(4, this.database.committedStatements(INSERT_DISPATCHED_SQL).size());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        DomainEventPublisher.instance().reset();
+
+        this.eventStore = EventStoreProvider.instance().eventStore();
+
+        this.eventStore.purge();
+
+        this.database = new StandInDatabase() {
+            @Override
+            protected Object[] answer(String aSql, List<Object> aParameters) {
+                Object[] row = null;
+
+                if (aSql.equals("select max(event_id) from tbl_dispatcher_last_event")) {
+                    List<ExecutedStatement> statements =
+                            this.committedStatements("update tbl_dispatcher_last_event");
+
+                    long lastDispatchedEventId = 0;
+
+                    if (!statements.isEmpty()) {
+                        lastDispatchedEventId = (Long) statements.get(statements.size() - 1).parameter(1);
+                    }
+
+                    row = new Object[] { lastDispatchedEventId };
+                }
+
+                return row;
+            }
+        };
+
+        this.recordingDispatcher = new RecordingEventDispatcher();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.dispatcher != null) {
+            this.recordingDispatcher.unblock();
+
+            this.dispatcher.stopAsynchronousDispatch();
+        }
+
+        this.eventStore.registerEventNotifiable(null);
+
+        this.eventStore.purge();
+
+        super.tearDown();
+    }
+
+    private void append(String aStreamName, int aStreamVersion) {
+        this.eventStore.appendWith(
+                new EventStreamId(aStreamName, aStreamVersion),
+                this.events(aStreamVersion, aStreamVersion));
+    }
+
+    private void awaitDispatched() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+
+        while (this.dispatcher.lag() > 0) {
+            assertTrue("Events were not dispatched in time.", System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10L);
+        }
+    }
+
+    private void awaitQueuedEventCount(int aQueuedEventCount) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000L;
+
+        while (this.dispatcher.queuedEventCount() < aQueuedEventCount) {
+            assertTrue("Events were not queued in time.", System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10L);
+        }
+    }
+
+    private Map<String, List<Long>> committedEventIdsByStream() {
+        Map<String, List<Long>> eventIdsByStream = new HashMap<String, List<Long>>();
+
+        for (ExecutedStatement statement : this.database.committedStatements(INSERT_DISPATCHED_SQL)) {
+            String streamName = (String) statement.parameter(2);
+
+            List<Long> eventIds = eventIdsByStream.get(streamName);
+
+            if (eventIds == null) {
+                eventIds = new ArrayList<Long>();
+
+                eventIdsByStream.put(streamName, eventIds);
+            }
+
+            eventIds.add((Long) statement.parameter(1));
+        }
+
+        return eventIdsByStream;
+    }
+
+    private List<DomainEvent> events(int aFirstVersion, int aLastVersion) {
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int version = aFirstVersion; version <= aLastVersion; ++version) {
+            events.add(new TestableStreamEvent(version));
+        }
+
+        return events;
+    }
+
+    private void followStore(int aPartitionCount, int aPartitionCapacity) {
+        this.dispatcher =
+                new FollowStoreEventDispatcher(
+                        this.database.dataSource(),
+                        aPartitionCount,
+                        aPartitionCapacity);
+
+        this.dispatcher.registerEventDispatcher(this.recordingDispatcher);
+    }
+
+    private static class RecordingEventDispatcher implements EventDispatcher {
+
+        private volatile CountDownLatch blocked;
+        private Map<Long, Integer> dispatchCounts;
+        private Set<Long> failingEventIds;
+
+        RecordingEventDispatcher() {
+            super();
+
+            this.blocked = new CountDownLatch(0);
+            this.dispatchCounts = new HashMap<Long, Integer>();
+            this.failingEventIds = Collections.synchronizedSet(new HashSet<Long>());
+        }
+
+        @Override
+        public void dispatch(DispatchableDomainEvent aDispatchableDomainEvent) {
+            try {
+                this.blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            synchronized (this.dispatchCounts) {
+                this.dispatchCounts.put(
+                        aDispatchableDomainEvent.eventId(),
+                        this.dispatchCount(aDispatchableDomainEvent.eventId()) + 1);
+            }
+
+            if (this.failingEventIds.remove(aDispatchableDomainEvent.eventId())) {
+                throw new IllegalStateException("Failed: " + aDispatchableDomainEvent.eventId());
+            }
+
+            Connection connection = ConnectionProvider.connection();
+
+            try {
+                PreparedStatement statement = connection.prepareStatement(INSERT_DISPATCHED_SQL);
+
+                statement.setLong(1, aDispatchableDomainEvent.eventId());
+                statement.setString(2, aDispatchableDomainEvent.streamName());
+
+                statement.executeUpdate();
+
+                statement.close();
+
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+        }
+
+        @Override
+        public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
+            throw new UnsupportedOperationException("Cannot register additional dispatchers.");
+        }
+
+        @Override
+        public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
+            return true;
+        }
+
+        void block() {
+            this.blocked = new CountDownLatch(1);
+        }
+
+        int dispatchCount(long anEventId) {
+            synchronized (this.dispatchCounts) {
+                Integer dispatchCount = this.dispatchCounts.get(anEventId);
+
+                return dispatchCount == null ? 0 : dispatchCount;
+            }
+        }
+
+        void failOnce(long anEventId) {
+            this.failingEventIds.add(anEventId);
+        }
+
+        void unblock() {
+            this.blocked.countDown();
+        }
+    }
+
+    public static class TestableStreamEvent implements DomainEvent {
+
+        private int eventVersion;
+        private Date occurredOn;
+        private int streamVersion;
+
+        public TestableStreamEvent(int aStreamVersion) {
+            super();
+
+            this.eventVersion = 1;
+            this.occurredOn = new Date();
+            this.streamVersion = aStreamVersion;
+        }
+
+        @Override
+        public int eventVersion() {
+            return this.eventVersion;
+        }
+
+        @Override
+        public Date occurredOn() {
+            return this.occurredOn;
+        }
+
+        public int streamVersion() {
+            return this.streamVersion;
+        }
+    }
+}
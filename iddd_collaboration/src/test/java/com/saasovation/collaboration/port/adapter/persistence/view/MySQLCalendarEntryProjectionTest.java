@@ -0,0 +1,203 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.port.adapter.persistence.view;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.HashSet;
+
+import junit.framework.TestCase;
+
+import com.saasovation.collaboration.StandInDatabase;
+import com.saasovation.collaboration.application.calendar.CalendarEntryInterval;
+import com.saasovation.collaboration.application.calendar.CalendarEntryIntervalIndex;
+import com.saasovation.collaboration.application.calendar.CalendarEntryIntervalTree;
+import com.saasovation.collaboration.application.calendar.ParticipantFreeBusyIndex;
+import com.saasovation.collaboration.domain.model.calendar.Alarm;
+import com.saasovation.collaboration.domain.model.calendar.AlarmUnitsType;
+import com.saasovation.collaboration.domain.model.calendar.CalendarEntryId;
+import com.saasovation.collaboration.domain.model.calendar.CalendarEntryParticipantInvited;
+import com.saasovation.collaboration.domain.model.calendar.CalendarEntryParticipantUninvited;
+import com.saasovation.collaboration.domain.model.calendar.CalendarEntryScheduled;
+import com.saasovation.collaboration.domain.model.calendar.CalendarId;
+import com.saasovation.collaboration.domain.model.calendar.Repetition;
+import com.saasovation.collaboration.domain.model.calendar.TimeSpan;
+import com.saasovation.collaboration.domain.model.collaborator.Owner;
+import com.saasovation.collaboration.domain.model.collaborator.Participant;
+import com.saasovation.collaboration.domain.model.tenant.Tenant;
+import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventDispatcher;
+import com.saasovation.common.port.adapter.persistence.ConnectionProvider;
+
+public class MySQLCalendarEntryProjectionTest extends TestCase {
+
+    private CalendarEntryIntervalIndex calendarEntryIntervalIndex;
+    private StandInDatabase database;
+    private ParticipantFreeBusyIndex participantFreeBusyIndex;
+    private MySQLCalendarEntryProjection projection;
+
+    public MySQLCalendarEntryProjectionTest() {
+        super();
+    }
+
+    public void testIndexesClearedWhenTablesSwapped() throws Exception {
+        long intervalIndexChanges = this.calendarEntryIntervalIndex.changes();
+        long freeBusyIndexChanges = this.participantFreeBusyIndex.changes();
+
+        this.projection.projectedTablesSwapped();
+
+        assertEquals(intervalIndexChanges + 1, this.calendarEntryIntervalIndex.changes());
+        assertEquals(freeBusyIndexChanges + 1, this.participantFreeBusyIndex.changes());
+    }
+
+    public void testIndexesUpdatedOnlyOnceCommitted() throws Exception {
+        Tenant tenant = new Tenant("T-1");
+        CalendarId calendarId = new CalendarId("C-1");
+
+        CalendarEntryIntervalTree tree =
+                this.calendarEntryIntervalIndex.treeOf(
+                        tenant.id(),
+                        calendarId.id(),
+                        new ArrayList<CalendarEntryInterval>(),
+                        this.calendarEntryIntervalIndex.changes());
+
+        try {
+            ConnectionProvider.connection(this.database.dataSource());
+
+            // a rolled back batch leaves the index untouched
+
+            this.projection.beginBatch();
+            this.projection.dispatch(new DispatchableDomainEvent(1, this.scheduled(tenant, calendarId, "CE-1")));
+            this.projection.endBatch();
+
+            ConnectionProvider.connection().rollback();
+
+            this.projection.abandonBatch();
+
+            assertEquals(0, this.calendarEntryIntervalIndex.changes());
+            assertEquals(0, this.participantFreeBusyIndex.changes());
+
+            // a committed batch is indexed only once committed
+
+            this.projection.beginBatch();
+            this.projection.dispatch(new DispatchableDomainEvent(2, this.scheduled(tenant, calendarId, "CE-2")));
+            this.projection.endBatch();
+
+            assertEquals(0, this.calendarEntryIntervalIndex.changes());
+            assertEquals(0, this.participantFreeBusyIndex.changes());
+            assertEquals(0, tree.size());
+
+            ConnectionProvider.connection().commit();
+
+            this.projection.batchCommitted();
+            this.projection.abandonBatch();
+
+        } finally {
+            ConnectionProvider.closeConnection();
+        }
+
+        assertEquals(1, this.calendarEntryIntervalIndex.changes());
+        assertEquals(1, this.participantFreeBusyIndex.changes());
+        assertEquals(1, tree.size());
+        assertEquals(1, this.database.rollbacks());
+    }
+
+    public void testIndexesNotUpdatedWhileProjectingIntoShadowTables() throws Exception {
+        Tenant tenant = new Tenant("T-1");
+        CalendarId calendarId = new CalendarId("C-1");
+        CalendarEntryId calendarEntryId = new CalendarEntryId("CE-1");
+        Participant participant = new Participant("zoe", "Zoe Doe", "zoe@saasovation.com");
+
+        this.projection.projectIntoTablesSuffixedWith("_shadow");
+
+        try {
+            this.project(1, new CalendarEntryParticipantInvited(tenant, calendarId, calendarEntryId, participant));
+            this.project(2, new CalendarEntryParticipantUninvited(tenant, calendarId, calendarEntryId, participant));
+
+        } finally {
+            this.projection.projectIntoTablesSuffixedWith(null);
+        }
+
+        assertEquals(0, this.participantFreeBusyIndex.changes());
+
+        this.project(3, new CalendarEntryParticipantInvited(tenant, calendarId, calendarEntryId, participant));
+
+        assertEquals(1, this.participantFreeBusyIndex.changes());
+        assertEquals(1, this.database.committedStatements("insert into tbl_vw_calendar_entry_invitee(").size());
+        assertEquals(1, this.database.committedStatements("insert into tbl_vw_calendar_entry_invitee_shadow(").size());
+        assertEquals(1, this.database.committedStatements("delete from tbl_vw_calendar_entry_invitee_shadow ").size());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.calendarEntryIntervalIndex = new CalendarEntryIntervalIndex(100);
+        this.database = new StandInDatabase();
+        this.participantFreeBusyIndex = new ParticipantFreeBusyIndex(100);
+
+        this.projection =
+                new MySQLCalendarEntryProjection(
+                        new EventDispatcher() {
+                            @Override
+                            public void dispatch(DispatchableDomainEvent aDispatchableDomainEvent) {
+                            }
+
+                            @Override
+                            public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
+                                // dispatched to directly
+                            }
+
+                            @Override
+                            public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
+                                return true;
+                            }
+                        },
+                        null,
+                        this.calendarEntryIntervalIndex,
+                        this.participantFreeBusyIndex);
+    }
+
+    private CalendarEntryScheduled scheduled(Tenant aTenant, CalendarId aCalendarId, String aCalendarEntryId) {
+        Date begins = new Date();
+        Date ends = new Date(begins.getTime() + 3600000L);
+
+        return new CalendarEntryScheduled(
+                aTenant,
+                aCalendarId,
+                new CalendarEntryId(aCalendarEntryId),
+                "A description.",
+                "A location.",
+                new Owner("zoe", "Zoe Doe", "zoe@saasovation.com"),
+                new TimeSpan(begins, ends),
+                Repetition.doesNotRepeatInstance(ends),
+                new Alarm(AlarmUnitsType.Minutes, 15),
+                new HashSet<Participant>());
+    }
+
+    private void project(long anEventId, DomainEvent aDomainEvent) throws Exception {
+        try {
+            ConnectionProvider.connection(this.database.dataSource());
+
+            this.projection.dispatch(new DispatchableDomainEvent(anEventId, aDomainEvent));
+
+            ConnectionProvider.connection().commit();
+
+        } finally {
+            ConnectionProvider.closeConnection();
+        }
+    }
+}
@@ -0,0 +1,377 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.collaboration.port.adapter.persistence.view;
+
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+
+import junit.framework.TestCase;
+
+import com.saasovation.collaboration.StandInDatabase;
+import com.saasovation.collaboration.StandInDatabase.ExecutedStatement;
+import com.saasovation.collaboration.port.adapter.event.FollowStoreEventDispatcher;
+import com.saasovation.collaboration.port.adapter.event.FollowStoreEventDispatcherTest.TestableStreamEvent;
+import com.saasovation.collaboration.port.adapter.persistence.EventStoreProvider;
+import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventDispatcher;
+import com.saasovation.common.event.sourcing.EventStore;
+import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.port.adapter.persistence.AbstractProjection;
+
+public class MySQLProjectionDispatcherTest extends TestCase {
+
+    private static final String CHECKPOINT_SQL_PREFIX = "insert into tbl_vw_projection_checkpoint";
+
+    private StandInDatabase database;
+    private FollowStoreEventDispatcher followStoreDispatcher;
+    private EventStore eventStore;
+    private MySQLProjectionDispatcher projectionDispatcher;
+
+    public MySQLProjectionDispatcherTest() {
+        super();
+    }
+
+    public void testCheckpointResumed() throws Exception {
+        TestableProjection projection = this.followProjection();
+
+        projection.failOn(3);
+
+        this.append(1);
+        this.append(2);
+        this.append(3);
+
+        assertEquals(2, this.projectionDispatcher.checkpointOf(TestableProjection.NAME));
+        assertEquals(1, this.projectionDispatcher.lagOf(TestableProjection.NAME));
+        assertEquals(
+                Collections.singletonList(TestableProjection.NAME),
+                this.projectionDispatcher.stalledProjectionNames());
+
+        // restarted, the projection resumes from its own checkpoint
+        // rather than from where the shared dispatcher left off
+
+        TestableProjection resumedProjection = this.followProjection();
+
+        assertEquals(2, this.projectionDispatcher.checkpointOf(TestableProjection.NAME));
+
+        this.append(4);
+
+        assertEquals(3, resumedProjection.projectedEventIds().get(0).longValue());
+        assertEquals(4, resumedProjection.projectedEventIds().get(1).longValue());
+        assertEquals(2, resumedProjection.projectedEventIds().size());
+
+        assertEquals(4, this.projectionDispatcher.checkpointOf(TestableProjection.NAME));
+        assertEquals(0, this.projectionDispatcher.lagOf(TestableProjection.NAME));
+        assertTrue(this.projectionDispatcher.stalledProjectionNames().isEmpty());
+
+        assertEquals(4, this.projectedEventIds("tbl_vw_test").size());
+    }
+
+    public void testProjectionRegisteredAfterFollowingStarted() throws Exception {
+        this.followStore();
+
+        this.projectionDispatcher.startFollowing();
+
+        new TestableProjection(this.projectionDispatcher);
+
+        this.append(1);
+        this.append(2);
+
+        long deadline = System.currentTimeMillis() + 10000L;
+
+        while (this.projectionDispatcher.lagOf(TestableProjection.NAME) > 0) {
+            assertTrue("Events were not projected in time.", System.currentTimeMillis() < deadline);
+
+            Thread.sleep(10L);
+        }
+
+        assertEquals(2, this.projectedEventIds("tbl_vw_test").size());
+    }
+
+    public void testRebuildRejectedWhileInProgress() throws Exception {
+        TestableProjection projection = this.followProjection();
+
+        this.append(1);
+
+        projection.block();
+
+        MySQLProjectionRebuild rebuild = this.projectionDispatcher.rebuild(TestableProjection.NAME);
+
+        try {
+            this.projectionDispatcher.rebuild(TestableProjection.NAME);
+
+            fail("Should have rejected the second rebuild.");
+
+        } catch (IllegalStateException e) {
+            // expected
+        } finally {
+            projection.unblock();
+        }
+
+        assertTrue(rebuild.awaitCompletion(10000L));
+        assertNull(rebuild.failure());
+
+        // once completed, the projection may be rebuilt again
+
+        MySQLProjectionRebuild nextRebuild = this.projectionDispatcher.rebuild(TestableProjection.NAME);
+
+        assertTrue(nextRebuild.awaitCompletion(10000L));
+        assertNull(nextRebuild.failure());
+    }
+
+    public void testRebuildSwapsShadowTables() throws Exception {
+        this.followProjection();
+
+        this.append(1);
+        this.append(2);
+        this.append(3);
+
+        MySQLProjectionRebuild rebuild = this.projectionDispatcher.rebuild(TestableProjection.NAME);
+
+        assertTrue(rebuild.awaitCompletion(10000L));
+        assertNull(rebuild.failure());
+
+        assertEquals(3, this.projectedEventIds("tbl_vw_test_shadow").size());
+
+        List<ExecutedStatement> committedStatements = this.database.committedStatements("");
+
+        int swapIndex = -1;
+        int lastShadowIndex = -1;
+
+        for (int idx = 0; idx < committedStatements.size(); ++idx) {
+            String sql = committedStatements.get(idx).sql();
+
+            if (sql.equals("rename table tbl_vw_test to tbl_vw_test_retired, tbl_vw_test_shadow to tbl_vw_test")) {
+                swapIndex = idx;
+            } else if (sql.startsWith("insert into tbl_vw_test_shadow")) {
+                lastShadowIndex = idx;
+            }
+        }
+
+        // the shadow tables are swapped in only once caught up
+
+        assertTrue(swapIndex > lastShadowIndex);
+
+        assertEquals(
+                "drop table if exists tbl_vw_test_retired",
+                committedStatements.get(committedStatements.size() - 1).sql());
+
+        assertEquals(3, this.projectionDispatcher.checkpointOf(TestableProjection.NAME));
+        assertEquals(3, this.checkpointOf(TestableProjection.NAME));
+        assertEquals(-1, this.checkpointOf(TestableProjection.NAME + "_shadow"));
+
+        // the live projection follows on from the rebuilt tables
+
+        this.append(4);
+
+        assertEquals(4, this.projectionDispatcher.checkpointOf(TestableProjection.NAME));
+        assertEquals(4, this.projectedEventIds("tbl_vw_test").size());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.eventStore = EventStoreProvider.instance().eventStore();
+
+        this.eventStore.purge();
+
+        this.database = new StandInDatabase() {
+            @Override
+            protected Object[] answer(String aSql, List<Object> aParameters) {
+                Object[] row = null;
+
+                if (aSql.equals("select max(event_id) from tbl_dispatcher_last_event")) {
+                    List<ExecutedStatement> statements =
+                            this.committedStatements("update tbl_dispatcher_last_event");
+
+                    long lastDispatchedEventId = 0;
+
+                    if (!statements.isEmpty()) {
+                        lastDispatchedEventId = (Long) statements.get(statements.size() - 1).parameter(1);
+                    }
+
+                    row = new Object[] { lastDispatchedEventId };
+
+                } else if (aSql.startsWith("select event_id from tbl_vw_projection_checkpoint")) {
+                    long checkpoint = checkpointOf((String) aParameters.get(0));
+
+                    if (checkpoint >= 0) {
+                        row = new Object[] { checkpoint };
+                    }
+                }
+
+                return row;
+            }
+        };
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.projectionDispatcher != null) {
+            this.projectionDispatcher.stopFollowing();
+        }
+
+        this.eventStore.registerEventNotifiable(null);
+
+        this.eventStore.purge();
+
+        super.tearDown();
+    }
+
+    private void append(int aStreamVersion) {
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        events.add(new TestableStreamEvent(aStreamVersion));
+
+        this.eventStore.appendWith(new EventStreamId("stream-1", aStreamVersion), events);
+    }
+
+    private long checkpointOf(String aProjectionName) {
+
+        // the last committed insert or delete of the
+        // projection's checkpoint, or -1 when it has none
+
+        long checkpoint = -1;
+
+        for (ExecutedStatement statement : this.database.committedStatements("")) {
+            String sql = statement.sql();
+
+            if (sql.startsWith(CHECKPOINT_SQL_PREFIX)) {
+                if (aProjectionName.equals(statement.parameter(1))) {
+                    checkpoint = (Long) statement.parameter(2);
+                }
+            } else if (sql.startsWith("delete from tbl_vw_projection_checkpoint")) {
+                if (aProjectionName.equals(statement.parameter(1))) {
+                    checkpoint = -1;
+                }
+            }
+        }
+
+        return checkpoint;
+    }
+
+    private TestableProjection followProjection() {
+        this.followStore();
+
+        return new TestableProjection(this.projectionDispatcher);
+    }
+
+    private void followStore() {
+        this.followStoreDispatcher = new FollowStoreEventDispatcher(this.database.dataSource());
+
+        this.projectionDispatcher =
+                new MySQLProjectionDispatcher(
+                        this.followStoreDispatcher,
+                        this.database.dataSource());
+    }
+
+    private Set<Long> projectedEventIds(String aTableName) {
+        Set<Long> projectedEventIds = new HashSet<Long>();
+
+        for (ExecutedStatement statement : this.database.committedStatements("insert into " + aTableName + "(")) {
+            assertTrue(projectedEventIds.add((Long) statement.parameter(1)));
+        }
+
+        return projectedEventIds;
+    }
+
+    private static class TestableProjection extends AbstractProjection {
+
+        private static final String NAME = "TestableProjection";
+
+        private volatile CountDownLatch blocked;
+        private Set<Long> failingEventIds;
+        private List<Long> projectedEventIds;
+
+        TestableProjection(EventDispatcher aParentEventDispatcher) {
+            super();
+
+            this.blocked = new CountDownLatch(0);
+            this.failingEventIds = Collections.synchronizedSet(new HashSet<Long>());
+            this.projectedEventIds = Collections.synchronizedList(new ArrayList<Long>());
+
+            aParentEventDispatcher.registerEventDispatcher(this);
+        }
+
+        @Override
+        public void dispatch(DispatchableDomainEvent aDispatchableDomainEvent) {
+            try {
+                this.blocked.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+
+            if (this.failingEventIds.remove(aDispatchableDomainEvent.eventId())) {
+                throw new IllegalStateException("Failed: " + aDispatchableDomainEvent.eventId());
+            }
+
+            try {
+                PreparedStatement statement =
+                        this.prepareStatement("insert into tbl_vw_test(event_id) values(?)");
+
+                statement.setLong(1, aDispatchableDomainEvent.eventId());
+
+                this.execute(statement);
+
+            } catch (Exception e) {
+                throw new IllegalStateException(e.getMessage(), e);
+            }
+
+            this.projectedEventIds.add(aDispatchableDomainEvent.eventId());
+        }
+
+        @Override
+        public String[] projectedTableNames() {
+            return new String[] { "tbl_vw_test" };
+        }
+
+        @Override
+        public String projectionName() {
+            return NAME;
+        }
+
+        @Override
+        public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
+            throw new UnsupportedOperationException("Cannot register additional dispatchers.");
+        }
+
+        @Override
+        public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
+            return true;
+        }
+
+        void block() {
+            this.blocked = new CountDownLatch(1);
+        }
+
+        void failOn(long anEventId) {
+            this.failingEventIds.add(anEventId);
+        }
+
+        List<Long> projectedEventIds() {
+            return this.projectedEventIds;
+        }
+
+        void unblock() {
+            this.blocked.countDown();
+        }
+    }
+}
@@ -0,0 +1,141 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.domain.model;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Method;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * I dispatch a DomainEvent to the method of a receiver that is named
+ * for the kind of handling, such as when(SomeEvent), and that takes
+ * the event's exact type. Each method is found by reflection only
+ * once per receiver type and event type, and is then invoked as a
+ * MethodHandle from a table keyed by the receiver and event classes.
+ *
+ * @author Vaughn Vernon
+ */
+public final class DomainEventDispatchTable {
+
+    private static final MethodType DISPATCH_TYPE =
+            MethodType.methodType(void.class, Object.class, DomainEvent.class);
+
+    private String methodName;
+
+    private ClassValue<ConcurrentMap<Class<?>, MethodHandle>> receiverMethods =
+            new ClassValue<ConcurrentMap<Class<?>, MethodHandle>>() {
+                @Override
+                protected ConcurrentMap<Class<?>, MethodHandle> computeValue(Class<?> aReceiverType) {
+                    return new ConcurrentHashMap<Class<?>, MethodHandle>();
+                }
+            };
+
+    public DomainEventDispatchTable(String aMethodName) {
+        super();
+
+        this.methodName = aMethodName;
+    }
+
+    public void dispatch(Object aReceiver, DomainEvent aDomainEvent) {
+
+        Class<? extends DomainEvent> eventType = aDomainEvent.getClass();
+
+        ConcurrentMap<Class<?>, MethodHandle> methods =
+                this.receiverMethods.get(aReceiver.getClass());
+
+        MethodHandle method = methods.get(eventType);
+
+        if (method == null) {
+            method = this.methodHandleFor(aReceiver.getClass(), eventType);
+
+            methods.putIfAbsent(eventType, method);
+        }
+
+        try {
+            method.invokeExact(aReceiver, aDomainEvent);
+
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable t) {
+            throw new RuntimeException(
+                    "Method "
+                            + this.methodName()
+                            + "("
+                            + eventType.getSimpleName()
+                            + ") failed. See cause: "
+                            + t.getMessage(),
+                    t);
+        }
+    }
+
+    public String methodName() {
+        return this.methodName;
+    }
+
+    private Method hiddenOrPublicMethod(
+            Class<?> aReceiverType,
+            Class<? extends DomainEvent> anEventType)
+    throws Exception {
+
+        Method method = null;
+
+        try {
+
+            // assume protected or private...
+
+            method = aReceiverType.getDeclaredMethod(
+                    this.methodName(),
+                    anEventType);
+
+        } catch (Exception e) {
+
+            // then public...
+
+            method = aReceiverType.getMethod(
+                    this.methodName(),
+                    anEventType);
+        }
+
+        return method;
+    }
+
+    private MethodHandle methodHandleFor(
+            Class<?> aReceiverType,
+            Class<? extends DomainEvent> anEventType) {
+
+        try {
+            Method method = this.hiddenOrPublicMethod(aReceiverType, anEventType);
+
+            method.setAccessible(true);
+
+            return MethodHandles.lookup().unreflect(method).asType(DISPATCH_TYPE);
+
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    "I do not understand "
+                            + this.methodName()
+                            + "("
+                            + anEventType.getSimpleName()
+                            + ") because: "
+                            + e.getClass().getSimpleName() + ">>>" + e.getMessage(),
+                    e);
+        }
+    }
+}
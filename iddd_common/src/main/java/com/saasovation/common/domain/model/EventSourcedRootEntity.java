@@ -14,24 +14,28 @@
 
 package com.saasovation.common.domain.model;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 
 import com.saasovation.common.AssertionConcern;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 
 public abstract class EventSourcedRootEntity extends AssertionConcern {
 
     private static final String MUTATOR_METHOD_NAME = "when";
 
-    private static Map<String, Method> mutatorMethods =
-            new HashMap<String, Method>();
+    private static DomainEventDispatchTable mutatorMethods =
+            new DomainEventDispatchTable(MUTATOR_METHOD_NAME);
 
-    private List<DomainEvent> mutatingEvents;
-    private int unmutatedVersion;
+    private static ConcurrentMap<Class<?>, List<Field>> snapshotStateFields =
+            new ConcurrentHashMap<Class<?>, List<Field>>();
+
+    private transient List<DomainEvent> mutatingEvents;
+    private transient int unmutatedVersion;
 
     public int mutatedVersion() {
         return this.unmutatedVersion() + 1;
@@ -51,11 +55,37 @@ public abstract class EventSourcedRootEntity extends AssertionConcern {
 
         this();
 
-        for (DomainEvent event : anEventStream) {
-            this.mutateWhen(event);
-        }
+        this.mutateFrom(anEventStream, aStreamVersion);
+    }
 
-        this.setUnmutatedVersion(aStreamVersion);
+    protected EventSourcedRootEntity(
+            EventSourcedRootEntity aSnapshotState,
+            List<DomainEvent> anEventStreamSinceSnapshot,
+            int aStreamVersion) {
+
+        this();
+
+        this.restoreFrom(aSnapshotState);
+
+        this.mutateFrom(anEventStreamSinceSnapshot, aStreamVersion);
+    }
+
+    protected EventSourcedRootEntity(EventStreamCursor anEventStream) {
+
+        this();
+
+        this.mutateFrom(anEventStream);
+    }
+
+    protected EventSourcedRootEntity(
+            EventSourcedRootEntity aSnapshotState,
+            EventStreamCursor anEventStreamSinceSnapshot) {
+
+        this();
+
+        this.restoreFrom(aSnapshotState);
+
+        this.mutateFrom(anEventStreamSinceSnapshot);
     }
 
     protected EventSourcedRootEntity() {
@@ -73,107 +103,76 @@ public abstract class EventSourcedRootEntity extends AssertionConcern {
 
     protected void mutateWhen(DomainEvent aDomainEvent) {
 
-        Class<? extends EventSourcedRootEntity> rootType = this.getClass();
+        mutatorMethods.dispatch(this, aDomainEvent);
+    }
 
-        Class<? extends DomainEvent> eventType = aDomainEvent.getClass();
+    private List<Field> cacheSnapshotStateFieldsFor(Class<?> aRootType) {
+        List<Field> fields = new ArrayList<Field>();
 
-        String key = rootType.getName() + ":" + eventType.getName();
+        for (Class<?> type = aRootType;
+             type != EventSourcedRootEntity.class;
+             type = type.getSuperclass()) {
 
-        Method mutatorMethod = mutatorMethods.get(key);
+            for (Field field : type.getDeclaredFields()) {
+                int modifiers = field.getModifiers();
 
-        if (mutatorMethod == null) {
-            mutatorMethod = this.cacheMutatorMethodFor(key, rootType, eventType);
-        }
+                if (!Modifier.isStatic(modifiers) && !Modifier.isTransient(modifiers)) {
+                    field.setAccessible(true);
 
-        try {
-            mutatorMethod.invoke(this, aDomainEvent);
-
-        } catch (InvocationTargetException e) {
-            if (e.getCause() != null) {
-                throw new RuntimeException(
-                        "Method "
-                                + MUTATOR_METHOD_NAME
-                                + "("
-                                + eventType.getSimpleName()
-                                + ") failed. See cause: "
-                                + e.getMessage(),
-                        e.getCause());
+                    fields.add(field);
+                }
             }
-
-            throw new RuntimeException(
-                    "Method "
-                            + MUTATOR_METHOD_NAME
-                            + "("
-                            + eventType.getSimpleName()
-                            + ") failed. See cause: "
-                            + e.getMessage(),
-                    e);
-
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(
-                    "Method "
-                            + MUTATOR_METHOD_NAME
-                            + "("
-                            + eventType.getSimpleName()
-                            + ") failed because of illegal access. See cause: "
-                            + e.getMessage(),
-                    e);
         }
-    }
-
-    private Method cacheMutatorMethodFor(
-            String aKey,
-            Class<? extends EventSourcedRootEntity> aRootType,
-            Class<? extends DomainEvent> anEventType) {
 
-        synchronized (mutatorMethods) {
-            try {
-                Method method = this.hiddenOrPublicMethod(aRootType, anEventType);
+        // racing threads compute the same fields, and
+        // all of them use whichever list was cached first
 
-                method.setAccessible(true);
+        List<Field> cachedFields = snapshotStateFields.putIfAbsent(aRootType, fields);
 
-                mutatorMethods.put(aKey, method);
-
-                return method;
+        return cachedFields == null ? fields : cachedFields;
+    }
 
-            } catch (Exception e) {
-                throw new IllegalArgumentException(
-                        "I do not understand "
-                                + MUTATOR_METHOD_NAME
-                                + "("
-                                + anEventType.getSimpleName()
-                                + ") because: "
-                                + e.getClass().getSimpleName() + ">>>" + e.getMessage(),
-                        e);
-            }
+    private void mutateFrom(List<DomainEvent> anEventStream, int aStreamVersion) {
+        for (DomainEvent event : anEventStream) {
+            this.mutateWhen(event);
         }
+
+        this.setUnmutatedVersion(aStreamVersion);
     }
 
-    private Method hiddenOrPublicMethod(
-            Class<? extends EventSourcedRootEntity> aRootType,
-            Class<? extends DomainEvent> anEventType)
-    throws Exception {
+    private void mutateFrom(EventStreamCursor anEventStream) {
+        while (anEventStream.hasNext()) {
+            this.mutateWhen(anEventStream.next());
+        }
 
-        Method method = null;
+        this.setUnmutatedVersion(anEventStream.version());
+    }
 
-        try {
+    private void restoreFrom(EventSourcedRootEntity aSnapshotState) {
+        this.assertArgumentNotNull(aSnapshotState, "The snapshot state must be provided.");
+        this.assertArgumentEquals(aSnapshotState.getClass(), this.getClass(), "The snapshot state is not of my type.");
 
-            // assume protected or private...
+        Class<? extends EventSourcedRootEntity> rootType = this.getClass();
 
-            method = aRootType.getDeclaredMethod(
-                    MUTATOR_METHOD_NAME,
-                    anEventType);
+        List<Field> fields = snapshotStateFields.get(rootType);
 
-        } catch (Exception e) {
+        if (fields == null) {
+            fields = this.cacheSnapshotStateFieldsFor(rootType);
+        }
 
-            // then public...
+        try {
+            for (Field field : fields) {
+                field.set(this, field.get(aSnapshotState));
+            }
 
-            method = aRootType.getMethod(
-                    MUTATOR_METHOD_NAME,
-                    anEventType);
+        } catch (IllegalAccessException e) {
+            throw new IllegalStateException(
+                    "Cannot restore "
+                            + rootType.getSimpleName()
+                            + " from snapshot because of illegal access. See cause: "
+                            + e.getMessage(),
+                    e);
         }
-
-        return method;
     }
 
     private void setMutatingEvents(List<DomainEvent> aMutatingEventsList) {
@@ -0,0 +1,190 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.event;
+
+import java.io.File;
+import java.lang.reflect.Modifier;
+import java.net.JarURLConnection;
+import java.net.URL;
+import java.net.URLDecoder;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+import com.saasovation.common.domain.model.DomainEvent;
+
+/**
+ * I resolve the type names of stored events to their DomainEvent
+ * classes, loading each class only once rather than on every event
+ * deserialization. I may be pre-warmed at startup by scanning the
+ * packages that hold a context's events.
+ *
+ * @author Vaughn Vernon
+ */
+public class EventTypeRegistry {
+
+    private static EventTypeRegistry instance;
+
+    private ConcurrentMap<String, Class<? extends DomainEvent>> eventTypes;
+
+    public static synchronized EventTypeRegistry instance() {
+        if (instance == null) {
+            instance = new EventTypeRegistry();
+        }
+
+        return instance;
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T extends DomainEvent> Class<T> eventTypeOf(String aTypeName) {
+        Class<? extends DomainEvent> eventType = this.eventTypes().get(aTypeName);
+
+        if (eventType == null) {
+            try {
+                eventType = Class.forName(aTypeName).asSubclass(DomainEvent.class);
+            } catch (Exception e) {
+                throw new IllegalStateException(
+                        "Cannot resolve event type: "
+                        + aTypeName
+                        + " because: "
+                        + e.getMessage(),
+                        e);
+            }
+
+            this.eventTypes().putIfAbsent(aTypeName, eventType);
+        }
+
+        return (Class<T>) eventType;
+    }
+
+    public void register(Class<? extends DomainEvent> anEventType) {
+        this.eventTypes().putIfAbsent(anEventType.getName(), anEventType);
+    }
+
+    public int registerDomainEventsIn(String aBasePackage) {
+        int registered = 0;
+
+        try {
+            for (String className : this.classNamesIn(aBasePackage)) {
+                Class<?> candidate =
+                        Class.forName(className, false, this.classLoader());
+
+                if (DomainEvent.class.isAssignableFrom(candidate)
+                        && !candidate.isInterface()
+                        && !Modifier.isAbstract(candidate.getModifiers())) {
+
+                    this.register(candidate.asSubclass(DomainEvent.class));
+
+                    ++registered;
+                }
+            }
+
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "Cannot register events in: "
+                    + aBasePackage
+                    + " because: "
+                    + e.getMessage(),
+                    e);
+        }
+
+        return registered;
+    }
+
+    public void setDomainEventPackages(String aCommaDelimitedBasePackages) {
+        for (String basePackage : aCommaDelimitedBasePackages.split(",")) {
+            this.registerDomainEventsIn(basePackage.trim());
+        }
+    }
+
+    private EventTypeRegistry() {
+        super();
+
+        this.eventTypes = new ConcurrentHashMap<String, Class<? extends DomainEvent>>();
+    }
+
+    private ClassLoader classLoader() {
+        ClassLoader classLoader = Thread.currentThread().getContextClassLoader();
+
+        if (classLoader == null) {
+            classLoader = EventTypeRegistry.class.getClassLoader();
+        }
+
+        return classLoader;
+    }
+
+    private List<String> classNamesIn(String aBasePackage) throws Exception {
+        List<String> classNames = new ArrayList<String>();
+
+        String packagePath = aBasePackage.replace('.', '/');
+
+        Enumeration<URL> resources = this.classLoader().getResources(packagePath);
+
+        while (resources.hasMoreElements()) {
+            URL resource = resources.nextElement();
+
+            if ("jar".equals(resource.getProtocol())) {
+                JarFile jarFile = ((JarURLConnection) resource.openConnection()).getJarFile();
+
+                Enumeration<JarEntry> entries = jarFile.entries();
+
+                while (entries.hasMoreElements()) {
+                    String entryName = entries.nextElement().getName();
+
+                    if (entryName.startsWith(packagePath + "/") && entryName.endsWith(".class")) {
+                        classNames.add(this.classNameFrom(entryName));
+                    }
+                }
+
+            } else if ("file".equals(resource.getProtocol())) {
+                this.collectClassNames(
+                        new File(URLDecoder.decode(resource.getPath(), "UTF-8")),
+                        aBasePackage,
+                        classNames);
+            }
+        }
+
+        return classNames;
+    }
+
+    private String classNameFrom(String aClassFileName) {
+        return aClassFileName
+                .substring(0, aClassFileName.length() - ".class".length())
+                .replace('/', '.');
+    }
+
+    private void collectClassNames(File aDirectory, String aPackage, List<String> aClassNames) {
+        File[] files = aDirectory.listFiles();
+
+        if (files != null) {
+            for (File file : files) {
+                if (file.isDirectory()) {
+                    this.collectClassNames(file, aPackage + "." + file.getName(), aClassNames);
+
+                } else if (file.getName().endsWith(".class")) {
+                    aClassNames.add(this.classNameFrom(aPackage.replace('.', '/') + "/" + file.getName()));
+                }
+            }
+        }
+    }
+
+    private ConcurrentMap<String, Class<? extends DomainEvent>> eventTypes() {
+        return this.eventTypes;
+    }
+}
@@ -52,17 +52,11 @@ public class StoredEvent extends AssertionConcern {
         return this.occurredOn;
     }
 
-    @SuppressWarnings("unchecked")
     public <T extends DomainEvent> T toDomainEvent() {
-        Class<T> domainEventClass = null;
-
-        try {
-            domainEventClass = (Class<T>) Class.forName(this.typeName());
-        } catch (Exception e) {
-            throw new IllegalStateException(
-                    "Class load error, because: "
-                    + e.getMessage());
-        }
+        Class<T> domainEventClass =
+            EventTypeRegistry
+                .instance()
+                .eventTypeOf(this.typeName());
 
         T domainEvent =
             EventSerializer
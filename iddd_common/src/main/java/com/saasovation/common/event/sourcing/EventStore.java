@@ -26,10 +26,18 @@ public interface EventStore {
 
     public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent);
 
+    public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent, int aMaximumCount);
+
+    public EventStream eventStreamAfter(EventStreamId anIdentity); // may be empty
+
+    public EventStreamCursor eventStreamCursorFrom(EventStreamId anIdentity); // may be empty
+
     public EventStream eventStreamSince(EventStreamId anIdentity);
 
     public EventStream fullEventStreamFor(EventStreamId anIdentity);
 
+    public long lastEventId(); // 0 when empty
+
     public void purge(); // mainly used for testing
 
     public void registerEventNotifiable(EventNotifiable anEventNotifiable);
@@ -0,0 +1,107 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.event.sourcing;
+
+import com.saasovation.common.AssertionConcern;
+
+/**
+ * I am the serialized state of an EventSourcedRootEntity as of
+ * a given version of its event stream. Loading from me replays only
+ * the events that follow my stream version.
+ *
+ * @author Vaughn Vernon
+ */
+public final class Snapshot extends AssertionConcern {
+
+    private String state;
+    private String streamName;
+    private int streamVersion;
+    private String typeName;
+
+    public Snapshot(
+            EventStreamId aStreamIdentity,
+            String aTypeName,
+            String aState) {
+
+        this(aStreamIdentity.streamName(),
+             aStreamIdentity.streamVersion(),
+             aTypeName,
+             aState);
+    }
+
+    public Snapshot(
+            String aStreamName,
+            int aStreamVersion,
+            String aTypeName,
+            String aState) {
+
+        super();
+
+        this.setState(aState);
+        this.setStreamName(aStreamName);
+        this.setStreamVersion(aStreamVersion);
+        this.setTypeName(aTypeName);
+    }
+
+    public String state() {
+        return this.state;
+    }
+
+    public EventStreamId streamId() {
+        return new EventStreamId(this.streamName(), this.streamVersion());
+    }
+
+    public String streamName() {
+        return this.streamName;
+    }
+
+    public int streamVersion() {
+        return this.streamVersion;
+    }
+
+    public String typeName() {
+        return this.typeName;
+    }
+
+    @Override
+    public String toString() {
+        return "Snapshot [streamName=" + streamName + ", streamVersion=" + streamVersion
+                + ", typeName=" + typeName + "]";
+    }
+
+    private void setState(String aState) {
+        this.assertArgumentNotEmpty(aState, "The snapshot state is required.");
+
+        this.state = aState;
+    }
+
+    private void setStreamName(String aStreamName) {
+        this.assertArgumentNotEmpty(aStreamName, "The stream name is required.");
+
+        this.streamName = aStreamName;
+    }
+
+    private void setStreamVersion(int aStreamVersion) {
+        this.assertArgumentTrue(aStreamVersion > 0, "The stream version must be greater than zero.");
+
+        this.streamVersion = aStreamVersion;
+    }
+
+    private void setTypeName(String aTypeName) {
+        this.assertArgumentNotEmpty(aTypeName, "The snapshot type name is required.");
+
+        this.typeName = aTypeName;
+    }
+}
@@ -0,0 +1,70 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.event.sourcing;
+
+import com.saasovation.common.domain.model.EventSourcedRootEntity;
+import com.saasovation.common.serializer.AbstractSerializer;
+
+public class SnapshotSerializer extends AbstractSerializer {
+
+    private static SnapshotSerializer snapshotSerializer;
+
+    public static synchronized SnapshotSerializer instance() {
+        if (SnapshotSerializer.snapshotSerializer == null) {
+            SnapshotSerializer.snapshotSerializer = new SnapshotSerializer();
+        }
+
+        return SnapshotSerializer.snapshotSerializer;
+    }
+
+    public SnapshotSerializer(boolean isCompact) {
+        this(false, isCompact);
+    }
+
+    public SnapshotSerializer(boolean isPretty, boolean isCompact) {
+        super(isPretty, isCompact);
+    }
+
+    public <T extends EventSourcedRootEntity> T deserialize(Snapshot aSnapshot, final Class<T> aType) {
+        if (!aType.getName().equals(aSnapshot.typeName())) {
+            throw new IllegalArgumentException(
+                    "Snapshot of type: "
+                    + aSnapshot.typeName()
+                    + " cannot be restored as: "
+                    + aType.getName());
+        }
+
+        T rootEntity = this.gson().fromJson(aSnapshot.state(), aType);
+
+        return rootEntity;
+    }
+
+    public Snapshot serialize(EventStreamId aStreamIdentity, EventSourcedRootEntity aRootEntity) {
+        String state = this.gson().toJson(aRootEntity);
+
+        Snapshot snapshot =
+                new Snapshot(
+                        aStreamIdentity,
+                        aRootEntity.getClass().getName(),
+                        state);
+
+        return snapshot;
+    }
+
+    private SnapshotSerializer() {
+        this(false, true);
+    }
+}
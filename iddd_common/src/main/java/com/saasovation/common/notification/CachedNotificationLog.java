@@ -0,0 +1,75 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.notification;
+
+import java.math.BigInteger;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+
+public final class CachedNotificationLog {
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private String eTag;
+    private String renderedFor;
+    private byte[] representation;
+
+    public CachedNotificationLog(String aRenderedFor, String aRepresentation) {
+        super();
+
+        this.renderedFor = aRenderedFor;
+        this.representation = aRepresentation.getBytes(UTF_8);
+        this.eTag = this.strongHashOf(this.representation);
+    }
+
+    public String eTag() {
+        return this.eTag;
+    }
+
+    public boolean isRenderedFor(String aRenderedFor) {
+        return this.renderedFor.equals(aRenderedFor);
+    }
+
+    public String renderedFor() {
+        return this.renderedFor;
+    }
+
+    public byte[] representation() {
+        // shared with every response it is served to, so
+        // it must never be changed
+        return this.representation;
+    }
+
+    @Override
+    public String toString() {
+        return "CachedNotificationLog [eTag=" + eTag + ", renderedFor=" + renderedFor
+                + ", representation.length=" + representation.length + "]";
+    }
+
+    private String strongHashOf(byte[] aRepresentation) {
+        try {
+            MessageDigest messageDigest = MessageDigest.getInstance("SHA-256");
+
+            return new BigInteger(1, messageDigest.digest(aRepresentation)).toString(16);
+
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(
+                    "Cannot hash notification log because: "
+                    + e.getMessage(),
+                    e);
+        }
+    }
+}
@@ -14,11 +14,17 @@
 
 package com.saasovation.common.notification;
 
+import java.io.IOException;
+import java.io.ObjectOutputStream;
 import java.io.Serializable;
+import java.io.StringReader;
 import java.util.Date;
 
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonToken;
 import com.saasovation.common.AssertionConcern;
 import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.event.StoredEvent;
 
 public class Notification extends AssertionConcern implements Serializable {
 
@@ -27,6 +33,7 @@ public class Notification extends AssertionConcern implements Serializable {
     private DomainEvent event;
     private long notificationId;
     private Date occurredOn;
+    private transient StoredEvent storedEvent;
     private String typeName;
     private int version;
 
@@ -43,8 +50,26 @@ public class Notification extends AssertionConcern implements Serializable {
         this.setVersion(anEvent.eventVersion());
     }
 
+    public Notification(StoredEvent aStoredEvent) {
+        this();
+
+        // the stored event body is written as is into the
+        // serialized notification, so the event itself is
+        // only deserialized when asked for
+
+        this.setNotificationId(aStoredEvent.eventId());
+        this.setStoredEvent(aStoredEvent);
+        this.setTypeName(aStoredEvent.typeName());
+
+        this.initializeFromEventBody(aStoredEvent);
+    }
+
     @SuppressWarnings("unchecked")
     public <T extends DomainEvent> T event() {
+        if (this.event == null && this.storedEvent() != null) {
+            this.setEvent(this.storedEvent().toDomainEvent());
+        }
+
         return (T) this.event;
     }
 
@@ -56,6 +81,10 @@ public class Notification extends AssertionConcern implements Serializable {
         return this.occurredOn;
     }
 
+    public String storedEventBody() {
+        return this.storedEvent() == null ? null : this.storedEvent().eventBody();
+    }
+
     public String typeName() {
         return this.typeName;
     }
@@ -117,7 +146,65 @@ public class Notification extends AssertionConcern implements Serializable {
         this.typeName = aTypeName;
     }
 
+    private void initializeFromEventBody(StoredEvent aStoredEvent) {
+        Date occurredOn = null;
+        Integer version = null;
+
+        // only the top-level properties are read, skipping
+        // over the values of all others
+
+        try {
+            JsonReader reader = new JsonReader(new StringReader(aStoredEvent.eventBody()));
+
+            reader.beginObject();
+
+            while (reader.hasNext() && (occurredOn == null || version == null)) {
+                String name = reader.nextName();
+
+                if (name.equals("occurredOn") && reader.peek() == JsonToken.STRING) {
+                    occurredOn = new Date(Long.parseLong(reader.nextString()));
+                } else if (name.equals("eventVersion") && reader.peek() == JsonToken.NUMBER) {
+                    version = reader.nextInt();
+                } else {
+                    reader.skipValue();
+                }
+            }
+
+            reader.close();
+
+        } catch (IOException e) {
+            version = null;
+        } catch (NumberFormatException e) {
+            version = null;
+        }
+
+        if (occurredOn == null || version == null) {
+            DomainEvent domainEvent = this.event();
+
+            occurredOn = domainEvent.occurredOn();
+            version = domainEvent.eventVersion();
+        }
+
+        this.setOccurredOn(occurredOn);
+        this.setVersion(version);
+    }
+
+    private StoredEvent storedEvent() {
+        return this.storedEvent;
+    }
+
+    private void setStoredEvent(StoredEvent aStoredEvent) {
+        this.storedEvent = aStoredEvent;
+    }
+
     private void setVersion(int aVersion) {
         this.version = aVersion;
     }
+
+    private void writeObject(ObjectOutputStream aStream) throws IOException {
+        // the stored event is not serialized
+        this.event();
+
+        aStream.defaultWriteObject();
+    }
 }
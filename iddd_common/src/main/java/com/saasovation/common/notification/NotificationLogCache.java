@@ -0,0 +1,164 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.notification;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+public class NotificationLogCache {
+
+    private long appends;
+    private Map<NotificationLogId, CachedNotificationLog> archivedNotificationLogs;
+    private long archivedRepresentationBytes;
+    private CachedNotificationLog currentNotificationLog;
+    private long maximumArchivedRepresentationBytes;
+    private int maximumArchivedNotificationLogs;
+
+    public NotificationLogCache(
+            int aMaximumArchivedNotificationLogs,
+            long aMaximumArchivedRepresentationBytes) {
+
+        super();
+
+        if (aMaximumArchivedNotificationLogs <= 0) {
+            throw new IllegalArgumentException("The maximum archived notification logs must be greater than zero.");
+        }
+        if (aMaximumArchivedRepresentationBytes <= 0) {
+            throw new IllegalArgumentException("The maximum archived representation bytes must be greater than zero.");
+        }
+
+        this.maximumArchivedNotificationLogs = aMaximumArchivedNotificationLogs;
+        this.maximumArchivedRepresentationBytes = aMaximumArchivedRepresentationBytes;
+
+        this.archivedNotificationLogs =
+                new LinkedHashMap<NotificationLogId, CachedNotificationLog>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<NotificationLogId, CachedNotificationLog> anEldest) {
+                        return this.size() > maximumArchivedNotificationLogs();
+                    }
+                };
+    }
+
+    public NotificationLogCache(int aMaximumArchivedNotificationLogs) {
+        this(aMaximumArchivedNotificationLogs, Long.MAX_VALUE);
+    }
+
+    public synchronized long appends() {
+        return this.appends;
+    }
+
+    public synchronized CachedNotificationLog archivedNotificationLogOf(
+            NotificationLogId aNotificationLogId,
+            String aRenderedFor) {
+
+        CachedNotificationLog cachedNotificationLog =
+                this.archivedNotificationLogs.get(aNotificationLogId);
+
+        if (cachedNotificationLog != null && !cachedNotificationLog.isRenderedFor(aRenderedFor)) {
+            cachedNotificationLog = null;
+        }
+
+        return cachedNotificationLog;
+    }
+
+    public synchronized void cacheArchivedNotificationLog(
+            NotificationLog aNotificationLog,
+            CachedNotificationLog aCachedNotificationLog) {
+
+        // only an archived log is certain never to change
+
+        if (aNotificationLog.isArchived()) {
+            this.archivedNotificationLogs.put(
+                    aNotificationLog.decodedNotificationLogId(),
+                    aCachedNotificationLog);
+
+            this.evictArchivedNotificationLogsOverBudget();
+        }
+    }
+
+    public synchronized void cacheCurrentNotificationLog(
+            CachedNotificationLog aCachedNotificationLog,
+            long anAppendsBeforeQuery) {
+
+        // an event appended while the log was being queried
+        // may be missing from it
+
+        if (anAppendsBeforeQuery == this.appends) {
+            this.currentNotificationLog = aCachedNotificationLog;
+        }
+    }
+
+    public synchronized void clear() {
+        ++this.appends;
+
+        this.archivedNotificationLogs.clear();
+        this.archivedRepresentationBytes = 0;
+        this.currentNotificationLog = null;
+    }
+
+    public synchronized CachedNotificationLog currentNotificationLog(String aRenderedFor) {
+        CachedNotificationLog cachedNotificationLog = this.currentNotificationLog;
+
+        if (cachedNotificationLog != null && !cachedNotificationLog.isRenderedFor(aRenderedFor)) {
+            cachedNotificationLog = null;
+        }
+
+        return cachedNotificationLog;
+    }
+
+    public synchronized void invalidateCurrentNotificationLog() {
+        ++this.appends;
+
+        this.currentNotificationLog = null;
+    }
+
+    public synchronized long representationBytes() {
+        return this.archivedRepresentationBytes;
+    }
+
+    public synchronized int size() {
+        return this.archivedNotificationLogs.size();
+    }
+
+    private void evictArchivedNotificationLogsOverBudget() {
+
+        // bulk logs are many times larger than the default ones,
+        // so the count alone does not bound the memory held
+
+        long bytes = 0;
+
+        for (CachedNotificationLog cachedNotificationLog : this.archivedNotificationLogs.values()) {
+            bytes += cachedNotificationLog.representation().length;
+        }
+
+        Iterator<CachedNotificationLog> eldestFirst =
+                this.archivedNotificationLogs.values().iterator();
+
+        while (bytes > this.maximumArchivedRepresentationBytes && eldestFirst.hasNext()) {
+            bytes -= eldestFirst.next().representation().length;
+
+            eldestFirst.remove();
+        }
+
+        this.archivedRepresentationBytes = bytes;
+    }
+
+    private int maximumArchivedNotificationLogs() {
+        return this.maximumArchivedNotificationLogs;
+    }
+}
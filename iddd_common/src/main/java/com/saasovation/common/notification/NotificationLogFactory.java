@@ -17,25 +17,49 @@ package com.saasovation.common.notification;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.event.EventStore;
 import com.saasovation.common.event.StoredEvent;
 
 public class NotificationLogFactory {
 
-    // this could be a configuration
+    // the defaults, unless configured per deployment
+    private static final int BULK_NOTIFICATIONS_PER_LOG = 1000;
     private static final int NOTIFICATIONS_PER_LOG = 20;
 
     private EventStore eventStore;
+    private int maximumNotificationsPerLog;
+    private int notificationsPerCurrentLog;
+
+    public static int bulkNotificationsPerLog() {
+        return BULK_NOTIFICATIONS_PER_LOG;
+    }
 
     public static int notificationsPerLog() {
         return NOTIFICATIONS_PER_LOG;
     }
 
     public NotificationLogFactory(EventStore anEventStore) {
+        this(anEventStore, NOTIFICATIONS_PER_LOG, BULK_NOTIFICATIONS_PER_LOG);
+    }
+
+    public NotificationLogFactory(
+            EventStore anEventStore,
+            int aNotificationsPerLog,
+            int aMaximumNotificationsPerLog) {
+
         super();
 
+        if (aNotificationsPerLog <= 0) {
+            throw new IllegalArgumentException("The notifications per log must be greater than zero.");
+        }
+
+        if (aMaximumNotificationsPerLog < aNotificationsPerLog) {
+            throw new IllegalArgumentException("The maximum notifications per log must not be less than the notifications per log.");
+        }
+
         this.setEventStore(anEventStore);
+        this.setMaximumNotificationsPerLog(aMaximumNotificationsPerLog);
+        this.setNotificationsPerCurrentLog(aNotificationsPerLog);
     }
 
     public NotificationLog createCurrentNotificationLog() {
@@ -46,6 +70,21 @@ public class NotificationLogFactory {
     public NotificationLog createNotificationLog(
             NotificationLogId aNotificationLogId) {
 
+        // a log may be larger than the current one, such as
+        // for bulk catch-up, and its next and previous logs
+        // are then just as large
+
+        long notificationsPerLog = aNotificationLogId.high() - aNotificationLogId.low() + 1;
+
+        if (aNotificationLogId.low() < 1 ||
+            notificationsPerLog < 1 ||
+            notificationsPerLog > this.maximumNotificationsPerLog()) {
+
+            throw new IllegalArgumentException(
+                    "The notification log id is not valid: "
+                    + aNotificationLogId.encoded());
+        }
+
         long count = this.eventStore().countStoredEvents();
 
         NotificationLogInfo info = new NotificationLogInfo(aNotificationLogId, count);
@@ -58,17 +97,19 @@ public class NotificationLogFactory {
 
         long count = anEventStore.countStoredEvents();
 
-        long remainder = count % NOTIFICATIONS_PER_LOG;
+        int notificationsPerLog = this.notificationsPerCurrentLog();
+
+        long remainder = count % notificationsPerLog;
 
         if (remainder == 0 && count > 0) {
-            remainder = NOTIFICATIONS_PER_LOG;
+            remainder = notificationsPerLog;
         }
 
         long low = count - remainder + 1;
 
         // ensures a minted id value even though there may
         // not be a full set of notifications at present
-        long high = low + NOTIFICATIONS_PER_LOG - 1;
+        long high = low + notificationsPerLog - 1;
 
         return new NotificationLogInfo(new NotificationLogId(low, high), count);
     }
@@ -84,12 +125,16 @@ public class NotificationLogFactory {
         boolean archivedIndicator =
                 aNotificationLogInfo.notificationLogId().high() < aNotificationLogInfo.totalLogged();
 
+        int notificationsPerLog =
+                (int) (aNotificationLogInfo.notificationLogId().high()
+                        - aNotificationLogInfo.notificationLogId().low() + 1);
+
         NotificationLogId next = archivedIndicator ?
-                aNotificationLogInfo.notificationLogId().next(NOTIFICATIONS_PER_LOG) :
+                aNotificationLogInfo.notificationLogId().next(notificationsPerLog) :
                 null;
 
         NotificationLogId previous =
-                aNotificationLogInfo.notificationLogId().previous(NOTIFICATIONS_PER_LOG);
+                aNotificationLogInfo.notificationLogId().previous(notificationsPerLog);
 
         NotificationLog notificationLog =
             new NotificationLog(
@@ -102,17 +147,28 @@ public class NotificationLogFactory {
         return notificationLog;
     }
 
+    private int maximumNotificationsPerLog() {
+        return this.maximumNotificationsPerLog;
+    }
+
+    private void setMaximumNotificationsPerLog(int aMaximumNotificationsPerLog) {
+        this.maximumNotificationsPerLog = aMaximumNotificationsPerLog;
+    }
+
+    private int notificationsPerCurrentLog() {
+        return this.notificationsPerCurrentLog;
+    }
+
+    private void setNotificationsPerCurrentLog(int aNotificationsPerCurrentLog) {
+        this.notificationsPerCurrentLog = aNotificationsPerCurrentLog;
+    }
+
     private List<Notification> notificationsFrom(List<StoredEvent> aStoredEvents) {
         List<Notification> notifications =
             new ArrayList<Notification>(aStoredEvents.size());
 
         for (StoredEvent storedEvent : aStoredEvents) {
-            DomainEvent domainEvent = storedEvent.toDomainEvent();
-
-            Notification notification =
-                new Notification(storedEvent.eventId(), domainEvent);
-
-            notifications.add(notification);
+            notifications.add(new Notification(storedEvent));
         }
 
         return notifications;
@@ -29,6 +29,12 @@ public class NotificationLogId {
         return encodedId;
     }
 
+    public static NotificationLogId containing(long aNotificationId, int aNotificationsPerLog) {
+        long low = Math.max(aNotificationId - 1, 0) / aNotificationsPerLog * aNotificationsPerLog + 1;
+
+        return new NotificationLogId(low, low + aNotificationsPerLog - 1);
+    }
+
     public static NotificationLogId first(int aNotificationsPerLog) {
         NotificationLogId id = new NotificationLogId(0, 0);
 
@@ -45,9 +51,31 @@ public class NotificationLogId {
     public NotificationLogId(String aNotificationLogId) {
         super();
 
-        String[] textIds = aNotificationLogId.split(",");
-        this.setLow(Long.parseLong(textIds[0]));
-        this.setHigh(Long.parseLong(textIds[1]));
+        if (aNotificationLogId == null) {
+            throw new IllegalArgumentException("The notification log id must be provided.");
+        }
+
+        String[] textIds = aNotificationLogId.split(",", -1);
+
+        if (textIds.length != 2) {
+            throw new IllegalArgumentException(
+                    "The notification log id: " + aNotificationLogId + " must be of the form low,high.");
+        }
+
+        try {
+            this.setLow(Long.parseLong(textIds[0]));
+            this.setHigh(Long.parseLong(textIds[1]));
+
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException(
+                    "The notification log id: " + aNotificationLogId + " must be of the form low,high.",
+                    e);
+        }
+
+        if (this.low() < 0 || this.high() < this.low()) {
+            throw new IllegalArgumentException(
+                    "The notification log id: " + aNotificationLogId + " must not end before it begins.");
+        }
     }
 
     public String encoded() {
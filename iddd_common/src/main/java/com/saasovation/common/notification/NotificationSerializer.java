@@ -33,7 +33,7 @@ public class NotificationSerializer extends AbstractSerializer {
     }
 
     public NotificationSerializer(boolean isPretty, boolean isCompact) {
-        super(isPretty, isCompact);
+        super(isPretty, isCompact, new NotificationTypeAdapterFactory());
     }
 
     public String serialize(Notification aNotification) {
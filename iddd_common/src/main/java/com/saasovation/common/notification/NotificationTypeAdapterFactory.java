@@ -0,0 +1,96 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.notification;
+
+import java.io.IOException;
+import java.util.Date;
+
+import com.google.gson.Gson;
+import com.google.gson.TypeAdapter;
+import com.google.gson.TypeAdapterFactory;
+import com.google.gson.reflect.TypeToken;
+import com.google.gson.stream.JsonReader;
+import com.google.gson.stream.JsonWriter;
+
+/**
+ * I write a Notification of a stored event by splicing the stored
+ * event body into the notification, rather than deserializing the
+ * event only to serialize it again. All other notifications, and
+ * all reading, are left to the default adapter.
+ *
+ * @author Vaughn Vernon
+ */
+public class NotificationTypeAdapterFactory implements TypeAdapterFactory {
+
+    public NotificationTypeAdapterFactory() {
+        super();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T> TypeAdapter<T> create(Gson aGson, TypeToken<T> aType) {
+        TypeAdapter<T> typeAdapter = null;
+
+        if (aType.getRawType() == Notification.class) {
+            typeAdapter = (TypeAdapter<T>)
+                    new StoredEventNotificationTypeAdapter(
+                            aGson.getDelegateAdapter(this, TypeToken.get(Notification.class)),
+                            aGson.getAdapter(Date.class));
+        }
+
+        return typeAdapter;
+    }
+
+    private static class StoredEventNotificationTypeAdapter
+            extends TypeAdapter<Notification> {
+
+        private TypeAdapter<Date> dateTypeAdapter;
+        private TypeAdapter<Notification> delegate;
+
+        public StoredEventNotificationTypeAdapter(
+                TypeAdapter<Notification> aDelegate,
+                TypeAdapter<Date> aDateTypeAdapter) {
+
+            super();
+
+            this.dateTypeAdapter = aDateTypeAdapter;
+            this.delegate = aDelegate;
+        }
+
+        @Override
+        public Notification read(JsonReader aReader) throws IOException {
+            return this.delegate.read(aReader);
+        }
+
+        @Override
+        public void write(JsonWriter aWriter, Notification aNotification) throws IOException {
+            if (aNotification == null || aNotification.storedEventBody() == null) {
+                this.delegate.write(aWriter, aNotification);
+            } else {
+                // the same properties, in the same order, as
+                // the default adapter writes them
+                aWriter.beginObject();
+                aWriter.name("event").jsonValue(aNotification.storedEventBody());
+                aWriter.name("notificationId").value(aNotification.notificationId());
+                aWriter.name("occurredOn");
+                this.dateTypeAdapter.write(aWriter, aNotification.occurredOn());
+                aWriter.name("typeName").value(aNotification.typeName());
+                aWriter.name("version").value(aNotification.version());
+                aWriter.endObject();
+            }
+        }
+    }
+}
@@ -33,6 +33,9 @@ public abstract class BrokerChannel {
     /** My channel. */
     private Channel channel;
 
+    /** My channelPool, which my channel is borrowed from, if any. */
+    private ChannelPool channelPool;
+
     /** My connection, which is the connection to my host broker. */
     private Connection connection;
 
@@ -98,6 +101,25 @@ public abstract class BrokerChannel {
 		}
     }
 
+    /**
+     * Constructs my default state with a channel borrowed from
+     * aChannelPool, which is returned to it when I am closed.
+     * @param aChannelPool the ChannelPool
+     * @param aName the String name of my implementor
+     */
+    protected BrokerChannel(
+            ChannelPool aChannelPool,
+            String aName) {
+
+        super();
+
+        this.setName(aName);
+
+        this.setChannelPool(aChannelPool);
+
+        this.setChannel(aChannelPool.borrowChannel());
+    }
+
     /**
      * Constructs my default state.
      * @param aBrokerChannel the BrokerChannel to initialize with
@@ -121,6 +143,32 @@ public abstract class BrokerChannel {
         this.setChannel(aBrokerChannel.channel());
     }
 
+    /**
+     * Answers a new ConnectionFactory configured with aConnectionSettings.
+     * @param aConnectionSettings the ConnectionSettings
+     * @return ConnectionFactory
+     */
+    static ConnectionFactory connectionFactoryFor(
+            ConnectionSettings aConnectionSettings) {
+
+        ConnectionFactory factory = new ConnectionFactory();
+
+        factory.setHost(aConnectionSettings.hostName());
+
+        if (aConnectionSettings.hasPort()) {
+            factory.setPort(aConnectionSettings.port());
+        }
+
+        factory.setVirtualHost(aConnectionSettings.virtualHost());
+
+        if (aConnectionSettings.hasUserCredentials()) {
+            factory.setUsername(aConnectionSettings.username());
+            factory.setPassword(aConnectionSettings.password());
+        }
+
+        return factory;
+    }
+
     /**
      * Answers my channel.
      * @return Channel
@@ -145,20 +193,27 @@ public abstract class BrokerChannel {
         // closing a shared channel and connection that is
         // shared by a subscriber exchange and queue.
 
-        try {
-            if (this.channel() != null && this.channel().isOpen()) {
-                this.channel().close();
+        if (this.channelPool() != null) {
+            // the pool keeps the connection open, and discards
+            // the channel instead if it has been closed
+            this.channelPool().returnChannel(this.channel());
+
+        } else {
+            try {
+                if (this.channel() != null && this.channel().isOpen()) {
+                    this.channel().close();
+                }
+            } catch (Throwable e) {
+                // fall through
             }
-        } catch (Throwable e) {
-            // fall through
-        }
 
-        try {
-            if (this.connection() != null && this.connection().isOpen()) {
-                this.connection().close();
+            try {
+                if (this.connection() != null && this.connection().isOpen()) {
+                    this.connection().close();
+                }
+            } catch (Throwable e) {
+                // fall through
             }
-        } catch (Throwable e) {
-            // fall through
         }
 
         this.setChannel(null);
@@ -173,22 +228,7 @@ public abstract class BrokerChannel {
     protected ConnectionFactory configureConnectionFactoryUsing(
             ConnectionSettings aConnectionSettings) {
 
-        ConnectionFactory factory = new ConnectionFactory();
-
-        factory.setHost(aConnectionSettings.hostName());
-
-        if (aConnectionSettings.hasPort()) {
-            factory.setPort(aConnectionSettings.port());
-        }
-
-        factory.setVirtualHost(aConnectionSettings.virtualHost());
-
-        if (aConnectionSettings.hasUserCredentials()) {
-            factory.setUsername(aConnectionSettings.username());
-            factory.setPassword(aConnectionSettings.password());
-        }
-
-        return factory;
+        return connectionFactoryFor(aConnectionSettings);
     }
 
     /**
@@ -257,6 +297,22 @@ public abstract class BrokerChannel {
         this.channel = aChannel;
     }
 
+    /**
+     * Answers my channelPool.
+     * @return ChannelPool
+     */
+    private ChannelPool channelPool() {
+        return this.channelPool;
+    }
+
+    /**
+     * Sets my channelPool.
+     * @param aChannelPool the ChannelPool to set as my channelPool
+     */
+    private void setChannelPool(ChannelPool aChannelPool) {
+        this.channelPool = aChannelPool;
+    }
+
     /**
      * Answers my connection.
      * @return Connection
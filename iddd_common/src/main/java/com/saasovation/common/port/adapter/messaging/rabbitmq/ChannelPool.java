@@ -0,0 +1,337 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.messaging.rabbitmq;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.Set;
+import java.util.concurrent.TimeoutException;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+import com.saasovation.common.port.adapter.messaging.MessageException;
+
+/**
+ * I am a pool of channels on a single long-lived connection to
+ * the RabbitMQ message broker. I reopen my connection when it
+ * has been lost, and I only ever hand out open channels, so
+ * that producers sending frequently need not open and close a
+ * connection each time.
+ *
+ * @author Vaughn Vernon
+ */
+public class ChannelPool {
+
+    /** My default maximum number of idle channels. */
+    private static final int MAXIMUM_IDLE_CHANNELS = 8;
+
+    /** My shared instance, which uses the default ConnectionSettings. */
+    private static ChannelPool instance;
+
+    /** My connection, which is shared by all of my channels. */
+    private Connection connection;
+
+    /** My connectionFactory, which opens my connection. */
+    private ConnectionFactory connectionFactory;
+
+    /** My declaredExchangeNames, which are declared on my current connection. */
+    private Set<String> declaredExchangeNames;
+
+    /** My idleChannels, which are open and ready to be borrowed. */
+    private Deque<Channel> idleChannels;
+
+    /** My maximumIdleChannels, beyond which returned channels are closed. */
+    private int maximumIdleChannels;
+
+    /**
+     * Answers my shared instance, which uses the default ConnectionSettings.
+     * @return ChannelPool
+     */
+    public static synchronized ChannelPool instance() {
+        if (instance == null) {
+            instance = new ChannelPool(ConnectionSettings.instance(), MAXIMUM_IDLE_CHANNELS);
+        }
+
+        return instance;
+    }
+
+    /**
+     * Constructs my default state.
+     * @param aConnectionSettings the ConnectionSettings
+     * @param aMaximumIdleChannels the int maximum number of idle channels
+     */
+    public ChannelPool(
+            ConnectionSettings aConnectionSettings,
+            int aMaximumIdleChannels) {
+
+        this(BrokerChannel.connectionFactoryFor(aConnectionSettings), aMaximumIdleChannels);
+    }
+
+    /**
+     * Answers an open channel, which is either an idle channel or a
+     * new one, reopening my connection first if it has been lost.
+     * @return Channel
+     */
+    public synchronized Channel borrowChannel() {
+        Channel channel = null;
+
+        while (channel == null && !this.idleChannels().isEmpty()) {
+            channel = this.idleChannels().pop();
+
+            if (!channel.isOpen()) {
+                channel = null;
+            }
+        }
+
+        if (channel == null) {
+            try {
+                channel = this.openConnection().createChannel();
+
+            } catch (IOException e) {
+                throw new MessageException("Failed to open a channel.", e);
+            }
+
+            if (channel == null) {
+                throw new MessageException("Failed to open a channel because: the channel limit is reached.");
+            }
+        }
+
+        return channel;
+    }
+
+    /**
+     * Closes me, which closes all of my idle channels and my connection.
+     */
+    public synchronized void close() {
+        while (!this.idleChannels().isEmpty()) {
+            this.closeChannel(this.idleChannels().pop());
+        }
+
+        this.closeConnection();
+    }
+
+    /**
+     * Declares the exchange named aName on aChannel, unless it has
+     * already been declared on my current connection.
+     * @param aChannel the Channel borrowed from me
+     * @param aName the String name of the exchange
+     * @param aType the String type of the exchange
+     * @param isDurable the boolean indicating whether or not the exchange is durable
+     * @throws IOException when the exchange cannot be declared
+     */
+    public synchronized void declareExchange(
+            Channel aChannel,
+            String aName,
+            String aType,
+            boolean isDurable)
+    throws IOException {
+
+        if (!this.declaredExchangeNames().contains(aName)) {
+            aChannel.exchangeDeclare(aName, aType, isDurable);
+
+            this.declaredExchangeNames().add(aName);
+        }
+    }
+
+    /**
+     * Answers the number of my idle channels.
+     * @return int
+     */
+    public synchronized int idleChannelCount() {
+        return this.idleChannels().size();
+    }
+
+    /**
+     * Returns aChannel to me for reuse, unless it has been closed or
+     * I already have my maximum number of idle channels.
+     * @param aChannel the Channel borrowed from me
+     */
+    public synchronized void returnChannel(Channel aChannel) {
+        if (aChannel == null) {
+            return;
+        }
+
+        if (aChannel.isOpen() &&
+            aChannel.getConnection() == this.connection() &&
+            this.idleChannels().size() < this.maximumIdleChannels()) {
+
+            this.idleChannels().push(aChannel);
+
+        } else {
+            this.closeChannel(aChannel);
+        }
+    }
+
+    /**
+     * Constructs my default state.
+     * @param aConnectionFactory the ConnectionFactory that opens my connection
+     * @param aMaximumIdleChannels the int maximum number of idle channels
+     */
+    protected ChannelPool(
+            ConnectionFactory aConnectionFactory,
+            int aMaximumIdleChannels) {
+
+        super();
+
+        if (aMaximumIdleChannels < 0) {
+            throw new IllegalArgumentException("The maximum idle channels must not be negative.");
+        }
+
+        this.setConnectionFactory(aConnectionFactory);
+        this.setDeclaredExchangeNames(new HashSet<String>());
+        this.setIdleChannels(new ArrayDeque<Channel>());
+        this.setMaximumIdleChannels(aMaximumIdleChannels);
+    }
+
+    /**
+     * Closes aChannel, ignoring any failure to do so.
+     * @param aChannel the Channel to close
+     */
+    private void closeChannel(Channel aChannel) {
+        try {
+            if (aChannel.isOpen()) {
+                aChannel.close();
+            }
+        } catch (Throwable t) {
+            // fall through
+        }
+    }
+
+    /**
+     * Closes my connection, ignoring any failure to do so.
+     */
+    private void closeConnection() {
+        try {
+            if (this.connection() != null && this.connection().isOpen()) {
+                this.connection().close();
+            }
+        } catch (Throwable t) {
+            // fall through
+        }
+
+        this.setConnection(null);
+        this.declaredExchangeNames().clear();
+    }
+
+    /**
+     * Answers my connection, opening it anew if it has been lost.
+     * @return Connection
+     */
+    private Connection openConnection() {
+        if (this.connection() == null || !this.connection().isOpen()) {
+
+            // the idle channels, if any, were on the lost connection
+
+            this.idleChannels().clear();
+
+            this.closeConnection();
+
+            try {
+                this.setConnection(this.connectionFactory().newConnection());
+
+            } catch (IOException e) {
+                throw new MessageException("Failed to open a connection.", e);
+            } catch (TimeoutException e) {
+                throw new MessageException("Failed to open a connection.", e);
+            }
+        }
+
+        return this.connection();
+    }
+
+    /**
+     * Answers my connection.
+     * @return Connection
+     */
+    private Connection connection() {
+        return this.connection;
+    }
+
+    /**
+     * Sets my connection.
+     * @param aConnection the Connection to set as my connection
+     */
+    private void setConnection(Connection aConnection) {
+        this.connection = aConnection;
+    }
+
+    /**
+     * Answers my connectionFactory.
+     * @return ConnectionFactory
+     */
+    private ConnectionFactory connectionFactory() {
+        return this.connectionFactory;
+    }
+
+    /**
+     * Sets my connectionFactory.
+     * @param aConnectionFactory the ConnectionFactory to set as my connectionFactory
+     */
+    private void setConnectionFactory(ConnectionFactory aConnectionFactory) {
+        this.connectionFactory = aConnectionFactory;
+    }
+
+    /**
+     * Answers my declaredExchangeNames.
+     * @return Set<String>
+     */
+    private Set<String> declaredExchangeNames() {
+        return this.declaredExchangeNames;
+    }
+
+    /**
+     * Sets my declaredExchangeNames.
+     * @param aDeclaredExchangeNames the Set<String> to set as my declaredExchangeNames
+     */
+    private void setDeclaredExchangeNames(Set<String> aDeclaredExchangeNames) {
+        this.declaredExchangeNames = aDeclaredExchangeNames;
+    }
+
+    /**
+     * Answers my idleChannels.
+     * @return Deque<Channel>
+     */
+    private Deque<Channel> idleChannels() {
+        return this.idleChannels;
+    }
+
+    /**
+     * Sets my idleChannels.
+     * @param anIdleChannels the Deque<Channel> to set as my idleChannels
+     */
+    private void setIdleChannels(Deque<Channel> anIdleChannels) {
+        this.idleChannels = anIdleChannels;
+    }
+
+    /**
+     * Answers my maximumIdleChannels.
+     * @return int
+     */
+    private int maximumIdleChannels() {
+        return this.maximumIdleChannels;
+    }
+
+    /**
+     * Sets my maximumIdleChannels.
+     * @param aMaximumIdleChannels the int to set as my maximumIdleChannels
+     */
+    private void setMaximumIdleChannels(int aMaximumIdleChannels) {
+        this.maximumIdleChannels = aMaximumIdleChannels;
+    }
+}
@@ -60,6 +60,24 @@ public class Exchange extends BrokerChannel {
         return new Exchange(aConnectionSettings, aName, "fanout", isDurable);
     }
 
+    /**
+     * Answers a new instance of a fan-out Exchange with the name aName,
+     * on a channel borrowed from aChannelPool that is returned to it when
+     * I am closed. The underlying exchange has the isDurable quality, and
+     * is not auto-deleted.
+     * @param aChannelPool the ChannelPool
+     * @param aName the String name of the exchange
+     * @param isDurable the boolean indicating whether or not I am durable
+     * @return Exchange
+     */
+    public static Exchange fanOutInstance(
+            ChannelPool aChannelPool,
+            String aName,
+            boolean isDurable) {
+
+        return new Exchange(aChannelPool, aName, "fanout", isDurable);
+    }
+
     /**
      * Answers a new instance of a headers Exchange with the name aName. The
      * underlying exchange has the isDurable quality, and is not auto-deleted.
@@ -118,6 +136,34 @@ public class Exchange extends BrokerChannel {
         }
     }
 
+    /**
+     * Constructs my default state.
+     * @param aChannelPool the ChannelPool
+     * @param aName the String name of the exchange
+     * @param aType the String type of the exchange
+     * @param isDurable the boolean indicating whether or not I am durable
+     */
+    protected Exchange(
+            ChannelPool aChannelPool,
+            String aName,
+            String aType,
+            boolean isDurable) {
+
+        super(aChannelPool, aName);
+
+        this.setDurable(isDurable);
+
+        this.setType(aType);
+
+        try {
+            aChannelPool.declareExchange(this.channel(), aName, aType, isDurable);
+        } catch (IOException e) {
+            this.close();
+
+            throw new MessageException("Failed to create/open the exchange.", e);
+        }
+    }
+
     /**
      * @see com.saasovation.common.port.adapter.messaging.rabbitmq.BrokerChannel#isExchange()
      */
@@ -17,6 +17,7 @@ package com.saasovation.common.port.adapter.messaging.rabbitmq;
 import java.io.IOException;
 
 import com.rabbitmq.client.AMQP.BasicProperties;
+import com.rabbitmq.client.Channel;
 import com.rabbitmq.client.MessageProperties;
 import com.saasovation.common.port.adapter.messaging.MessageException;
 
@@ -31,6 +32,9 @@ public class MessageProducer {
     /** My brokerChannel, which is where I send messages. */
     private BrokerChannel brokerChannel;
 
+    /** My publisherConfirms, which track my sent messages if in confirm mode. */
+    private PublisherConfirms publisherConfirms;
+
     /**
      * Answers a new instance of a MessageProducer.
      * @param aBrokerChannel the BrokerChannel where messages are to be sent
@@ -44,9 +48,64 @@ public class MessageProducer {
      * Closes me, which closes my broker channel.
      */
     public void close() {
+        if (this.publisherConfirms() != null && this.brokerChannel().channel() != null) {
+            // my channel may be pooled and outlive me
+            this.brokerChannel().channel().removeConfirmListener(this.publisherConfirms());
+        }
+
         this.brokerChannel().close();
     }
 
+    /**
+     * Answers the number of messages I sent since entering confirm mode,
+     * from the first, that the broker confirmed without a gap, after
+     * waiting for the confirms still outstanding. Messages following a
+     * nack or a missing confirm are not counted, and should be sent again.
+     * @return int
+     */
+    public int confirmedMessageCount() {
+        if (this.publisherConfirms() == null) {
+            throw new IllegalStateException("Not in confirm mode.");
+        }
+
+        return this.publisherConfirms().confirmedCount();
+    }
+
+    /**
+     * Answers the receiver after putting my channel in confirm mode, so
+     * that the broker confirms each message I send. Sending does not wait
+     * for confirms, but pipelines messages until aMaximumUnconfirmed of
+     * them await confirmation, and only then waits for room in the window.
+     * @param aMaximumUnconfirmed the int maximum number of unconfirmed messages
+     * @param aTimeout the long milliseconds to wait for confirms
+     * @return MessageProducer
+     */
+    public MessageProducer confirmed(int aMaximumUnconfirmed, long aTimeout) {
+        if (this.publisherConfirms() != null) {
+            throw new IllegalStateException("Already in confirm mode.");
+        }
+
+        PublisherConfirms publisherConfirms =
+                new PublisherConfirms(aMaximumUnconfirmed, aTimeout);
+
+        try {
+            // a pooled channel may already be in confirm mode,
+            // which is when it has a publish sequence number
+            if (this.brokerChannel().channel().getNextPublishSeqNo() == 0) {
+                this.brokerChannel().channel().confirmSelect();
+            }
+
+        } catch (IOException e) {
+            throw new MessageException("Failed to put channel in confirm mode.", e);
+        }
+
+        this.brokerChannel().channel().addConfirmListener(publisherConfirms);
+
+        this.setPublisherConfirms(publisherConfirms);
+
+        return this;
+    }
+
     /**
      * Answers the receiver after sending aTextMessage to my channel.
      * This is a producer ignorance way to use either an exchange or
@@ -57,7 +116,7 @@ public class MessageProducer {
      */
     public MessageProducer send(String aTextMessage) {
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     this.brokerChannel().exchangeName(),
                     this.brokerChannel().queueName(),
                     this.textDurability(),
@@ -86,7 +145,7 @@ public class MessageProducer {
         this.check(aMessageParameters);
 
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     this.brokerChannel().exchangeName(),
                     this.brokerChannel().queueName(),
                     aMessageParameters.properties(),
@@ -116,7 +175,7 @@ public class MessageProducer {
         this.check(aMessageParameters);
 
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     this.brokerChannel().exchangeName(),
                     aRoutingKey,
                     aMessageParameters.properties(),
@@ -147,7 +206,7 @@ public class MessageProducer {
         this.check(aMessageParameters);
 
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     anExchange,
                     aRoutingKey,
                     aMessageParameters.properties(),
@@ -169,7 +228,7 @@ public class MessageProducer {
      */
     public MessageProducer send(byte[] aBinaryMessage) {
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     this.brokerChannel().exchangeName(),
                     this.brokerChannel().queueName(),
                     this.binaryDurability(),
@@ -197,7 +256,7 @@ public class MessageProducer {
         this.check(aMessageParameters);
 
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     this.brokerChannel().exchangeName(),
                     this.brokerChannel().queueName(),
                     this.binaryDurability(),
@@ -227,7 +286,7 @@ public class MessageProducer {
         this.check(aMessageParameters);
 
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     this.brokerChannel().exchangeName(),
                     aRoutingKey,
                     this.binaryDurability(),
@@ -258,7 +317,7 @@ public class MessageProducer {
         this.check(aMessageParameters);
 
         try {
-            this.brokerChannel().channel().basicPublish(
+            this.publish(
                     anExchange,
                     aRoutingKey,
                     this.binaryDurability(),
@@ -295,6 +354,54 @@ public class MessageProducer {
         this.brokerChannel = aBrokerChannel;
     }
 
+    /**
+     * Answers my publisherConfirms.
+     * @return PublisherConfirms
+     */
+    private PublisherConfirms publisherConfirms() {
+        return this.publisherConfirms;
+    }
+
+    /**
+     * Sets my publisherConfirms.
+     * @param aPublisherConfirms the PublisherConfirms to set as my publisherConfirms
+     */
+    private void setPublisherConfirms(PublisherConfirms aPublisherConfirms) {
+        this.publisherConfirms = aPublisherConfirms;
+    }
+
+    /**
+     * Publishes aBody on my channel, tracking it for confirm if in
+     * confirm mode, which first waits for room in the confirm window.
+     * @param anExchange the String name of the exchange
+     * @param aRoutingKey the String routing key
+     * @param aProperties the BasicProperties of the message
+     * @param aBody the byte[] body of the message
+     * @throws IOException when the message cannot be published
+     */
+    private void publish(
+            String anExchange,
+            String aRoutingKey,
+            BasicProperties aProperties,
+            byte[] aBody)
+    throws IOException {
+
+        Channel channel = this.brokerChannel().channel();
+
+        if (this.publisherConfirms() == null) {
+            channel.basicPublish(anExchange, aRoutingKey, aProperties, aBody);
+        } else {
+            this.publisherConfirms().awaitWindow();
+
+            // registered first, since the confirm may arrive
+            // before basicPublish() even returns
+
+            this.publisherConfirms().sent(channel.getNextPublishSeqNo());
+
+            channel.basicPublish(anExchange, aRoutingKey, aProperties, aBody);
+        }
+    }
+
     /**
      * Checks aMessageParameters for validity.
      * @param aMessageParameters the MessageParameters to check
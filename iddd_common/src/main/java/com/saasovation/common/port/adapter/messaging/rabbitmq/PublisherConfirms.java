@@ -0,0 +1,208 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.messaging.rabbitmq;
+
+import java.util.SortedSet;
+import java.util.TreeSet;
+
+import com.rabbitmq.client.ConfirmListener;
+import com.saasovation.common.port.adapter.messaging.MessageException;
+
+/**
+ * I track the messages sent on a channel in confirm mode until
+ * the broker confirms them, bounding how many may be unconfirmed
+ * at once. Confirms arrive asynchronously on the connection's
+ * thread, so senders only wait when my window is full.
+ *
+ * @author Vaughn Vernon
+ */
+class PublisherConfirms implements ConfirmListener {
+
+    /** My firstSequenceNumber, which is that of my first sent message, or -1. */
+    private long firstSequenceNumber;
+
+    /** My maximumUnconfirmed, which is the size of my window. */
+    private int maximumUnconfirmed;
+
+    /** My nackedSequenceNumbers, which the broker failed to accept. */
+    private SortedSet<Long> nackedSequenceNumbers;
+
+    /** My nextSequenceNumber, which follows that of my last sent message. */
+    private long nextSequenceNumber;
+
+    /** My timeout, which is the milliseconds to wait for confirms. */
+    private long timeout;
+
+    /** My unconfirmedSequenceNumbers, which await the broker's confirm. */
+    private SortedSet<Long> unconfirmedSequenceNumbers;
+
+    /**
+     * Constructs my default state.
+     * @param aMaximumUnconfirmed the int maximum number of unconfirmed messages
+     * @param aTimeout the long milliseconds to wait for confirms
+     */
+    PublisherConfirms(int aMaximumUnconfirmed, long aTimeout) {
+        super();
+
+        if (aMaximumUnconfirmed <= 0) {
+            throw new IllegalArgumentException("The maximum unconfirmed messages must be greater than zero.");
+        }
+
+        if (aTimeout <= 0) {
+            throw new IllegalArgumentException("The confirm timeout must be greater than zero.");
+        }
+
+        this.firstSequenceNumber = -1;
+        this.maximumUnconfirmed = aMaximumUnconfirmed;
+        this.nackedSequenceNumbers = new TreeSet<Long>();
+        this.timeout = aTimeout;
+        this.unconfirmedSequenceNumbers = new TreeSet<Long>();
+    }
+
+    /**
+     * @see com.rabbitmq.client.ConfirmListener#handleAck(long, boolean)
+     */
+    @Override
+    public synchronized void handleAck(long aDeliveryTag, boolean isMultiple) {
+        this.confirm(aDeliveryTag, isMultiple);
+    }
+
+    /**
+     * @see com.rabbitmq.client.ConfirmListener#handleNack(long, boolean)
+     */
+    @Override
+    public synchronized void handleNack(long aDeliveryTag, boolean isMultiple) {
+        this.nackedSequenceNumbers.addAll(this.confirm(aDeliveryTag, isMultiple));
+    }
+
+    /**
+     * Waits until my window has room for another message.
+     */
+    synchronized void awaitWindow() {
+        long deadline = System.currentTimeMillis() + this.timeout;
+
+        while (this.unconfirmedSequenceNumbers.size() >= this.maximumUnconfirmed) {
+            if (!this.waitUntil(deadline)) {
+                throw new MessageException(
+                        "Failed to send message because: "
+                        + this.unconfirmedSequenceNumbers.size()
+                        + " messages were not confirmed within "
+                        + this.timeout
+                        + " ms.");
+            }
+        }
+    }
+
+    /**
+     * Answers the number of my sent messages, from the first, that the
+     * broker confirmed without a gap, after waiting for all outstanding
+     * confirms. Messages following a nack or a missing confirm are not
+     * counted, because they cannot be considered sent.
+     * @return int
+     */
+    synchronized int confirmedCount() {
+        long deadline = System.currentTimeMillis() + this.timeout;
+
+        while (!this.unconfirmedSequenceNumbers.isEmpty() && this.waitUntil(deadline)) {
+            // keep waiting
+        }
+
+        int confirmedCount = 0;
+
+        if (this.firstSequenceNumber >= 0) {
+            long endSequenceNumber = this.nextSequenceNumber;
+
+            if (!this.unconfirmedSequenceNumbers.isEmpty()) {
+                endSequenceNumber = Math.min(endSequenceNumber, this.unconfirmedSequenceNumbers.first());
+            }
+
+            if (!this.nackedSequenceNumbers.isEmpty()) {
+                endSequenceNumber = Math.min(endSequenceNumber, this.nackedSequenceNumbers.first());
+            }
+
+            confirmedCount = (int) (endSequenceNumber - this.firstSequenceNumber);
+        }
+
+        return confirmedCount;
+    }
+
+    /**
+     * Registers the message just sent with aSequenceNumber as unconfirmed.
+     * @param aSequenceNumber the long publish sequence number of the message
+     */
+    synchronized void sent(long aSequenceNumber) {
+        if (this.firstSequenceNumber < 0) {
+            this.firstSequenceNumber = aSequenceNumber;
+        }
+
+        this.nextSequenceNumber = aSequenceNumber + 1;
+
+        this.unconfirmedSequenceNumbers.add(aSequenceNumber);
+    }
+
+    /**
+     * Answers the sequence numbers confirmed by aDeliveryTag, which are
+     * no longer unconfirmed.
+     * @param aDeliveryTag the long delivery tag of the confirm
+     * @param isMultiple the boolean indicating whether all earlier tags are confirmed
+     * @return SortedSet<Long>
+     */
+    private SortedSet<Long> confirm(long aDeliveryTag, boolean isMultiple) {
+        SortedSet<Long> confirmed = new TreeSet<Long>();
+
+        // a pooled channel may confirm messages sent before I
+        // was listening, which are simply not among mine
+
+        if (isMultiple) {
+            SortedSet<Long> confirmedHead =
+                    this.unconfirmedSequenceNumbers.headSet(aDeliveryTag + 1);
+
+            confirmed.addAll(confirmedHead);
+
+            confirmedHead.clear();
+
+        } else if (this.unconfirmedSequenceNumbers.remove(aDeliveryTag)) {
+            confirmed.add(aDeliveryTag);
+        }
+
+        this.notifyAll();
+
+        return confirmed;
+    }
+
+    /**
+     * Answers whether or not I waited for a confirm before aDeadline.
+     * @param aDeadline the long time in milliseconds to wait until
+     * @return boolean
+     */
+    private boolean waitUntil(long aDeadline) {
+        long remaining = aDeadline - System.currentTimeMillis();
+
+        if (remaining <= 0) {
+            return false;
+        }
+
+        try {
+            this.wait(remaining);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+
+            return false;
+        }
+
+        return true;
+    }
+}
@@ -17,7 +17,6 @@ package com.saasovation.common.port.adapter.notification;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.event.EventStore;
 import com.saasovation.common.event.StoredEvent;
 import com.saasovation.common.notification.Notification;
@@ -25,15 +24,22 @@ import com.saasovation.common.notification.NotificationPublisher;
 import com.saasovation.common.notification.NotificationSerializer;
 import com.saasovation.common.notification.PublishedNotificationTracker;
 import com.saasovation.common.notification.PublishedNotificationTrackerStore;
-import com.saasovation.common.port.adapter.messaging.rabbitmq.ConnectionSettings;
+import com.saasovation.common.port.adapter.messaging.MessageException;
+import com.saasovation.common.port.adapter.messaging.rabbitmq.ChannelPool;
 import com.saasovation.common.port.adapter.messaging.rabbitmq.Exchange;
 import com.saasovation.common.port.adapter.messaging.rabbitmq.MessageParameters;
 import com.saasovation.common.port.adapter.messaging.rabbitmq.MessageProducer;
 
 public class RabbitMQNotificationPublisher implements NotificationPublisher {
 
+    // the defaults, unless configured per deployment
+    private static final long CONFIRM_TIMEOUT = 5000L;
+    private static final int MAXIMUM_UNCONFIRMED_NOTIFICATIONS = 256;
+
+    private long confirmTimeout;
     private EventStore eventStore;
     private String exchangeName;
+    private int maximumUnconfirmedNotifications;
 
     private PublishedNotificationTrackerStore publishedNotificationTrackerStore;
 
@@ -42,10 +48,26 @@ public class RabbitMQNotificationPublisher implements NotificationPublisher {
             PublishedNotificationTrackerStore aPublishedNotificationTrackerStore,
             Object aMessagingLocator) {
 
+        this(anEventStore,
+             aPublishedNotificationTrackerStore,
+             aMessagingLocator,
+             MAXIMUM_UNCONFIRMED_NOTIFICATIONS,
+             CONFIRM_TIMEOUT);
+    }
+
+    public RabbitMQNotificationPublisher(
+            EventStore anEventStore,
+            PublishedNotificationTrackerStore aPublishedNotificationTrackerStore,
+            Object aMessagingLocator,
+            int aMaximumUnconfirmedNotifications,
+            long aConfirmTimeout) {
+
         super();
 
+        this.setConfirmTimeout(aConfirmTimeout);
         this.setEventStore(anEventStore);
         this.setExchangeName((String) aMessagingLocator);
+        this.setMaximumUnconfirmedNotifications(aMaximumUnconfirmedNotifications);
         this.setPublishedNotificationTrackerStore(aPublishedNotificationTrackerStore);
     }
 
@@ -61,14 +83,44 @@ public class RabbitMQNotificationPublisher implements NotificationPublisher {
         MessageProducer messageProducer = this.messageProducer();
 
         try {
-            for (Notification notification : notifications) {
-                this.publish(notification, messageProducer);
+            messageProducer.confirmed(
+                    this.maximumUnconfirmedNotifications(),
+                    this.confirmTimeout());
+
+            MessageException sendFailure = null;
+
+            try {
+                for (Notification notification : notifications) {
+                    this.publish(notification, messageProducer);
+                }
+            } catch (MessageException e) {
+                sendFailure = e;
             }
 
+            // only notifications the broker confirmed, without a gap,
+            // are tracked as published; the others are sent again
+
+            int confirmedCount = messageProducer.confirmedMessageCount();
+
             this.publishedNotificationTrackerStore()
                 .trackMostRecentPublishedNotification(
                     publishedNotificationTracker,
-                    notifications);
+                    notifications.subList(0, confirmedCount));
+
+            // not rethrown, since the caller's transaction would
+            // then roll back the tracking of the confirmed ones;
+            // the rest are published again on the next attempt
+
+            if (sendFailure != null) {
+                System.out.println(
+                        "Published only: "
+                        + confirmedCount
+                        + " of: "
+                        + notifications.size()
+                        + " notifications because: "
+                        + sendFailure.getMessage());
+            }
+
         } finally {
             messageProducer.close();
         }
@@ -79,6 +131,14 @@ public class RabbitMQNotificationPublisher implements NotificationPublisher {
         throw new UnsupportedOperationException("Not supported by production implementation.");
     }
 
+    private long confirmTimeout() {
+        return this.confirmTimeout;
+    }
+
+    private void setConfirmTimeout(long aConfirmTimeout) {
+        this.confirmTimeout = aConfirmTimeout;
+    }
+
     private EventStore eventStore() {
         return this.eventStore;
     }
@@ -106,12 +166,21 @@ public class RabbitMQNotificationPublisher implements NotificationPublisher {
         return notifications;
     }
 
+    private int maximumUnconfirmedNotifications() {
+        return this.maximumUnconfirmedNotifications;
+    }
+
+    private void setMaximumUnconfirmedNotifications(int aMaximumUnconfirmedNotifications) {
+        this.maximumUnconfirmedNotifications = aMaximumUnconfirmedNotifications;
+    }
+
     private MessageProducer messageProducer() {
 
-        // creates my exchange if non-existing
+        // creates my exchange if non-existing, on a long-lived
+        // channel that closing the producer returns to the pool
         Exchange exchange =
             Exchange.fanOutInstance(
-                    ConnectionSettings.instance(),
+                    ChannelPool.instance(),
                     this.exchangeName(),
                     true);
 
@@ -126,12 +195,7 @@ public class RabbitMQNotificationPublisher implements NotificationPublisher {
             new ArrayList<Notification>(aStoredEvents.size());
 
         for (StoredEvent storedEvent : aStoredEvents) {
-            DomainEvent domainEvent = storedEvent.toDomainEvent();
-
-            Notification notification =
-                new Notification(storedEvent.eventId(), domainEvent);
-
-            notifications.add(notification);
+            notifications.add(new Notification(storedEvent));
         }
 
         return notifications;
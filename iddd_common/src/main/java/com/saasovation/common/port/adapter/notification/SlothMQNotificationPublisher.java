@@ -17,7 +17,6 @@ package com.saasovation.common.port.adapter.notification;
 import java.util.ArrayList;
 import java.util.List;
 
-import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.event.EventStore;
 import com.saasovation.common.event.StoredEvent;
 import com.saasovation.common.notification.Notification;
@@ -115,12 +114,7 @@ public class SlothMQNotificationPublisher implements NotificationPublisher {
             new ArrayList<Notification>(aStoredEvents.size());
 
         for (StoredEvent storedEvent : aStoredEvents) {
-            DomainEvent domainEvent = storedEvent.toDomainEvent();
-
-            Notification notification =
-                new Notification(storedEvent.eventId(), domainEvent);
-
-            notifications.add(notification);
+            notifications.add(new Notification(storedEvent));
         }
 
         return notifications;
@@ -14,14 +14,19 @@
 
 package com.saasovation.common.port.adapter.persistence;
 
-import java.lang.reflect.InvocationTargetException;
-import java.lang.reflect.Method;
 import java.sql.PreparedStatement;
 import java.sql.ResultSet;
-import java.util.HashMap;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
-import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.domain.model.DomainEventDispatchTable;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventDispatcher;
 
@@ -29,18 +34,156 @@ public abstract class AbstractProjection implements EventDispatcher {
 
     private static final String PROJECTION_METHOD_NAME = "when";
 
-    private static Map<String, Method> projectionMethods =
-            new HashMap<String, Method>();
+    private static DomainEventDispatchTable projectionMethods =
+            new DomainEventDispatchTable(PROJECTION_METHOD_NAME);
+
+    private ThreadLocal<List<Runnable>> batchCommittedActions;
+    private ThreadLocal<Set<String>> batchEvictedCacheTags;
+    private ThreadLocal<ProjectionBatch> projectionBatch;
+    private Pattern projectedTableNamePattern;
+    private ThreadLocal<String> projectedTableSuffix;
+    private QueryCache queryCache;
 
     protected AbstractProjection() {
         super();
+
+        this.batchCommittedActions = new ThreadLocal<List<Runnable>>();
+        this.batchEvictedCacheTags = new ThreadLocal<Set<String>>();
+        this.projectionBatch = new ThreadLocal<ProjectionBatch>();
+        this.projectedTableSuffix = new ThreadLocal<String>();
+    }
+
+    protected AbstractProjection(QueryCache aQueryCache) {
+        this();
+
+        this.queryCache = aQueryCache;
+    }
+
+    public void abandonBatch() {
+        ProjectionBatch batch = this.projectionBatch.get();
+
+        if (batch != null) {
+            this.projectionBatch.remove();
+
+            batch.close();
+        }
+
+        // actions of a batch that was never committed are
+        // discarded along with its rows
+
+        this.batchCommittedActions.remove();
+
+        Set<String> evictedCacheTags = this.batchEvictedCacheTags.get();
+
+        if (evictedCacheTags != null) {
+            this.batchEvictedCacheTags.remove();
+
+            // the batch has now been committed or rolled back, so
+            // evict again what a reader may have cached in between
+
+            if (!evictedCacheTags.isEmpty()) {
+                this.queryCache.evict(evictedCacheTags.toArray(new String[evictedCacheTags.size()]));
+            }
+        }
+    }
+
+    public void batchCommitted() {
+        List<Runnable> committedActions = this.batchCommittedActions.get();
+
+        if (committedActions != null) {
+            this.batchCommittedActions.remove();
+
+            for (Runnable committedAction : committedActions) {
+                committedAction.run();
+            }
+        }
+    }
+
+    public void beginBatch() {
+
+        // until the batch ends, my statements are prepared once
+        // per SQL string and each keeps its own JDBC batch; the
+        // pending batches are executed in the order first used,
+        // and early only before a read or when a row would
+        // otherwise overtake rows written to the same tables
+
+        this.abandonBatch();
+
+        this.projectionBatch.set(new ProjectionBatch());
+
+        this.batchCommittedActions.set(new ArrayList<Runnable>());
+
+        if (this.queryCache != null) {
+            this.batchEvictedCacheTags.set(new HashSet<String>());
+        }
+    }
+
+    public void endBatch() throws SQLException {
+        ProjectionBatch batch = this.projectionBatch.get();
+
+        if (batch != null) {
+            this.projectionBatch.remove();
+
+            batch.end();
+        }
+    }
+
+    public void evictAllCachedQueries() {
+        if (this.queryCache != null) {
+            this.queryCache.evictAll();
+        }
+    }
+
+    public abstract String[] projectedTableNames();
+
+    public void projectIntoTablesSuffixedWith(String aTableSuffix) {
+
+        // a rebuild projects on its own thread into shadow
+        // tables while the live tables continue to be
+        // projected by other threads
+
+        this.projectedTableSuffix.set(aTableSuffix);
+    }
+
+    public String projectionName() {
+        return this.getClass().getSimpleName();
+    }
+
+    public void projectedTablesSwapped() {
+
+        // the live tables were replaced by rebuilt ones, so
+        // whatever was derived from the previous ones is stale
+
+        this.evictAllCachedQueries();
     }
 
     protected void execute(PreparedStatement aStatement) throws Exception {
-        try {
-            aStatement.executeUpdate();
-        } finally {
-            aStatement.close();
+        ProjectionBatch batch = this.projectionBatch.get();
+
+        if (batch != null) {
+            batch.add(aStatement);
+        } else {
+            try {
+                aStatement.executeUpdate();
+            } finally {
+                aStatement.close();
+            }
+        }
+    }
+
+    protected void evictCachedQueries(String... aCacheTags) {
+        if (this.queryCache == null) {
+            return;
+        }
+
+        this.queryCache.evict(aCacheTags);
+
+        Set<String> evictedCacheTags = this.batchEvictedCacheTags.get();
+
+        if (evictedCacheTags != null) {
+            for (String cacheTag : aCacheTags) {
+                evictedCacheTags.add(cacheTag);
+            }
         }
     }
 
@@ -51,10 +194,16 @@ public abstract class AbstractProjection implements EventDispatcher {
         ResultSet result = null;
 
         try {
+            ProjectionBatch batch = this.projectionBatch.get();
+
+            if (batch != null) {
+                batch.executePending();
+            }
+
             statement =
                 ConnectionProvider
                     .connection()
-                    .prepareStatement(aQuery);
+                    .prepareStatement(this.projectedSql(aQuery));
 
             for (int idx = 0; idx < anArguments.length; ++idx) {
                 statement.setString(idx+1, anArguments[idx]);
@@ -87,62 +236,33 @@ public abstract class AbstractProjection implements EventDispatcher {
         return exists;
     }
 
-    protected void projectWhen(DispatchableDomainEvent aDispatchableDomainEvent) {
-
-        if (!this.understands(aDispatchableDomainEvent)) {
-            return;
-        }
-
-//        System.out.println("Dispatching: " + aDispatchableDomainEvent.domainEvent().getClass().getSimpleName());
+    protected PreparedStatement prepareStatement(String aSql) throws SQLException {
+        String sql = this.projectedSql(aSql);
 
-        DomainEvent domainEvent = aDispatchableDomainEvent.domainEvent();
+        ProjectionBatch batch = this.projectionBatch.get();
 
-        Class<? extends AbstractProjection> rootType = this.getClass();
+        if (batch != null) {
+            return batch.statementFor(sql, this.projectedTableNamesIn(aSql));
+        }
 
-        Class<? extends DomainEvent> eventType = domainEvent.getClass();
+        return ConnectionProvider
+                    .connection()
+                    .prepareStatement(sql);
+    }
 
-        String key = rootType.getName() + ":" + eventType.getName();
+    protected boolean isProjectingIntoSuffixedTables() {
+        return this.projectedTableSuffix.get() != null;
+    }
 
-        Method mutatorMethod = projectionMethods.get(key);
+    protected void projectWhen(DispatchableDomainEvent aDispatchableDomainEvent) {
 
-        if (mutatorMethod == null) {
-            mutatorMethod = this.cacheProjectionMethodFor(key, rootType, eventType);
+        if (!this.understands(aDispatchableDomainEvent)) {
+            return;
         }
 
-        try {
-            mutatorMethod.invoke(this, domainEvent);
-
-        } catch (InvocationTargetException e) {
-            if (e.getCause() != null) {
-                throw new RuntimeException(
-                        "Method "
-                                + PROJECTION_METHOD_NAME
-                                + "("
-                                + eventType.getSimpleName()
-                                + ") failed. See cause: "
-                                + e.getMessage(),
-                        e.getCause());
-            }
-
-            throw new RuntimeException(
-                    "Method "
-                            + PROJECTION_METHOD_NAME
-                            + "("
-                            + eventType.getSimpleName()
-                            + ") failed. See cause: "
-                            + e.getMessage(),
-                    e);
-
-        } catch (IllegalAccessException e) {
-            throw new RuntimeException(
-                    "Method "
-                            + PROJECTION_METHOD_NAME
-                            + "("
-                            + eventType.getSimpleName()
-                            + ") failed because of illegal access. See cause: "
-                            + e.getMessage(),
-                    e);
-        }
+//        System.out.println("Dispatching: " + aDispatchableDomainEvent.domainEvent().getClass().getSimpleName());
+
+        projectionMethods.dispatch(this, aDispatchableDomainEvent.domainEvent());
     }
 
     protected boolean understandsAnyOf(
@@ -160,58 +280,222 @@ public abstract class AbstractProjection implements EventDispatcher {
         return false;
     }
 
-    private Method cacheProjectionMethodFor(
-            String aKey,
-            Class<? extends AbstractProjection> aRootType,
-            Class<? extends DomainEvent> anEventType) {
+    protected void whenCommitted(Runnable anAction) {
 
-        synchronized (projectionMethods) {
-            try {
-                Method method = this.hiddenOrPublicMethod(aRootType, anEventType);
+        // state kept outside the database, such as an in-memory
+        // index, must not be changed before the rows it reflects
+        // are visible to readers, so within a batch the action
+        // is deferred until the batch has been committed
+
+        List<Runnable> committedActions = this.batchCommittedActions.get();
+
+        if (committedActions != null) {
+            committedActions.add(anAction);
+        } else {
+            anAction.run();
+        }
+    }
+
+    private String projectedSql(String aSql) {
+        String tableSuffix = this.projectedTableSuffix.get();
+
+        if (tableSuffix == null) {
+            return aSql;
+        }
+
+        Matcher matcher = this.projectedTableNamePattern().matcher(aSql);
+
+        StringBuffer projectedSql = new StringBuffer(aSql.length() + 32);
 
-                method.setAccessible(true);
+        while (matcher.find()) {
+            matcher.appendReplacement(
+                    projectedSql,
+                    Matcher.quoteReplacement(matcher.group() + tableSuffix));
+        }
+
+        matcher.appendTail(projectedSql);
+
+        return projectedSql.toString();
+    }
+
+    private Pattern projectedTableNamePattern() {
+        if (this.projectedTableNamePattern == null) {
+            StringBuilder regex = new StringBuilder("\\b(");
 
-                projectionMethods.put(aKey, method);
+            String[] tableNames = this.projectedTableNames();
 
-                return method;
+            for (int idx = 0; idx < tableNames.length; ++idx) {
+                if (idx > 0) {
+                    regex.append('|');
+                }
+
+                regex.append(Pattern.quote(tableNames[idx]));
+            }
+
+            regex.append(")\\b");
+
+            this.projectedTableNamePattern = Pattern.compile(regex.toString());
+        }
 
+        return this.projectedTableNamePattern;
+    }
+
+    private Set<String> projectedTableNamesIn(String aSql) {
+        Set<String> tableNames = new HashSet<String>();
+
+        Matcher matcher = this.projectedTableNamePattern().matcher(aSql);
+
+        while (matcher.find()) {
+            tableNames.add(matcher.group());
+        }
+
+        return tableNames;
+    }
+
+    private static class BatchedStatement {
+
+        private boolean pending;
+        private PreparedStatement statement;
+        private Set<String> tableNames;
+
+        BatchedStatement(PreparedStatement aStatement, Set<String> aTableNames) {
+            super();
+
+            this.statement = aStatement;
+            this.tableNames = aTableNames;
+        }
+
+        void add() throws SQLException {
+            this.statement.addBatch();
+
+            this.pending = true;
+        }
+
+        void close() {
+            try {
+                this.statement.close();
             } catch (Exception e) {
-                throw new IllegalArgumentException(
-                        "I do not understand "
-                                + PROJECTION_METHOD_NAME
-                                + "("
-                                + anEventType.getSimpleName()
-                                + ") because: "
-                                + e.getClass().getSimpleName() + ">>>" + e.getMessage(),
-                        e);
+                // ignore
             }
         }
+
+        boolean conflictsWith(BatchedStatement aBatchedStatement) {
+            for (String tableName : aBatchedStatement.tableNames) {
+                if (this.tableNames.contains(tableName)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        void executePending() throws SQLException {
+            if (this.pending) {
+                this.pending = false;
+
+                this.statement.executeBatch();
+            }
+        }
+
+        boolean isPending() {
+            return this.pending;
+        }
+
+        PreparedStatement statement() {
+            return this.statement;
+        }
     }
 
-    private Method hiddenOrPublicMethod(
-            Class<? extends AbstractProjection> aRootType,
-            Class<? extends DomainEvent> anEventType)
-    throws Exception {
+    private static class ProjectionBatch {
 
-        Method method = null;
+        private Map<String, BatchedStatement> statements;
 
-        try {
+        ProjectionBatch() {
+            super();
+
+            this.statements = new LinkedHashMap<String, BatchedStatement>();
+        }
+
+        void add(PreparedStatement aStatement) throws SQLException {
+            for (BatchedStatement batchedStatement : this.statements.values()) {
+                if (batchedStatement.statement() == aStatement) {
+                    batchedStatement.add();
+
+                    return;
+                }
+            }
+
+            throw new IllegalStateException("Cannot batch statement because: it was not prepared by the batch.");
+        }
+
+        void close() {
+            for (BatchedStatement batchedStatement : this.statements.values()) {
+                batchedStatement.close();
+            }
+
+            this.statements.clear();
+        }
 
-            // assume protected or private...
+        void end() throws SQLException {
+            try {
+                this.executePending();
+            } finally {
+                this.close();
+            }
+        }
 
-            method = aRootType.getDeclaredMethod(
-                    PROJECTION_METHOD_NAME,
-                    anEventType);
+        void executePending() throws SQLException {
+            for (BatchedStatement batchedStatement : this.statements.values()) {
+                batchedStatement.executePending();
+            }
+        }
 
-        } catch (Exception e) {
+        PreparedStatement statementFor(String aSql, Set<String> aTableNames) throws SQLException {
+            if (this.isQuery(aSql)) {
+                this.executePending();
 
-            // then public...
+                return ConnectionProvider.connection().prepareStatement(aSql);
+            }
+
+            BatchedStatement batchedStatement = this.statements.get(aSql);
+
+            if (batchedStatement == null) {
+                batchedStatement =
+                        new BatchedStatement(
+                                ConnectionProvider.connection().prepareStatement(aSql),
+                                aTableNames);
 
-            method = aRootType.getMethod(
-                    PROJECTION_METHOD_NAME,
-                    anEventType);
+                this.statements.put(aSql, batchedStatement);
+
+            } else if (this.isOvertakenBy(batchedStatement)) {
+                this.executePending();
+            }
+
+            return batchedStatement.statement();
+        }
+
+        private boolean isOvertakenBy(BatchedStatement aBatchedStatement) {
+
+            // pending batches execute in the order their statements
+            // were first used, so a row added to an earlier statement
+            // would overtake the rows of a later one; that is harmless
+            // unless both write the same tables
+
+            boolean later = false;
+
+            for (BatchedStatement batchedStatement : this.statements.values()) {
+                if (batchedStatement == aBatchedStatement) {
+                    later = true;
+                } else if (later && batchedStatement.isPending() && batchedStatement.conflictsWith(aBatchedStatement)) {
+                    return true;
+                }
+            }
+
+            return false;
         }
 
-        return method;
+        private boolean isQuery(String aSql) {
+            return aSql.trim().toLowerCase().startsWith("select");
+        }
     }
 }
@@ -19,8 +19,10 @@ import java.sql.PreparedStatement;
 import java.sql.ResultSet;
 import java.sql.SQLException;
 import java.sql.Statement;
+import java.sql.Timestamp;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.Date;
 import java.util.List;
 
@@ -29,6 +31,7 @@ import javax.sql.DataSource;
 public abstract class AbstractQueryService {
 
     private DataSource dataSource;
+    private QueryCache queryCache;
 
     protected AbstractQueryService(DataSource aDataSource) {
         super();
@@ -36,6 +39,95 @@ public abstract class AbstractQueryService {
         this.dataSource = aDataSource;
     }
 
+    protected AbstractQueryService(DataSource aDataSource, QueryCache aQueryCache) {
+        super();
+
+        this.dataSource = aDataSource;
+        this.queryCache = aQueryCache;
+    }
+
+    protected <T> T cachedQueryObject(
+            String aCacheTag,
+            Class<T> aClass,
+            String aQuery,
+            JoinOn aJoinOn,
+            Object... anArguments) {
+
+        if (this.queryCache() == null) {
+            return this.queryObject(aClass, aQuery, aJoinOn, anArguments);
+        }
+
+        String key = this.cacheKeyOf(aClass, aQuery, anArguments);
+
+        @SuppressWarnings("unchecked")
+        T object = (T) this.queryCache().cachedResultOf(key);
+
+        if (object == null) {
+            long evictions = this.queryCache().evictions();
+
+            object = this.queryObject(aClass, aQuery, aJoinOn, anArguments);
+
+            this.queryCache().cacheResult(key, aCacheTag, object, evictions);
+        }
+
+        return object;
+    }
+
+    protected <T> Collection<T> cachedQueryObjects(
+            String aCacheTag,
+            Class<T> aClass,
+            String aQuery,
+            JoinOn aJoinOn,
+            Object... anArguments) {
+
+        if (this.queryCache() == null) {
+            return this.queryObjects(aClass, aQuery, aJoinOn, anArguments);
+        }
+
+        String key = this.cacheKeyOf(aClass, aQuery, anArguments);
+
+        @SuppressWarnings("unchecked")
+        Collection<T> objects = (Collection<T>) this.queryCache().cachedResultOf(key);
+
+        if (objects == null) {
+            long evictions = this.queryCache().evictions();
+
+            // the cached collection is shared by all readers
+
+            objects =
+                    Collections.unmodifiableCollection(
+                            this.queryObjects(aClass, aQuery, aJoinOn, anArguments));
+
+            this.queryCache().cacheResult(key, aCacheTag, objects, evictions);
+        }
+
+        return objects;
+    }
+
+    protected String cachedQueryString(
+            String aCacheTag,
+            String aQuery,
+            String... anArguments) {
+
+        if (this.queryCache() == null) {
+            return this.queryString(aQuery, anArguments);
+        }
+
+        String key = this.cacheKeyOf(String.class, aQuery, anArguments);
+
+        String value = (String) this.queryCache().cachedResultOf(key);
+
+        if (value == null) {
+            long evictions = this.queryCache().evictions();
+
+            value = this.queryString(aQuery, anArguments);
+
+            this.queryCache().cacheResult(key, aCacheTag, value, evictions);
+        }
+
+        return value;
+    }
+
     protected void close(Statement aStatement, ResultSet aResult) {
         if (aStatement != null) {
             try {
@@ -59,7 +151,7 @@ public abstract class AbstractQueryService {
             Class<T> aClass,
             String aQuery,
             JoinOn aJoinOn,
-            String... anArguments) {
+            Object... anArguments) {
 
         T object = null;
 
@@ -106,8 +198,11 @@ public abstract class AbstractQueryService {
 
             result = selectStatement.executeQuery();
 
+            ResultSetObjectMapper<T> mapper =
+                    new ResultSetObjectMapper<T>(result, aClass, aJoinOn);
+
             while (result.next()) {
-                T object = this.mapResultToType(result, aClass, aJoinOn);
+                T object = mapper.mapResultToType();
 
                 objects.add(object);
             }
@@ -151,6 +246,24 @@ public abstract class AbstractQueryService {
         return value;
     }
 
+    private String cacheKeyOf(Class<?> aResultType, String aQuery, Object[] anArguments) {
+        StringBuilder key = new StringBuilder(aQuery.length() + 64);
+
+        key.append(aResultType.getName()).append('\n').append(aQuery);
+
+        for (Object argument : anArguments) {
+            key.append('\n');
+
+            if (argument instanceof Date) {
+                key.append(((Date) argument).getTime());
+            } else {
+                key.append(argument);
+            }
+        }
+
+        return key.toString();
+    }
+
     private <T> T mapResultToType(ResultSet aResultSet, Class<T> aClass, JoinOn aJoinOn) {
         ResultSetObjectMapper<T> mapper =
                 new ResultSetObjectMapper<T>(aResultSet, aClass, aJoinOn);
@@ -158,6 +271,10 @@ public abstract class AbstractQueryService {
         return mapper.mapResultToType();
     }
 
+    private QueryCache queryCache() {
+        return this.queryCache;
+    }
+
     private void setStatementArguments(
             PreparedStatement aPreparedStatement,
             Object[] anArguments)
@@ -175,6 +292,8 @@ public abstract class AbstractQueryService {
                 aPreparedStatement.setLong(idx+1, (Long) argument);
             } else if (argumentType == Boolean.class) {
                 aPreparedStatement.setBoolean(idx+1, (Boolean) argument);
+            } else if (argumentType == Timestamp.class) {
+                aPreparedStatement.setTimestamp(idx+1, (Timestamp) argument);
             } else if (argumentType == Date.class) {
                 java.sql.Date sqlDate = new java.sql.Date(((Date) argument).getTime());
                 aPreparedStatement.setDate(idx+1, sqlDate);
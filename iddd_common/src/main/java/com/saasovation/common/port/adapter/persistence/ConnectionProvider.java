@@ -72,4 +72,20 @@ public class ConnectionProvider {
 
         return connection;
     }
+
+    public static void resumeConnection(Connection aSuspendedConnection) {
+        connectionHolder.set(aSuspendedConnection);
+    }
+
+    public static Connection suspendConnection() {
+
+        // the current connection, if any, is set aside so that
+        // nested work may use and close its own connection
+
+        Connection connection = connection();
+
+        connectionHolder.set(null);
+
+        return connection;
+    }
 }
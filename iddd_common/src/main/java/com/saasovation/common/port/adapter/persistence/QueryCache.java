@@ -0,0 +1,208 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+
+import com.saasovation.common.AssertionConcern;
+
+/**
+ * I am a bounded, least-recently-used cache of query results. Each
+ * result is cached under its query and arguments, and is tagged with
+ * the part of the view it was read from, such as a single forum of a
+ * tenant. The projections that write the view evict by those tags.
+ */
+public class QueryCache extends AssertionConcern {
+
+    private static final String TAG_SEPARATOR = ":";
+
+    private Map<String, CachedResult> cachedResults;
+    private long evictions;
+    private long hits;
+    private int maximumSize;
+    private long misses;
+    private Map<String, Set<String>> taggedKeys;
+
+    public static String tagOf(String aViewName, String... aKeyParts) {
+        StringBuilder tag = new StringBuilder(aViewName);
+
+        for (String keyPart : aKeyParts) {
+            tag.append(TAG_SEPARATOR).append(keyPart);
+        }
+
+        return tag.toString();
+    }
+
+    public QueryCache(int aMaximumSize) {
+        super();
+
+        this.setMaximumSize(aMaximumSize);
+
+        this.cachedResults =
+                new LinkedHashMap<String, CachedResult>(16, 0.75f, true) {
+                    private static final long serialVersionUID = 1L;
+
+                    @Override
+                    protected boolean removeEldestEntry(Map.Entry<String, CachedResult> anEldest) {
+                        if (this.size() > maximumSize()) {
+                            untag(anEldest.getKey(), anEldest.getValue().tag());
+
+                            return true;
+                        }
+
+                        return false;
+                    }
+                };
+
+        this.taggedKeys = new HashMap<String, Set<String>>();
+    }
+
+    public synchronized Object cachedResultOf(String aKey) {
+        CachedResult cachedResult = this.cachedResults().get(aKey);
+
+        if (cachedResult == null) {
+            ++this.misses;
+
+            return null;
+        }
+
+        ++this.hits;
+
+        return cachedResult.result();
+    }
+
+    public synchronized void cacheResult(
+            String aKey,
+            String aTag,
+            Object aResult,
+            long anEvictionsBeforeQuery) {
+
+        // a projection may have evicted while the result was
+        // being queried, in which case the result may already
+        // be stale and is not cached
+
+        if (aResult == null || anEvictionsBeforeQuery != this.evictions) {
+            return;
+        }
+
+        CachedResult replaced = this.cachedResults().put(aKey, new CachedResult(aTag, aResult));
+
+        if (replaced != null) {
+            this.untag(aKey, replaced.tag());
+        }
+
+        Set<String> keys = this.taggedKeys().get(aTag);
+
+        if (keys == null) {
+            keys = new HashSet<String>();
+
+            this.taggedKeys().put(aTag, keys);
+        }
+
+        keys.add(aKey);
+    }
+
+    public synchronized void evict(String... aTags) {
+        ++this.evictions;
+
+        for (String tag : aTags) {
+            Set<String> keys = this.taggedKeys().remove(tag);
+
+            if (keys != null) {
+                for (String key : keys) {
+                    this.cachedResults().remove(key);
+                }
+            }
+        }
+    }
+
+    public synchronized void evictAll() {
+        ++this.evictions;
+
+        this.cachedResults().clear();
+        this.taggedKeys().clear();
+    }
+
+    public synchronized long evictions() {
+        return this.evictions;
+    }
+
+    public synchronized long hits() {
+        return this.hits;
+    }
+
+    public synchronized long misses() {
+        return this.misses;
+    }
+
+    public synchronized int size() {
+        return this.cachedResults().size();
+    }
+
+    private Map<String, CachedResult> cachedResults() {
+        return this.cachedResults;
+    }
+
+    private int maximumSize() {
+        return this.maximumSize;
+    }
+
+    private void setMaximumSize(int aMaximumSize) {
+        this.assertArgumentTrue(aMaximumSize > 0, "The maximum size must be greater than zero.");
+
+        this.maximumSize = aMaximumSize;
+    }
+
+    private Map<String, Set<String>> taggedKeys() {
+        return this.taggedKeys;
+    }
+
+    private void untag(String aKey, String aTag) {
+        Set<String> keys = this.taggedKeys().get(aTag);
+
+        if (keys != null) {
+            keys.remove(aKey);
+
+            if (keys.isEmpty()) {
+                this.taggedKeys().remove(aTag);
+            }
+        }
+    }
+
+    private static class CachedResult {
+
+        private Object result;
+        private String tag;
+
+        CachedResult(String aTag, Object aResult) {
+            super();
+
+            this.result = aResult;
+            this.tag = aTag;
+        }
+
+        Object result() {
+            return this.result;
+        }
+
+        String tag() {
+            return this.tag;
+        }
+    }
+}
@@ -0,0 +1,611 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.ParameterizedType;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * I am the compiled form of a ResultSetObjectMapper. I am built once
+ * for each combination of result type, column prefix, result columns
+ * and JoinOn, and I remember the column index, value reader and field
+ * setter of each mapped field. Rows are then mapped without looking up
+ * fields or probing the ResultSetMetaData again.
+ */
+class ResultSetMappingPlan {
+
+    private static final ConcurrentMap<String, ResultSetMappingPlan> plans =
+            new ConcurrentHashMap<String, ResultSetMappingPlan>();
+
+    private List<AssociationMapping> associationMappings;
+    private List<ColumnMapping> columnMappings;
+    private MethodHandle constructor;
+    private Class<?> resultType;
+
+    static ResultSetMappingPlan planFor(
+            ResultSet aResultSet,
+            Class<?> aResultType,
+            String aColumnPrefix,
+            JoinOn aJoinOn) {
+
+        ResultSetColumns columns = new ResultSetColumns(aResultSet);
+
+        String key =
+                aResultType.getName()
+                + "|" + aColumnPrefix
+                + "|" + aJoinOn.leftKey()
+                + "|" + aJoinOn.rightKey()
+                + "|" + columns.signature();
+
+        ResultSetMappingPlan plan = plans.get(key);
+
+        if (plan == null) {
+            plan = new ResultSetMappingPlan(columns, aResultType, aColumnPrefix, aJoinOn);
+
+            ResultSetMappingPlan existingPlan = plans.putIfAbsent(key, plan);
+
+            if (existingPlan != null) {
+                plan = existingPlan;
+            }
+        }
+
+        return plan;
+    }
+
+    Object mapRow(ResultSet aResultSet, JoinOn aJoinOn) {
+        Object object = this.newResultObject();
+
+        for (ColumnMapping columnMapping : this.columnMappings()) {
+            columnMapping.map(object, aResultSet, aJoinOn);
+        }
+
+        if (!this.associationMappings().isEmpty() && aJoinOn.isJoinedOn(aResultSet)) {
+            this.mapAssociations(object, aResultSet, aJoinOn);
+        }
+
+        return object;
+    }
+
+    private ResultSetMappingPlan(
+            ResultSetColumns aColumns,
+            Class<?> aResultType,
+            String aColumnPrefix,
+            JoinOn aJoinOn) {
+
+        super();
+
+        this.associationMappings = new ArrayList<AssociationMapping>();
+        this.columnMappings = new ArrayList<ColumnMapping>();
+        this.resultType = aResultType;
+
+        this.compileConstructor();
+        this.compileFields(aColumns, aColumnPrefix, aJoinOn);
+    }
+
+    private List<AssociationMapping> associationMappings() {
+        return this.associationMappings;
+    }
+
+    private List<ColumnMapping> columnMappings() {
+        return this.columnMappings;
+    }
+
+    private void compileConstructor() {
+        try {
+            Constructor<?> ctor = this.resultType().getDeclaredConstructor();
+
+            ctor.setAccessible(true);
+
+            this.constructor =
+                    MethodHandles.lookup()
+                        .unreflectConstructor(ctor)
+                        .asType(MethodType.methodType(Object.class));
+
+        } catch (Exception e) {
+            throw new IllegalArgumentException(
+                    "Cannot create instance of: " + this.resultType().getName());
+        }
+    }
+
+    private void compileFields(
+            ResultSetColumns aColumns,
+            String aColumnPrefix,
+            JoinOn aJoinOn) {
+
+        for (Field field : this.resultType().getDeclaredFields()) {
+            String columnName = this.fieldNameToColumnName(aColumnPrefix, field.getName());
+
+            int columnIndex = aColumns.indexOf(columnName);
+
+            if (columnIndex > 0) {
+                this.columnMappings().add(
+                        new ColumnMapping(
+                                columnIndex,
+                                columnName,
+                                ColumnReader.of(field.getType()),
+                                this.setterOf(field),
+                                columnName.equals(aJoinOn.leftKey())));
+            } else {
+                String objectPrefix = "o_" + columnName + "_";
+
+                if (aJoinOn.isSpecified() && aColumns.hasColumnStartingWith(objectPrefix)) {
+                    this.associationMappings().add(
+                            this.compileAssociation(aColumns, field, objectPrefix, aJoinOn));
+                }
+            }
+        }
+    }
+
+    private AssociationMapping compileAssociation(
+            ResultSetColumns aColumns,
+            Field aField,
+            String anObjectPrefix,
+            JoinOn aJoinOn) {
+
+        Class<?> associationType = null;
+
+        boolean isCollection = Collection.class.isAssignableFrom(aField.getType());
+
+        if (isCollection) {
+            ParameterizedType parameterizeType = (ParameterizedType) aField.getGenericType();
+            associationType = (Class<?>) parameterizeType.getActualTypeArguments()[0];
+        } else {
+            associationType = aField.getType();
+        }
+
+        ResultSetMappingPlan associationPlan =
+                new ResultSetMappingPlan(aColumns, associationType, anObjectPrefix, aJoinOn);
+
+        return new AssociationMapping(
+                aField.getName(),
+                aField.getType(),
+                isCollection,
+                this.setterOf(aField),
+                associationPlan);
+    }
+
+    private MethodHandle constructor() {
+        return this.constructor;
+    }
+
+    private String fieldNameToColumnName(String aColumnPrefix, String aFieldName) {
+        StringBuilder buf = new StringBuilder();
+
+        if (aColumnPrefix != null) {
+            buf.append(aColumnPrefix);
+        }
+
+        for (char ch : aFieldName.toCharArray()) {
+            if (Character.isAlphabetic(ch) && Character.isUpperCase(ch)) {
+                buf.append('_').append(Character.toLowerCase(ch));
+            } else {
+                buf.append(ch);
+            }
+        }
+
+        return buf.toString();
+    }
+
+    private void mapAssociations(
+            Object anObject,
+            ResultSet aResultSet,
+            JoinOn aJoinOn) {
+
+        Map<String, Collection<Object>> mappedCollections =
+                new HashMap<String, Collection<Object>>();
+
+        String currentAssociationName = null;
+
+        try {
+            for (boolean hasResult = true; hasResult; hasResult = aResultSet.next()) {
+
+                if (!aJoinOn.hasCurrentLeftQualifier(aResultSet)) {
+                    aResultSet.relative(-1);
+
+                    return;
+                }
+
+                for (AssociationMapping associationMapping : this.associationMappings()) {
+
+                    currentAssociationName = associationMapping.name();
+
+                    Collection<Object> collection = null;
+
+                    if (associationMapping.isCollection()) {
+                        collection = mappedCollections.get(associationMapping.name());
+
+                        if (collection == null) {
+                            collection = associationMapping.newCollection();
+                            mappedCollections.put(associationMapping.name(), collection);
+                            associationMapping.set(anObject, collection);
+                        }
+                    }
+
+                    Object associationObject =
+                            associationMapping.plan().mapRow(aResultSet, aJoinOn);
+
+                    if (collection != null) {
+                        collection.add(associationObject);
+                    } else {
+                        associationMapping.set(anObject, associationObject);
+                    }
+                }
+            }
+
+        } catch (Throwable t) {
+            throw new IllegalArgumentException(
+                    "Cannot map object association for "
+                            + currentAssociationName
+                            + " because: "
+                            + t.getMessage(),
+                    t);
+        }
+    }
+
+    private Object newResultObject() {
+        try {
+            return this.constructor().invokeExact();
+
+        } catch (Throwable t) {
+            throw new IllegalArgumentException(
+                    "Cannot create instance of: " + this.resultType().getName());
+        }
+    }
+
+    private Class<?> resultType() {
+        return this.resultType;
+    }
+
+    private MethodHandle setterOf(Field aField) {
+        try {
+            aField.setAccessible(true);
+
+            return MethodHandles.lookup()
+                    .unreflectSetter(aField)
+                    .asType(MethodType.methodType(void.class, Object.class, Object.class));
+
+        } catch (Exception e) {
+            throw new IllegalStateException(
+                    "Cannot map to: "
+                    + this.resultType().getSimpleName()
+                    + "#"
+                    + aField.getName());
+        }
+    }
+
+    private static class AssociationMapping {
+
+        private boolean collection;
+        private Class<?> fieldType;
+        private String name;
+        private ResultSetMappingPlan plan;
+        private MethodHandle setter;
+
+        AssociationMapping(
+                String aName,
+                Class<?> aFieldType,
+                boolean isCollection,
+                MethodHandle aSetter,
+                ResultSetMappingPlan aPlan) {
+
+            super();
+
+            this.collection = isCollection;
+            this.fieldType = aFieldType;
+            this.name = aName;
+            this.plan = aPlan;
+            this.setter = aSetter;
+        }
+
+        boolean isCollection() {
+            return this.collection;
+        }
+
+        String name() {
+            return this.name;
+        }
+
+        Collection<Object> newCollection() {
+            Collection<Object> newCollection = null;
+
+            if (List.class.isAssignableFrom(this.fieldType)) {
+                newCollection = new ArrayList<Object>();
+            } else if (Set.class.isAssignableFrom(this.fieldType)) {
+                // keeps the order of the query
+                newCollection = new LinkedHashSet<Object>();
+            }
+
+            return newCollection;
+        }
+
+        ResultSetMappingPlan plan() {
+            return this.plan;
+        }
+
+        void set(Object anObject, Object aValue) throws Throwable {
+            this.setter.invokeExact(anObject, aValue);
+        }
+    }
+
+    private static class ColumnMapping {
+
+        private int columnIndex;
+        private String columnName;
+        private boolean leftKey;
+        private ColumnReader reader;
+        private MethodHandle setter;
+
+        ColumnMapping(
+                int aColumnIndex,
+                String aColumnName,
+                ColumnReader aReader,
+                MethodHandle aSetter,
+                boolean isLeftKey) {
+
+            super();
+
+            this.columnIndex = aColumnIndex;
+            this.columnName = aColumnName;
+            this.leftKey = isLeftKey;
+            this.reader = aReader;
+            this.setter = aSetter;
+        }
+
+        void map(Object anObject, ResultSet aResultSet, JoinOn aJoinOn) {
+            Object columnValue = null;
+
+            try {
+                columnValue = this.reader.read(aResultSet, this.columnIndex);
+
+            } catch (Exception e) {
+                throw new IllegalArgumentException(
+                        "Cannot map "
+                                + this.columnName
+                                + " because: "
+                                + e.getMessage(),
+                        e);
+            }
+
+            if (this.leftKey) {
+                aJoinOn.saveCurrentLeftQualifier(this.columnName, columnValue);
+            }
+
+            try {
+                this.setter.invokeExact(anObject, columnValue);
+
+            } catch (Throwable t) {
+                throw new IllegalStateException(
+                        "Cannot map to: "
+                        + anObject.getClass().getSimpleName()
+                        + "#"
+                        + this.columnName);
+            }
+        }
+    }
+
+    private static enum ColumnReader {
+
+        BOOLEAN {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return aResultSet.getInt(aColumnIndex) == 1 ? Boolean.TRUE : Boolean.FALSE;
+            }
+        },
+
+        BYTE {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return Byte.valueOf(aResultSet.getByte(aColumnIndex));
+            }
+        },
+
+        CHAR {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                String charStr = aResultSet.getString(aColumnIndex);
+
+                return charStr == null ? Character.valueOf((char) 0) : Character.valueOf(charStr.charAt(0));
+            }
+        },
+
+        DATE {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                java.sql.Timestamp timestamp = aResultSet.getTimestamp(aColumnIndex);
+
+                return timestamp == null ? null : new java.util.Date(timestamp.getTime() + timestamp.getNanos());
+            }
+        },
+
+        DOUBLE {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return Double.valueOf(aResultSet.getDouble(aColumnIndex));
+            }
+        },
+
+        FLOAT {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return Float.valueOf(aResultSet.getFloat(aColumnIndex));
+            }
+        },
+
+        INT {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return Integer.valueOf(aResultSet.getInt(aColumnIndex));
+            }
+        },
+
+        LONG {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return Long.valueOf(aResultSet.getLong(aColumnIndex));
+            }
+        },
+
+        NULLABLE_DOUBLE {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                double value = aResultSet.getDouble(aColumnIndex);
+
+                return aResultSet.wasNull() ? null : Double.valueOf(value);
+            }
+        },
+
+        NULLABLE_FLOAT {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                float value = aResultSet.getFloat(aColumnIndex);
+
+                return aResultSet.wasNull() ? null : Float.valueOf(value);
+            }
+        },
+
+        NULLABLE_INT {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                int value = aResultSet.getInt(aColumnIndex);
+
+                return aResultSet.wasNull() ? null : Integer.valueOf(value);
+            }
+        },
+
+        NULLABLE_LONG {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                long value = aResultSet.getLong(aColumnIndex);
+
+                return aResultSet.wasNull() ? null : Long.valueOf(value);
+            }
+        },
+
+        NULLABLE_SHORT {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                short value = aResultSet.getShort(aColumnIndex);
+
+                return aResultSet.wasNull() ? null : Short.valueOf(value);
+            }
+        },
+
+        SHORT {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return Short.valueOf(aResultSet.getShort(aColumnIndex));
+            }
+        },
+
+        STRING {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return aResultSet.getString(aColumnIndex);
+            }
+        },
+
+        UNSUPPORTED {
+            Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException {
+                return null;
+            }
+        };
+
+        private static final Map<Class<?>, ColumnReader> readers = new HashMap<Class<?>, ColumnReader>();
+
+        static {
+            readers.put(boolean.class, BOOLEAN);
+            readers.put(byte.class, BYTE);
+            readers.put(char.class, CHAR);
+            readers.put(double.class, DOUBLE);
+            readers.put(float.class, FLOAT);
+            readers.put(int.class, INT);
+            readers.put(long.class, LONG);
+            readers.put(short.class, SHORT);
+            readers.put(Boolean.class, BOOLEAN);
+            readers.put(Double.class, NULLABLE_DOUBLE);
+            readers.put(Float.class, NULLABLE_FLOAT);
+            readers.put(Integer.class, NULLABLE_INT);
+            readers.put(Long.class, NULLABLE_LONG);
+            readers.put(Short.class, NULLABLE_SHORT);
+            readers.put(String.class, STRING);
+            readers.put(java.util.Date.class, DATE);
+        }
+
+        static ColumnReader of(Class<?> aType) {
+            ColumnReader reader = readers.get(aType);
+
+            return reader == null ? UNSUPPORTED : reader;
+        }
+
+        abstract Object read(ResultSet aResultSet, int aColumnIndex) throws SQLException;
+    }
+
+    private static class ResultSetColumns {
+
+        private Map<String, Integer> columnIndexes;
+        private List<String> columnLabels;
+
+        ResultSetColumns(ResultSet aResultSet) {
+            super();
+
+            this.columnIndexes = new HashMap<String, Integer>();
+            this.columnLabels = new ArrayList<String>();
+
+            try {
+                ResultSetMetaData metaData = aResultSet.getMetaData();
+                int totalColumns = metaData.getColumnCount();
+
+                for (int idx = 1; idx <= totalColumns; ++idx) {
+                    String columnLabel = metaData.getColumnLabel(idx);
+
+                    this.columnLabels.add(columnLabel);
+
+                    String key = columnLabel.toLowerCase();
+
+                    if (!this.columnIndexes.containsKey(key)) {
+                        this.columnIndexes.put(key, idx);
+                    }
+                }
+
+            } catch (Exception e) {
+                throw new IllegalStateException(
+                        "Cannot read result metadata because: "
+                                + e.getMessage(),
+                        e);
+            }
+        }
+
+        boolean hasColumnStartingWith(String aPrefix) {
+            for (String columnLabel : this.columnLabels) {
+                if (columnLabel.startsWith(aPrefix)) {
+                    return true;
+                }
+            }
+
+            return false;
+        }
+
+        int indexOf(String aColumnName) {
+            Integer index = this.columnIndexes.get(aColumnName.toLowerCase());
+
+            return index == null ? 0 : index.intValue();
+        }
+
+        String signature() {
+            return this.columnLabels.toString();
+        }
+    }
+}
@@ -0,0 +1,88 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing;
+
+import java.util.NoSuchElementException;
+
+import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.event.sourcing.EventStoreException;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
+import com.saasovation.common.event.sourcing.EventStreamId;
+
+public abstract class AbstractEventStreamCursor implements EventStreamCursor {
+
+    private EventStreamId identity;
+    private DomainEvent nextEvent;
+    private boolean nextEventRead;
+    private int version;
+
+    @Override
+    public boolean hasNext() {
+        if (!this.nextEventRead) {
+            try {
+                this.nextEvent = this.readNextEvent();
+
+            } catch (Throwable t) {
+                throw new EventStoreException(
+                        "Cannot read event stream for: "
+                            + this.identity.streamName()
+                            + " at version: "
+                            + (this.version() + 1)
+                            + " because: "
+                            + t.getMessage(),
+                        t);
+            }
+
+            this.nextEventRead = true;
+        }
+
+        return this.nextEvent != null;
+    }
+
+    @Override
+    public DomainEvent next() {
+        if (!this.hasNext()) {
+            throw new NoSuchElementException("The event stream has no more events.");
+        }
+
+        DomainEvent event = this.nextEvent;
+
+        this.nextEvent = null;
+        this.nextEventRead = false;
+
+        ++this.version;
+
+        return event;
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException("Events cannot be removed.");
+    }
+
+    @Override
+    public int version() {
+        return this.version;
+    }
+
+    protected AbstractEventStreamCursor(EventStreamId anIdentity) {
+        super();
+
+        this.identity = anIdentity;
+        this.version = anIdentity.streamVersion() - 1;
+    }
+
+    protected abstract DomainEvent readNextEvent() throws Exception; // null when no more
+}
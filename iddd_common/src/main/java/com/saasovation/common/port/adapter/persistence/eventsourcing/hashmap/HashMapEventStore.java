@@ -18,7 +18,9 @@ import java.util.*;
 
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.event.EventSerializer;
+import com.saasovation.common.event.EventTypeRegistry;
 import com.saasovation.common.event.sourcing.*;
+import com.saasovation.common.port.adapter.persistence.eventsourcing.AbstractEventStreamCursor;
 import com.saasovation.common.port.adapter.persistence.eventsourcing.DefaultEventStream;
 
 /**
@@ -87,13 +89,18 @@ public class HashMapEventStore implements EventStore {
 
     @Override
     public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent) {
+        return this.eventsSince(aLastReceivedEvent, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent, int aMaximumCount) {
 
         List<DispatchableDomainEvent> events = null;
 
         try {
             List<LoggedJournalEntry> entries =
                     this.journal()
-                        .loggedJournalEntriesSince(aLastReceivedEvent);
+                        .loggedJournalEntriesSince(aLastReceivedEvent, aMaximumCount);
 
             events = this.toDispatchableDomainEvents(entries);
 
@@ -110,42 +117,31 @@ public class HashMapEventStore implements EventStore {
     }
 
     @Override
-    public EventStream eventStreamSince(EventStreamId anIdentity) {
-        List<DomainEvent> events = null;
-
-        int version = 0;
-
-        try {
-            JournalKeyProvider keyProvider =
-                new StreamKeyProvider(
-                        anIdentity.streamName(),
-                        anIdentity.streamVersion());
-
-            List<LoggedJournalEntry> entries =
-                    this.journal()
-                        .referencedLoggedJournalEntries(
-                                keyProvider);
-
-            events = this.toDomainEvents(entries);
-
-            LoggedJournalEntry entry = entries.get(entries.size() - 1);
+    public EventStream eventStreamAfter(EventStreamId anIdentity) {
+        EventStream eventStream =
+                this.eventStreamFrom(
+                        anIdentity.withStreamVersion(anIdentity.streamVersion() + 1));
+
+        if (eventStream.events().isEmpty()) {
+            eventStream =
+                    new DefaultEventStream(
+                            eventStream.events(),
+                            anIdentity.streamVersion());
+        }
 
-            String streamVersion = keyProvider.lastKeyPart(entry.referenceKey());
+        return eventStream;
+    }
 
-            version = Integer.parseInt(streamVersion);
+    @Override
+    public EventStreamCursor eventStreamCursorFrom(EventStreamId anIdentity) {
+        return new HashMapEventStreamCursor(anIdentity);
+    }
 
-        } catch (Throwable t) {
-            throw new EventStoreException(
-                    "Cannot query event stream for: "
-                        + anIdentity.streamName()
-                        + " since version: "
-                        + anIdentity.streamVersion()
-                        + " because: "
-                        + t.getMessage(),
-                    t);
-        }
+    @Override
+    public EventStream eventStreamSince(EventStreamId anIdentity) {
+        EventStream eventStream = this.eventStreamFrom(anIdentity);
 
-        if (events.isEmpty()) {
+        if (eventStream.events().isEmpty()) {
             throw new EventStoreException(
                     "There is no such event stream: "
                     + anIdentity.streamName()
@@ -153,7 +149,7 @@ public class HashMapEventStore implements EventStore {
                     + anIdentity.streamVersion());
         }
 
-        return new DefaultEventStream(events, version);
+        return eventStream;
     }
 
     @Override
@@ -161,6 +157,11 @@ public class HashMapEventStore implements EventStore {
         return this.eventStreamSince(anIdentity.withStreamVersion(1));
     }
 
+    @Override
+    public long lastEventId() {
+        return this.journal().lastJournalSequence();
+    }
+
     @Override
     public void purge() {
         this.journal().purge();
@@ -178,6 +179,46 @@ public class HashMapEventStore implements EventStore {
         this.setSerializer(EventSerializer.instance());
     }
 
+    private EventStream eventStreamFrom(EventStreamId anIdentity) {
+        List<DomainEvent> events = null;
+
+        int version = 0;
+
+        try {
+            JournalKeyProvider keyProvider =
+                new StreamKeyProvider(
+                        anIdentity.streamName(),
+                        anIdentity.streamVersion());
+
+            List<LoggedJournalEntry> entries =
+                    this.journal()
+                        .referencedLoggedJournalEntries(
+                                keyProvider);
+
+            events = this.toDomainEvents(entries);
+
+            if (!entries.isEmpty()) {
+                LoggedJournalEntry entry = entries.get(entries.size() - 1);
+
+                String streamVersion = keyProvider.lastKeyPart(entry.referenceKey());
+
+                version = Integer.parseInt(streamVersion);
+            }
+
+        } catch (Throwable t) {
+            throw new EventStoreException(
+                    "Cannot query event stream for: "
+                        + anIdentity.streamName()
+                        + " since version: "
+                        + anIdentity.streamVersion()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        }
+
+        return new DefaultEventStream(events, version);
+    }
+
     private EventNotifiable eventNotifiable() {
         return this.eventNotifiable;
     }
@@ -206,7 +247,6 @@ public class HashMapEventStore implements EventStore {
         this.serializer = aSerializer;
     }
 
-    @SuppressWarnings("unchecked")
     private List<DomainEvent> toDomainEvents(
             List<LoggedJournalEntry> anEntries)
     throws Exception {
@@ -220,7 +260,7 @@ public class HashMapEventStore implements EventStore {
             String eventBody = entry.value();
 
             Class<DomainEvent> eventClass =
-                    (Class<DomainEvent>) Class.forName(eventClassName);
+                    EventTypeRegistry.instance().eventTypeOf(eventClassName);
 
             DomainEvent domainEvent =
                     this.serializer().deserialize(eventBody, eventClass);
@@ -231,13 +271,14 @@ public class HashMapEventStore implements EventStore {
         return events;
     }
 
-    @SuppressWarnings("unchecked")
     private List<DispatchableDomainEvent> toDispatchableDomainEvents(
             List<LoggedJournalEntry> anEntries)
     throws Exception {
 
         List<DispatchableDomainEvent> events = new ArrayList<DispatchableDomainEvent>();
 
+        JournalKeyProvider keyProvider = new JournalKeyProvider();
+
         for (LoggedJournalEntry entry : anEntries) {
 
             String eventClassName = entry.nextMetadataValue();
@@ -245,17 +286,61 @@ public class HashMapEventStore implements EventStore {
             String eventBody = entry.value();
 
             Class<DomainEvent> eventClass =
-                    (Class<DomainEvent>) Class.forName(eventClassName);
+                    EventTypeRegistry.instance().eventTypeOf(eventClassName);
 
             DomainEvent domainEvent =
                     this.serializer().deserialize(eventBody, eventClass);
 
-            events.add(new DispatchableDomainEvent(entry.journalSequence(), domainEvent));
+            events.add(
+                    new DispatchableDomainEvent(
+                            entry.journalSequence(),
+                            keyProvider.primaryResourceNameOf(entry.referenceKey()),
+                            domainEvent));
         }
 
         return events;
     }
 
+    private class HashMapEventStreamCursor
+            extends AbstractEventStreamCursor {
+
+        private JournalKeyProvider keyProvider;
+
+        public HashMapEventStreamCursor(EventStreamId anIdentity) {
+            super(anIdentity);
+
+            this.keyProvider =
+                    new StreamKeyProvider(
+                            anIdentity.streamName(),
+                            anIdentity.streamVersion());
+        }
+
+        @Override
+        public void close() {
+            // nothing to release
+        }
+
+        @Override
+        protected DomainEvent readNextEvent() throws Exception {
+            DomainEvent domainEvent = null;
+
+            LoggedJournalEntry entry =
+                    journal().referencedLoggedJournalEntry(
+                            this.keyProvider.nextReferenceKey());
+
+            if (entry != null) {
+                String eventClassName = entry.nextMetadataValue();
+
+                Class<DomainEvent> eventClass =
+                        EventTypeRegistry.instance().eventTypeOf(eventClassName);
+
+                domainEvent = serializer().deserialize(entry.value(), eventClass);
+            }
+
+            return domainEvent;
+        }
+    }
+
     private class StreamKeyProvider
             extends JournalKeyProvider {
 
@@ -109,12 +109,23 @@ public class HashMapJournal {
         }
     }
 
+    public long lastJournalSequence() {
+        return this.journalSequence.get();
+    }
+
     public List<LoggedJournalEntry> loggedJournalEntriesSince(
             long aJournalSequence) {
 
+        return this.loggedJournalEntriesSince(aJournalSequence, Integer.MAX_VALUE);
+    }
+
+    public List<LoggedJournalEntry> loggedJournalEntriesSince(
+            long aJournalSequence,
+            int aMaximumCount) {
+
         List<LoggedJournalEntry> entries = new ArrayList<LoggedJournalEntry>();
 
-        boolean done = false;
+        boolean done = aMaximumCount <= 0;
 
         for (long journalSequence = aJournalSequence + 1; !done; ++journalSequence) {
             String journalKey =
@@ -125,16 +136,19 @@ public class HashMapJournal {
 
             if (journalValue != null) {
 
+                // the reference key is the leading metadata value
+
+                int referenceKeyEnd = journalValue.indexOf(ES_METADATA_DELIMITER);
+
                 LoggedJournalEntry loggedJournalEntry =
                     new LoggedJournalEntry(
                             journalSequence,
-                            null,
-                            journalValue);
-
-                // discard the reference key
-                loggedJournalEntry.discardNextMetadataValue();
+                            journalValue.substring(0, referenceKeyEnd),
+                            journalValue.substring(referenceKeyEnd + 1));
 
                 entries.add(loggedJournalEntry);
+
+                done = entries.size() >= aMaximumCount;
             } else {
                 done = true;
             }
@@ -149,44 +163,52 @@ public class HashMapJournal {
         this.setJournalSequence(0L);
     }
 
-    public List<LoggedJournalEntry> referencedLoggedJournalEntries(
-            JournalKeyProvider aReferenceKeyProvider) {
+    public LoggedJournalEntry referencedLoggedJournalEntry(String aReferenceKey) {
 
-        List<LoggedJournalEntry> entries = new ArrayList<LoggedJournalEntry>();
+        LoggedJournalEntry loggedJournalEntry = null;
+
+        String rawJournalSequenceValue =
+                this.database().get(aReferenceKey);
 
-        boolean done = false;
+        if (rawJournalSequenceValue != null) {
+            long journalSequence =
+                    Long.parseLong(new String(rawJournalSequenceValue));
+
+            String journalKey =
+                    JournalKeyProvider.ES_JOURNAL_PREFIX_KEY
+                    + journalSequence;
 
-        while (!done) {
-            String referenceKey = aReferenceKeyProvider.nextReferenceKey();
+            String rawJournalValue =
+                    this.database().get(journalKey);
 
-            String rawJournalSequenceValue =
-                    this.database().get(referenceKey);
+            loggedJournalEntry =
+                new LoggedJournalEntry(
+                        journalSequence,
+                        aReferenceKey,
+                        new String(rawJournalValue));
 
-            if (rawJournalSequenceValue != null) {
-                long journalSequence =
-                        Long.parseLong(new String(rawJournalSequenceValue));
+            // discard the stream key
+            loggedJournalEntry.discardNextMetadataValue();
+        }
 
-                String journalKey =
-                        JournalKeyProvider.ES_JOURNAL_PREFIX_KEY
-                        + journalSequence;
+        return loggedJournalEntry;
+    }
 
-                String rawJournalValue =
-                        this.database().get(journalKey);
+    public List<LoggedJournalEntry> referencedLoggedJournalEntries(
+            JournalKeyProvider aReferenceKeyProvider) {
 
-                LoggedJournalEntry loggedJournalEntry =
-                    new LoggedJournalEntry(
-                            journalSequence,
-                            referenceKey,
-                            new String(rawJournalValue));
+        List<LoggedJournalEntry> entries = new ArrayList<LoggedJournalEntry>();
 
-                // discard the stream key
-                loggedJournalEntry.discardNextMetadataValue();
+        LoggedJournalEntry loggedJournalEntry =
+                this.referencedLoggedJournalEntry(
+                        aReferenceKeyProvider.nextReferenceKey());
 
-                entries.add(loggedJournalEntry);
+        while (loggedJournalEntry != null) {
+            entries.add(loggedJournalEntry);
 
-            } else {
-                done = true;
-            }
+            loggedJournalEntry =
+                    this.referencedLoggedJournalEntry(
+                            aReferenceKeyProvider.nextReferenceKey());
         }
 
         return entries;
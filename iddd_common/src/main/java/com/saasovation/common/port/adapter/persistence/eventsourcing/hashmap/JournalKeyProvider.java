@@ -46,6 +46,12 @@ public class JournalKeyProvider {
         throw new UnsupportedOperationException("Must be implemented by subclass.");
     }
 
+    public String primaryResourceNameOf(String aReferenceKey) {
+        return aReferenceKey.substring(
+                ES_REFERENCE_PREFIX_KEY.length(),
+                aReferenceKey.lastIndexOf(ES_KEY_DELIMITER));
+    }
+
     public String referenceKeyFrom(String aKey) {
         String referenceKey =
                 ES_REFERENCE_PREFIX_KEY
@@ -14,11 +14,45 @@
 
 package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
 
+/**
+ * I provide the LevelDB journal keys. Journal sequences and stream
+ * versions are zero padded to a fixed width so that keys sort in
+ * numeric order, allowing a stream or the journal to be read with a
+ * single iterator seek followed by a sequential scan.
+ *
+ * @author Vaughn Vernon
+ */
 public class JournalKeyProvider {
 
     protected static final String ES_JOURNAL_PREFIX_KEY = "ES_J:";
+    protected static final int ES_JOURNAL_SEQUENCE_WIDTH = 19;
     protected static final String ES_KEY_DELIMITER = ":";
     protected static final String ES_REFERENCE_PREFIX_KEY = "ES_R:";
+    protected static final int ES_STREAM_VERSION_WIDTH = 10;
+
+    public static String journalKeyFrom(long aJournalSequence) {
+        String journalKey =
+                ES_JOURNAL_PREFIX_KEY
+                + fixedWidth(aJournalSequence, ES_JOURNAL_SEQUENCE_WIDTH);
+
+        return journalKey;
+    }
+
+    public static String streamVersionKeyPart(int aStreamVersion) {
+        return fixedWidth(aStreamVersion, ES_STREAM_VERSION_WIDTH);
+    }
+
+    protected static String fixedWidth(long aValue, int aWidth) {
+        String value = Long.toString(aValue);
+
+        StringBuilder buf = new StringBuilder(aWidth);
+
+        for (int idx = value.length(); idx < aWidth; ++idx) {
+            buf.append('0');
+        }
+
+        return buf.append(value).toString();
+    }
 
     public String compositeReferenceKeyFrom(String aKeyPart1, String aKeyPart2) {
         String referenceKey =
@@ -46,6 +80,12 @@ public class JournalKeyProvider {
         throw new UnsupportedOperationException("Must be implemented by subclass.");
     }
 
+    public String primaryResourceNameOf(String aReferenceKey) {
+        return aReferenceKey.substring(
+                ES_REFERENCE_PREFIX_KEY.length(),
+                aReferenceKey.lastIndexOf(ES_KEY_DELIMITER));
+    }
+
     public String referenceKeyFrom(String aKey) {
         String referenceKey =
                 ES_REFERENCE_PREFIX_KEY
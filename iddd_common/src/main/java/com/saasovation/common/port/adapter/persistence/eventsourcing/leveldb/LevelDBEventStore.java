@@ -19,12 +19,15 @@ import java.util.List;
 
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.event.EventSerializer;
+import com.saasovation.common.event.EventTypeRegistry;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventNotifiable;
 import com.saasovation.common.event.sourcing.EventStore;
 import com.saasovation.common.event.sourcing.EventStoreException;
 import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.port.adapter.persistence.eventsourcing.AbstractEventStreamCursor;
 import com.saasovation.common.port.adapter.persistence.eventsourcing.DefaultEventStream;
 
 /**
@@ -58,28 +61,28 @@ public class LevelDBEventStore implements EventStore {
         LoggableJournalEntry[] entries =
                 new LoggableJournalEntry[anEvents.size()];
 
-        JournalKeyProvider keyProvider =
+        StreamKeyProvider keyProvider =
                 new StreamKeyProvider(
                         aStartingIdentity.streamName(),
                         aStartingIdentity.streamVersion());
 
+        String previousStreamKey = keyProvider.previousReferenceKey();
+
         int entryIndex = 0;
 
         for (DomainEvent event : anEvents) {
 
             String streamKey = keyProvider.nextReferenceKey();
 
-            String eventValue =
-                    this.journal()
-                        .valueWithMetadata(
-                                this.serializer().serialize(event),
-                                event.getClass().getName());
-
             entries[entryIndex++] =
                     new LoggableJournalEntry(
-                            eventValue,
+                            this.serializer().serialize(event),
+                            event.getClass().getName(),
                             streamKey,
+                            previousStreamKey,
                             keyProvider.primaryResourceName());
+
+            previousStreamKey = streamKey;
         }
 
         this.journal().logEntries(entries);
@@ -94,13 +97,18 @@ public class LevelDBEventStore implements EventStore {
 
     @Override
     public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent) {
+        return this.eventsSince(aLastReceivedEvent, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent, int aMaximumCount) {
 
         List<DispatchableDomainEvent> events = null;
 
         try {
             List<LoggedJournalEntry> entries =
                     this.journal()
-                        .loggedJournalEntriesSince(aLastReceivedEvent);
+                        .loggedJournalEntriesSince(aLastReceivedEvent, aMaximumCount);
 
             events = this.toDispatchableDomainEvents(entries);
 
@@ -117,42 +125,51 @@ public class LevelDBEventStore implements EventStore {
     }
 
     @Override
-    public EventStream eventStreamSince(EventStreamId anIdentity) {
-        List<DomainEvent> events = null;
-
-        int version = 0;
-
-        try {
-            JournalKeyProvider keyProvider =
-                new StreamKeyProvider(
-                        anIdentity.streamName(),
-                        anIdentity.streamVersion());
-
-            List<LoggedJournalEntry> entries =
-                    this.journal()
-                        .referencedLoggedJournalEntries(
-                                keyProvider);
-
-            events = this.toDomainEvents(entries);
+    public EventStream eventStreamAfter(EventStreamId anIdentity) {
+        EventStream eventStream =
+                this.eventStreamFrom(
+                        anIdentity.withStreamVersion(anIdentity.streamVersion() + 1));
+
+        if (eventStream.events().isEmpty()) {
+            eventStream =
+                    new DefaultEventStream(
+                            eventStream.events(),
+                            anIdentity.streamVersion());
+        }
 
-            LoggedJournalEntry entry = entries.get(entries.size() - 1);
+        return eventStream;
+    }
 
-            String streamVersion = keyProvider.lastKeyPart(entry.referenceKey());
+    @Override
+    public EventStreamCursor eventStreamCursorFrom(EventStreamId anIdentity) {
+        LoggedJournalEntryCursor cursor = null;
 
-            version = Integer.parseInt(streamVersion);
+        try {
+            cursor = this.journal()
+                        .referencedLoggedJournalEntryCursor(
+                                new StreamKeyProvider(
+                                        anIdentity.streamName(),
+                                        anIdentity.streamVersion()));
 
         } catch (Throwable t) {
             throw new EventStoreException(
                     "Cannot query event stream for: "
                         + anIdentity.streamName()
-                        + " since version: "
+                        + " from version: "
                         + anIdentity.streamVersion()
                         + " because: "
                         + t.getMessage(),
                     t);
         }
 
-        if (events.isEmpty()) {
+        return new LevelDBEventStreamCursor(anIdentity, cursor);
+    }
+
+    @Override
+    public EventStream eventStreamSince(EventStreamId anIdentity) {
+        EventStream eventStream = this.eventStreamFrom(anIdentity);
+
+        if (eventStream.events().isEmpty()) {
             throw new EventStoreException(
                     "There is no such event stream: "
                     + anIdentity.streamName()
@@ -160,7 +177,7 @@ public class LevelDBEventStore implements EventStore {
                     + anIdentity.streamVersion());
         }
 
-        return new DefaultEventStream(events, version);
+        return eventStream;
     }
 
     @Override
@@ -168,6 +185,11 @@ public class LevelDBEventStore implements EventStore {
         return this.eventStreamSince(anIdentity.withStreamVersion(1));
     }
 
+    @Override
+    public long lastEventId() {
+        return this.journal().lastJournalSequence();
+    }
+
     @Override
     public void purge() {
         this.journal().purge();
@@ -185,6 +207,46 @@ public class LevelDBEventStore implements EventStore {
         this.setSerializer(EventSerializer.instance());
     }
 
+    private EventStream eventStreamFrom(EventStreamId anIdentity) {
+        List<DomainEvent> events = null;
+
+        int version = 0;
+
+        try {
+            JournalKeyProvider keyProvider =
+                new StreamKeyProvider(
+                        anIdentity.streamName(),
+                        anIdentity.streamVersion());
+
+            List<LoggedJournalEntry> entries =
+                    this.journal()
+                        .referencedLoggedJournalEntries(
+                                keyProvider);
+
+            events = this.toDomainEvents(entries);
+
+            if (!entries.isEmpty()) {
+                LoggedJournalEntry entry = entries.get(entries.size() - 1);
+
+                String streamVersion = keyProvider.lastKeyPart(entry.referenceKey());
+
+                version = Integer.parseInt(streamVersion);
+            }
+
+        } catch (Throwable t) {
+            throw new EventStoreException(
+                    "Cannot query event stream for: "
+                        + anIdentity.streamName()
+                        + " since version: "
+                        + anIdentity.streamVersion()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        }
+
+        return new DefaultEventStream(events, version);
+    }
+
     private EventNotifiable eventNotifiable() {
         return this.eventNotifiable;
     }
@@ -213,7 +275,6 @@ public class LevelDBEventStore implements EventStore {
         this.serializer = aSerializer;
     }
 
-    @SuppressWarnings("unchecked")
     private List<DomainEvent> toDomainEvents(
             List<LoggedJournalEntry> anEntries)
     throws Exception {
@@ -222,12 +283,12 @@ public class LevelDBEventStore implements EventStore {
 
         for (LoggedJournalEntry entry : anEntries) {
 
-            String eventClassName = entry.nextMetadataValue();
+            String eventClassName = entry.typeName();
 
             String eventBody = entry.value();
 
             Class<DomainEvent> eventClass =
-                    (Class<DomainEvent>) Class.forName(eventClassName);
+                    EventTypeRegistry.instance().eventTypeOf(eventClassName);
 
             DomainEvent domainEvent =
                     this.serializer().deserialize(eventBody, eventClass);
@@ -238,31 +299,72 @@ public class LevelDBEventStore implements EventStore {
         return events;
     }
 
-    @SuppressWarnings("unchecked")
     private List<DispatchableDomainEvent> toDispatchableDomainEvents(
             List<LoggedJournalEntry> anEntries)
     throws Exception {
 
         List<DispatchableDomainEvent> events = new ArrayList<DispatchableDomainEvent>();
 
+        JournalKeyProvider keyProvider = new JournalKeyProvider();
+
         for (LoggedJournalEntry entry : anEntries) {
 
-            String eventClassName = entry.nextMetadataValue();
+            String eventClassName = entry.typeName();
 
             String eventBody = entry.value();
 
             Class<DomainEvent> eventClass =
-                    (Class<DomainEvent>) Class.forName(eventClassName);
+                    EventTypeRegistry.instance().eventTypeOf(eventClassName);
 
             DomainEvent domainEvent =
                     this.serializer().deserialize(eventBody, eventClass);
 
-            events.add(new DispatchableDomainEvent(entry.journalSequence(), domainEvent));
+            events.add(
+                    new DispatchableDomainEvent(
+                            entry.journalSequence(),
+                            keyProvider.primaryResourceNameOf(entry.referenceKey()),
+                            domainEvent));
         }
 
         return events;
     }
 
+    private class LevelDBEventStreamCursor
+            extends AbstractEventStreamCursor {
+
+        private LoggedJournalEntryCursor cursor;
+
+        public LevelDBEventStreamCursor(
+                EventStreamId anIdentity,
+                LoggedJournalEntryCursor aCursor) {
+
+            super(anIdentity);
+
+            this.cursor = aCursor;
+        }
+
+        @Override
+        public void close() {
+            this.cursor.close();
+        }
+
+        @Override
+        protected DomainEvent readNextEvent() throws Exception {
+            DomainEvent domainEvent = null;
+
+            LoggedJournalEntry entry = this.cursor.nextEntry();
+
+            if (entry != null) {
+                Class<DomainEvent> eventClass =
+                        EventTypeRegistry.instance().eventTypeOf(entry.typeName());
+
+                domainEvent = serializer().deserialize(entry.value(), eventClass);
+            }
+
+            return domainEvent;
+        }
+    }
+
     private class StreamKeyProvider
             extends JournalKeyProvider {
 
@@ -281,13 +383,25 @@ public class LevelDBEventStore implements EventStore {
             String key =
                     this.compositeReferenceKeyFrom(
                                 streamName,
-                                ""+streamVersion);
+                                streamVersionKeyPart(streamVersion));
 
             ++streamVersion;
 
             return key;
         }
 
+        public String previousReferenceKey() {
+            String key = null;
+
+            if (streamVersion > 1) {
+                key = this.compositeReferenceKeyFrom(
+                        streamName,
+                        streamVersionKeyPart(streamVersion - 1));
+            }
+
+            return key;
+        }
+
         @Override
         public String primaryResourceName() {
             return this.streamName;
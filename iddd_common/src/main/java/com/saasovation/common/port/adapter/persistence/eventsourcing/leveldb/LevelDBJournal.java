@@ -16,7 +16,7 @@ package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
 
 import java.io.File;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
@@ -31,6 +31,7 @@ import org.iq80.leveldb.impl.Iq80DBFactory;
 
 import com.saasovation.common.event.sourcing.EventStoreAppendException;
 import com.saasovation.common.event.sourcing.EventStoreException;
+import com.saasovation.common.event.sourcing.EventStoreVersionException;
 
 public class LevelDBJournal {
 
@@ -39,12 +40,23 @@ public class LevelDBJournal {
     private static final byte[] ES_JOURNAL_SEQUENCE_KEY =
             (JournalKeyProvider.ES_JOURNAL_PREFIX_KEY+"0").getBytes();
 
+    // a power of two, so that a stripe is selected by masking the hash
+
+    private static final int STREAM_LOCK_STRIPES = 1024;
+
+    private static final int STREAM_VERSIONS_PER_STRIPE = 64;
+
     private static LevelDBJournal instance;
-    private static Map<String, Object> lock = new HashMap<String, Object>();
+    private static Object lock = new Object();
+    private static Object[] streamLocks = newStreamLocks();
 
+    private LevelDBJournalEntryCodec codec;
     private DB database;
     private String databasePath;
+    private volatile LevelDBJournalGroupCommit groupCommit;
+    private LevelDBJournalTypeRegistry typeRegistry;
     private AtomicLong journalSequence;
+    private List<Map<String, String>> lastReferenceKeys;
 
     public static LevelDBJournal initializeInstance(String aDirectoryPath) {
         synchronized (lock) {
@@ -74,6 +86,8 @@ public class LevelDBJournal {
         synchronized (lock) {
             if (instance != null) {
                 try {
+                    this.stopGroupCommit();
+
                     this.saveJournalSequence();
 
                     this.database().close();
@@ -100,45 +114,61 @@ public class LevelDBJournal {
 
         WriteBatch batch = this.database().createWriteBatch();
 
-        try {
-            synchronized (this.lockFor(aJournalEntries[0].primaryResourceName())) {
-                for (LoggableJournalEntry journalEntry : aJournalEntries) {
+        String primaryResourceName = aJournalEntries[0].primaryResourceName();
+
+        String lastReferenceKey = aJournalEntries[aJournalEntries.length - 1].referenceKey();
 
-                    long journalSequence = this.nextJournalSequence();
+        int stripe = this.stripeOf(primaryResourceName);
 
-                    this.confirmNonExistingReference(journalEntry.referenceKey());
+        LevelDBJournalGroupCommit.PendingAppend pendingAppend = null;
 
-                    String jounralKey =
-                            JournalKeyProvider.ES_JOURNAL_PREFIX_KEY
-                            + journalSequence;
+        boolean cached = false;
 
-                    String referenceKey =
-                            journalEntry.referenceKey();
+        try {
+            synchronized (streamLocks[stripe]) {
+                Map<String, String> lastReferenceKeys =
+                        this.lastReferenceKeys().get(stripe);
 
-                    byte[] journalSequenceBytes = (""+journalSequence).getBytes();
+                this.confirmExpectedVersion(
+                        lastReferenceKeys.get(primaryResourceName),
+                        aJournalEntries[0]);
 
-                    String journalValue =
-                            this.valueWithMetadata(
-                                    journalEntry.value(),
-                                    referenceKey);
+                // the last reference is unknown until written
 
-                    // journal entry points to reference
+                lastReferenceKeys.remove(primaryResourceName);
 
-                    batch.put(
-                            jounralKey.getBytes(),
-                            journalValue.getBytes());
+                LevelDBJournalGroupCommit groupCommit = this.groupCommit();
 
-                    // reference points to journal entry
+                if (groupCommit != null) {
+                    pendingAppend = groupCommit.enqueue(aJournalEntries);
+                } else {
+                    this.batchEntries(batch, aJournalEntries);
 
-                    batch.put(
-                            referenceKey.getBytes(),
-                            journalSequenceBytes);
+                    this.database().write(batch);
                 }
 
-                this.database().write(batch);
+                // a queued append is written before any append that
+                // is queued behind it, so it may be followed at once
+
+                lastReferenceKeys.put(primaryResourceName, lastReferenceKey);
+
+                cached = true;
+            }
+
+            if (pendingAppend != null) {
+                // await the group's write without holding the stripe
+                pendingAppend.await();
             }
 
+        } catch (EventStoreException e) {
+            if (cached) {
+                this.forgetLastReferenceKey(stripe, primaryResourceName, lastReferenceKey);
+            }
+            throw e;
         } catch (Throwable t) {
+            if (cached) {
+                this.forgetLastReferenceKey(stripe, primaryResourceName, lastReferenceKey);
+            }
             throw new EventStoreAppendException(
                     "Could not append to journal because: "
                             + t.getMessage(),
@@ -152,37 +182,63 @@ public class LevelDBJournal {
         }
     }
 
+    public LevelDBJournalGroupCommit groupCommit() {
+        return this.groupCommit;
+    }
+
+    public long lastJournalSequence() {
+
+        // includes entries that are still being written
+
+        return this.journalSequence.get();
+    }
+
     public List<LoggedJournalEntry> loggedJournalEntriesSince(
             long aJournalSequence) {
 
+        return this.loggedJournalEntriesSince(aJournalSequence, Integer.MAX_VALUE);
+    }
+
+    public List<LoggedJournalEntry> loggedJournalEntriesSince(
+            long aJournalSequence,
+            int aMaximumCount) {
+
         List<LoggedJournalEntry> entries = new ArrayList<LoggedJournalEntry>();
 
-        boolean done = false;
+        long journalSequence = aJournalSequence + 1;
 
-        for (long journalSequence = aJournalSequence + 1; !done; ++journalSequence) {
-            String journalKey =
-                    JournalKeyProvider.ES_JOURNAL_PREFIX_KEY
-                    + journalSequence;
+        String journalKey = JournalKeyProvider.journalKeyFrom(journalSequence);
+
+        DBIterator iterator = this.database().iterator();
+
+        try {
+            iterator.seek(journalKey.getBytes());
+
+            boolean done = aMaximumCount <= 0;
 
-            byte[] rawJournalValue =
-                    this.database()
-                        .get(journalKey.getBytes());
+            while (!done && iterator.hasNext()) {
+                Entry<byte[],byte[]> entry = iterator.next();
 
-            if (rawJournalValue != null) {
+                // stop at the first gap in the journal sequence
 
-                LoggedJournalEntry loggedJournalEntry =
-                    new LoggedJournalEntry(
-                            journalSequence,
-                            null,
-                            new String(rawJournalValue));
+                if (journalKey.equals(new String(entry.getKey()))) {
 
-                // discard the reference key
-                loggedJournalEntry.discardNextMetadataValue();
+                    entries.add(
+                            this.codec().decodeJournalValue(
+                                    journalSequence,
+                                    entry.getValue()));
 
-                entries.add(loggedJournalEntry);
-            } else {
-                done = true;
+                    journalKey = JournalKeyProvider.journalKeyFrom(++journalSequence);
+
+                    done = entries.size() >= aMaximumCount;
+
+                } else {
+                    done = true;
+                }
             }
+
+        } finally {
+            this.close(iterator);
         }
 
         return entries;
@@ -216,6 +272,10 @@ public class LevelDBJournal {
             }
 
             this.setJournalSequence(0L);
+
+            this.setLastReferenceKeys(this.newLastReferenceKeys());
+
+            this.typeRegistry().clear();
         }
     }
 
@@ -224,50 +284,66 @@ public class LevelDBJournal {
 
         List<LoggedJournalEntry> entries = new ArrayList<LoggedJournalEntry>();
 
-        boolean done = false;
+        LoggedJournalEntryCursor cursor =
+                this.referencedLoggedJournalEntryCursor(aReferenceKeyProvider);
 
-        while (!done) {
-            String referenceKey = aReferenceKeyProvider.nextReferenceKey();
+        try {
+            LoggedJournalEntry entry = cursor.nextEntry();
 
-            byte[] rawJournalSequenceValue =
-                    this.database().get(referenceKey.getBytes());
+            while (entry != null) {
+                entries.add(entry);
 
-            if (rawJournalSequenceValue != null) {
-                long journalSequence =
-                        Long.parseLong(new String(rawJournalSequenceValue));
+                entry = cursor.nextEntry();
+            }
 
-                String journalKey =
-                        JournalKeyProvider.ES_JOURNAL_PREFIX_KEY
-                        + journalSequence;
+        } finally {
+            cursor.close();
+        }
 
-                byte[] rawJournalValue =
-                        this.database()
-                            .get(journalKey.getBytes());
+        return entries;
+    }
 
-                LoggedJournalEntry loggedJournalEntry =
-                    new LoggedJournalEntry(
-                            journalSequence,
-                            referenceKey,
-                            new String(rawJournalValue));
+    public LoggedJournalEntryCursor referencedLoggedJournalEntryCursor(
+            JournalKeyProvider aReferenceKeyProvider) {
 
-                // discard the stream key
-                loggedJournalEntry.discardNextMetadataValue();
+        return new LoggedJournalEntryCursor(
+                this.database().iterator(),
+                this.codec(),
+                aReferenceKeyProvider);
+    }
 
-                entries.add(loggedJournalEntry);
+    public void startGroupCommit(
+            int aMaximumBatchSize,
+            long aMaximumLingerMillis,
+            boolean aSync) {
 
-            } else {
-                done = true;
-            }
-        }
+        synchronized (lock) {
+            this.stopGroupCommit();
 
-        return entries;
+            LevelDBJournalGroupCommit groupCommit =
+                    new LevelDBJournalGroupCommit(
+                            this,
+                            this.database(),
+                            aMaximumBatchSize,
+                            aMaximumLingerMillis,
+                            aSync);
+
+            groupCommit.start();
+
+            this.groupCommit = groupCommit;
+        }
     }
 
-    public String valueWithMetadata(String aValue, String aMetadata) {
-        String valueWithMetadata =
-                aMetadata + ES_METADATA_DELIMITER + aValue;
+    public void stopGroupCommit() {
+        synchronized (lock) {
+            LevelDBJournalGroupCommit groupCommit = this.groupCommit;
 
-        return valueWithMetadata;
+            if (groupCommit != null) {
+                this.groupCommit = null;
+
+                groupCommit.stop();
+            }
+        }
     }
 
     private LevelDBJournal(String aDirectoryPath) {
@@ -276,6 +352,32 @@ public class LevelDBJournal {
         this.openDatabase(aDirectoryPath);
     }
 
+    void batchEntries(WriteBatch aBatch, LoggableJournalEntry[] aJournalEntries) {
+        for (LoggableJournalEntry journalEntry : aJournalEntries) {
+
+            long journalSequence = this.nextJournalSequence();
+
+            String journalKey =
+                    JournalKeyProvider.journalKeyFrom(journalSequence);
+
+            String referenceKey =
+                    journalEntry.referenceKey();
+
+            // journal entry points to reference
+
+            aBatch.put(
+                    journalKey.getBytes(),
+                    this.codec().encodeJournalValue(journalEntry));
+
+            // reference points to journal entry, and carries
+            // the entry so that a stream is read in one scan
+
+            aBatch.put(
+                    referenceKey.getBytes(),
+                    this.codec().encodeReferenceValue(journalEntry, journalSequence));
+        }
+    }
+
     private boolean cacheJournalSequence() {
         boolean cached = false;
 
@@ -301,14 +403,67 @@ public class LevelDBJournal {
         return cached;
     }
 
-    private void confirmNonExistingReference(String aReferenceKey) {
-        // this implementation will not stand up to race conditions
+    private void close(DBIterator anIterator) {
+        try {
+            anIterator.close();
+        } catch (Throwable t) {
+            // ignore
+        }
+    }
+
+    private void confirmExpectedVersion(
+            String aLastReferenceKey,
+            LoggableJournalEntry aJournalEntry) {
+
+        // called under the stream's lock, so the last reference key
+        // cannot change between this check and the write
+
+        String previousReferenceKey = aJournalEntry.previousReferenceKey();
+
+        boolean expectedVersion = false;
+
+        if (aLastReferenceKey != null) {
+            expectedVersion = aLastReferenceKey.equals(previousReferenceKey);
 
-        if (this.database().get(aReferenceKey.getBytes()) != null) {
-            throw new EventStoreAppendException("Journal concurrency violation.");
+        } else {
+            expectedVersion =
+                    this.database().get(aJournalEntry.referenceKey().getBytes()) == null
+                    && (previousReferenceKey == null
+                        || this.database().get(previousReferenceKey.getBytes()) != null);
+        }
+
+        if (!expectedVersion) {
+            throw new EventStoreVersionException(
+                    "Journal concurrency violation: "
+                    + aJournalEntry.referenceKey()
+                    + " does not follow the last entry of: "
+                    + aJournalEntry.primaryResourceName());
         }
     }
 
+    private void forgetLastReferenceKey(
+            int aStripe,
+            String aPrimaryResourceName,
+            String aLastReferenceKey) {
+
+        synchronized (streamLocks[aStripe]) {
+            Map<String, String> lastReferenceKeys =
+                    this.lastReferenceKeys().get(aStripe);
+
+            if (aLastReferenceKey.equals(lastReferenceKeys.get(aPrimaryResourceName))) {
+                lastReferenceKeys.remove(aPrimaryResourceName);
+            }
+        }
+    }
+
+    private LevelDBJournalEntryCodec codec() {
+        return this.codec;
+    }
+
+    private void setCodec(LevelDBJournalEntryCodec aCodec) {
+        this.codec = aCodec;
+    }
+
     private DB database() {
         return this.database;
     }
@@ -321,21 +476,48 @@ public class LevelDBJournal {
         this.databasePath = aDatabasePath;
     }
 
-    private Object lockFor(String aPrimaryResourceName) {
-        // need a reaper to remove the lock after some
-        // size threshold and LRU
+    private static Object[] newStreamLocks() {
+        Object[] streamLocks = new Object[STREAM_LOCK_STRIPES];
 
-        synchronized (lock) {
-            Object resourceLock = lock.get(aPrimaryResourceName);
+        for (int idx = 0; idx < STREAM_LOCK_STRIPES; ++idx) {
+            streamLocks[idx] = new Object();
+        }
 
-            if (resourceLock == null) {
-                resourceLock = new Object();
+        return streamLocks;
+    }
 
-                lock.put(aPrimaryResourceName, resourceLock);
-            }
+    private List<Map<String, String>> lastReferenceKeys() {
+        return this.lastReferenceKeys;
+    }
+
+    private void setLastReferenceKeys(List<Map<String, String>> aLastReferenceKeys) {
+        this.lastReferenceKeys = aLastReferenceKeys;
+    }
+
+    private List<Map<String, String>> newLastReferenceKeys() {
+        // each stripe caches the last reference key of its most
+        // recently appended streams, and is only used under the
+        // stripe's lock
 
-            return resourceLock;
+        List<Map<String, String>> lastReferenceKeys =
+                new ArrayList<Map<String, String>>(STREAM_LOCK_STRIPES);
+
+        for (int idx = 0; idx < STREAM_LOCK_STRIPES; ++idx) {
+            lastReferenceKeys.add(new LastReferenceKeyCache());
         }
+
+        return lastReferenceKeys;
+    }
+
+    private int stripeOf(String aPrimaryResourceName) {
+        // streams share a fixed number of locks, so there is
+        // nothing to reap, and no global lock to acquire
+
+        int hash = aPrimaryResourceName.hashCode();
+
+        hash ^= (hash >>> 16);
+
+        return hash & (STREAM_LOCK_STRIPES - 1);
     }
 
     private long nextJournalSequence() {
@@ -354,6 +536,8 @@ public class LevelDBJournal {
         try {
             this.setDatabasePath(aDirectoryPath);
 
+            this.setLastReferenceKeys(this.newLastReferenceKeys());
+
             DBFactory factory = new Iq80DBFactory();
 
             Options options = new Options();
@@ -362,6 +546,12 @@ public class LevelDBJournal {
 
             this.setDatabase(factory.open(new File(aDirectoryPath), options));
 
+            this.migrate();
+
+            this.setTypeRegistry(new LevelDBJournalTypeRegistry(this.database()));
+
+            this.setCodec(new LevelDBJournalEntryCodec(this.typeRegistry()));
+
             if (!this.cacheJournalSequence()) {
                 this.repair();
             }
@@ -376,6 +566,13 @@ public class LevelDBJournal {
         }
     }
 
+    private void migrate() {
+        LevelDBJournalMigrationTool migrationTool =
+                new LevelDBJournalMigrationTool(this.database());
+
+        migrationTool.migrateDatabase();
+    }
+
     private void repair() {
         LevelDBJournalRepairTool repairTool =
                 new LevelDBJournalRepairTool(this.database());
@@ -389,6 +586,14 @@ public class LevelDBJournal {
         }
     }
 
+    private LevelDBJournalTypeRegistry typeRegistry() {
+        return this.typeRegistry;
+    }
+
+    private void setTypeRegistry(LevelDBJournalTypeRegistry aTypeRegistry) {
+        this.typeRegistry = aTypeRegistry;
+    }
+
     private void saveJournalSequence() {
 
         byte[] journalSequenceBytes = (""+journalSequence.get()).getBytes();
@@ -397,4 +602,19 @@ public class LevelDBJournal {
                 ES_JOURNAL_SEQUENCE_KEY,
                 journalSequenceBytes);
     }
+
+    private static class LastReferenceKeyCache
+            extends LinkedHashMap<String, String> {
+
+        private static final long serialVersionUID = 1L;
+
+        public LastReferenceKeyCache() {
+            super(16, 0.75f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Entry<String, String> anEldest) {
+            return this.size() > STREAM_VERSIONS_PER_STRIPE;
+        }
+    }
 }
@@ -0,0 +1,201 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.Charset;
+
+/**
+ * I encode and decode journal and stream reference values. A value
+ * is a format version byte, the varint id of the entry's type, a
+ * link back to the other half of the entry, and the payload bytes.
+ * A journal value links to its reference key, which is varint length
+ * prefixed, and a reference value links to its varint journal sequence.
+ *
+ * Values logged before the binary format, of the form link#type#payload,
+ * are still decoded.
+ *
+ * @author Vaughn Vernon
+ */
+public class LevelDBJournalEntryCodec {
+
+    private static final byte FORMAT_VERSION = 1;
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private LevelDBJournalTypeRegistry typeRegistry;
+
+    public LevelDBJournalEntryCodec(LevelDBJournalTypeRegistry aTypeRegistry) {
+        super();
+
+        this.setTypeRegistry(aTypeRegistry);
+    }
+
+    public LoggedJournalEntry decodeJournalValue(long aJournalSequence, byte[] aValue) {
+        LoggedJournalEntry entry = null;
+
+        if (this.isBinaryFormat(aValue)) {
+            int[] position = new int[] { 1 };
+
+            String typeName = this.typeRegistry().typeNameOf((int) this.readVarint(aValue, position));
+
+            int referenceKeyLength = (int) this.readVarint(aValue, position);
+
+            String referenceKey = new String(aValue, position[0], referenceKeyLength, UTF_8);
+
+            position[0] += referenceKeyLength;
+
+            entry = new LoggedJournalEntry(
+                    aJournalSequence,
+                    referenceKey,
+                    typeName,
+                    this.payloadFrom(aValue, position[0]));
+
+        } else {
+            String[] parts = this.originalFormatPartsFrom(aValue);
+
+            entry = new LoggedJournalEntry(aJournalSequence, parts[0], parts[1], parts[2]);
+        }
+
+        return entry;
+    }
+
+    public LoggedJournalEntry decodeReferenceValue(String aReferenceKey, byte[] aValue) {
+        LoggedJournalEntry entry = null;
+
+        if (this.isBinaryFormat(aValue)) {
+            int[] position = new int[] { 1 };
+
+            String typeName = this.typeRegistry().typeNameOf((int) this.readVarint(aValue, position));
+
+            long journalSequence = this.readVarint(aValue, position);
+
+            entry = new LoggedJournalEntry(
+                    journalSequence,
+                    aReferenceKey,
+                    typeName,
+                    this.payloadFrom(aValue, position[0]));
+
+        } else {
+            String[] parts = this.originalFormatPartsFrom(aValue);
+
+            entry = new LoggedJournalEntry(Long.parseLong(parts[0]), aReferenceKey, parts[1], parts[2]);
+        }
+
+        return entry;
+    }
+
+    public byte[] encodeJournalValue(LoggableJournalEntry aJournalEntry) {
+        ByteArrayOutputStream value = this.valueWithTypeOf(aJournalEntry);
+
+        byte[] referenceKey = aJournalEntry.referenceKey().getBytes(UTF_8);
+
+        this.writeVarint(value, referenceKey.length);
+
+        value.write(referenceKey, 0, referenceKey.length);
+
+        return this.valueWithPayloadOf(value, aJournalEntry);
+    }
+
+    public byte[] encodeReferenceValue(LoggableJournalEntry aJournalEntry, long aJournalSequence) {
+        ByteArrayOutputStream value = this.valueWithTypeOf(aJournalEntry);
+
+        this.writeVarint(value, aJournalSequence);
+
+        return this.valueWithPayloadOf(value, aJournalEntry);
+    }
+
+    private boolean isBinaryFormat(byte[] aValue) {
+        // original values begin with a printable character
+
+        return aValue.length > 0 && aValue[0] == FORMAT_VERSION;
+    }
+
+    private String[] originalFormatPartsFrom(byte[] aValue) {
+        String value = new String(aValue);
+
+        int linkIndex = value.indexOf(LevelDBJournal.ES_METADATA_DELIMITER);
+
+        int typeIndex = value.indexOf(LevelDBJournal.ES_METADATA_DELIMITER, linkIndex + 1);
+
+        return new String[] {
+                value.substring(0, linkIndex),
+                value.substring(linkIndex + 1, typeIndex),
+                value.substring(typeIndex + 1)
+        };
+    }
+
+    private String payloadFrom(byte[] aValue, int aPosition) {
+        return new String(aValue, aPosition, aValue.length - aPosition, UTF_8);
+    }
+
+    private long readVarint(byte[] aValue, int[] aPosition) {
+        long value = 0L;
+
+        int shift = 0;
+
+        byte next = 0;
+
+        do {
+            next = aValue[aPosition[0]++];
+
+            value |= ((long) (next & 0x7f)) << shift;
+
+            shift += 7;
+
+        } while ((next & 0x80) != 0);
+
+        return value;
+    }
+
+    private LevelDBJournalTypeRegistry typeRegistry() {
+        return this.typeRegistry;
+    }
+
+    private void setTypeRegistry(LevelDBJournalTypeRegistry aTypeRegistry) {
+        this.typeRegistry = aTypeRegistry;
+    }
+
+    private ByteArrayOutputStream valueWithTypeOf(LoggableJournalEntry aJournalEntry) {
+        ByteArrayOutputStream value =
+                new ByteArrayOutputStream(aJournalEntry.value().length() + 32);
+
+        value.write(FORMAT_VERSION);
+
+        this.writeVarint(value, this.typeRegistry().typeIdOf(aJournalEntry.typeName()));
+
+        return value;
+    }
+
+    private byte[] valueWithPayloadOf(ByteArrayOutputStream aValue, LoggableJournalEntry aJournalEntry) {
+        byte[] payload = aJournalEntry.value().getBytes(UTF_8);
+
+        aValue.write(payload, 0, payload.length);
+
+        return aValue.toByteArray();
+    }
+
+    private void writeVarint(ByteArrayOutputStream aValue, long aVarint) {
+        long varint = aVarint;
+
+        while ((varint & ~0x7fL) != 0) {
+            aValue.write((int) ((varint & 0x7f) | 0x80));
+
+            varint >>>= 7;
+        }
+
+        aValue.write((int) varint);
+    }
+}
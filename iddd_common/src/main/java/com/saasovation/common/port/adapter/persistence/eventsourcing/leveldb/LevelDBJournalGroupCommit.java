@@ -0,0 +1,338 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.WriteOptions;
+
+import com.saasovation.common.AssertionConcern;
+import com.saasovation.common.event.sourcing.EventStoreAppendException;
+import com.saasovation.common.event.sourcing.EventStoreException;
+import com.saasovation.common.event.sourcing.EventStoreVersionException;
+
+/**
+ * I coalesce the appends of concurrent callers into a single LevelDB
+ * WriteBatch. Each caller enqueues its entries and then awaits the
+ * batch holding them being written. A batch is written when it is full,
+ * or when no further append arrives within the linger time of the first.
+ * Since only my thread allocates journal sequences, the journal is
+ * written in sequence order. An append whose predecessor in its stream
+ * failed to be written is itself failed, so a stream never has a gap.
+ *
+ * @author Vaughn Vernon
+ */
+public class LevelDBJournalGroupCommit extends AssertionConcern implements Runnable {
+
+    private DB database;
+    private LevelDBJournal journal;
+    private long maximumLingerMillis;
+    private int maximumBatchSize;
+    private BlockingQueue<PendingAppend> pendingAppends;
+    private boolean running;
+    private boolean sync;
+    private Thread thread;
+
+    public LevelDBJournalGroupCommit(
+            LevelDBJournal aJournal,
+            DB aDatabase,
+            int aMaximumBatchSize,
+            long aMaximumLingerMillis,
+            boolean aSync) {
+
+        super();
+
+        this.setDatabase(aDatabase);
+        this.setJournal(aJournal);
+        this.setMaximumBatchSize(aMaximumBatchSize);
+        this.setMaximumLingerMillis(aMaximumLingerMillis);
+        this.setPendingAppends(new LinkedBlockingQueue<PendingAppend>());
+        this.setSync(aSync);
+    }
+
+    public PendingAppend enqueue(LoggableJournalEntry[] aJournalEntries) {
+        PendingAppend pendingAppend = new PendingAppend(aJournalEntries);
+
+        synchronized (this) {
+            if (!this.isRunning()) {
+                throw new EventStoreAppendException(
+                        "Could not append to journal because: group commit is not running.");
+            }
+
+            this.pendingAppends().add(pendingAppend);
+        }
+
+        return pendingAppend;
+    }
+
+    public boolean isSync() {
+        return this.sync;
+    }
+
+    public int maximumBatchSize() {
+        return this.maximumBatchSize;
+    }
+
+    public long maximumLingerMillis() {
+        return this.maximumLingerMillis;
+    }
+
+    @Override
+    public void run() {
+        List<PendingAppend> group = new ArrayList<PendingAppend>();
+
+        while (this.isRunning() || !this.pendingAppends().isEmpty()) {
+            try {
+                PendingAppend pendingAppend =
+                        this.pendingAppends().poll(100L, TimeUnit.MILLISECONDS);
+
+                if (pendingAppend != null) {
+                    group.add(pendingAppend);
+
+                    this.gatherGroup(group);
+
+                    this.commit(group);
+
+                    group.clear();
+                }
+
+            } catch (InterruptedException e) {
+                // stop() waits for the queue to drain
+            }
+        }
+    }
+
+    public synchronized void start() {
+        if (!this.isRunning()) {
+            this.setRunning(true);
+
+            this.thread = new Thread(this, "LevelDBJournalGroupCommit");
+
+            this.thread.setDaemon(true);
+
+            this.thread.start();
+        }
+    }
+
+    public void stop() {
+        Thread thread = null;
+
+        synchronized (this) {
+            this.setRunning(false);
+
+            thread = this.thread;
+
+            this.thread = null;
+        }
+
+        if (thread != null) {
+            try {
+                thread.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private void commit(List<PendingAppend> aGroup) {
+        Throwable failure = null;
+
+        List<PendingAppend> batched = new ArrayList<PendingAppend>();
+
+        Set<String> batchedReferenceKeys = new HashSet<String>();
+
+        WriteBatch batch = this.database().createWriteBatch();
+
+        try {
+            for (PendingAppend pendingAppend : aGroup) {
+                LoggableJournalEntry[] journalEntries = pendingAppend.journalEntries();
+
+                if (this.followsWrittenEntry(journalEntries[0], batchedReferenceKeys)) {
+                    this.journal().batchEntries(batch, journalEntries);
+
+                    for (LoggableJournalEntry journalEntry : journalEntries) {
+                        batchedReferenceKeys.add(journalEntry.referenceKey());
+                    }
+
+                    batched.add(pendingAppend);
+
+                } else {
+                    pendingAppend.complete(new EventStoreVersionException(
+                            "Journal concurrency violation: "
+                            + journalEntries[0].referenceKey()
+                            + " follows an entry that was not written to: "
+                            + journalEntries[0].primaryResourceName()));
+                }
+            }
+
+            this.database().write(batch, new WriteOptions().sync(this.isSync()));
+
+        } catch (Throwable t) {
+            failure = t;
+        } finally {
+            try {
+                batch.close();
+            } catch (Throwable t) {
+                // ignore
+            }
+        }
+
+        for (PendingAppend pendingAppend : batched) {
+            pendingAppend.complete(failure);
+        }
+    }
+
+    private boolean followsWrittenEntry(
+            LoggableJournalEntry aJournalEntry,
+            Set<String> aBatchedReferenceKeys) {
+
+        // the stream's lock was released before the previous append
+        // was written, so it may have failed after this one was queued
+
+        String previousReferenceKey = aJournalEntry.previousReferenceKey();
+
+        return previousReferenceKey == null
+                || aBatchedReferenceKeys.contains(previousReferenceKey)
+                || this.database().get(previousReferenceKey.getBytes()) != null;
+    }
+
+    private void gatherGroup(List<PendingAppend> aGroup) throws InterruptedException {
+        long lingerDeadline =
+                System.currentTimeMillis() + this.maximumLingerMillis();
+
+        boolean done = false;
+
+        while (!done && aGroup.size() < this.maximumBatchSize()) {
+            long linger = lingerDeadline - System.currentTimeMillis();
+
+            PendingAppend pendingAppend = linger > 0 ?
+                    this.pendingAppends().poll(linger, TimeUnit.MILLISECONDS) :
+                    this.pendingAppends().poll();
+
+            if (pendingAppend != null) {
+                aGroup.add(pendingAppend);
+            } else {
+                done = true;
+            }
+        }
+    }
+
+    private DB database() {
+        return this.database;
+    }
+
+    private void setDatabase(DB aDatabase) {
+        this.assertArgumentNotNull(aDatabase, "The database must be provided.");
+
+        this.database = aDatabase;
+    }
+
+    private LevelDBJournal journal() {
+        return this.journal;
+    }
+
+    private void setJournal(LevelDBJournal aJournal) {
+        this.assertArgumentNotNull(aJournal, "The journal must be provided.");
+
+        this.journal = aJournal;
+    }
+
+    private void setMaximumBatchSize(int aMaximumBatchSize) {
+        this.assertArgumentTrue(aMaximumBatchSize > 0, "The maximum batch size must be greater than zero.");
+
+        this.maximumBatchSize = aMaximumBatchSize;
+    }
+
+    private void setMaximumLingerMillis(long aMaximumLingerMillis) {
+        this.assertArgumentTrue(aMaximumLingerMillis >= 0, "The maximum linger time must not be negative.");
+
+        this.maximumLingerMillis = aMaximumLingerMillis;
+    }
+
+    private BlockingQueue<PendingAppend> pendingAppends() {
+        return this.pendingAppends;
+    }
+
+    private void setPendingAppends(BlockingQueue<PendingAppend> aPendingAppends) {
+        this.pendingAppends = aPendingAppends;
+    }
+
+    private synchronized boolean isRunning() {
+        return this.running;
+    }
+
+    private synchronized void setRunning(boolean aRunning) {
+        this.running = aRunning;
+    }
+
+    private void setSync(boolean aSync) {
+        this.sync = aSync;
+    }
+
+    public static class PendingAppend {
+
+        private CountDownLatch completed;
+        private Throwable failure;
+        private LoggableJournalEntry[] journalEntries;
+
+        PendingAppend(LoggableJournalEntry[] aJournalEntries) {
+            super();
+
+            this.completed = new CountDownLatch(1);
+            this.journalEntries = aJournalEntries;
+        }
+
+        public void await() {
+            try {
+                this.completed.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+
+                throw new EventStoreAppendException(
+                        "Could not await journal append because: "
+                                + "interrupted; the entries may still be written.",
+                        e);
+            }
+
+            if (this.failure instanceof EventStoreException) {
+                throw (EventStoreException) this.failure;
+            } else if (this.failure != null) {
+                throw new EventStoreAppendException(
+                        "Could not append to journal because: "
+                                + this.failure.getMessage(),
+                        this.failure);
+            }
+        }
+
+        void complete(Throwable aFailure) {
+            this.failure = aFailure;
+
+            this.completed.countDown();
+        }
+
+        LoggableJournalEntry[] journalEntries() {
+            return this.journalEntries;
+        }
+    }
+}
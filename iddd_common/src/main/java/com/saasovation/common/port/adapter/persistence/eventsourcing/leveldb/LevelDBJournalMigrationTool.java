@@ -0,0 +1,222 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.io.File;
+import java.util.Map.Entry;
+
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.WriteBatch;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+
+/**
+ * I migrate a LevelDB journal from the original key layout, where
+ * journal sequences and stream versions were not padded and stream
+ * references held only the journal sequence, to the fixed-width key
+ * layout where stream references carry their entries. I am safe to
+ * run more than once, and may be run offline using main().
+ *
+ * @author Vaughn Vernon
+ */
+public class LevelDBJournalMigrationTool {
+
+    private static final int ENTRIES_PER_BATCH = 1000;
+
+    // original journal keys have no leading zeros, and therefore
+    // all sort after the zero padded keys and the saved sequence
+
+    private static final byte[] ORIGINAL_JOURNAL_KEYS_START =
+            (JournalKeyProvider.ES_JOURNAL_PREFIX_KEY+"1").getBytes();
+
+    private DB database;
+    private long migratedEntries;
+
+    public static void main(String[] anArguments) throws Exception {
+        if (anArguments.length != 1) {
+            System.out.println("Usage: LevelDBJournalMigrationTool <database-path>");
+
+            return;
+        }
+
+        DB database =
+                new Iq80DBFactory().open(
+                        new File(anArguments[0]),
+                        new Options());
+
+        try {
+            new LevelDBJournalMigrationTool(database).migrateDatabase();
+        } finally {
+            database.close();
+        }
+    }
+
+    public LevelDBJournalMigrationTool(DB aDatabase) {
+        super();
+
+        this.setDatabase(aDatabase);
+    }
+
+    public long migratedEntries() {
+        return this.migratedEntries;
+    }
+
+    public void migrateDatabase() {
+
+        if (!this.requiresMigration()) {
+            return;
+        }
+
+        System.out.println("MIGRATING EVENT JOURNAL...");
+
+        long migratedEntries = 0;
+
+        DBIterator iterator = this.database().iterator();
+
+        WriteBatch batch = this.database().createWriteBatch();
+
+        try {
+            iterator.seek(ORIGINAL_JOURNAL_KEYS_START);
+
+            boolean done = false;
+
+            while (!done && iterator.hasNext()) {
+                Entry<byte[],byte[]> entry = iterator.next();
+
+                String journalKey = new String(entry.getKey());
+
+                if (!journalKey.startsWith(JournalKeyProvider.ES_JOURNAL_PREFIX_KEY)) {
+                    done = true;
+
+                } else if (this.isOriginalJournalKey(journalKey)) {
+
+                    this.migrateEntry(batch, journalKey, new String(entry.getValue()));
+
+                    if (++migratedEntries % ENTRIES_PER_BATCH == 0) {
+                        this.database().write(batch);
+
+                        this.close(batch);
+
+                        batch = this.database().createWriteBatch();
+                    }
+                }
+            }
+
+            this.database().write(batch);
+
+        } finally {
+            this.close(batch);
+
+            try {
+                iterator.close();
+            } catch (Throwable t) {
+                // ignore
+            }
+        }
+
+        this.setMigratedEntries(migratedEntries);
+    }
+
+    private void close(WriteBatch aBatch) {
+        try {
+            aBatch.close();
+        } catch (Throwable t) {
+            // ignore
+        }
+    }
+
+    private DB database() {
+        return this.database;
+    }
+
+    private void setDatabase(DB aDatabase) {
+        this.database = aDatabase;
+    }
+
+    private boolean isOriginalJournalKey(String aJournalKey) {
+        String journalSequence =
+                aJournalKey.substring(JournalKeyProvider.ES_JOURNAL_PREFIX_KEY.length());
+
+        return journalSequence.length() != JournalKeyProvider.ES_JOURNAL_SEQUENCE_WIDTH;
+    }
+
+    private void migrateEntry(WriteBatch aBatch, String anOriginalJournalKey, String aJournalValue) {
+
+        long journalSequence =
+                Long.parseLong(
+                        anOriginalJournalKey.substring(
+                                JournalKeyProvider.ES_JOURNAL_PREFIX_KEY.length()));
+
+        int delimiterIndex = aJournalValue.indexOf(LevelDBJournal.ES_METADATA_DELIMITER);
+
+        String originalReferenceKey = aJournalValue.substring(0, delimiterIndex);
+
+        String entry = aJournalValue.substring(delimiterIndex + 1);
+
+        int versionIndex =
+                originalReferenceKey.lastIndexOf(JournalKeyProvider.ES_KEY_DELIMITER) + 1;
+
+        String referenceKey =
+                originalReferenceKey.substring(0, versionIndex)
+                + JournalKeyProvider.streamVersionKeyPart(
+                        Integer.parseInt(originalReferenceKey.substring(versionIndex)));
+
+        aBatch.delete(anOriginalJournalKey.getBytes());
+        aBatch.delete(originalReferenceKey.getBytes());
+
+        aBatch.put(
+                JournalKeyProvider.journalKeyFrom(journalSequence).getBytes(),
+                (referenceKey + LevelDBJournal.ES_METADATA_DELIMITER + entry).getBytes());
+
+        aBatch.put(
+                referenceKey.getBytes(),
+                (journalSequence + LevelDBJournal.ES_METADATA_DELIMITER + entry).getBytes());
+    }
+
+    private void setMigratedEntries(long aMigratedEntries) {
+
+        System.out.println("MIGRATED JOURNAL ENTRIES: " + aMigratedEntries);
+
+        this.migratedEntries = aMigratedEntries;
+    }
+
+    private boolean requiresMigration() {
+        boolean requiresMigration = false;
+
+        DBIterator iterator = this.database().iterator();
+
+        try {
+            iterator.seek(ORIGINAL_JOURNAL_KEYS_START);
+
+            if (iterator.hasNext()) {
+                String journalKey = new String(iterator.next().getKey());
+
+                requiresMigration =
+                        journalKey.startsWith(JournalKeyProvider.ES_JOURNAL_PREFIX_KEY)
+                        && this.isOriginalJournalKey(journalKey);
+            }
+
+        } finally {
+            try {
+                iterator.close();
+            } catch (Throwable t) {
+                // ignore
+            }
+        }
+
+        return requiresMigration;
+    }
+}
@@ -24,6 +24,7 @@ public class LevelDBJournalRepairTool {
 
     private static final int CONTIGUOUS_MISSING_KEY_SAFE_COUNT = 100000;
 
+    private LevelDBJournalEntryCodec codec;
     private DB database;
     private long lastConfirmedSequence;
 
@@ -31,6 +32,7 @@ public class LevelDBJournalRepairTool {
         super();
 
         this.setDatabase(aDatabase);
+        this.setCodec(new LevelDBJournalEntryCodec(new LevelDBJournalTypeRegistry(aDatabase)));
     }
 
     public long lastConfirmedSequence() {
@@ -52,8 +54,9 @@ public class LevelDBJournalRepairTool {
 
         for (long journalSequence = 1; !done; ++journalSequence) {
             byte[] journalKey =
-                    (JournalKeyProvider.ES_JOURNAL_PREFIX_KEY
-                    + journalSequence).getBytes();
+                    JournalKeyProvider
+                        .journalKeyFrom(journalSequence)
+                        .getBytes();
 
             byte[] rawJournalValue =
                     this.database()
@@ -73,12 +76,11 @@ public class LevelDBJournalRepairTool {
                     contiguousMissingKeys = 0;
 
                     LoggedJournalEntry loggedJournalEntry =
-                            new LoggedJournalEntry(
+                            this.codec().decodeJournalValue(
                                     journalSequence,
-                                    null,
-                                    new String(rawJournalValue));
+                                    rawJournalValue);
 
-                    String streamKey = loggedJournalEntry.nextMetadataValue();
+                    String streamKey = loggedJournalEntry.referenceKey();
 
                     WriteBatch batch = this.database().createWriteBatch();
 
@@ -113,6 +115,14 @@ public class LevelDBJournalRepairTool {
         this.setLastConfirmedSequence(lastContiguousConfirmedKey);
     }
 
+    private LevelDBJournalEntryCodec codec() {
+        return this.codec;
+    }
+
+    private void setCodec(LevelDBJournalEntryCodec aCodec) {
+        this.codec = aCodec;
+    }
+
     private DB database() {
         return this.database;
     }
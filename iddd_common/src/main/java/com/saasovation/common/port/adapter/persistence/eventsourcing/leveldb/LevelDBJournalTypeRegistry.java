@@ -0,0 +1,161 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.nio.charset.Charset;
+import java.util.Map;
+import java.util.Map.Entry;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.DBIterator;
+import org.iq80.leveldb.WriteOptions;
+
+import com.saasovation.common.event.sourcing.EventStoreException;
+
+/**
+ * I intern the type names of journal entries as small integer ids,
+ * so that an entry holds its type id rather than its type name. Each
+ * type is stored once, under its own key, the first time it is logged.
+ *
+ * @author Vaughn Vernon
+ */
+public class LevelDBJournalTypeRegistry {
+
+    protected static final String ES_TYPE_PREFIX_KEY = "ES_T:";
+
+    private static final Charset UTF_8 = Charset.forName("UTF-8");
+
+    private DB database;
+    private Map<String, Integer> typeIds;
+    private Map<Integer, String> typeNames;
+
+    public LevelDBJournalTypeRegistry(DB aDatabase) {
+        super();
+
+        this.setDatabase(aDatabase);
+        this.setTypeIds(new ConcurrentHashMap<String, Integer>());
+        this.setTypeNames(new ConcurrentHashMap<Integer, String>());
+
+        this.load();
+    }
+
+    public void clear() {
+        synchronized (this) {
+            this.typeIds().clear();
+            this.typeNames().clear();
+        }
+    }
+
+    public int typeIdOf(String aTypeName) {
+        Integer typeId = this.typeIds().get(aTypeName);
+
+        if (typeId == null) {
+            synchronized (this) {
+                typeId = this.typeIds().get(aTypeName);
+
+                if (typeId == null) {
+                    typeId = this.typeNames().size() + 1;
+
+                    // stored before any entry of the type is written
+
+                    this.database().put(
+                            this.typeKeyFrom(typeId).getBytes(),
+                            aTypeName.getBytes(UTF_8),
+                            new WriteOptions().sync(true));
+
+                    this.typeNames().put(typeId, aTypeName);
+                    this.typeIds().put(aTypeName, typeId);
+                }
+            }
+        }
+
+        return typeId;
+    }
+
+    public String typeNameOf(int aTypeId) {
+        String typeName = this.typeNames().get(aTypeId);
+
+        if (typeName == null) {
+            throw new EventStoreException("There is no journal type with id: " + aTypeId);
+        }
+
+        return typeName;
+    }
+
+    private DB database() {
+        return this.database;
+    }
+
+    private void setDatabase(DB aDatabase) {
+        this.database = aDatabase;
+    }
+
+    private void load() {
+        DBIterator iterator = this.database().iterator();
+
+        try {
+            iterator.seek(ES_TYPE_PREFIX_KEY.getBytes());
+
+            boolean done = false;
+
+            while (!done && iterator.hasNext()) {
+                Entry<byte[],byte[]> entry = iterator.next();
+
+                String typeKey = new String(entry.getKey());
+
+                if (typeKey.startsWith(ES_TYPE_PREFIX_KEY)) {
+                    int typeId = Integer.parseInt(typeKey.substring(ES_TYPE_PREFIX_KEY.length()));
+
+                    String typeName = new String(entry.getValue(), UTF_8);
+
+                    this.typeNames().put(typeId, typeName);
+                    this.typeIds().put(typeName, typeId);
+
+                } else {
+                    done = true;
+                }
+            }
+
+        } finally {
+            try {
+                iterator.close();
+            } catch (Throwable t) {
+                // ignore
+            }
+        }
+    }
+
+    private String typeKeyFrom(int aTypeId) {
+        return ES_TYPE_PREFIX_KEY
+                + JournalKeyProvider.fixedWidth(aTypeId, JournalKeyProvider.ES_STREAM_VERSION_WIDTH);
+    }
+
+    private Map<String, Integer> typeIds() {
+        return this.typeIds;
+    }
+
+    private void setTypeIds(Map<String, Integer> aTypeIds) {
+        this.typeIds = aTypeIds;
+    }
+
+    private Map<Integer, String> typeNames() {
+        return this.typeNames;
+    }
+
+    private void setTypeNames(Map<Integer, String> aTypeNames) {
+        this.typeNames = aTypeNames;
+    }
+}
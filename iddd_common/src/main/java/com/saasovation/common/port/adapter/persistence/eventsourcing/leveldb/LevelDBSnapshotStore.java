@@ -0,0 +1,142 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import com.saasovation.common.event.sourcing.EventStoreException;
+import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
+import com.saasovation.common.event.sourcing.SnapshotStore;
+import com.saasovation.common.port.adapter.persistence.leveldb.AbstractLevelDBRepository;
+import com.saasovation.common.port.adapter.persistence.leveldb.LevelDBKey;
+import com.saasovation.common.port.adapter.persistence.leveldb.LevelDBProvider;
+import com.saasovation.common.serializer.ObjectSerializer;
+
+/**
+ * I am a SnapshotStore for LevelDB. I keep only the most recent
+ * snapshot of each stream, in a database separate from the journal.
+ *
+ * @author Vaughn Vernon
+ */
+public class LevelDBSnapshotStore
+        extends AbstractLevelDBRepository
+        implements SnapshotStore {
+
+    private static final String ES_SNAPSHOT_PREFIX_KEY = "ES_S";
+
+    private static LevelDBSnapshotStore instance;
+
+    private ObjectSerializer serializer;
+
+    public static synchronized LevelDBSnapshotStore instance(String aDirectoryPath) {
+        if (instance == null) {
+            instance = new LevelDBSnapshotStore(aDirectoryPath);
+        }
+
+        return instance;
+    }
+
+    @Override
+    public void close() {
+        synchronized (LevelDBSnapshotStore.class) {
+            LevelDBProvider.instance().close(this.databasePath());
+
+            instance = null;
+        }
+    }
+
+    @Override
+    public void purge() {
+        LevelDBProvider.instance().purge(this.database());
+    }
+
+    @Override
+    public void save(Snapshot aSnapshot) {
+
+        LevelDBKey snapshotKey =
+                new LevelDBKey(ES_SNAPSHOT_PREFIX_KEY, aSnapshot.streamName());
+
+        try {
+            synchronized (LevelDBSnapshotStore.class) {
+                Snapshot existingSnapshot = this.snapshotOf(snapshotKey);
+
+                // never replace a snapshot with an older one
+
+                if (existingSnapshot == null ||
+                    existingSnapshot.streamVersion() < aSnapshot.streamVersion()) {
+
+                    String serializedSnapshot = this.serializer().serialize(aSnapshot);
+
+                    this.database().put(
+                            snapshotKey.keyAsBytes(),
+                            serializedSnapshot.getBytes());
+                }
+            }
+
+        } catch (Throwable t) {
+            throw new EventStoreException(
+                    "Cannot save snapshot for: "
+                        + aSnapshot.streamName()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        }
+    }
+
+    @Override
+    public Snapshot snapshotOf(EventStreamId anIdentity) {
+
+        LevelDBKey snapshotKey =
+                new LevelDBKey(ES_SNAPSHOT_PREFIX_KEY, anIdentity.streamName());
+
+        try {
+            return this.snapshotOf(snapshotKey);
+
+        } catch (Throwable t) {
+            throw new EventStoreException(
+                    "Cannot query snapshot for: "
+                        + anIdentity.streamName()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        }
+    }
+
+    private LevelDBSnapshotStore(String aDirectoryPath) {
+        super(aDirectoryPath);
+
+        this.setSerializer(ObjectSerializer.instance());
+    }
+
+    private ObjectSerializer serializer() {
+        return this.serializer;
+    }
+
+    private void setSerializer(ObjectSerializer aSerializer) {
+        this.serializer = aSerializer;
+    }
+
+    private Snapshot snapshotOf(LevelDBKey aSnapshotKey) {
+        Snapshot snapshot = null;
+
+        byte[] serializedSnapshot = this.database().get(aSnapshotKey.keyAsBytes());
+
+        if (serializedSnapshot != null) {
+            snapshot = this.serializer().deserialize(new String(serializedSnapshot), Snapshot.class);
+        }
+
+        return snapshot;
+    }
+}
@@ -16,22 +16,32 @@ package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
 
 public class LoggableJournalEntry {
 
+    private String previousReferenceKey;
     private String primaryResourceName;
     private String referenceKey;
+    private String typeName;
     private String value;
 
     public LoggableJournalEntry(
             String aValue,
+            String aTypeName,
             String aReferenceKey,
+            String aPreviousReferenceKey,
             String aPrimaryResourceName) {
 
         super();
 
+        this.setPreviousReferenceKey(aPreviousReferenceKey);
         this.setPrimaryResourceName(aPrimaryResourceName);
         this.setReferenceKey(aReferenceKey);
+        this.setTypeName(aTypeName);
         this.setValue(aValue);
     }
 
+    public String previousReferenceKey() {
+        return this.previousReferenceKey; // null when first of resource
+    }
+
     public String primaryResourceName() {
         return this.primaryResourceName;
     }
@@ -40,10 +50,18 @@ public class LoggableJournalEntry {
         return this.referenceKey;
     }
 
+    public String typeName() {
+        return this.typeName;
+    }
+
     public String value() {
         return this.value;
     }
 
+    private void setPreviousReferenceKey(String aPreviousReferenceKey) {
+        this.previousReferenceKey = aPreviousReferenceKey;
+    }
+
     private void setPrimaryResourceName(String aPrimaryResourceName) {
         this.primaryResourceName = aPrimaryResourceName;
     }
@@ -52,6 +70,10 @@ public class LoggableJournalEntry {
         this.referenceKey = aReferenceKey;
     }
 
+    private void setTypeName(String aTypeName) {
+        this.typeName = aTypeName;
+    }
+
     private void setValue(String aValue) {
         this.value = aValue;
     }
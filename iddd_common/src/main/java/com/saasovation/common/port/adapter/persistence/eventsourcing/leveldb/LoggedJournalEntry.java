@@ -16,71 +16,39 @@ package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
 
 public class LoggedJournalEntry {
 
-    private int currentMetadataIndex;
     private long journalSequence;
     private String referenceKey;
+    private String typeName;
     private String value;
 
     public LoggedJournalEntry(
             long aJournalSequence,
             String aReferenceKey,
+            String aTypeName,
             String aValue) {
 
         super();
 
-        this.setCurrentMetadataIndex(0);
         this.setJournalSequence(aJournalSequence);
         this.setReferenceKey(aReferenceKey);
+        this.setTypeName(aTypeName);
         this.setValue(aValue);
     }
 
-    public void discardNextMetadataValue() {
-        this.nextMetadataValue();
-    }
-
     public long journalSequence() {
         return this.journalSequence;
     }
 
-    public String nextMetadataValue() {
-        String metadataValue = null;
-
-        String value = this.value();
-
-        int nextIndex =
-                value.indexOf(
-                        LevelDBJournal.ES_METADATA_DELIMITER,
-                        0);
-
-        if (nextIndex != -1) {
-            metadataValue = value.substring(0, nextIndex);
-
-            this.setCurrentMetadataIndex(nextIndex + 1);
-        }
-
-        return metadataValue;
-    }
-
     public String referenceKey() {
         return this.referenceKey;
     }
 
-    public String value() {
-        int index = this.currentMetadataIndex();
-
-        this.setValue(this.value.substring(index));
-
-        this.setCurrentMetadataIndex(0);
-
-        return this.value;
-    }
-
-    private int currentMetadataIndex() {
-        return this.currentMetadataIndex;
+    public String typeName() {
+        return this.typeName;
     }
 
-    private void setCurrentMetadataIndex(int anIndex) {
-        this.currentMetadataIndex = anIndex;
+    public String value() {
+        return this.value;
     }
 
     private void setJournalSequence(long aJournalSequence) {
@@ -91,6 +59,10 @@ public class LoggedJournalEntry {
         this.referenceKey = aReferenceKey;
     }
 
+    private void setTypeName(String aTypeName) {
+        this.typeName = aTypeName;
+    }
+
     private void setValue(String aValue) {
         this.value = aValue;
     }
@@ -0,0 +1,88 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.util.Map.Entry;
+
+import org.iq80.leveldb.DBIterator;
+
+/**
+ * I read the entries referenced by a key provider lazily, from a
+ * single iterator positioned at the first reference key, stopping
+ * at the first missing reference.
+ *
+ * @author Vaughn Vernon
+ */
+public class LoggedJournalEntryCursor {
+
+    private LevelDBJournalEntryCodec codec;
+    private boolean done;
+    private DBIterator iterator;
+    private String referenceKey;
+    private JournalKeyProvider referenceKeyProvider;
+
+    public void close() {
+        this.done = true;
+
+        try {
+            this.iterator.close();
+        } catch (Throwable t) {
+            // ignore
+        }
+    }
+
+    public LoggedJournalEntry nextEntry() {
+        LoggedJournalEntry loggedJournalEntry = null;
+
+        while (loggedJournalEntry == null && !this.done && this.iterator.hasNext()) {
+            Entry<byte[],byte[]> entry = this.iterator.next();
+
+            int comparison = this.referenceKey.compareTo(new String(entry.getKey()));
+
+            if (comparison == 0) {
+                loggedJournalEntry =
+                        this.codec.decodeReferenceValue(
+                                this.referenceKey,
+                                entry.getValue());
+
+                this.referenceKey = this.referenceKeyProvider.nextReferenceKey();
+
+            } else if (comparison < 0) {
+                // the next version is missing, or the stream has ended
+                this.done = true;
+            }
+
+            // otherwise a stream whose name extends this stream's
+            // name sorts in between its versions; skip over it
+        }
+
+        return loggedJournalEntry;
+    }
+
+    protected LoggedJournalEntryCursor(
+            DBIterator anIterator,
+            LevelDBJournalEntryCodec aCodec,
+            JournalKeyProvider aReferenceKeyProvider) {
+
+        super();
+
+        this.codec = aCodec;
+        this.iterator = anIterator;
+        this.referenceKeyProvider = aReferenceKeyProvider;
+        this.referenceKey = aReferenceKeyProvider.nextReferenceKey();
+
+        this.iterator.seek(this.referenceKey.getBytes());
+    }
+}
@@ -29,17 +29,23 @@ import org.springframework.context.ApplicationContextAware;
 
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.event.EventSerializer;
+import com.saasovation.common.event.EventTypeRegistry;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventNotifiable;
 import com.saasovation.common.event.sourcing.EventStore;
 import com.saasovation.common.event.sourcing.EventStoreAppendException;
 import com.saasovation.common.event.sourcing.EventStoreException;
 import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.port.adapter.persistence.eventsourcing.AbstractEventStreamCursor;
 import com.saasovation.common.port.adapter.persistence.eventsourcing.DefaultEventStream;
 
 public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware {
 
+    private static final int MYSQL_DUPLICATE_KEY_ERROR = 1062;
+    private static final String MYSQL_DUPLICATE_KEY_SQL_STATE = "23000";
+
     private static MySQLJDBCEventStore instance;
 
     private DataSource collaborationDataSource;
@@ -66,29 +72,51 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
 
         Connection connection = this.connection();
 
+        PreparedStatement statement = null;
+
         try {
+            statement =
+                    connection
+                        .prepareStatement(
+                                "INSERT INTO tbl_es_event_store VALUES(?, ?, ?, ?, ?)");
+
             int index = 0;
 
             for (DomainEvent event : anEvents) {
-                this.appendEventStore(connection, aStartingIdentity, index++, event);
+                this.appendEventStore(statement, aStartingIdentity, index++, event);
             }
 
+            statement.executeBatch();
+
             connection.commit();
 
             this.notifyDispatchableEvents();
 
         } catch (Throwable t1) {
             try {
-                this.connection().rollback();
+                connection.rollback();
             } catch (Throwable t2) {
                 // ignore
             }
 
+            if (this.isStreamVersionConflict(t1)) {
+                throw new EventStoreAppendException(
+                        "Could not append to event stream: "
+                                + aStartingIdentity.streamName()
+                                + " at version: "
+                                + aStartingIdentity.streamVersion()
+                                + " because: "
+                                + t1.getMessage(),
+                        t1);
+            }
+
             throw new EventStoreAppendException(
                     "Could not append to event store because: "
                             + t1.getMessage(),
                     t1);
         } finally {
+            this.close(statement);
+
             try {
                 connection.close();
             } catch (SQLException e) {
@@ -104,20 +132,29 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
 
     @Override
     public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent) {
+        return this.eventsSince(aLastReceivedEvent, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public List<DispatchableDomainEvent> eventsSince(long aLastReceivedEvent, int aMaximumCount) {
 
         Connection connection = this.connection();
 
+        PreparedStatement statement = null;
+
         ResultSet result = null;
 
         try {
-            PreparedStatement statement =
+            statement =
                     connection
                         .prepareStatement(
-                                "SELECT event_id, event_body, event_type FROM tbl_es_event_store "
+                                "SELECT event_id, event_body, event_type, stream_name FROM tbl_es_event_store "
                                 + "WHERE event_id > ? "
-                                + "ORDER BY event_id");
+                                + "ORDER BY event_id "
+                                + "LIMIT ?");
 
             statement.setLong(1, aLastReceivedEvent);
+            statement.setInt(2, Math.max(0, aMaximumCount));
 
             result = statement.executeQuery();
 
@@ -134,6 +171,66 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
                         + " because: "
                         + t.getMessage(),
                     t);
+        } finally {
+            if (result != null) {
+                try {
+                    result.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+            }
+            this.close(statement);
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
+    @Override
+    public EventStream eventStreamAfter(EventStreamId anIdentity) {
+
+        Connection connection = this.connection();
+
+        ResultSet result = null;
+
+        try {
+            PreparedStatement statement =
+                    connection
+                        .prepareStatement(
+                                "SELECT stream_version, event_type, event_body FROM tbl_es_event_store "
+                                + "WHERE stream_name = ? AND stream_version > ? "
+                                + "ORDER BY stream_version");
+
+            statement.setString(1, anIdentity.streamName());
+            statement.setInt(2, anIdentity.streamVersion());
+
+            result = statement.executeQuery();
+
+            EventStream eventStream = this.buildEventStream(result);
+
+            if (eventStream.version() == 0) {
+                eventStream =
+                        new DefaultEventStream(
+                                eventStream.events(),
+                                anIdentity.streamVersion());
+            }
+
+            connection.commit();
+
+            return eventStream;
+
+        } catch (Throwable t) {
+            throw new EventStoreException(
+                    "Cannot query event stream for: "
+                        + anIdentity.streamName()
+                        + " after version: "
+                        + anIdentity.streamVersion()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
         } finally {
             if (result != null) {
                 try {
@@ -150,6 +247,55 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
         }
     }
 
+    @Override
+    public EventStreamCursor eventStreamCursorFrom(EventStreamId anIdentity) {
+
+        Connection connection = this.connection();
+
+        PreparedStatement statement = null;
+
+        try {
+            statement =
+                    connection
+                        .prepareStatement(
+                                "SELECT stream_version, event_type, event_body FROM tbl_es_event_store "
+                                + "WHERE stream_name = ? AND stream_version >= ? "
+                                + "ORDER BY stream_version",
+                                ResultSet.TYPE_FORWARD_ONLY,
+                                ResultSet.CONCUR_READ_ONLY);
+
+            // the MySQL driver streams rows one at a time only
+            // for a forward only, read only, minimum fetch size
+
+            statement.setFetchSize(Integer.MIN_VALUE);
+
+            statement.setString(1, anIdentity.streamName());
+            statement.setInt(2, anIdentity.streamVersion());
+
+            ResultSet result = statement.executeQuery();
+
+            return new MySQLEventStreamCursor(anIdentity, connection, statement, result);
+
+        } catch (Throwable t) {
+            this.close(statement);
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+
+            throw new EventStoreException(
+                    "Cannot query event stream for: "
+                        + anIdentity.streamName()
+                        + " from version: "
+                        + anIdentity.streamVersion()
+                        + " because: "
+                        + t.getMessage(),
+                    t);
+        }
+    }
+
     @Override
     public EventStream eventStreamSince(EventStreamId anIdentity) {
 
@@ -255,6 +401,56 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
         }
     }
 
+    @Override
+    public long lastEventId() {
+
+        Connection connection = this.connection();
+
+        PreparedStatement statement = null;
+
+        ResultSet result = null;
+
+        try {
+            statement =
+                    connection
+                        .prepareStatement(
+                                "SELECT MAX(event_id) FROM tbl_es_event_store");
+
+            result = statement.executeQuery();
+
+            long lastEventId = 0;
+
+            if (result.next()) {
+                lastEventId = result.getLong(1);
+            }
+
+            connection.commit();
+
+            return lastEventId;
+
+        } catch (Throwable t) {
+            throw new EventStoreException(
+                    "Cannot query last event id because: "
+                        + t.getMessage(),
+                    t);
+        } finally {
+            if (result != null) {
+                try {
+                    result.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+            }
+            this.close(statement);
+
+            try {
+                connection.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
     @Override
     public void purge() {
         Connection connection = this.connection();
@@ -284,27 +480,21 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
     }
 
     private void appendEventStore(
-            Connection aConnection,
+            PreparedStatement aStatement,
             EventStreamId anIdentity,
             int anIndex,
             DomainEvent aDomainEvent)
     throws Exception {
 
-        PreparedStatement statement =
-                aConnection
-                    .prepareStatement(
-                            "INSERT INTO tbl_es_event_store VALUES(?, ?, ?, ?, ?)");
-
-        statement.setLong(1, 0);
-        statement.setString(2, this.serializer().serialize(aDomainEvent));
-        statement.setString(3, aDomainEvent.getClass().getName());
-        statement.setString(4, anIdentity.streamName());
-        statement.setInt(5, anIdentity.streamVersion() + anIndex);
+        aStatement.setLong(1, 0);
+        aStatement.setString(2, this.serializer().serialize(aDomainEvent));
+        aStatement.setString(3, aDomainEvent.getClass().getName());
+        aStatement.setString(4, anIdentity.streamName());
+        aStatement.setInt(5, anIdentity.streamVersion() + anIndex);
 
-        statement.executeUpdate();
+        aStatement.addBatch();
     }
 
-    @SuppressWarnings("unchecked")
     private List<DispatchableDomainEvent> buildEventSequence(ResultSet aResultSet) throws Exception {
 
         List<DispatchableDomainEvent> events = new ArrayList<DispatchableDomainEvent>();
@@ -312,21 +502,22 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
         while (aResultSet.next()) {
             long eventId = aResultSet.getLong("event_id");
 
+            String streamName = aResultSet.getString("stream_name");
+
             String eventClassName = aResultSet.getString("event_type");
 
             String eventBody = aResultSet.getString("event_body");
 
-            Class<DomainEvent> eventClass = (Class<DomainEvent>) Class.forName(eventClassName);
+            Class<DomainEvent> eventClass = EventTypeRegistry.instance().eventTypeOf(eventClassName);
 
             DomainEvent domainEvent = this.serializer().deserialize(eventBody, eventClass);
 
-            events.add(new DispatchableDomainEvent(eventId, domainEvent));
+            events.add(new DispatchableDomainEvent(eventId, streamName, domainEvent));
         }
 
         return events;
     }
 
-    @SuppressWarnings("unchecked")
     private EventStream buildEventStream(ResultSet aResultSet) throws Exception {
 
         List<DomainEvent> events = new ArrayList<DomainEvent>();
@@ -340,7 +531,7 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
 
             String eventBody = aResultSet.getString("event_body");
 
-            Class<DomainEvent> eventClass = (Class<DomainEvent>) Class.forName(eventClassName);
+            Class<DomainEvent> eventClass = EventTypeRegistry.instance().eventTypeOf(eventClassName);
 
             DomainEvent domainEvent = this.serializer().deserialize(eventBody, eventClass);
 
@@ -358,6 +549,16 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
         this.collaborationDataSource = aDataSource;
     }
 
+    private void close(PreparedStatement aStatement) {
+        if (aStatement != null) {
+            try {
+                aStatement.close();
+            } catch (SQLException e) {
+                // ignore
+            }
+        }
+    }
+
     private Connection connection() {
         Connection connection = null;
 
@@ -374,6 +575,35 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
         return this.eventNotifiable;
     }
 
+    private boolean isStreamVersionConflict(Throwable aThrowable) {
+
+        // the (stream_name, stream_version) unique key is violated
+        // when another writer has already appended at this version;
+        // since event_id is generated, it is the only key that can
+        // be duplicated, possibly reported chained from a
+        // BatchUpdateException
+
+        Throwable cause = aThrowable;
+
+        while (cause != null) {
+            if (cause instanceof SQLException) {
+                for (SQLException next = (SQLException) cause;
+                        next != null;
+                        next = next.getNextException()) {
+
+                    if (next.getErrorCode() == MYSQL_DUPLICATE_KEY_ERROR
+                            && MYSQL_DUPLICATE_KEY_SQL_STATE.equals(next.getSQLState())) {
+                        return true;
+                    }
+                }
+            }
+
+            cause = cause.getCause();
+        }
+
+        return false;
+    }
+
     private void notifyDispatchableEvents() {
         EventNotifiable eventNotifiable = this.eventNotifiable();
 
@@ -397,4 +627,70 @@ public class MySQLJDBCEventStore implements EventStore, ApplicationContextAware
         instance = (MySQLJDBCEventStore)
                 anApplicationContext.getBean("mysqlJdbcEventStore");
     }
+
+    private class MySQLEventStreamCursor
+            extends AbstractEventStreamCursor {
+
+        private Connection connection;
+        private ResultSet result;
+        private PreparedStatement statement;
+
+        public MySQLEventStreamCursor(
+                EventStreamId anIdentity,
+                Connection aConnection,
+                PreparedStatement aStatement,
+                ResultSet aResult) {
+
+            super(anIdentity);
+
+            this.connection = aConnection;
+            this.result = aResult;
+            this.statement = aStatement;
+        }
+
+        @Override
+        public void close() {
+            if (this.connection != null) {
+                try {
+                    this.result.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+
+                MySQLJDBCEventStore.this.close(this.statement);
+
+                try {
+                    this.connection.commit();
+                } catch (SQLException e) {
+                    // ignore
+                }
+
+                try {
+                    this.connection.close();
+                } catch (SQLException e) {
+                    // ignore
+                }
+
+                this.connection = null;
+            }
+        }
+
+        @Override
+        protected DomainEvent readNextEvent() throws Exception {
+            DomainEvent domainEvent = null;
+
+            if (this.connection != null && this.result.next()) {
+                String eventClassName = this.result.getString("event_type");
+
+                String eventBody = this.result.getString("event_body");
+
+                Class<DomainEvent> eventClass =
+                        EventTypeRegistry.instance().eventTypeOf(eventClassName);
+
+                domainEvent = serializer().deserialize(eventBody, eventClass);
+            }
+
+            return domainEvent;
+        }
+    }
 }
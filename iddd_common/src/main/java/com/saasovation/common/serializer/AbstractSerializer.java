@@ -26,6 +26,7 @@ import com.google.gson.JsonParseException;
 import com.google.gson.JsonPrimitive;
 import com.google.gson.JsonSerializationContext;
 import com.google.gson.JsonSerializer;
+import com.google.gson.TypeAdapterFactory;
 
 public class AbstractSerializer {
 
@@ -36,14 +37,22 @@ public class AbstractSerializer {
     }
 
     protected AbstractSerializer(boolean isPretty, boolean isCompact) {
+        this(isPretty, isCompact, null);
+    }
+
+    protected AbstractSerializer(
+            boolean isPretty,
+            boolean isCompact,
+            TypeAdapterFactory aTypeAdapterFactory) {
+
         super();
 
         if (isPretty && isCompact) {
-            this.buildForPrettyCompact();
+            this.buildForPrettyCompact(aTypeAdapterFactory);
         } else if (isCompact) {
-            this.buildForCompact();
+            this.buildForCompact(aTypeAdapterFactory);
         } else {
-            this.build();
+            this.build(aTypeAdapterFactory);
         }
     }
 
@@ -51,19 +60,27 @@ public class AbstractSerializer {
         return this.gson;
     }
 
-    private void build() {
-        this.gson = new GsonBuilder().registerTypeAdapter(Date.class, new DateSerializer())
-                .registerTypeAdapter(Date.class, new DateDeserializer()).serializeNulls().create();
+    private void build(TypeAdapterFactory aTypeAdapterFactory) {
+        this.gson = this.gsonBuilder(aTypeAdapterFactory).serializeNulls().create();
+    }
+
+    private void buildForCompact(TypeAdapterFactory aTypeAdapterFactory) {
+        this.gson = this.gsonBuilder(aTypeAdapterFactory).create();
     }
 
-    private void buildForCompact() {
-        this.gson = new GsonBuilder().registerTypeAdapter(Date.class, new DateSerializer())
-                .registerTypeAdapter(Date.class, new DateDeserializer()).create();
+    private void buildForPrettyCompact(TypeAdapterFactory aTypeAdapterFactory) {
+        this.gson = this.gsonBuilder(aTypeAdapterFactory).setPrettyPrinting().create();
     }
 
-    private void buildForPrettyCompact() {
-        this.gson = new GsonBuilder().registerTypeAdapter(Date.class, new DateSerializer())
-                .registerTypeAdapter(Date.class, new DateDeserializer()).setPrettyPrinting().create();
+    private GsonBuilder gsonBuilder(TypeAdapterFactory aTypeAdapterFactory) {
+        GsonBuilder gsonBuilder = new GsonBuilder().registerTypeAdapter(Date.class, new DateSerializer())
+                .registerTypeAdapter(Date.class, new DateDeserializer());
+
+        if (aTypeAdapterFactory != null) {
+            gsonBuilder.registerTypeAdapterFactory(aTypeAdapterFactory);
+        }
+
+        return gsonBuilder;
     }
 
     private class DateSerializer implements JsonSerializer<Date> {
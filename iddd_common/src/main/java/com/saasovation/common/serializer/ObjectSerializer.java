@@ -16,6 +16,8 @@ package com.saasovation.common.serializer;
 
 import java.lang.reflect.Type;
 
+import com.saasovation.common.notification.NotificationTypeAdapterFactory;
+
 public class ObjectSerializer extends AbstractSerializer {
 
     private static ObjectSerializer eventSerializer;
@@ -33,7 +35,8 @@ public class ObjectSerializer extends AbstractSerializer {
     }
 
     public ObjectSerializer(boolean isPretty, boolean isCompact) {
-        super(isPretty, isCompact);
+        // representations may carry notifications, e.g. a notification log
+        super(isPretty, isCompact, new NotificationTypeAdapterFactory());
     }
 
     public <T extends Object> T deserialize(String aSerialization, final Class<T> aType) {
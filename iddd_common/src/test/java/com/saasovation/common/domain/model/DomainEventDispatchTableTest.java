@@ -0,0 +1,96 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.domain.model;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.saasovation.common.event.AnotherTestableDomainEvent;
+import com.saasovation.common.event.TestableDomainEvent;
+
+public class DomainEventDispatchTableTest extends TestCase {
+
+    public DomainEventDispatchTableTest() {
+        super();
+    }
+
+    public void testDispatchToHiddenMethod() throws Exception {
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10000; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        TestableEventSourcedRootEntity rootEntity =
+                new TestableEventSourcedRootEntity(events, events.size());
+
+        assertEquals(10000, rootEntity.count());
+        assertEquals(10000, rootEntity.lastId());
+        assertEquals("Name: 10000", rootEntity.lastName());
+        assertEquals(10000, rootEntity.unmutatedVersion());
+    }
+
+    public void testDispatchNotUnderstood() throws Exception {
+        DomainEventDispatchTable dispatchTable = new DomainEventDispatchTable("when");
+
+        try {
+            dispatchTable.dispatch(
+                    new TestableEventSourcedRootEntity(1, "Name: 1"),
+                    new AnotherTestableDomainEvent(1.0));
+
+            fail("Should have thrown an exception.");
+
+        } catch (IllegalArgumentException e) {
+            // good
+        }
+    }
+
+    public void testDispatchFailureRethrown() throws Exception {
+        DomainEventDispatchTable dispatchTable = new DomainEventDispatchTable("failWhen");
+
+        try {
+            dispatchTable.dispatch(this, new TestableDomainEvent(1, "Name: 1"));
+
+            fail("Should have thrown an exception.");
+
+        } catch (IllegalStateException e) {
+            assertEquals("Failed: 1", e.getMessage());
+        }
+    }
+
+    public void testDispatchCheckedFailureHasCause() throws Exception {
+        DomainEventDispatchTable dispatchTable = new DomainEventDispatchTable("failCheckedWhen");
+
+        try {
+            dispatchTable.dispatch(this, new TestableDomainEvent(1, "Name: 1"));
+
+            fail("Should have thrown an exception.");
+
+        } catch (RuntimeException e) {
+            assertTrue(e.getCause() instanceof Exception);
+            assertEquals("Failed: 1", e.getCause().getMessage());
+        }
+    }
+
+    protected void failWhen(TestableDomainEvent anEvent) {
+        throw new IllegalStateException("Failed: " + anEvent.id());
+    }
+
+    protected void failCheckedWhen(TestableDomainEvent anEvent) throws Exception {
+        throw new Exception("Failed: " + anEvent.id());
+    }
+}
@@ -0,0 +1,79 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.domain.model;
+
+import java.util.List;
+
+import com.saasovation.common.event.TestableDomainEvent;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
+
+public class TestableEventSourcedRootEntity extends EventSourcedRootEntity {
+
+    private int count;
+    private long lastId;
+    private String lastName;
+
+    public TestableEventSourcedRootEntity(long anId, String aName) {
+        this();
+
+        this.apply(new TestableDomainEvent(anId, aName));
+    }
+
+    public TestableEventSourcedRootEntity(List<DomainEvent> anEventStream, int aStreamVersion) {
+        super(anEventStream, aStreamVersion);
+    }
+
+    public TestableEventSourcedRootEntity(
+            TestableEventSourcedRootEntity aSnapshotState,
+            List<DomainEvent> anEventStream,
+            int aStreamVersion) {
+
+        super(aSnapshotState, anEventStream, aStreamVersion);
+    }
+
+    public TestableEventSourcedRootEntity(
+            TestableEventSourcedRootEntity aSnapshotState,
+            EventStreamCursor anEventStream) {
+
+        super(aSnapshotState, anEventStream);
+    }
+
+    public void change(long anId, String aName) {
+        this.apply(new TestableDomainEvent(anId, aName));
+    }
+
+    public int count() {
+        return this.count;
+    }
+
+    public long lastId() {
+        return this.lastId;
+    }
+
+    public String lastName() {
+        return this.lastName;
+    }
+
+    protected TestableEventSourcedRootEntity() {
+        super();
+    }
+
+    protected void when(TestableDomainEvent anEvent) {
+        this.count = this.count + 1;
+        this.lastId = anEvent.id();
+        this.lastName = anEvent.name();
+    }
+}
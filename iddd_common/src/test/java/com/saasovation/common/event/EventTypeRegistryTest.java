@@ -0,0 +1,64 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.event;
+
+import junit.framework.TestCase;
+
+public class EventTypeRegistryTest extends TestCase {
+
+    public EventTypeRegistryTest() {
+        super();
+    }
+
+    public void testEventTypeOf() throws Exception {
+        Class<TestableDomainEvent> eventType =
+                EventTypeRegistry
+                    .instance()
+                    .eventTypeOf(TestableDomainEvent.class.getName());
+
+        assertEquals(TestableDomainEvent.class, eventType);
+
+        assertSame(eventType, EventTypeRegistry.instance().eventTypeOf(TestableDomainEvent.class.getName()));
+    }
+
+    public void testEventTypeOfUnknownType() throws Exception {
+        try {
+            EventTypeRegistry.instance().eventTypeOf("com.saasovation.common.event.NoSuchEvent");
+
+            fail("Should have thrown an exception.");
+
+        } catch (IllegalStateException e) {
+            // good
+        }
+
+        try {
+            EventTypeRegistry.instance().eventTypeOf(String.class.getName());
+
+            fail("Should have thrown an exception.");
+
+        } catch (IllegalStateException e) {
+            // good
+        }
+    }
+
+    public void testRegisterDomainEventsIn() throws Exception {
+        int registered =
+                EventTypeRegistry
+                    .instance()
+                    .registerDomainEventsIn("com.saasovation.common.event");
+
+        assertTrue(registered > 0);
+    }
+}
@@ -0,0 +1,118 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.notification;
+
+import java.util.ArrayList;
+
+import junit.framework.TestCase;
+
+public class NotificationLogCacheTest extends TestCase {
+
+    private static final String RENDERED_FOR = "http://localhost:8081/";
+
+    public NotificationLogCacheTest() {
+        super();
+    }
+
+    public void testArchivedNotificationLogCached() throws Exception {
+        NotificationLogCache cache = new NotificationLogCache(10);
+
+        CachedNotificationLog cachedNotificationLog =
+                new CachedNotificationLog(RENDERED_FOR, "{\"id\":\"1,20\"}");
+
+        cache.cacheArchivedNotificationLog(this.notificationLogOf("1,20", true), cachedNotificationLog);
+        cache.cacheArchivedNotificationLog(this.notificationLogOf("21,40", false), cachedNotificationLog);
+
+        assertSame(cachedNotificationLog, cache.archivedNotificationLogOf(new NotificationLogId("1,20"), RENDERED_FOR));
+        assertNull(cache.archivedNotificationLogOf(new NotificationLogId("21,40"), RENDERED_FOR));
+        assertNull(cache.archivedNotificationLogOf(new NotificationLogId("1,20"), "http://elsewhere/"));
+
+        // appends never change an archived log
+        cache.invalidateCurrentNotificationLog();
+
+        assertSame(cachedNotificationLog, cache.archivedNotificationLogOf(new NotificationLogId("1,20"), RENDERED_FOR));
+    }
+
+    public void testArchivedNotificationLogsBounded() throws Exception {
+        NotificationLogCache cache = new NotificationLogCache(2);
+
+        for (int idx = 0; idx < 5; ++idx) {
+            String id = "" + (idx * 20 + 1) + "," + (idx * 20 + 20);
+
+            cache.cacheArchivedNotificationLog(
+                    this.notificationLogOf(id, true),
+                    new CachedNotificationLog(RENDERED_FOR, id));
+        }
+
+        assertEquals(2, cache.size());
+        assertNull(cache.archivedNotificationLogOf(new NotificationLogId("1,20"), RENDERED_FOR));
+        assertNotNull(cache.archivedNotificationLogOf(new NotificationLogId("81,100"), RENDERED_FOR));
+    }
+
+    public void testArchivedNotificationLogsBoundedByBytes() throws Exception {
+        NotificationLogCache cache = new NotificationLogCache(10, 25);
+
+        for (int idx = 0; idx < 5; ++idx) {
+            String id = "" + (idx * 20 + 1) + "," + (idx * 20 + 20);
+
+            cache.cacheArchivedNotificationLog(
+                    this.notificationLogOf(id, true),
+                    new CachedNotificationLog(RENDERED_FOR, "0123456789"));
+        }
+
+        assertEquals(2, cache.size());
+        assertEquals(20, cache.representationBytes());
+        assertNull(cache.archivedNotificationLogOf(new NotificationLogId("41,60"), RENDERED_FOR));
+        assertNotNull(cache.archivedNotificationLogOf(new NotificationLogId("61,80"), RENDERED_FOR));
+    }
+
+    public void testCurrentNotificationLogInvalidatedOnAppend() throws Exception {
+        NotificationLogCache cache = new NotificationLogCache(10);
+
+        CachedNotificationLog cachedNotificationLog =
+                new CachedNotificationLog(RENDERED_FOR, "{\"id\":\"21,40\"}");
+
+        long appendsBeforeQuery = cache.appends();
+
+        cache.invalidateCurrentNotificationLog();
+
+        // queried before the append, so possibly stale
+        cache.cacheCurrentNotificationLog(cachedNotificationLog, appendsBeforeQuery);
+
+        assertNull(cache.currentNotificationLog(RENDERED_FOR));
+
+        cache.cacheCurrentNotificationLog(cachedNotificationLog, cache.appends());
+
+        assertSame(cachedNotificationLog, cache.currentNotificationLog(RENDERED_FOR));
+
+        cache.invalidateCurrentNotificationLog();
+
+        assertNull(cache.currentNotificationLog(RENDERED_FOR));
+    }
+
+    public void testStrongETag() throws Exception {
+        CachedNotificationLog cachedNotificationLog1 = new CachedNotificationLog(RENDERED_FOR, "{\"id\":\"1,20\"}");
+        CachedNotificationLog cachedNotificationLog2 = new CachedNotificationLog(RENDERED_FOR, "{\"id\":\"1,20\"}");
+        CachedNotificationLog cachedNotificationLog3 = new CachedNotificationLog(RENDERED_FOR, "{\"id\":\"21,40\"}");
+
+        assertEquals(cachedNotificationLog1.eTag(), cachedNotificationLog2.eTag());
+        assertFalse(cachedNotificationLog1.eTag().equals(cachedNotificationLog3.eTag()));
+        assertEquals("{\"id\":\"1,20\"}", new String(cachedNotificationLog1.representation(), "UTF-8"));
+    }
+
+    private NotificationLog notificationLogOf(String anId, boolean anArchived) {
+        return new NotificationLog(anId, null, null, new ArrayList<Notification>(), anArchived);
+    }
+}
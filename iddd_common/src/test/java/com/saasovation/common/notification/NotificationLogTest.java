@@ -25,6 +25,29 @@ public class NotificationLogTest extends CommonTestCase {
         super();
     }
 
+    public void testBulkNotificationLogFromFactory() throws Exception {
+        EventStore eventStore = this.eventStore();
+        NotificationLogFactory factory = new NotificationLogFactory(eventStore, 20, 50);
+        NotificationLog log = factory.createNotificationLog(NotificationLogId.containing(1, 50));
+
+        assertEquals("1,50", log.notificationLogId());
+        assertEquals(50, log.totalNotifications());
+        assertEquals("51,100", log.nextNotificationLogId());
+        assertFalse(log.hasPreviousNotificationLog());
+        assertTrue(log.isArchived());
+
+        log = factory.createNotificationLog(log.decodedNextNotificationLogId());
+
+        assertEquals("1,50", log.previousNotificationLogId());
+    }
+
+    public void testContainingNotificationLogId() throws Exception {
+        assertEquals("1,50", NotificationLogId.containing(0, 50).encoded());
+        assertEquals("1,50", NotificationLogId.containing(1, 50).encoded());
+        assertEquals("1,50", NotificationLogId.containing(50, 50).encoded());
+        assertEquals("51,100", NotificationLogId.containing(51, 50).encoded());
+    }
+
     public void testCurrentNotificationLogFromFactory() throws Exception {
         EventStore eventStore = this.eventStore();
         NotificationLogFactory factory = new NotificationLogFactory(eventStore);
@@ -87,6 +110,36 @@ public class NotificationLogTest extends CommonTestCase {
         assertEquals(decodedCurrentLogId, decodedNextLogId);
     }
 
+    public void testMalformedNotificationLogIdRejected() throws Exception {
+        String[] malformedIds = { "1", "1,", ",20", "1,20,40", "one,twenty", "20,1" };
+
+        for (String malformedId : malformedIds) {
+            try {
+                new NotificationLogId(malformedId);
+
+                fail("Should have rejected notification log id: " + malformedId);
+
+            } catch (IllegalArgumentException e) {
+                // expected
+            }
+        }
+
+        assertEquals(new NotificationLogId(1, 20), new NotificationLogId("1,20"));
+    }
+
+    public void testOversizedNotificationLogIdRejected() throws Exception {
+        NotificationLogFactory factory = new NotificationLogFactory(this.eventStore(), 20, 50);
+
+        try {
+            factory.createNotificationLog(new NotificationLogId("1,51"));
+
+            fail("Should have rejected notification log larger than the maximum.");
+
+        } catch (IllegalArgumentException e) {
+            // expected
+        }
+    }
+
     private EventStore eventStore() {
         EventStore eventStore = new MockEventStore(new PersistenceManagerProvider() {});
 
@@ -0,0 +1,94 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.notification;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.event.EventSerializer;
+import com.saasovation.common.event.StoredEvent;
+import com.saasovation.common.event.TestableDomainEvent;
+import com.saasovation.common.event.TestableNavigableDomainEvent;
+import com.saasovation.common.serializer.ObjectSerializer;
+
+public class NotificationTest extends TestCase {
+
+    public NotificationTest() {
+        super();
+    }
+
+    public void testStoredEventNotificationProperties() throws Exception {
+        TestableDomainEvent domainEvent = new TestableDomainEvent(100, "testing");
+
+        Notification notification = new Notification(this.storedEventOf(domainEvent, 7));
+
+        assertEquals(7, notification.notificationId());
+        assertEquals(domainEvent.occurredOn(), notification.occurredOn());
+        assertEquals(domainEvent.getClass().getName(), notification.typeName());
+        assertEquals(domainEvent.eventVersion(), notification.version());
+
+        TestableDomainEvent event = notification.event();
+
+        assertEquals(domainEvent.id(), event.id());
+        assertEquals(domainEvent.name(), event.name());
+    }
+
+    public void testStoredEventNotificationSerialization() throws Exception {
+        TestableNavigableDomainEvent domainEvent = new TestableNavigableDomainEvent(100, "testing");
+
+        String expected = NotificationSerializer.instance().serialize(new Notification(7, domainEvent));
+
+        Notification notification = new Notification(this.storedEventOf(domainEvent, 7));
+
+        assertEquals(expected, NotificationSerializer.instance().serialize(notification));
+
+        NotificationReader reader =
+                new NotificationReader(NotificationSerializer.instance().serialize(notification));
+
+        assertEquals(7, reader.notificationId());
+        assertEquals(domainEvent.nestedEvent().name(), reader.eventStringValue("nestedEvent", "name"));
+    }
+
+    public void testStoredEventNotificationsSerializedInObject() throws Exception {
+        List<Notification> expected = new ArrayList<Notification>();
+        List<Notification> notifications = new ArrayList<Notification>();
+
+        for (int idx = 1; idx <= 3; ++idx) {
+            DomainEvent domainEvent = new TestableDomainEvent(idx, "testing" + idx);
+
+            expected.add(new Notification(idx, domainEvent));
+            notifications.add(new Notification(this.storedEventOf(domainEvent, idx)));
+        }
+
+        NotificationLog expectedLog = new NotificationLog("1,20", null, null, expected, false);
+        NotificationLog log = new NotificationLog("1,20", null, null, notifications, false);
+
+        assertEquals(
+                ObjectSerializer.instance().serialize(expectedLog),
+                ObjectSerializer.instance().serialize(log));
+    }
+
+    private StoredEvent storedEventOf(DomainEvent aDomainEvent, long anEventId) {
+        return new StoredEvent(
+                aDomainEvent.getClass().getName(),
+                aDomainEvent.occurredOn(),
+                EventSerializer.instance().serialize(aDomainEvent),
+                anEventId);
+    }
+}
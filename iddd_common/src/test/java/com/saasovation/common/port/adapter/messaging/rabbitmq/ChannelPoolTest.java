@@ -0,0 +1,129 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.messaging.rabbitmq;
+
+import junit.framework.TestCase;
+
+import com.rabbitmq.client.Channel;
+
+public class ChannelPoolTest extends TestCase {
+
+    private StandInBroker broker;
+
+    public ChannelPoolTest() {
+        super();
+    }
+
+    public void testChannelReused() throws Exception {
+        ChannelPool channelPool = new ChannelPool(this.broker, 2);
+
+        Channel channel = channelPool.borrowChannel();
+
+        channelPool.returnChannel(channel);
+
+        assertEquals(1, channelPool.idleChannelCount());
+        assertSame(channel, channelPool.borrowChannel());
+        assertEquals(0, channelPool.idleChannelCount());
+
+        Exchange exchange = new Exchange(channelPool, "test.exchange", "fanout", true);
+        exchange.close();
+        exchange = new Exchange(channelPool, "test.exchange", "fanout", true);
+        exchange.close();
+
+        assertEquals(1, this.broker.exchangesDeclared());
+        assertEquals(1, channelPool.idleChannelCount());
+        assertEquals(1, this.broker.openedConnections());
+    }
+
+    public void testClosedChannelDiscarded() throws Exception {
+        ChannelPool channelPool = new ChannelPool(this.broker, 2);
+
+        Channel channel = channelPool.borrowChannel();
+
+        channelPool.returnChannel(channel);
+
+        channel.close();
+
+        Channel anotherChannel = channelPool.borrowChannel();
+
+        assertNotSame(channel, anotherChannel);
+        assertTrue(anotherChannel.isOpen());
+
+        channel.close();
+
+        channelPool.returnChannel(channel);
+
+        assertEquals(0, channelPool.idleChannelCount());
+        assertEquals(1, this.broker.openedConnections());
+    }
+
+    public void testIdleChannelsBounded() throws Exception {
+        ChannelPool channelPool = new ChannelPool(this.broker, 2);
+
+        Channel channel1 = channelPool.borrowChannel();
+        Channel channel2 = channelPool.borrowChannel();
+        Channel channel3 = channelPool.borrowChannel();
+
+        channelPool.returnChannel(channel1);
+        channelPool.returnChannel(channel2);
+        channelPool.returnChannel(channel3);
+
+        assertEquals(2, channelPool.idleChannelCount());
+        assertFalse(channel3.isOpen());
+
+        channelPool.close();
+
+        assertEquals(0, channelPool.idleChannelCount());
+        assertFalse(channel1.isOpen());
+    }
+
+    public void testReconnectedAfterConnectionLost() throws Exception {
+        ChannelPool channelPool = new ChannelPool(this.broker, 2);
+
+        Channel channel = channelPool.borrowChannel();
+
+        channelPool.declareExchange(channel, "test.exchange", "fanout", true);
+
+        channelPool.returnChannel(channel);
+
+        channel.getConnection().close();
+
+        Channel reconnectedChannel = channelPool.borrowChannel();
+
+        assertTrue(reconnectedChannel.isOpen());
+        assertNotSame(channel.getConnection(), reconnectedChannel.getConnection());
+        assertEquals(2, this.broker.openedConnections());
+
+        // declared anew on the new connection
+        channelPool.declareExchange(reconnectedChannel, "test.exchange", "fanout", true);
+
+        assertEquals(2, this.broker.exchangesDeclared());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.broker = new StandInBroker();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.broker.shutdown();
+
+        super.tearDown();
+    }
+}
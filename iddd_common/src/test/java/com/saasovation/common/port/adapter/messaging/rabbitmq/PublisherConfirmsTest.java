@@ -0,0 +1,183 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.messaging.rabbitmq;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.saasovation.common.port.adapter.messaging.MessageException;
+
+public class PublisherConfirmsTest extends TestCase {
+
+    private StandInBroker broker;
+
+    public PublisherConfirmsTest() {
+        super();
+    }
+
+    public void testNackEndsConfirmedMessages() throws Exception {
+        this.broker = new StandInBroker(100);
+
+        this.broker.nack(5);
+
+        MessageProducer messageProducer = this.messageProducer(new ChannelPool(this.broker, 1), 8);
+
+        for (int idx = 0; idx < 10; ++idx) {
+            messageProducer.send("message" + idx);
+        }
+
+        assertEquals(4, messageProducer.confirmedMessageCount());
+
+        messageProducer.close();
+    }
+
+    public void testPipelinedMessagesConfirmed() throws Exception {
+        this.broker = new StandInBroker(100);
+
+        ChannelPool channelPool = new ChannelPool(this.broker, 1);
+
+        // the second producer reuses the pooled channel,
+        // which is then already in confirm mode
+
+        for (int round = 0; round < 2; ++round) {
+            MessageProducer messageProducer = this.messageProducer(channelPool, 16);
+
+            for (int idx = 0; idx < 100; ++idx) {
+                messageProducer.send("message" + idx);
+            }
+
+            assertEquals(100, messageProducer.confirmedMessageCount());
+
+            messageProducer.close();
+        }
+
+        assertEquals(200, this.broker.publishedMessages());
+        assertEquals(1, this.broker.openedConnections());
+    }
+
+    public void testPipelinedConfirmRoundTrips() throws Exception {
+        // each round trip releases every confirm the producer
+        // waits for, so its count is set by the confirm window
+
+        assertEquals(200, this.confirmRoundTrips(200, 1));
+        assertEquals(4, this.confirmRoundTrips(200, 64));
+    }
+
+    public void testUnconfirmedMessagesBounded() throws Exception {
+        this.broker = new StandInBroker(60000000);
+
+        MessageProducer messageProducer = this.messageProducer(new ChannelPool(this.broker, 1), 4, 100);
+
+        for (int idx = 0; idx < 4; ++idx) {
+            messageProducer.send("message" + idx);
+        }
+
+        try {
+            messageProducer.send("message4");
+
+            fail("Should have waited for room in the confirm window.");
+
+        } catch (MessageException e) {
+            // expected
+        }
+
+        assertEquals(4, this.broker.publishedMessages());
+        assertEquals(0, messageProducer.confirmedMessageCount());
+
+        messageProducer.close();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.broker != null) {
+            this.broker.shutdown();
+        }
+
+        super.tearDown();
+    }
+
+    private MessageProducer messageProducer(ChannelPool aChannelPool, int aMaximumUnconfirmed) {
+        return this.messageProducer(aChannelPool, aMaximumUnconfirmed, 5000);
+    }
+
+    private MessageProducer messageProducer(
+            ChannelPool aChannelPool,
+            int aMaximumUnconfirmed,
+            long aConfirmTimeout) {
+
+        Exchange exchange = new Exchange(aChannelPool, "test.exchange", "fanout", true);
+
+        return MessageProducer.instance(exchange).confirmed(aMaximumUnconfirmed, aConfirmTimeout);
+    }
+
+    private int confirmRoundTrips(
+            final int aMessages,
+            int aMaximumUnconfirmed)
+    throws Exception {
+
+        this.broker = new StandInBroker();
+
+        this.broker.holdConfirms();
+
+        final MessageProducer messageProducer =
+                this.messageProducer(new ChannelPool(this.broker, 1), aMaximumUnconfirmed);
+
+        final List<Exception> failures = new ArrayList<Exception>();
+
+        Thread sender = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    for (int idx = 0; idx < aMessages; ++idx) {
+                        messageProducer.send("message" + idx);
+                    }
+                } catch (Exception e) {
+                    failures.add(e);
+                }
+            }
+        });
+
+        sender.start();
+
+        int confirmed = 0;
+        int roundTrips = 0;
+
+        while (confirmed < aMessages) {
+            int expected = Math.min(aMaximumUnconfirmed, aMessages - confirmed);
+
+            assertTrue(this.broker.awaitHeldConfirms(expected, 5000));
+
+            assertEquals(expected, this.broker.releaseConfirms());
+
+            confirmed += expected;
+
+            ++roundTrips;
+        }
+
+        sender.join(5000);
+
+        assertTrue(failures.isEmpty());
+        assertEquals(aMessages, messageProducer.confirmedMessageCount());
+
+        messageProducer.close();
+
+        this.broker.shutdown();
+
+        return roundTrips;
+    }
+}
@@ -0,0 +1,272 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.messaging.rabbitmq;
+
+import java.io.IOException;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import com.rabbitmq.client.Channel;
+import com.rabbitmq.client.ConfirmListener;
+import com.rabbitmq.client.Connection;
+import com.rabbitmq.client.ConnectionFactory;
+
+/**
+ * I stand in for a local RabbitMQ broker, answering the connections
+ * and channels that the client opens with in-memory ones. Channels in
+ * confirm mode confirm each published message after my confirm latency,
+ * on a thread of my own, as the client library would. When my confirms
+ * are held, they are instead delivered only once released.
+ */
+public class StandInBroker extends ConnectionFactory {
+
+    private long confirmLatencyMicros;
+    private ScheduledExecutorService confirmer;
+    private AtomicInteger exchangesDeclared;
+    private List<Runnable> heldConfirms;
+    private Set<Long> nackedSequenceNumbers;
+    private AtomicInteger openedConnections;
+    private AtomicInteger publishedMessages;
+
+    public StandInBroker() {
+        this(0);
+    }
+
+    public StandInBroker(long aConfirmLatencyMicros) {
+        super();
+
+        this.confirmLatencyMicros = aConfirmLatencyMicros;
+        this.confirmer = Executors.newSingleThreadScheduledExecutor();
+        this.exchangesDeclared = new AtomicInteger();
+        this.nackedSequenceNumbers = new HashSet<Long>();
+        this.openedConnections = new AtomicInteger();
+        this.publishedMessages = new AtomicInteger();
+    }
+
+    public boolean awaitHeldConfirms(int aCount, long aTimeoutMillis) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + aTimeoutMillis;
+
+        synchronized (this) {
+            while (this.heldConfirms.size() < aCount) {
+                long remaining = deadline - System.currentTimeMillis();
+
+                if (remaining <= 0) {
+                    return false;
+                }
+
+                this.wait(remaining);
+            }
+        }
+
+        return true;
+    }
+
+    public int exchangesDeclared() {
+        return this.exchangesDeclared.get();
+    }
+
+    public synchronized void holdConfirms() {
+        this.heldConfirms = new ArrayList<Runnable>();
+    }
+
+    public void nack(long aSequenceNumber) {
+        synchronized (this.nackedSequenceNumbers) {
+            this.nackedSequenceNumbers.add(aSequenceNumber);
+        }
+    }
+
+    @Override
+    public Connection newConnection() throws IOException, TimeoutException {
+        this.openedConnections.incrementAndGet();
+
+        return (Connection) Proxy.newProxyInstance(
+                Connection.class.getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new StandInConnection());
+    }
+
+    public int openedConnections() {
+        return this.openedConnections.get();
+    }
+
+    public int publishedMessages() {
+        return this.publishedMessages.get();
+    }
+
+    public int releaseConfirms() {
+        List<Runnable> confirms = null;
+
+        synchronized (this) {
+            confirms = new ArrayList<Runnable>(this.heldConfirms);
+
+            this.heldConfirms.clear();
+        }
+
+        for (Runnable confirm : confirms) {
+            confirm.run();
+        }
+
+        return confirms.size();
+    }
+
+    public void shutdown() {
+        this.confirmer.shutdownNow();
+    }
+
+    private boolean holdConfirm(Runnable aConfirm) {
+        synchronized (this) {
+            if (this.heldConfirms == null) {
+                return false;
+            }
+
+            this.heldConfirms.add(aConfirm);
+
+            this.notifyAll();
+        }
+
+        return true;
+    }
+
+    private boolean isNacked(long aSequenceNumber) {
+        synchronized (this.nackedSequenceNumbers) {
+            return this.nackedSequenceNumbers.contains(aSequenceNumber);
+        }
+    }
+
+    private class StandInConnection implements InvocationHandler {
+
+        private volatile boolean open = true;
+
+        @Override
+        public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) throws Throwable {
+            Object result = null;
+
+            if (aMethod.getName().equals("isOpen")) {
+                result = this.open;
+            } else if (aMethod.getName().equals("close")) {
+                this.open = false;
+            } else if (aMethod.getName().equals("createChannel")) {
+                result = Proxy.newProxyInstance(
+                        Channel.class.getClassLoader(),
+                        new Class<?>[] { Channel.class },
+                        new StandInChannel((Connection) aProxy, this));
+            } else if (aMethod.getName().equals("hashCode")) {
+                result = System.identityHashCode(aProxy);
+            } else if (aMethod.getName().equals("equals")) {
+                result = aProxy == anArguments[0];
+            }
+
+            return result;
+        }
+    }
+
+    private class StandInChannel implements InvocationHandler {
+
+        private List<ConfirmListener> confirmListeners;
+        private Connection connection;
+        private StandInConnection standInConnection;
+        private long nextPublishSeqNo;
+        private volatile boolean open = true;
+
+        StandInChannel(Connection aConnection, StandInConnection aStandInConnection) {
+            super();
+
+            this.confirmListeners = new ArrayList<ConfirmListener>();
+            this.connection = aConnection;
+            this.standInConnection = aStandInConnection;
+        }
+
+        @Override
+        public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) throws Throwable {
+            Object result = null;
+
+            String name = aMethod.getName();
+
+            if (name.equals("isOpen")) {
+                result = this.open && this.standInConnection.open;
+            } else if (name.equals("close")) {
+                this.open = false;
+            } else if (name.equals("getConnection")) {
+                result = this.connection;
+            } else if (name.equals("exchangeDeclare")) {
+                exchangesDeclared.incrementAndGet();
+            } else if (name.equals("confirmSelect")) {
+                this.nextPublishSeqNo = Math.max(this.nextPublishSeqNo, 1);
+            } else if (name.equals("getNextPublishSeqNo")) {
+                result = this.nextPublishSeqNo;
+            } else if (name.equals("addConfirmListener")) {
+                synchronized (this.confirmListeners) {
+                    this.confirmListeners.add((ConfirmListener) anArguments[0]);
+                }
+            } else if (name.equals("removeConfirmListener")) {
+                synchronized (this.confirmListeners) {
+                    result = this.confirmListeners.remove(anArguments[0]);
+                }
+            } else if (name.equals("basicPublish")) {
+                publishedMessages.incrementAndGet();
+
+                if (this.nextPublishSeqNo > 0) {
+                    this.confirmLater(this.nextPublishSeqNo++);
+                }
+            } else if (name.equals("hashCode")) {
+                result = System.identityHashCode(aProxy);
+            } else if (name.equals("equals")) {
+                result = aProxy == anArguments[0];
+            }
+
+            return result;
+        }
+
+        private void confirmLater(final long aSequenceNumber) {
+            Runnable confirm = new Runnable() {
+                @Override
+                public void run() {
+                    List<ConfirmListener> listeners = null;
+
+                    synchronized (confirmListeners) {
+                        listeners = new ArrayList<ConfirmListener>(confirmListeners);
+                    }
+
+                    for (ConfirmListener listener : listeners) {
+                        try {
+                            if (isNacked(aSequenceNumber)) {
+                                listener.handleNack(aSequenceNumber, false);
+                            } else {
+                                listener.handleAck(aSequenceNumber, false);
+                            }
+                        } catch (IOException e) {
+                            // ignore
+                        }
+                    }
+                }
+            };
+
+            if (!holdConfirm(confirm)) {
+                confirmer.schedule(confirm, confirmLatencyMicros, TimeUnit.MICROSECONDS);
+            }
+        }
+    }
+}
@@ -0,0 +1,216 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.saasovation.common.event.TestableDomainEvent;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventDispatcher;
+
+public class ProjectionShadowTableTest extends TestCase {
+
+    private List<String> preparedSql;
+    private Connection suspendedConnection;
+
+    public ProjectionShadowTableTest() {
+        super();
+    }
+
+    public void testProjectIntoLiveTables() throws Exception {
+        TestableProjection projection = new TestableProjection();
+
+        projection.dispatch(new DispatchableDomainEvent(1, new TestableDomainEvent(1, "one")));
+
+        assertEquals(1, this.preparedSql.size());
+        assertEquals(
+                "update tbl_vw_thing set name=? where thing_id in "
+                + "(select thing_id from tbl_vw_thing_part)",
+                this.preparedSql.get(0));
+    }
+
+    public void testProjectIntoShadowTables() throws Exception {
+        TestableProjection projection = new TestableProjection();
+
+        projection.projectIntoTablesSuffixedWith("_shadow");
+
+        try {
+            projection.dispatch(new DispatchableDomainEvent(1, new TestableDomainEvent(1, "one")));
+        } finally {
+            projection.projectIntoTablesSuffixedWith(null);
+        }
+
+        assertEquals(1, this.preparedSql.size());
+        assertEquals(
+                "update tbl_vw_thing_shadow set name=? where thing_id in "
+                + "(select thing_id from tbl_vw_thing_part_shadow)",
+                this.preparedSql.get(0));
+    }
+
+    public void testProjectBatchIntoShadowTables() throws Exception {
+        TestableProjection projection = new TestableProjection();
+
+        projection.projectIntoTablesSuffixedWith("_shadow");
+
+        try {
+            projection.beginBatch();
+
+            projection.dispatch(new DispatchableDomainEvent(1, new TestableDomainEvent(1, "one")));
+            projection.dispatch(new DispatchableDomainEvent(2, new TestableDomainEvent(2, "two")));
+
+            projection.endBatch();
+
+        } finally {
+            projection.projectIntoTablesSuffixedWith(null);
+        }
+
+        // the batch prepares its statement once, naming the shadow tables
+
+        assertEquals(1, this.preparedSql.size());
+        assertEquals(
+                "update tbl_vw_thing_shadow set name=? where thing_id in "
+                + "(select thing_id from tbl_vw_thing_part_shadow)",
+                this.preparedSql.get(0));
+    }
+
+    public void testShadowTablesAreThreadConfined() throws Exception {
+        final TestableProjection projection = new TestableProjection();
+
+        projection.projectIntoTablesSuffixedWith("_shadow");
+
+        try {
+            Thread liveThread = new Thread() {
+                @Override
+                public void run() {
+                    ConnectionProvider.resumeConnection(recordingConnection());
+
+                    projection.dispatch(new DispatchableDomainEvent(1, new TestableDomainEvent(1, "one")));
+                }
+            };
+
+            liveThread.start();
+            liveThread.join();
+
+        } finally {
+            projection.projectIntoTablesSuffixedWith(null);
+        }
+
+        assertEquals(1, this.preparedSql.size());
+        assertTrue(this.preparedSql.get(0).startsWith("update tbl_vw_thing set"));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.preparedSql = new ArrayList<String>();
+
+        this.suspendedConnection = ConnectionProvider.suspendConnection();
+
+        ConnectionProvider.resumeConnection(this.recordingConnection());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ConnectionProvider.resumeConnection(this.suspendedConnection);
+
+        super.tearDown();
+    }
+
+    private Connection recordingConnection() {
+        final InvocationHandler statementHandler = new InvocationHandler() {
+            @Override
+            public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                if (aMethod.getReturnType() == int.class) {
+                    return Integer.valueOf(1);
+                } else if (aMethod.getReturnType() == int[].class) {
+                    return new int[0];
+                }
+
+                return null;
+            }
+        };
+
+        return (Connection) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        if (aMethod.getName().equals("prepareStatement")) {
+                            preparedSql.add((String) anArguments[0]);
+
+                            return Proxy.newProxyInstance(
+                                    getClass().getClassLoader(),
+                                    new Class<?>[] { PreparedStatement.class },
+                                    statementHandler);
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    public static class TestableProjection extends AbstractProjection {
+
+        private static final String[] projectedTableNames = {
+            "tbl_vw_thing",
+            "tbl_vw_thing_part"
+        };
+
+        public TestableProjection() {
+            super();
+        }
+
+        @Override
+        public void dispatch(DispatchableDomainEvent aDispatchableDomainEvent) {
+            this.projectWhen(aDispatchableDomainEvent);
+        }
+
+        @Override
+        public String[] projectedTableNames() {
+            return projectedTableNames;
+        }
+
+        @Override
+        public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
+            throw new UnsupportedOperationException("Cannot register additional dispatchers.");
+        }
+
+        @Override
+        public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
+            return aDispatchableDomainEvent.domainEvent() instanceof TestableDomainEvent;
+        }
+
+        protected void when(TestableDomainEvent anEvent) throws Exception {
+            PreparedStatement statement =
+                    this.prepareStatement(
+                            "update tbl_vw_thing set name=? where thing_id in "
+                            + "(select thing_id from tbl_vw_thing_part)");
+
+            statement.setString(1, anEvent.name());
+
+            this.execute(statement);
+        }
+    }
+}
@@ -0,0 +1,333 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+import com.saasovation.common.event.AnotherTestableDomainEvent;
+import com.saasovation.common.event.TestableDomainEvent;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventDispatcher;
+
+public class ProjectionStatementTest extends TestCase {
+
+    private static final String INSERT_PART_SQL =
+            "insert into tbl_vw_thing_part(thing_id, value) values(?, ?) "
+            + "on duplicate key update thing_id = thing_id";
+
+    private static final String RENAME_THING_SQL =
+            "update tbl_vw_thing set name=? where thing_id=?";
+
+    private static final String SELECT_THING_SQL =
+            "select thing_id from tbl_vw_thing where thing_id = ?";
+
+    private static final String UPDATE_THING_SQL =
+            "update tbl_vw_thing set name=? where thing_id=? and thing_id in "
+            + "(select thing_id from tbl_vw_thing_part)";
+
+    private List<String> statementLog;
+    private Connection suspendedConnection;
+
+    public ProjectionStatementTest() {
+        super();
+    }
+
+    public void testBatchAbandoned() throws Exception {
+        TestableProjection projection = new TestableProjection();
+
+        projection.beginBatch();
+
+        projection.dispatch(this.thingRenamed(1));
+
+        projection.abandonBatch();
+
+        assertEquals(3, this.statementLog.size());
+        assertEquals("prepare: " + UPDATE_THING_SQL, this.statementLog.get(0));
+        assertEquals("addBatch: " + UPDATE_THING_SQL, this.statementLog.get(1));
+        assertEquals("close: " + UPDATE_THING_SQL, this.statementLog.get(2));
+    }
+
+    public void testBatchExecutedBeforeRead() throws Exception {
+        TestableProjection projection = new TestableProjection(RENAME_THING_SQL);
+
+        projection.beginBatch();
+
+        projection.dispatch(this.thingRenamed(1));
+        projection.dispatch(this.partAdded(2));
+
+        assertFalse(projection.exists(SELECT_THING_SQL, "1"));
+
+        projection.endBatch();
+
+        String[] expected = {
+            "prepare: " + RENAME_THING_SQL,
+            "addBatch: " + RENAME_THING_SQL,
+            "prepare: " + INSERT_PART_SQL,
+            "addBatch: " + INSERT_PART_SQL,
+            "executeBatch: " + RENAME_THING_SQL,
+            "executeBatch: " + INSERT_PART_SQL,
+            "prepare: " + SELECT_THING_SQL,
+            "executeQuery: " + SELECT_THING_SQL,
+            "close: " + SELECT_THING_SQL
+        };
+
+        for (int idx = 0; idx < expected.length; ++idx) {
+            assertEquals(expected[idx], this.statementLog.get(idx));
+        }
+
+        // nothing was pending at the end
+
+        assertEquals(expected.length + 2, this.statementLog.size());
+    }
+
+    public void testBatchPerStatement() throws Exception {
+        TestableProjection projection = new TestableProjection(RENAME_THING_SQL);
+
+        projection.beginBatch();
+
+        projection.dispatch(this.thingRenamed(1));
+        projection.dispatch(this.partAdded(2));
+        projection.dispatch(this.thingRenamed(3));
+        projection.dispatch(this.partAdded(4));
+
+        projection.endBatch();
+
+        // the statements write different tables, so each keeps
+        // its rows batched until the end, executed in first-use order
+
+        String[] expected = {
+            "prepare: " + RENAME_THING_SQL,
+            "addBatch: " + RENAME_THING_SQL,
+            "prepare: " + INSERT_PART_SQL,
+            "addBatch: " + INSERT_PART_SQL,
+            "addBatch: " + RENAME_THING_SQL,
+            "addBatch: " + INSERT_PART_SQL,
+            "executeBatch: " + RENAME_THING_SQL,
+            "executeBatch: " + INSERT_PART_SQL,
+            "close: " + RENAME_THING_SQL,
+            "close: " + INSERT_PART_SQL
+        };
+
+        assertEquals(expected.length, this.statementLog.size());
+
+        for (int idx = 0; idx < expected.length; ++idx) {
+            assertEquals(expected[idx], this.statementLog.get(idx));
+        }
+    }
+
+    public void testBatchPreservesOrderAcrossSharedTables() throws Exception {
+        TestableProjection projection = new TestableProjection();
+
+        projection.beginBatch();
+
+        projection.dispatch(this.thingRenamed(1));
+        projection.dispatch(this.thingRenamed(2));
+        projection.dispatch(this.partAdded(3));
+        projection.dispatch(this.thingRenamed(4));
+
+        projection.endBatch();
+
+        // the update reads the parts table, so its last row
+        // cannot overtake the batched part insert
+
+        String[] expected = {
+            "prepare: " + UPDATE_THING_SQL,
+            "addBatch: " + UPDATE_THING_SQL,
+            "addBatch: " + UPDATE_THING_SQL,
+            "prepare: " + INSERT_PART_SQL,
+            "addBatch: " + INSERT_PART_SQL,
+            "executeBatch: " + UPDATE_THING_SQL,
+            "executeBatch: " + INSERT_PART_SQL,
+            "addBatch: " + UPDATE_THING_SQL,
+            "executeBatch: " + UPDATE_THING_SQL,
+            "close: " + UPDATE_THING_SQL,
+            "close: " + INSERT_PART_SQL
+        };
+
+        assertEquals(expected.length, this.statementLog.size());
+
+        for (int idx = 0; idx < expected.length; ++idx) {
+            assertEquals(expected[idx], this.statementLog.get(idx));
+        }
+    }
+
+    public void testProjectIntoLiveTables() throws Exception {
+        TestableProjection projection = new TestableProjection();
+
+        projection.dispatch(this.thingRenamed(1));
+
+        assertEquals("prepare: " + UPDATE_THING_SQL, this.statementLog.get(0));
+        assertEquals("executeUpdate: " + UPDATE_THING_SQL, this.statementLog.get(1));
+        assertEquals("close: " + UPDATE_THING_SQL, this.statementLog.get(2));
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        super.setUp();
+
+        this.statementLog = new ArrayList<String>();
+
+        this.suspendedConnection = ConnectionProvider.suspendConnection();
+
+        ConnectionProvider.resumeConnection(this.recordingConnection());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        ConnectionProvider.resumeConnection(this.suspendedConnection);
+
+        super.tearDown();
+    }
+
+    private ResultSet emptyResultSet() {
+        return (ResultSet) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        if (aMethod.getReturnType() == boolean.class) {
+                            return Boolean.FALSE;
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    private DispatchableDomainEvent partAdded(long anEventId) {
+        return new DispatchableDomainEvent(anEventId, new AnotherTestableDomainEvent(anEventId));
+    }
+
+    private Connection recordingConnection() {
+        return (Connection) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { Connection.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        if (aMethod.getName().equals("prepareStatement")) {
+                            return recordingStatement((String) anArguments[0]);
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    private PreparedStatement recordingStatement(final String aSql) {
+        this.statementLog.add("prepare: " + aSql);
+
+        return (PreparedStatement) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { PreparedStatement.class },
+                new InvocationHandler() {
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        String name = aMethod.getName();
+
+                        if (name.equals("addBatch")
+                                || name.equals("close")
+                                || name.equals("executeBatch")
+                                || name.equals("executeQuery")
+                                || name.equals("executeUpdate")) {
+
+                            statementLog.add(name + ": " + aSql);
+                        }
+
+                        if (name.equals("executeQuery")) {
+                            return emptyResultSet();
+                        } else if (aMethod.getReturnType() == int.class) {
+                            return Integer.valueOf(1);
+                        } else if (aMethod.getReturnType() == int[].class) {
+                            return new int[0];
+                        }
+
+                        return null;
+                    }
+                });
+    }
+
+    private DispatchableDomainEvent thingRenamed(long anEventId) {
+        return new DispatchableDomainEvent(anEventId, new TestableDomainEvent(anEventId, "Name: " + anEventId));
+    }
+
+    public static class TestableProjection extends AbstractProjection {
+
+        private static final String[] projectedTableNames = {
+            "tbl_vw_thing",
+            "tbl_vw_thing_part"
+        };
+
+        private String thingRenamedSql;
+
+        public TestableProjection() {
+            this(UPDATE_THING_SQL);
+        }
+
+        public TestableProjection(String aThingRenamedSql) {
+            super();
+
+            this.thingRenamedSql = aThingRenamedSql;
+        }
+
+        @Override
+        public void dispatch(DispatchableDomainEvent aDispatchableDomainEvent) {
+            this.projectWhen(aDispatchableDomainEvent);
+        }
+
+        @Override
+        public String[] projectedTableNames() {
+            return projectedTableNames;
+        }
+
+        @Override
+        public void registerEventDispatcher(EventDispatcher anEventDispatcher) {
+            throw new UnsupportedOperationException("Cannot register additional dispatchers.");
+        }
+
+        @Override
+        public boolean understands(DispatchableDomainEvent aDispatchableDomainEvent) {
+            return true;
+        }
+
+        protected void when(AnotherTestableDomainEvent anEvent) throws Exception {
+            PreparedStatement statement = this.prepareStatement(INSERT_PART_SQL);
+
+            statement.setLong(1, (long) anEvent.value());
+            statement.setDouble(2, anEvent.value());
+
+            this.execute(statement);
+        }
+
+        protected void when(TestableDomainEvent anEvent) throws Exception {
+            PreparedStatement statement = this.prepareStatement(this.thingRenamedSql);
+
+            statement.setString(1, anEvent.name());
+            statement.setLong(2, anEvent.id());
+
+            this.execute(statement);
+        }
+    }
+}
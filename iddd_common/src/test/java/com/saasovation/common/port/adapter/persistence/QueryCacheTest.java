@@ -0,0 +1,91 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence;
+
+import junit.framework.TestCase;
+
+public class QueryCacheTest extends TestCase {
+
+    public QueryCacheTest() {
+        super();
+    }
+
+    public void testCacheResult() throws Exception {
+        QueryCache queryCache = new QueryCache(10);
+
+        assertNull(queryCache.cachedResultOf("q1"));
+
+        queryCache.cacheResult("q1", "forum:t1:f1", "r1", queryCache.evictions());
+
+        assertEquals("r1", queryCache.cachedResultOf("q1"));
+        assertEquals(1, queryCache.hits());
+        assertEquals(1, queryCache.misses());
+    }
+
+    public void testEvictByTag() throws Exception {
+        QueryCache queryCache = new QueryCache(10);
+
+        String forumTag = QueryCache.tagOf("forum", "t1", "f1");
+        String otherForumTag = QueryCache.tagOf("forum", "t1", "f2");
+
+        queryCache.cacheResult("q1", forumTag, "r1", queryCache.evictions());
+        queryCache.cacheResult("q2", forumTag, "r2", queryCache.evictions());
+        queryCache.cacheResult("q3", otherForumTag, "r3", queryCache.evictions());
+
+        queryCache.evict(forumTag);
+
+        assertNull(queryCache.cachedResultOf("q1"));
+        assertNull(queryCache.cachedResultOf("q2"));
+        assertEquals("r3", queryCache.cachedResultOf("q3"));
+
+        queryCache.evictAll();
+
+        assertEquals(0, queryCache.size());
+    }
+
+    public void testLeastRecentlyUsedEvicted() throws Exception {
+        QueryCache queryCache = new QueryCache(2);
+
+        queryCache.cacheResult("q1", "t", "r1", queryCache.evictions());
+        queryCache.cacheResult("q2", "t", "r2", queryCache.evictions());
+
+        queryCache.cachedResultOf("q1");
+
+        queryCache.cacheResult("q3", "t", "r3", queryCache.evictions());
+
+        assertEquals(2, queryCache.size());
+        assertEquals("r1", queryCache.cachedResultOf("q1"));
+        assertNull(queryCache.cachedResultOf("q2"));
+        assertEquals("r3", queryCache.cachedResultOf("q3"));
+
+        queryCache.evict("t");
+
+        assertEquals(0, queryCache.size());
+    }
+
+    public void testResultQueriedDuringEvictionNotCached() throws Exception {
+        QueryCache queryCache = new QueryCache(10);
+
+        long evictionsBeforeQuery = queryCache.evictions();
+
+        // a projection evicts while the query is running
+
+        queryCache.evict(QueryCache.tagOf("post", "t1", "p1"));
+
+        queryCache.cacheResult("q1", QueryCache.tagOf("post", "t1", "p1"), "stale", evictionsBeforeQuery);
+
+        assertNull(queryCache.cachedResultOf("q1"));
+    }
+}
@@ -0,0 +1,193 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.ResultSet;
+import java.sql.ResultSetMetaData;
+import java.util.ArrayList;
+import java.util.List;
+
+import junit.framework.TestCase;
+
+public class ResultSetObjectMapperTest extends TestCase {
+
+    private static final String[] COLUMN_LABELS = {
+        "entry_id", "entry_count", "total", "o_invitees_entry_id", "o_invitees_name"
+    };
+
+    public ResultSetObjectMapperTest() {
+        super();
+    }
+
+    public void testMapAssociations() throws Exception {
+        ResultSet resultSet =
+                this.resultSetOf(
+                        new Object[] { "e1", 2, null, "e1", "Zoe" },
+                        new Object[] { "e1", 2, null, "e1", "Jon" },
+                        new Object[] { "e2", 5, 7L, null, null });
+
+        List<TestableEntryData> entries = this.mapAll(resultSet);
+
+        assertEquals(2, entries.size());
+
+        TestableEntryData entry1 = entries.get(0);
+        assertEquals("e1", entry1.entryId);
+        assertEquals(2, entry1.entryCount);
+        assertNull(entry1.total);
+        assertEquals(2, entry1.invitees.size());
+        assertEquals("Zoe", entry1.invitees.get(0).name);
+        assertEquals("Jon", entry1.invitees.get(1).name);
+        assertEquals("e1", entry1.invitees.get(1).entryId);
+
+        TestableEntryData entry2 = entries.get(1);
+        assertEquals("e2", entry2.entryId);
+        assertEquals(5, entry2.entryCount);
+        assertEquals(Long.valueOf(7L), entry2.total);
+        assertNull(entry2.invitees);
+    }
+
+    public void testPlanIsCompiledOnce() throws Exception {
+        JoinOn joinOn = new JoinOn("entry_id", "o_invitees_entry_id");
+
+        ResultSetMappingPlan plan1 =
+                ResultSetMappingPlan.planFor(
+                        this.resultSetOf(new Object[] { "e1", 1, 1L, null, null }),
+                        TestableEntryData.class,
+                        null,
+                        joinOn);
+
+        ResultSetMappingPlan plan2 =
+                ResultSetMappingPlan.planFor(
+                        this.resultSetOf(new Object[] { "e2", 2, 2L, null, null }),
+                        TestableEntryData.class,
+                        null,
+                        joinOn);
+
+        assertSame(plan1, plan2);
+
+        ResultSetMappingPlan plan3 =
+                ResultSetMappingPlan.planFor(
+                        this.resultSetOf(new Object[] { "e1", 1, 1L, null, null }),
+                        TestableEntryData.class,
+                        null,
+                        new JoinOn());
+
+        assertNotSame(plan1, plan3);
+    }
+
+    private List<TestableEntryData> mapAll(ResultSet aResultSet) throws Exception {
+        List<TestableEntryData> entries = new ArrayList<TestableEntryData>();
+
+        ResultSetObjectMapper<TestableEntryData> mapper =
+                new ResultSetObjectMapper<TestableEntryData>(
+                        aResultSet,
+                        TestableEntryData.class,
+                        new JoinOn("entry_id", "o_invitees_entry_id"));
+
+        while (aResultSet.next()) {
+            entries.add(mapper.mapResultToType());
+        }
+
+        return entries;
+    }
+
+    private ResultSet resultSetOf(final Object[]... aRows) {
+        final ResultSetMetaData metaData =
+                (ResultSetMetaData) Proxy.newProxyInstance(
+                        this.getClass().getClassLoader(),
+                        new Class<?>[] { ResultSetMetaData.class },
+                        new InvocationHandler() {
+                            @Override
+                            public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                                if (aMethod.getName().equals("getColumnCount")) {
+                                    return COLUMN_LABELS.length;
+                                }
+
+                                return COLUMN_LABELS[((Integer) anArguments[0]) - 1];
+                            }
+                        });
+
+        return (ResultSet) Proxy.newProxyInstance(
+                this.getClass().getClassLoader(),
+                new Class<?>[] { ResultSet.class },
+                new InvocationHandler() {
+                    private int row = -1;
+                    private boolean wasNull;
+
+                    @Override
+                    public Object invoke(Object aProxy, Method aMethod, Object[] anArguments) {
+                        String name = aMethod.getName();
+
+                        if (name.equals("getMetaData")) {
+                            return metaData;
+                        } else if (name.equals("next")) {
+                            return ++row < aRows.length;
+                        } else if (name.equals("relative")) {
+                            row += (Integer) anArguments[0];
+                            return true;
+                        } else if (name.equals("wasNull")) {
+                            return wasNull;
+                        }
+
+                        Object value = null;
+
+                        if (anArguments[0] instanceof String) {
+                            for (int idx = 0; idx < COLUMN_LABELS.length; ++idx) {
+                                if (COLUMN_LABELS[idx].equals(anArguments[0])) {
+                                    value = aRows[row][idx];
+                                }
+                            }
+                        } else {
+                            value = aRows[row][((Integer) anArguments[0]) - 1];
+                        }
+
+                        wasNull = value == null;
+
+                        if (aMethod.getReturnType() == int.class) {
+                            return value == null ? 0 : ((Number) value).intValue();
+                        } else if (aMethod.getReturnType() == long.class) {
+                            return value == null ? 0L : ((Number) value).longValue();
+                        }
+
+                        return value;
+                    }
+                });
+    }
+
+    public static class TestableEntryData {
+
+        private int entryCount;
+        private String entryId;
+        private List<TestableInviteeData> invitees;
+        private Long total;
+
+        public TestableEntryData() {
+            super();
+        }
+    }
+
+    public static class TestableInviteeData {
+
+        private String entryId;
+        private String name;
+
+        public TestableInviteeData() {
+            super();
+        }
+    }
+}
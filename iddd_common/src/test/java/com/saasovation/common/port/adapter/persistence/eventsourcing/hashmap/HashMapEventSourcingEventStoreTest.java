@@ -114,6 +114,106 @@ public class HashMapEventSourcingEventStoreTest extends TestCase {
         assertEquals(8, loggedEvents.size());
     }
 
+    public void testEventsSinceMaximumCount() throws Exception {
+        assertNotNull(this.eventStore);
+
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, events);
+
+        List<DispatchableDomainEvent> loggedEvents = this.eventStore.eventsSince(2, 5);
+
+        assertEquals(5, loggedEvents.size());
+        assertEquals(3, loggedEvents.get(0).eventId());
+        assertEquals(7, loggedEvents.get(4).eventId());
+        assertEquals(eventId.streamName(), loggedEvents.get(0).streamName());
+
+        loggedEvents = this.eventStore.eventsSince(7, 5);
+
+        assertEquals(3, loggedEvents.size());
+        assertEquals(10, loggedEvents.get(2).eventId());
+
+        assertTrue(this.eventStore.eventsSince(10, 5).isEmpty());
+        assertTrue(this.eventStore.eventsSince(0, 0).isEmpty());
+    }
+
+    public void testEventStreamAfter() throws Exception {
+        assertNotNull(this.eventStore);
+
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, events);
+
+        for (int idx = 0; idx < 10; ++idx) {
+            EventStream eventStream = this.eventStore.eventStreamAfter(eventId.withStreamVersion(idx));
+
+            assertEquals(10, eventStream.version());
+            assertEquals(10 - idx, eventStream.events().size());
+
+            DomainEvent domainEvent = eventStream.events().get(0);
+
+            assertEquals(idx + 1, ((TestableDomainEvent) domainEvent).id());
+        }
+
+        EventStream eventStream = this.eventStore.eventStreamAfter(eventId.withStreamVersion(10));
+
+        assertEquals(10, eventStream.version());
+        assertTrue(eventStream.events().isEmpty());
+    }
+
+    public void testEventStreamCursorFrom() throws Exception {
+        assertNotNull(this.eventStore);
+
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, events);
+
+        EventStreamCursor eventStream = this.eventStore.eventStreamCursorFrom(eventId.withStreamVersion(4));
+
+        try {
+            TestableEventSourcedRootEntity rootEntity =
+                    new TestableEventSourcedRootEntity(
+                            new TestableEventSourcedRootEntity(1, "Name: 1"),
+                            eventStream);
+
+            assertEquals(10, eventStream.version());
+            assertEquals(10, rootEntity.unmutatedVersion());
+            assertEquals(1 + 7, rootEntity.count());
+            assertEquals(10, rootEntity.lastId());
+
+        } finally {
+            eventStream.close();
+        }
+
+        eventStream = this.eventStore.eventStreamCursorFrom(eventId.withStreamVersion(11));
+
+        try {
+            assertFalse(eventStream.hasNext());
+            assertEquals(10, eventStream.version());
+
+        } finally {
+            eventStream.close();
+        }
+    }
+
     public void testEventStreamSince() throws Exception {
         assertNotNull(this.eventStore);
 
@@ -17,17 +17,21 @@ package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.UUID;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import junit.framework.TestCase;
 
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.DomainEventPublisher;
+import com.saasovation.common.domain.model.TestableEventSourcedRootEntity;
 import com.saasovation.common.event.TestableDomainEvent;
 import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
 import com.saasovation.common.event.sourcing.EventStore;
-import com.saasovation.common.event.sourcing.EventStoreAppendException;
 import com.saasovation.common.event.sourcing.EventStoreException;
+import com.saasovation.common.event.sourcing.EventStoreVersionException;
 import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamCursor;
 import com.saasovation.common.event.sourcing.EventStreamId;
 
 public class LevelDBEventSourcingEventStoreTest extends TestCase {
@@ -96,16 +100,142 @@ public class LevelDBEventSourcingEventStoreTest extends TestCase {
 
                 fail("Should have thrown an exception.");
 
-            } catch (EventStoreAppendException e) {
+            } catch (EventStoreVersionException e) {
                 // good
             }
         }
 
+        // a gap in the stream is also the wrong version
+
+        try {
+            this.eventStore.appendWith(eventId.withStreamVersion(12), events);
+
+            fail("Should have thrown an exception.");
+
+        } catch (EventStoreVersionException e) {
+            // good
+        }
+
         // this should succeed
 
         this.eventStore.appendWith(eventId.withStreamVersion(11), events);
     }
 
+    public void testConcurrentAppendsToOneStream() throws Exception {
+        final EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        final AtomicInteger appended = new AtomicInteger();
+        final AtomicInteger conflicted = new AtomicInteger();
+        final List<Throwable> unexpected = new CopyOnWriteArrayList<Throwable>();
+
+        Thread[] threads = new Thread[16];
+
+        for (int idx = 0; idx < threads.length; ++idx) {
+            threads[idx] = new Thread() {
+                @Override
+                public void run() {
+                    for (int attempt = 0; attempt < 50; ++attempt) {
+                        int streamVersion = 1 + appended.get();
+
+                        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+                        events.add(new TestableDomainEvent(streamVersion, "Name: " + streamVersion));
+
+                        try {
+                            eventStore.appendWith(eventId.withStreamVersion(streamVersion), events);
+
+                            appended.incrementAndGet();
+
+                        } catch (EventStoreVersionException e) {
+                            conflicted.incrementAndGet();
+                        } catch (Throwable t) {
+                            unexpected.add(t);
+                        }
+                    }
+                }
+            };
+        }
+
+        for (Thread thread : threads) {
+            thread.start();
+        }
+
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(unexpected.isEmpty());
+        assertEquals(16 * 50, appended.get() + conflicted.get());
+
+        EventStream eventStream = this.eventStore.fullEventStreamFor(eventId);
+
+        assertEquals(appended.get(), eventStream.version());
+        assertEquals(appended.get(), eventStream.events().size());
+
+        // every version was written exactly once, and journal
+        // sequences were not consumed by rejected appends
+
+        assertEquals(appended.get(), this.eventStore.eventsSince(0).size());
+    }
+
+    public void testGroupCommitAppends() throws Exception {
+        LevelDBJournal.instance().startGroupCommit(64, 5L, false);
+
+        try {
+            final List<Throwable> unexpected = new CopyOnWriteArrayList<Throwable>();
+
+            Thread[] threads = new Thread[8];
+
+            for (int idx = 0; idx < threads.length; ++idx) {
+                threads[idx] = new Thread() {
+                    @Override
+                    public void run() {
+                        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+                        for (int streamVersion = 1; streamVersion <= 25; ++streamVersion) {
+                            List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+                            events.add(new TestableDomainEvent(streamVersion, "Name: " + streamVersion));
+
+                            try {
+                                eventStore.appendWith(eventId.withStreamVersion(streamVersion), events);
+                            } catch (Throwable t) {
+                                unexpected.add(t);
+                            }
+                        }
+
+                        EventStream eventStream = eventStore.fullEventStreamFor(eventId);
+
+                        if (eventStream.version() != 25) {
+                            unexpected.add(new IllegalStateException("Wrong version: " + eventStream.version()));
+                        }
+                    }
+                };
+            }
+
+            for (Thread thread : threads) {
+                thread.start();
+            }
+
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            assertTrue(unexpected.isEmpty());
+
+            List<DispatchableDomainEvent> dispatchableDomainEvents = this.eventStore.eventsSince(0);
+
+            assertEquals(8 * 25, dispatchableDomainEvents.size());
+
+            for (int idx = 0; idx < dispatchableDomainEvents.size(); ++idx) {
+                assertEquals(idx + 1, dispatchableDomainEvents.get(idx).eventId());
+            }
+
+        } finally {
+            LevelDBJournal.instance().stopGroupCommit();
+        }
+    }
+
     public void testEventsSince() throws Exception {
         assertNotNull(this.eventStore);
 
@@ -124,6 +254,106 @@ public class LevelDBEventSourcingEventStoreTest extends TestCase {
         assertEquals(8, loggedEvents.size());
     }
 
+    public void testEventsSinceMaximumCount() throws Exception {
+        assertNotNull(this.eventStore);
+
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, events);
+
+        List<DispatchableDomainEvent> loggedEvents = this.eventStore.eventsSince(2, 5);
+
+        assertEquals(5, loggedEvents.size());
+        assertEquals(3, loggedEvents.get(0).eventId());
+        assertEquals(7, loggedEvents.get(4).eventId());
+        assertEquals(eventId.streamName(), loggedEvents.get(0).streamName());
+
+        loggedEvents = this.eventStore.eventsSince(7, 5);
+
+        assertEquals(3, loggedEvents.size());
+        assertEquals(10, loggedEvents.get(2).eventId());
+
+        assertTrue(this.eventStore.eventsSince(10, 5).isEmpty());
+        assertTrue(this.eventStore.eventsSince(0, 0).isEmpty());
+    }
+
+    public void testEventStreamAfter() throws Exception {
+        assertNotNull(this.eventStore);
+
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, events);
+
+        for (int idx = 0; idx < 10; ++idx) {
+            EventStream eventStream = this.eventStore.eventStreamAfter(eventId.withStreamVersion(idx));
+
+            assertEquals(10, eventStream.version());
+            assertEquals(10 - idx, eventStream.events().size());
+
+            DomainEvent domainEvent = eventStream.events().get(0);
+
+            assertEquals(idx + 1, ((TestableDomainEvent) domainEvent).id());
+        }
+
+        EventStream eventStream = this.eventStore.eventStreamAfter(eventId.withStreamVersion(10));
+
+        assertEquals(10, eventStream.version());
+        assertTrue(eventStream.events().isEmpty());
+    }
+
+    public void testEventStreamCursorFrom() throws Exception {
+        assertNotNull(this.eventStore);
+
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        for (int idx = 1; idx <= 10; ++idx) {
+            events.add(new TestableDomainEvent(idx, "Name: " + idx));
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, events);
+
+        EventStreamCursor eventStream = this.eventStore.eventStreamCursorFrom(eventId.withStreamVersion(4));
+
+        try {
+            TestableEventSourcedRootEntity rootEntity =
+                    new TestableEventSourcedRootEntity(
+                            new TestableEventSourcedRootEntity(1, "Name: 1"),
+                            eventStream);
+
+            assertEquals(10, eventStream.version());
+            assertEquals(10, rootEntity.unmutatedVersion());
+            assertEquals(1 + 7, rootEntity.count());
+            assertEquals(10, rootEntity.lastId());
+
+        } finally {
+            eventStream.close();
+        }
+
+        eventStream = this.eventStore.eventStreamCursorFrom(eventId.withStreamVersion(11));
+
+        try {
+            assertFalse(eventStream.hasNext());
+            assertEquals(10, eventStream.version());
+
+        } finally {
+            eventStream.close();
+        }
+    }
+
     public void testEventStreamSince() throws Exception {
         assertNotNull(this.eventStore);
 
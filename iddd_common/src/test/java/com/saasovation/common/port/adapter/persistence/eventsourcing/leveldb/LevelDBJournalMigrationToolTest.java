@@ -0,0 +1,156 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import org.iq80.leveldb.DB;
+import org.iq80.leveldb.Options;
+import org.iq80.leveldb.impl.Iq80DBFactory;
+
+import com.saasovation.common.domain.model.DomainEvent;
+import com.saasovation.common.event.EventSerializer;
+import com.saasovation.common.event.TestableDomainEvent;
+import com.saasovation.common.event.sourcing.DispatchableDomainEvent;
+import com.saasovation.common.event.sourcing.EventStore;
+import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamId;
+
+public class LevelDBJournalMigrationToolTest extends TestCase {
+
+    protected static final String TEST_DATABASE = LevelDBJournalMigrationToolTest.class.getResource("/").getPath() + "/data/leveldb/esMigration";
+
+    private EventStore eventStore;
+
+    public LevelDBJournalMigrationToolTest() {
+        super();
+    }
+
+    public void testMigrateOriginalJournal() throws Exception {
+        String streamName = UUID.randomUUID().toString();
+
+        DB database = new Iq80DBFactory().open(new File(TEST_DATABASE), this.options());
+
+        try {
+            for (int idx = 1; idx <= 12; ++idx) {
+                DomainEvent domainEvent = new TestableDomainEvent(idx, "Name: " + idx);
+
+                String referenceKey = JournalKeyProvider.ES_REFERENCE_PREFIX_KEY + streamName + ":" + idx;
+
+                String journalValue =
+                        referenceKey
+                        + "#" + domainEvent.getClass().getName()
+                        + "#" + EventSerializer.instance().serialize(domainEvent);
+
+                database.put((JournalKeyProvider.ES_JOURNAL_PREFIX_KEY + idx).getBytes(), journalValue.getBytes());
+                database.put(referenceKey.getBytes(), ("" + idx).getBytes());
+            }
+
+            database.put((JournalKeyProvider.ES_JOURNAL_PREFIX_KEY + "0").getBytes(), "12".getBytes());
+
+        } finally {
+            database.close();
+        }
+
+        this.eventStore = LevelDBEventStore.instance(TEST_DATABASE);
+
+        EventStream eventStream = this.eventStore.fullEventStreamFor(new EventStreamId(streamName));
+
+        assertEquals(12, eventStream.version());
+        assertEquals(12, eventStream.events().size());
+
+        for (int idx = 1; idx <= 12; ++idx) {
+            assertEquals(idx, ((TestableDomainEvent) eventStream.events().get(idx - 1)).id());
+        }
+
+        List<DispatchableDomainEvent> dispatchableDomainEvents = this.eventStore.eventsSince(10);
+
+        assertEquals(2, dispatchableDomainEvents.size());
+        assertEquals(11, dispatchableDomainEvents.get(0).eventId());
+        assertEquals(12, dispatchableDomainEvents.get(1).eventId());
+
+        // the journal sequence survives migration
+
+        this.eventStore.appendWith(
+                new EventStreamId(streamName, 13),
+                this.events(new TestableDomainEvent(13, "Name: 13")));
+
+        dispatchableDomainEvents = this.eventStore.eventsSince(12);
+
+        assertEquals(1, dispatchableDomainEvents.size());
+        assertEquals(13, dispatchableDomainEvents.get(0).eventId());
+    }
+
+    public void testMigrateMigratedJournal() throws Exception {
+        String streamName = UUID.randomUUID().toString();
+
+        this.eventStore = LevelDBEventStore.instance(TEST_DATABASE);
+
+        this.eventStore.appendWith(
+                new EventStreamId(streamName, 1),
+                this.events(new TestableDomainEvent(1, "Name: 1")));
+
+        this.eventStore.close();
+
+        DB database = new Iq80DBFactory().open(new File(TEST_DATABASE), this.options());
+
+        try {
+            LevelDBJournalMigrationTool migrationTool = new LevelDBJournalMigrationTool(database);
+
+            migrationTool.migrateDatabase();
+
+            assertEquals(0, migrationTool.migratedEntries());
+
+        } finally {
+            database.close();
+        }
+
+        this.eventStore = LevelDBEventStore.instance(TEST_DATABASE);
+
+        assertEquals(1, this.eventStore.fullEventStreamFor(new EventStreamId(streamName)).version());
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        if (this.eventStore != null) {
+            this.eventStore.purge();
+
+            this.eventStore.close();
+        }
+
+        super.tearDown();
+    }
+
+    private List<DomainEvent> events(DomainEvent aDomainEvent) {
+        List<DomainEvent> events = new ArrayList<DomainEvent>();
+
+        events.add(aDomainEvent);
+
+        return events;
+    }
+
+    private Options options() {
+        Options options = new Options();
+
+        options.createIfMissing(true);
+
+        return options;
+    }
+}
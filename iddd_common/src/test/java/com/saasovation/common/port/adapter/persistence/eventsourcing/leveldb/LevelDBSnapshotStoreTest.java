@@ -0,0 +1,144 @@
+//   Copyright 2012,2013 Vaughn Vernon
+//
+//   Licensed under the Apache License, Version 2.0 (the "License");
+//   you may not use this file except in compliance with the License.
+//   You may obtain a copy of the License at
+//
+//       http://www.apache.org/licenses/LICENSE-2.0
+//
+//   Unless required by applicable law or agreed to in writing, software
+//   distributed under the License is distributed on an "AS IS" BASIS,
+//   WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+//   See the License for the specific language governing permissions and
+//   limitations under the License.
+
+
+package com.saasovation.common.port.adapter.persistence.eventsourcing.leveldb;
+
+import java.util.UUID;
+
+import junit.framework.TestCase;
+
+import com.saasovation.common.domain.model.TestableEventSourcedRootEntity;
+import com.saasovation.common.event.sourcing.EventStore;
+import com.saasovation.common.event.sourcing.EventStream;
+import com.saasovation.common.event.sourcing.EventStreamId;
+import com.saasovation.common.event.sourcing.Snapshot;
+import com.saasovation.common.event.sourcing.SnapshotSerializer;
+import com.saasovation.common.event.sourcing.SnapshotStore;
+
+public class LevelDBSnapshotStoreTest extends TestCase {
+
+    protected static final String TEST_DATABASE = LevelDBSnapshotStoreTest.class.getResource("/").getPath() + "/data/leveldb/esSnapshotStore";
+
+    private EventStore eventStore;
+    private SnapshotStore snapshotStore;
+
+    public LevelDBSnapshotStoreTest() {
+        super();
+    }
+
+    public void testNoSnapshot() throws Exception {
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        assertNull(this.snapshotStore.snapshotOf(eventId));
+    }
+
+    public void testSaveSnapshot() throws Exception {
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString(), 10);
+
+        this.snapshotStore.save(new Snapshot(eventId, "TestType", "{\"state\":10}"));
+
+        Snapshot snapshot = this.snapshotStore.snapshotOf(eventId);
+
+        assertNotNull(snapshot);
+        assertEquals(eventId.streamName(), snapshot.streamName());
+        assertEquals(10, snapshot.streamVersion());
+        assertEquals("TestType", snapshot.typeName());
+        assertEquals("{\"state\":10}", snapshot.state());
+
+        this.snapshotStore.save(new Snapshot(eventId.withStreamVersion(20), "TestType", "{\"state\":20}"));
+
+        assertEquals(20, this.snapshotStore.snapshotOf(eventId).streamVersion());
+
+        // a stale snapshot never replaces a more recent one
+
+        this.snapshotStore.save(new Snapshot(eventId.withStreamVersion(15), "TestType", "{\"state\":15}"));
+
+        snapshot = this.snapshotStore.snapshotOf(eventId);
+
+        assertEquals(20, snapshot.streamVersion());
+        assertEquals("{\"state\":20}", snapshot.state());
+    }
+
+    public void testRestoreFromSnapshot() throws Exception {
+        TestableEventSourcedRootEntity rootEntity = new TestableEventSourcedRootEntity(1, "Name: 1");
+
+        for (int idx = 2; idx <= 5; ++idx) {
+            rootEntity.change(idx, "Name: " + idx);
+        }
+
+        EventStreamId eventId = new EventStreamId(UUID.randomUUID().toString());
+
+        this.eventStore.appendWith(eventId, rootEntity.mutatingEvents());
+
+        this.snapshotStore.save(
+                SnapshotSerializer
+                    .instance()
+                    .serialize(eventId.withStreamVersion(5), rootEntity));
+
+        EventStream eventStream = this.eventStore.fullEventStreamFor(eventId);
+
+        rootEntity = new TestableEventSourcedRootEntity(eventStream.events(), eventStream.version());
+
+        for (int idx = 6; idx <= 7; ++idx) {
+            rootEntity.change(idx, "Name: " + idx);
+        }
+
+        this.eventStore.appendWith(eventId.withStreamVersion(rootEntity.mutatedVersion()), rootEntity.mutatingEvents());
+
+        Snapshot snapshot = this.snapshotStore.snapshotOf(eventId);
+
+        assertEquals(5, snapshot.streamVersion());
+
+        eventStream = this.eventStore.eventStreamAfter(snapshot.streamId());
+
+        assertEquals(2, eventStream.events().size());
+
+        TestableEventSourcedRootEntity restoredRootEntity =
+                new TestableEventSourcedRootEntity(
+                        SnapshotSerializer
+                            .instance()
+                            .deserialize(snapshot, TestableEventSourcedRootEntity.class),
+                        eventStream.events(),
+                        eventStream.version());
+
+        assertEquals(7, restoredRootEntity.count());
+        assertEquals(7, restoredRootEntity.lastId());
+        assertEquals("Name: 7", restoredRootEntity.lastName());
+        assertEquals(7, restoredRootEntity.unmutatedVersion());
+        assertTrue(restoredRootEntity.mutatingEvents().isEmpty());
+    }
+
+    @Override
+    protected void setUp() throws Exception {
+        this.eventStore = LevelDBEventStore.instance(TEST_DATABASE + "_es");
+
+        this.snapshotStore = LevelDBSnapshotStore.instance(TEST_DATABASE);
+
+        super.setUp();
+    }
+
+    @Override
+    protected void tearDown() throws Exception {
+        this.snapshotStore.purge();
+
+        this.snapshotStore.close();
+
+        this.eventStore.purge();
+
+        this.eventStore.close();
+
+        super.tearDown();
+    }
+}
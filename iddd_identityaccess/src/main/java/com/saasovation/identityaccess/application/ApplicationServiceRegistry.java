@@ -18,6 +18,8 @@ import org.springframework.beans.BeansException;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 
+import com.saasovation.common.notification.NotificationLogCache;
+
 public class ApplicationServiceRegistry implements ApplicationContextAware  {
 
     private static ApplicationContext applicationContext;
@@ -34,6 +36,10 @@ public class ApplicationServiceRegistry implements ApplicationContextAware  {
         return (NotificationApplicationService) applicationContext.getBean("notificationApplicationService");
     }
 
+    public static NotificationLogCache notificationLogCache() {
+        return (NotificationLogCache) applicationContext.getBean("notificationLogCache");
+    }
+
     @Override
     public synchronized void setApplicationContext(
             ApplicationContext anApplicationContext)
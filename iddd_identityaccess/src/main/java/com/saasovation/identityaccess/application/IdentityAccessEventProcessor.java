@@ -17,11 +17,14 @@ package com.saasovation.identityaccess.application;
 import org.aspectj.lang.annotation.Aspect;
 import org.aspectj.lang.annotation.Before;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
 import com.saasovation.common.domain.model.DomainEvent;
 import com.saasovation.common.domain.model.DomainEventPublisher;
 import com.saasovation.common.domain.model.DomainEventSubscriber;
 import com.saasovation.common.event.EventStore;
+import com.saasovation.common.notification.NotificationLogCache;
 
 @Aspect
 public class IdentityAccessEventProcessor {
@@ -29,6 +32,9 @@ public class IdentityAccessEventProcessor {
     @Autowired
     private EventStore eventStore;
 
+    @Autowired(required=false)
+    private NotificationLogCache notificationLogCache;
+
     /**
      * Registers a IdentityAccessEventProcessor to listen
      * and forward all domain events to external subscribers.
@@ -71,6 +77,33 @@ public class IdentityAccessEventProcessor {
      */
     private void store(DomainEvent aDomainEvent) {
         this.eventStore().append(aDomainEvent);
+
+        this.invalidateCurrentNotificationLog();
+    }
+
+    /**
+     * Invalidates the cached current notification log, both now
+     * and once the appending transaction completes, since a log
+     * queried in between cannot yet see the appended event.
+     */
+    private void invalidateCurrentNotificationLog() {
+        final NotificationLogCache notificationLogCache = this.notificationLogCache();
+
+        if (notificationLogCache == null) {
+            return;
+        }
+
+        notificationLogCache.invalidateCurrentNotificationLog();
+
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(
+                    new TransactionSynchronizationAdapter() {
+                        @Override
+                        public void afterCompletion(int aStatus) {
+                            notificationLogCache.invalidateCurrentNotificationLog();
+                        }
+                    });
+        }
     }
 
     /**
@@ -80,4 +113,12 @@ public class IdentityAccessEventProcessor {
     private EventStore eventStore() {
         return this.eventStore;
     }
+
+    /**
+     * Answers my NotificationLogCache, if any.
+     * @return NotificationLogCache
+     */
+    private NotificationLogCache notificationLogCache() {
+        return this.notificationLogCache;
+    }
 }
@@ -31,22 +31,37 @@ public class NotificationApplicationService {
     @Autowired
     private NotificationPublisher notificationPublisher;
 
+    private int bulkNotificationsPerLog;
+    private int notificationsPerLog;
+
     public NotificationApplicationService() {
+        this(NotificationLogFactory.notificationsPerLog(), NotificationLogFactory.bulkNotificationsPerLog());
+    }
+
+    public NotificationApplicationService(int aNotificationsPerLog, int aBulkNotificationsPerLog) {
         super();
+
+        this.bulkNotificationsPerLog = aBulkNotificationsPerLog;
+        this.notificationsPerLog = aNotificationsPerLog;
+    }
+
+    public String bulkNotificationLogIdAfter(long aNotificationIdAfter) {
+        // bulk logs are aligned to their size, so that each
+        // has a stable id whatever the id it was asked after
+
+        return NotificationLogId
+                .containing(aNotificationIdAfter + 1, this.bulkNotificationsPerLog())
+                .encoded();
     }
 
     @Transactional(readOnly=true)
     public NotificationLog currentNotificationLog() {
-        NotificationLogFactory factory = new NotificationLogFactory(this.eventStore());
-
-        return factory.createCurrentNotificationLog();
+        return this.notificationLogFactory().createCurrentNotificationLog();
     }
 
     @Transactional(readOnly=true)
     public NotificationLog notificationLog(String aNotificationLogId) {
-        NotificationLogFactory factory = new NotificationLogFactory(this.eventStore());
-
-        return factory.createNotificationLog(new NotificationLogId(aNotificationLogId));
+        return this.notificationLogFactory().createNotificationLog(new NotificationLogId(aNotificationLogId));
     }
 
     @Transactional
@@ -61,4 +76,19 @@ public class NotificationApplicationService {
     protected NotificationPublisher notificationPublisher() {
         return this.notificationPublisher;
     }
+
+    private int bulkNotificationsPerLog() {
+        return this.bulkNotificationsPerLog;
+    }
+
+    private NotificationLogFactory notificationLogFactory() {
+        return new NotificationLogFactory(
+                this.eventStore(),
+                this.notificationsPerLog(),
+                Math.max(this.notificationsPerLog(), this.bulkNotificationsPerLog()));
+    }
+
+    private int notificationsPerLog() {
+        return this.notificationsPerLog;
+    }
 }
@@ -20,6 +20,7 @@ import java.security.MessageDigest;
 import javax.ws.rs.core.CacheControl;
 import javax.ws.rs.core.EntityTag;
 
+import com.saasovation.common.notification.NotificationLogCache;
 import com.saasovation.identityaccess.application.AccessApplicationService;
 import com.saasovation.identityaccess.application.ApplicationServiceRegistry;
 import com.saasovation.identityaccess.application.IdentityApplicationService;
@@ -50,6 +51,10 @@ public class AbstractResource {
         return ApplicationServiceRegistry.notificationApplicationService();
     }
 
+    protected NotificationLogCache notificationLogCache() {
+        return ApplicationServiceRegistry.notificationLogCache();
+    }
+
     protected EntityTag userETag(User aUser) {
 
         EntityTag tag = null;
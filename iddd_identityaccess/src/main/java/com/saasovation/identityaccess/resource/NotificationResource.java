@@ -14,19 +14,26 @@
 
 package com.saasovation.identityaccess.resource;
 
+import javax.ws.rs.DefaultValue;
 import javax.ws.rs.GET;
 import javax.ws.rs.Path;
 import javax.ws.rs.PathParam;
 import javax.ws.rs.Produces;
+import javax.ws.rs.QueryParam;
 import javax.ws.rs.WebApplicationException;
 import javax.ws.rs.core.Context;
+import javax.ws.rs.core.EntityTag;
+import javax.ws.rs.core.Request;
 import javax.ws.rs.core.Response;
+import javax.ws.rs.core.Response.ResponseBuilder;
 import javax.ws.rs.core.UriBuilder;
 import javax.ws.rs.core.UriInfo;
 
 import com.saasovation.common.media.Link;
 import com.saasovation.common.media.OvationsMediaType;
+import com.saasovation.common.notification.CachedNotificationLog;
 import com.saasovation.common.notification.NotificationLog;
+import com.saasovation.common.notification.NotificationLogId;
 import com.saasovation.common.serializer.ObjectSerializer;
 import com.saasovation.identityaccess.application.representation.NotificationLogRepresentation;
 
@@ -40,91 +47,108 @@ public class NotificationResource extends AbstractResource {
     @GET
     @Produces({ OvationsMediaType.ID_OVATION_TYPE })
     public Response getCurrentNotificationLog(
-            @Context UriInfo aUriInfo) {
+            @Context UriInfo aUriInfo,
+            @Context Request aRequest) {
 
-        NotificationLog currentNotificationLog =
-            this.notificationApplicationService()
-                .currentNotificationLog();
+        String renderedFor = aUriInfo.getBaseUri().toString();
 
-        if (currentNotificationLog == null) {
-            throw new WebApplicationException(Response.Status.NOT_FOUND);
-        }
+        CachedNotificationLog cachedNotificationLog =
+            this.notificationLogCache()
+                .currentNotificationLog(renderedFor);
 
-        Response response =
-            this.currentNotificationLogResponse(
-                    currentNotificationLog,
-                    aUriInfo);
+        if (cachedNotificationLog == null) {
+            long appendsBeforeQuery = this.notificationLogCache().appends();
 
-        return response;
-    }
+            NotificationLog currentNotificationLog =
+                this.notificationApplicationService()
+                    .currentNotificationLog();
 
-    @GET
-    @Path("{notificationId}")
-    @Produces({ OvationsMediaType.ID_OVATION_TYPE })
-    public Response getNotificationLog(
-            @PathParam("notificationId") String aNotificationId,
-            @Context UriInfo aUriInfo) {
+            if (currentNotificationLog == null) {
+                throw new WebApplicationException(Response.Status.NOT_FOUND);
+            }
 
-        NotificationLog notificationLog =
-            this.notificationApplicationService()
-                .notificationLog(aNotificationId);
+            cachedNotificationLog =
+                new CachedNotificationLog(
+                        renderedFor,
+                        this.serializedCurrentNotificationLog(
+                                currentNotificationLog,
+                                aUriInfo));
 
-        if (notificationLog == null) {
-            throw new WebApplicationException(Response.Status.NOT_FOUND);
+            this.notificationLogCache()
+                .cacheCurrentNotificationLog(
+                        cachedNotificationLog,
+                        appendsBeforeQuery);
         }
 
         Response response =
-            this.notificationLogResponse(
-                    notificationLog,
-                    aUriInfo);
+            this.cachedNotificationLogResponse(
+                    aRequest,
+                    cachedNotificationLog,
+                    60);
 
         return response;
     }
 
-    private Response currentNotificationLogResponse(
-            NotificationLog aCurrentNotificationLog,
-            UriInfo aUriInfo) {
-
-        NotificationLogRepresentation log =
-            new NotificationLogRepresentation(aCurrentNotificationLog);
-
-        log.setLinkSelf(
-                this.selfLink(aCurrentNotificationLog, aUriInfo));
-
-        log.setLinkPrevious(
-            this.previousLink(aCurrentNotificationLog, aUriInfo));
+    @GET
+    @Path("bulk")
+    @Produces({ OvationsMediaType.ID_OVATION_TYPE })
+    public Response getBulkNotificationLog(
+            @QueryParam("after") @DefaultValue("0") long aNotificationIdAfter,
+            @Context UriInfo aUriInfo,
+            @Context Request aRequest) {
 
-        String serializedLog = ObjectSerializer.instance().serialize(log);
+        // a consumer catching up follows the next links of
+        // bulk logs, which are bulk logs themselves
 
-        Response response =
-            Response
-                .ok(serializedLog)
-                .cacheControl(this.cacheControlFor(60))
-                .build();
+        String bulkNotificationLogId =
+            this.notificationApplicationService()
+                .bulkNotificationLogIdAfter(aNotificationIdAfter);
 
-        return response;
+        return this.notificationLogResponse(
+                bulkNotificationLogId,
+                aUriInfo,
+                aRequest);
     }
 
-    private Response notificationLogResponse(
-            NotificationLog aNotificationLog,
-            UriInfo aUriInfo) {
-
-        NotificationLogRepresentation log =
-            new NotificationLogRepresentation(aNotificationLog);
-
-        log.setLinkSelf(this.selfLink(aNotificationLog, aUriInfo));
-
-        log.setLinkNext(this.nextLink(aNotificationLog, aUriInfo));
-
-        log.setLinkPrevious(this.previousLink(aNotificationLog, aUriInfo));
+    @GET
+    @Path("{notificationId}")
+    @Produces({ OvationsMediaType.ID_OVATION_TYPE })
+    public Response getNotificationLog(
+            @PathParam("notificationId") String aNotificationId,
+            @Context UriInfo aUriInfo,
+            @Context Request aRequest) {
 
-        String serializedLog = ObjectSerializer.instance().serialize(log);
+        return this.notificationLogResponse(
+                aNotificationId,
+                aUriInfo,
+                aRequest);
+    }
 
-        Response response =
-            Response
-                .ok(serializedLog)
-                .cacheControl(this.cacheControlFor(3600))
-                .build();
+    private Response cachedNotificationLogResponse(
+            Request aRequest,
+            CachedNotificationLog aCachedNotificationLog,
+            int aMaximumAge) {
+
+        Response response = null;
+
+        EntityTag eTag = new EntityTag(aCachedNotificationLog.eTag());
+
+        ResponseBuilder conditionalBuilder = aRequest.evaluatePreconditions(eTag);
+
+        if (conditionalBuilder != null) {
+            response =
+                conditionalBuilder
+                    .cacheControl(this.cacheControlFor(aMaximumAge))
+                    .tag(eTag)
+                    .build();
+        } else {
+            response =
+                Response
+                    .ok(aCachedNotificationLog.representation())
+                    .cacheControl(this.cacheControlFor(aMaximumAge))
+                    .tag(eTag)
+                    .build();
+        }
 
         return response;
     }
@@ -167,6 +191,64 @@ public class NotificationResource extends AbstractResource {
                     aUriInfo);
     }
 
+    private Response notificationLogResponse(
+            String aNotificationId,
+            UriInfo aUriInfo,
+            Request aRequest) {
+
+        String renderedFor = aUriInfo.getBaseUri().toString();
+
+        // an archived log never changes, so once cached it is
+        // served without reading the event store
+
+        CachedNotificationLog cachedNotificationLog = null;
+
+        NotificationLog notificationLog = null;
+
+        try {
+            cachedNotificationLog =
+                this.notificationLogCache()
+                    .archivedNotificationLogOf(
+                            new NotificationLogId(aNotificationId),
+                            renderedFor);
+
+            if (cachedNotificationLog == null) {
+                notificationLog =
+                    this.notificationApplicationService()
+                        .notificationLog(aNotificationId);
+            }
+
+        } catch (IllegalArgumentException e) {
+            throw new WebApplicationException(Response.Status.BAD_REQUEST);
+        }
+
+        if (cachedNotificationLog == null) {
+            if (notificationLog == null) {
+                throw new WebApplicationException(Response.Status.NOT_FOUND);
+            }
+
+            cachedNotificationLog =
+                new CachedNotificationLog(
+                        renderedFor,
+                        this.serializedNotificationLog(
+                                notificationLog,
+                                aUriInfo));
+
+            this.notificationLogCache()
+                .cacheArchivedNotificationLog(
+                        notificationLog,
+                        cachedNotificationLog);
+        }
+
+        Response response =
+            this.cachedNotificationLogResponse(
+                    aRequest,
+                    cachedNotificationLog,
+                    3600);
+
+        return response;
+    }
+
     private Link previousLink(
             NotificationLog aNotificationLog,
             UriInfo aUriInfo) {
@@ -187,4 +269,36 @@ public class NotificationResource extends AbstractResource {
                     aNotificationLog.notificationLogId(),
                     aUriInfo);
     }
+
+    private String serializedCurrentNotificationLog(
+            NotificationLog aCurrentNotificationLog,
+            UriInfo aUriInfo) {
+
+        NotificationLogRepresentation log =
+            new NotificationLogRepresentation(aCurrentNotificationLog);
+
+        log.setLinkSelf(
+                this.selfLink(aCurrentNotificationLog, aUriInfo));
+
+        log.setLinkPrevious(
+            this.previousLink(aCurrentNotificationLog, aUriInfo));
+
+        return ObjectSerializer.instance().serialize(log);
+    }
+
+    private String serializedNotificationLog(
+            NotificationLog aNotificationLog,
+            UriInfo aUriInfo) {
+
+        NotificationLogRepresentation log =
+            new NotificationLogRepresentation(aNotificationLog);
+
+        log.setLinkSelf(this.selfLink(aNotificationLog, aUriInfo));
+
+        log.setLinkNext(this.nextLink(aNotificationLog, aUriInfo));
+
+        log.setLinkPrevious(this.previousLink(aNotificationLog, aUriInfo));
+
+        return ObjectSerializer.instance().serialize(log);
+    }
 }
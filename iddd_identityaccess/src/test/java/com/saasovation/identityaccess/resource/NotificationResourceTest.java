@@ -20,6 +20,7 @@ import org.jboss.resteasy.client.ClientResponse;
 import com.saasovation.common.domain.model.DomainEventPublisher;
 import com.saasovation.common.media.Link;
 import com.saasovation.common.notification.NotificationLog;
+import com.saasovation.common.notification.NotificationLogId;
 import com.saasovation.common.notification.NotificationLogReader;
 import com.saasovation.common.notification.NotificationReader;
 import com.saasovation.identityaccess.application.ApplicationServiceRegistry;
@@ -208,6 +209,77 @@ public class NotificationResourceTest extends ResourceTestCase {
         assertTrue(count >= 1);
     }
 
+    public void testBulkNotificationLog() throws Exception {
+        this.generateUserEvents();
+
+        String bulkNotificationLogId =
+            ApplicationServiceRegistry
+                .notificationApplicationService()
+                .bulkNotificationLogIdAfter(0);
+
+        String url = "http://localhost:" + PORT + "/notifications/bulk?after=0";
+
+        ClientRequest request = new ClientRequest(url);
+        ClientResponse<String> response = request.get(String.class);
+        assertEquals(200, response.getStatus());
+        String serializedNotifications = response.getEntity();
+
+        NotificationLogReader log = new NotificationLogReader(serializedNotifications);
+
+        assertEquals(bulkNotificationLogId, log.id());
+        assertTrue(log.hasSelf());
+        assertTrue(log.size() > 0);
+
+        NotificationLogId logId = new NotificationLogId(log.id());
+
+        for (NotificationReader notification : log) {
+            assertTrue(notification.notificationId() >= logId.low());
+            assertTrue(notification.notificationId() <= logId.high());
+        }
+    }
+
+    public void testMalformedNotificationLogId() throws Exception {
+        String[] malformedIds = { "1", "one,twenty", "20,1" };
+
+        for (String malformedId : malformedIds) {
+            String url = "http://localhost:" + PORT + "/notifications/" + malformedId;
+
+            ClientRequest request = new ClientRequest(url);
+            ClientResponse<String> response = request.get(String.class);
+            assertEquals(400, response.getStatus());
+        }
+    }
+
+    public void testNotModifiedNotificationLog() throws Exception {
+        this.generateUserEvents();
+
+        String url = "http://localhost:" + PORT + "/notifications";
+
+        ClientRequest request = new ClientRequest(url);
+        ClientResponse<String> response = request.get(String.class);
+        assertEquals(200, response.getStatus());
+
+        NotificationLogReader log = new NotificationLogReader(response.getEntity());
+
+        assertTrue(log.hasPrevious());
+
+        // an archived log is served with an entity tag, and
+        // not again to a client that already holds it
+
+        request = new ClientRequest(log.previous().getHref());
+        response = request.get(String.class);
+        assertEquals(200, response.getStatus());
+
+        String eTag = response.getHeaders().getFirst("ETag");
+
+        assertNotNull(eTag);
+
+        request = new ClientRequest(log.previous().getHref());
+        request.header("If-None-Match", eTag);
+        response = request.get(String.class);
+        assertEquals(304, response.getStatus());
+    }
+
     private void generateUserEvents() {
         Tenant tenant = this.tenantAggregate();
         Person person = this.userAggregate().person();
@@ -22,6 +22,7 @@ import javax.ws.rs.core.MultivaluedMap;
 
 import org.jboss.resteasy.plugins.server.tjws.TJWSEmbeddedJaxrsServer;
 
+import com.saasovation.identityaccess.application.ApplicationServiceRegistry;
 import com.saasovation.identityaccess.application.ApplicationServiceTest;
 import com.saasovation.identityaccess.resource.GroupResource;
 import com.saasovation.identityaccess.resource.NotificationResource;
@@ -63,6 +64,9 @@ public abstract class ResourceTestCase extends ApplicationServiceTest {
 
         this.setServer(null);
 
+        // the events of each test are rolled back
+        ApplicationServiceRegistry.notificationLogCache().clear();
+
         super.tearDown();
     }
 